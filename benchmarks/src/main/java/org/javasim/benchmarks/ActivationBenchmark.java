@@ -0,0 +1,134 @@
+/*
+ * Copyright 1990-2008, Mark Little, University of Newcastle upon Tyne
+ * and others contributors as indicated 
+ * by the @authors tag. All rights reserved. 
+ * See the copyright.txt in the distribution for a
+ * full listing of individual contributors. 
+ * This copyrighted material is made available to anyone wishing to use,
+ * modify, copy, or redistribute it subject to the terms and conditions
+ * of the GNU Lesser General Public License, v. 2.1.
+ * This program is distributed in the hope that it will be useful, but WITHOUT A 
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR A 
+ * PARTICULAR PURPOSE.  See the GNU Lesser General Public License for more details.
+ * You should have received a copy of the GNU Lesser General Public License,
+ * v.2.1 along with this distribution; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, 
+ * MA  02110-1301, USA.
+ * 
+ * (C) 1990-2008,
+ */
+
+
+package org.javasim.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.javasim.Simulation;
+import org.javasim.SimulationContext;
+import org.javasim.SimulationProcess;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * The scheduler operations which a running model performs on processes
+ * other than itself: cancelling and activating them again, and moving them
+ * with reactivateAt, with or without 'prior'. A population of processes,
+ * none of which is ever started, is spread over only TIES distinct times,
+ * so that most operations land among many entries with the same time.
+ */
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ActivationBenchmark
+{
+    @Param({ "LIST", "HEAP", "CALENDAR", "LADDER" })
+    public String queueType;
+
+    @Param({ "100", "10000" })
+    public int processes;
+
+    static class Idle extends SimulationProcess
+    {
+        public void run ()
+        {
+        }
+    }
+
+    @Setup
+    public void setup () throws Exception
+    {
+        context = new SimulationContext();
+        previous = SimulationContext.bind(context);
+
+        context.setQueueType(Simulation.QueueType.valueOf(queueType));
+
+        population = new Idle[processes];
+
+        for (int i = 0; i < processes; i++)
+        {
+            population[i] = new Idle();
+            population[i].activateAt(i % ActivationBenchmark.TIES);
+        }
+
+        next = 0;
+    }
+
+    @TearDown
+    public void tearDown ()
+    {
+        SimulationContext.bind(previous);
+    }
+
+    @Benchmark
+    public void activateCancel () throws Exception
+    {
+        Idle p = pick();
+
+        p.cancel();
+        p.activateAt(next % ActivationBenchmark.TIES);
+    }
+
+    @Benchmark
+    public void reactivateAt () throws Exception
+    {
+        pick().reactivateAt(next % ActivationBenchmark.TIES, false);
+    }
+
+    @Benchmark
+    public void reactivateAtPrior () throws Exception
+    {
+        pick().reactivateAt(next % ActivationBenchmark.TIES, true);
+    }
+
+    private Idle pick ()
+    {
+        if (++next == processes)
+            next = 0;
+
+        return population[next];
+    }
+
+    private static final int TIES = 16;
+
+    private SimulationContext context;
+
+    private SimulationContext previous;
+
+    private Idle[] population;
+
+    private int next;
+}
@@ -0,0 +1,77 @@
+/*
+ * Copyright 1990-2008, Mark Little, University of Newcastle upon Tyne
+ * and others contributors as indicated 
+ * by the @authors tag. All rights reserved. 
+ * See the copyright.txt in the distribution for a
+ * full listing of individual contributors. 
+ * This copyrighted material is made available to anyone wishing to use,
+ * modify, copy, or redistribute it subject to the terms and conditions
+ * of the GNU Lesser General Public License, v. 2.1.
+ * This program is distributed in the hope that it will be useful, but WITHOUT A 
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR A 
+ * PARTICULAR PURPOSE.  See the GNU Lesser General Public License for more details.
+ * You should have received a copy of the GNU Lesser General Public License,
+ * v.2.1 along with this distribution; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, 
+ * MA  02110-1301, USA.
+ * 
+ * (C) 1990-2008,
+ */
+
+
+package org.javasim.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.javasim.parallel.ConservativeEngine;
+import org.javasim.parallel.Engine;
+import org.javasim.parallel.SequentialEngine;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * The PHOLD model of PholdBenchmark on the conservative engine, across a
+ * range of partition counts. Every message has a delay of at least
+ * PholdBenchmark.LOOKAHEAD, which is declared as the lookahead. A partitions
+ * value of 0 runs the model on the sequential scheduler (SequentialEngine)
+ * as the baseline.
+ */
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ConservativeBenchmark
+{
+    @Param({ "0", "1", "2", "4", "8", "16", "32" })
+    public int partitions;
+
+    @Param({ "256" })
+    public int processes;
+
+    @Param({ "0", "1000" })
+    public int work;
+
+    @Benchmark
+    public long phold () throws Exception
+    {
+        Engine engine = (partitions == 0) ? new SequentialEngine() : new ConservativeEngine(partitions, PholdBenchmark.LOOKAHEAD);
+
+        for (int i = 0; i < processes; i++)
+            engine.add(new PholdBenchmark.Phold(processes, work));
+
+        engine.run(PholdBenchmark.END);
+
+        return engine.committedEvents();
+    }
+}
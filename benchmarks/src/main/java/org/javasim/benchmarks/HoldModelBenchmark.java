@@ -0,0 +1,230 @@
+/*
+ * Copyright 1990-2008, Mark Little, University of Newcastle upon Tyne
+ * and others contributors as indicated 
+ * by the @authors tag. All rights reserved. 
+ * See the copyright.txt in the distribution for a
+ * full listing of individual contributors. 
+ * This copyrighted material is made available to anyone wishing to use,
+ * modify, copy, or redistribute it subject to the terms and conditions
+ * of the GNU Lesser General Public License, v. 2.1.
+ * This program is distributed in the hope that it will be useful, but WITHOUT A 
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR A 
+ * PARTICULAR PURPOSE.  See the GNU Lesser General Public License for more details.
+ * You should have received a copy of the GNU Lesser General Public License,
+ * v.2.1 along with this distribution; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, 
+ * MA  02110-1301, USA.
+ * 
+ * (C) 1990-2008,
+ */
+
+package org.javasim.benchmarks;
+
+import java.util.Arrays;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.javasim.SimulationContext;
+import org.javasim.SimulationProcess;
+import org.javasim.internal.CalendarQueue;
+import org.javasim.internal.EventNotice;
+import org.javasim.internal.EventQueue;
+import org.javasim.internal.LadderQueue;
+import org.javasim.internal.OrderedListQueue;
+import org.javasim.internal.RadixHeapQueue;
+import org.javasim.internal.SimulationProcessHeap;
+import org.javasim.internal.SimulationProcessList;
+import org.javasim.streams.ExponentialStream;
+import org.javasim.streams.HyperExponentialStream;
+import org.javasim.streams.RandomStream;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * The classic hold model: the queue is filled to a given size and each
+ * operation then removes the earliest entry and puts it back at that time
+ * plus a random increment, so the size stays constant.
+ * 
+ * PROCESSLIST is the SimulationProcessList which earlier releases used for
+ * the scheduler queue. It holds processes rather than notices, and a
+ * process's time can only be changed by rescheduling it, so each of its
+ * operations also includes a reactivateAt on a heap; at any size where
+ * the list matters that cost is small beside the list's own. LIST is
+ * QueueType.LIST, the ordered list of notices which replaced it. RADIX is
+ * the radix heap used for integer-timed simulations, with ticks of one
+ * unit of time, so its times are rounded to whole units.
+ * 
+ * The increments are drawn from an exponential distribution, from a
+ * hyperexponential one with a coefficient of variation of 10, whose long
+ * tail is hard on calendar queues, or are TIED: whole numbers from 0 to 3,
+ * so that thousands of entries share each time, as in models with integer
+ * delays.
+ */
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class HoldModelBenchmark
+{
+    @Param({ "PROCESSLIST", "LIST", "HEAP", "CALENDAR", "LADDER", "RADIX" })
+    public String queueType;
+
+    @Param({ "10", "100", "10000", "1000000" })
+    public int queueSize;
+
+    @Param({ "EXPONENTIAL", "HYPEREXPONENTIAL", "TIED" })
+    public String distribution;
+
+    static class Idle extends SimulationProcess
+    {
+        public void run ()
+        {
+        }
+    }
+
+    @Setup
+    public void setup () throws Exception
+    {
+        Random r = new Random(0x5eed);
+        RandomStream stream;
+
+        if ("HYPEREXPONENTIAL".equals(distribution))
+            stream = new HyperExponentialStream(HoldModelBenchmark.MEAN, 10.0 * HoldModelBenchmark.MEAN);
+        else
+            stream = new ExponentialStream(HoldModelBenchmark.MEAN);
+
+        increments = new double[HoldModelBenchmark.INCREMENTS];
+
+        boolean whole = "TIED".equals(distribution) || "RADIX".equals(queueType);
+
+        for (int i = 0; i < increments.length; i++)
+        {
+            if ("TIED".equals(distribution))
+                increments[i] = r.nextInt(4);
+            else
+                increments[i] = stream.getNumber();
+
+            if (whole)
+                increments[i] = Math.rint(increments[i]);
+        }
+
+        double[] times = new double[queueSize];
+
+        for (int i = 0; i < times.length; i++)
+        {
+            times[i] = increments[i % increments.length] * (1.0 + r.nextDouble());
+
+            if (whole)
+                times[i] = Math.rint(times[i]);
+        }
+
+        Arrays.sort(times);
+
+        next = 0;
+
+        if ("PROCESSLIST".equals(queueType))
+        {
+            context = new SimulationContext();
+            previous = SimulationContext.bind(context);
+            list = new SimulationProcessList();
+
+            /*
+             * SimulationProcessList searches from the head, so fill it from
+             * the latest time back to avoid taking quadratic time.
+             */
+
+            Idle[] processes = new Idle[times.length];
+
+            for (int i = 0; i < times.length; i++)
+            {
+                processes[i] = new Idle();
+                processes[i].activateAt(times[i]);
+            }
+
+            for (int i = times.length - 1; i >= 0; i--)
+                list.insert(processes[i]);
+
+            return;
+        }
+
+        /*
+         * Fill in time order so that setting up a large LIST does not take
+         * quadratic time.
+         */
+
+        queue = HoldModelBenchmark.create(queueType);
+
+        for (int i = 0; i < times.length; i++)
+            queue.insert(new EventNotice(null), times[i]);
+    }
+
+    @TearDown
+    public void tearDown ()
+    {
+        if (context != null)
+            SimulationContext.bind(previous);
+    }
+
+    @Benchmark
+    public Object hold () throws Exception
+    {
+        if (list != null)
+        {
+            SimulationProcess p = list.remove();
+
+            p.reactivateAt(p.evtime() + increments[next++ & (HoldModelBenchmark.INCREMENTS - 1)]);
+            list.insert(p);
+
+            return p;
+        }
+
+        EventNotice n = queue.remove();
+
+        queue.insert(n, n.evtime() + increments[next++ & (HoldModelBenchmark.INCREMENTS - 1)]);
+
+        return n;
+    }
+
+    static EventQueue create (String type)
+    {
+        if ("LIST".equals(type))
+            return new OrderedListQueue();
+        else if ("CALENDAR".equals(type))
+            return new CalendarQueue();
+        else if ("LADDER".equals(type))
+            return new LadderQueue();
+        else if ("RADIX".equals(type))
+            return new RadixHeapQueue(1.0);
+        else
+            return new SimulationProcessHeap();
+    }
+
+    private static final int INCREMENTS = 1 << 16;
+
+    private static final double MEAN = 100.0;
+
+    private EventQueue queue;
+
+    private SimulationProcessList list;
+
+    private SimulationContext context;
+
+    private SimulationContext previous;
+
+    private double[] increments;
+
+    private int next;
+}
@@ -0,0 +1,160 @@
+/*
+ * Copyright 1990-2008, Mark Little, University of Newcastle upon Tyne
+ * and others contributors as indicated 
+ * by the @authors tag. All rights reserved. 
+ * See the copyright.txt in the distribution for a
+ * full listing of individual contributors. 
+ * This copyrighted material is made available to anyone wishing to use,
+ * modify, copy, or redistribute it subject to the terms and conditions
+ * of the GNU Lesser General Public License, v. 2.1.
+ * This program is distributed in the hope that it will be useful, but WITHOUT A 
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR A 
+ * PARTICULAR PURPOSE.  See the GNU Lesser General Public License for more details.
+ * You should have received a copy of the GNU Lesser General Public License,
+ * v.2.1 along with this distribution; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, 
+ * MA  02110-1301, USA.
+ * 
+ * (C) 1990-2008,
+ */
+
+
+package org.javasim.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.javasim.SimulationContext;
+import org.javasim.SimulationEntity;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Events per second for SimulationEntity.interrupt. Each pair is a waiter,
+ * which calls timedWait for far longer than it will ever get, and an
+ * interrupter, which holds for one unit of time and then interrupts it.
+ * Each invocation runs EVENTS events from the benchmark thread with runFor.
+ * A non-zero wheel puts a timing wheel with that resolution in front of the
+ * scheduler queue.
+ */
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class InterruptBenchmark
+{
+    public static final int EVENTS = 1000;
+
+    public static final double TIMEOUT = 50.0;
+
+    @Param({ "1", "100" })
+    public int pairs;
+
+    @Param({ "0", "1" })
+    public double wheel;
+
+    static class Waiter extends SimulationEntity
+    {
+        public Waiter ()
+        {
+            setDaemon(true);
+        }
+
+        public void run ()
+        {
+            try
+            {
+                for (;;)
+                {
+                    try
+                    {
+                        timedWait(TIMEOUT);
+                    }
+                    catch (final InterruptedException ex)
+                    {
+                    }
+                }
+            }
+            catch (final Exception ex)
+            {
+            }
+        }
+    }
+
+    static class Interrupter extends SimulationEntity
+    {
+        public Interrupter (Waiter waiter)
+        {
+            this.waiter = waiter;
+
+            setDaemon(true);
+        }
+
+        public void run ()
+        {
+            try
+            {
+                for (;;)
+                {
+                    hold(1.0);
+
+                    interrupt(waiter, false);
+                }
+            }
+            catch (final Exception ex)
+            {
+            }
+        }
+
+        private final Waiter waiter;
+    }
+
+    @Setup
+    public void setup () throws Exception
+    {
+        context = new SimulationContext();
+        previous = SimulationContext.bind(context);
+
+        context.setTimerWheel(wheel);
+
+        for (int i = 0; i < pairs; i++)
+        {
+            Waiter waiter = new Waiter();
+
+            waiter.activate();
+            new Interrupter(waiter).activate();
+        }
+    }
+
+    @TearDown
+    public void tearDown () throws Exception
+    {
+        context.teardown();
+
+        SimulationContext.bind(previous);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(EVENTS)
+    public void interrupt () throws Exception
+    {
+        context.runFor(EVENTS);
+    }
+
+    private SimulationContext context;
+
+    private SimulationContext previous;
+}
@@ -0,0 +1,57 @@
+/*
+ * Copyright 1990-2008, Mark Little, University of Newcastle upon Tyne
+ * and others contributors as indicated 
+ * by the @authors tag. All rights reserved. 
+ * See the copyright.txt in the distribution for a
+ * full listing of individual contributors. 
+ * This copyrighted material is made available to anyone wishing to use,
+ * modify, copy, or redistribute it subject to the terms and conditions
+ * of the GNU Lesser General Public License, v. 2.1.
+ * This program is distributed in the hope that it will be useful, but WITHOUT A 
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR A 
+ * PARTICULAR PURPOSE.  See the GNU Lesser General Public License for more details.
+ * You should have received a copy of the GNU Lesser General Public License,
+ * v.2.1 along with this distribution; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, 
+ * MA  02110-1301, USA.
+ * 
+ * (C) 1990-2008,
+ */
+
+
+package org.javasim.benchmarks;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Runs the benchmarks as org.openjdk.jmh.Main does, taking the same
+ * options, except that unless told otherwise the results are also written
+ * as JSON to jmh-result.json, so that runs against different releases can
+ * be kept and compared.
+ */
+
+public class Main
+{
+    public static void main (String[] args) throws Exception
+    {
+        List<String> options = new ArrayList<String>(Arrays.asList(args));
+
+        if (!options.contains("-rf"))
+        {
+            options.add(0, "json");
+            options.add(0, "-rf");
+        }
+
+        if (!options.contains("-rff"))
+        {
+            options.add(0, Main.RESULTS);
+            options.add(0, "-rff");
+        }
+
+        org.openjdk.jmh.Main.main(options.toArray(new String[options.size()]));
+    }
+
+    private static final String RESULTS = "jmh-result.json";
+}
@@ -0,0 +1,135 @@
+/*
+ * Copyright 1990-2008, Mark Little, University of Newcastle upon Tyne
+ * and others contributors as indicated 
+ * by the @authors tag. All rights reserved. 
+ * See the copyright.txt in the distribution for a
+ * full listing of individual contributors. 
+ * This copyrighted material is made available to anyone wishing to use,
+ * modify, copy, or redistribute it subject to the terms and conditions
+ * of the GNU Lesser General Public License, v. 2.1.
+ * This program is distributed in the hope that it will be useful, but WITHOUT A 
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR A 
+ * PARTICULAR PURPOSE.  See the GNU Lesser General Public License for more details.
+ * You should have received a copy of the GNU Lesser General Public License,
+ * v.2.1 along with this distribution; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, 
+ * MA  02110-1301, USA.
+ * 
+ * (C) 1990-2008,
+ */
+
+
+package org.javasim.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.javasim.SimulationException;
+import org.javasim.parallel.Engine;
+import org.javasim.parallel.LogicalProcess;
+import org.javasim.parallel.Message;
+import org.javasim.parallel.SequentialEngine;
+import org.javasim.parallel.TimeWarpEngine;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * The PHOLD model, the usual yardstick for parallel simulation: a fixed
+ * population of messages, each of which is passed on to a logical process
+ * chosen at random after an exponential delay (plus a minimum). Each
+ * message handled does a given amount of busy work, to stand for the
+ * model. A threads value of 0 runs the model on the sequential scheduler
+ * (SequentialEngine), otherwise on the Time Warp engine with that many
+ * threads; every run handles the same events, so the ratio of times is the
+ * speed-up.
+ */
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PholdBenchmark
+{
+    public static final double END = 100.0;
+
+    public static final double LOOKAHEAD = 0.1;
+
+    @Param({ "0", "1", "2", "4", "8" })
+    public int threads;
+
+    @Param({ "256" })
+    public int processes;
+
+    @Param({ "0", "1000" })
+    public int work;
+
+    static class Phold extends LogicalProcess
+    {
+        public Phold (int size, int work)
+        {
+            this.size = size;
+            this.work = work;
+        }
+
+        protected void startup () throws SimulationException
+        {
+            for (int i = 0; i < POPULATION; i++)
+                send(identity(), LOOKAHEAD + random(), null);
+        }
+
+        protected void handle (Message message) throws SimulationException
+        {
+            double x = message.time();
+
+            for (int i = 0; i < work; i++)
+                x = x * 1.0000001 + 1.0;
+
+            sink += x;
+            count++;
+
+            send((int) (random() * size), LOOKAHEAD - Math.log(1.0 - random()), null);
+        }
+
+        protected Object saveState ()
+        {
+            return count;
+        }
+
+        protected void restoreState (Object state)
+        {
+            count = (Long) state;
+        }
+
+        private static final int POPULATION = 4;
+
+        private final int size;
+
+        private final int work;
+
+        private long count = 0;
+
+        private double sink = 0.0;
+    }
+
+    @Benchmark
+    public long phold () throws Exception
+    {
+        Engine engine = (threads == 0) ? new SequentialEngine() : new TimeWarpEngine(threads);
+
+        for (int i = 0; i < processes; i++)
+            engine.add(new Phold(processes, work));
+
+        engine.run(END);
+
+        return engine.committedEvents();
+    }
+}
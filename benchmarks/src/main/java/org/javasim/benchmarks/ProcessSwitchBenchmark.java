@@ -0,0 +1,171 @@
+/*
+ * Copyright 1990-2008, Mark Little, University of Newcastle upon Tyne
+ * and others contributors as indicated 
+ * by the @authors tag. All rights reserved. 
+ * See the copyright.txt in the distribution for a
+ * full listing of individual contributors. 
+ * This copyrighted material is made available to anyone wishing to use,
+ * modify, copy, or redistribute it subject to the terms and conditions
+ * of the GNU Lesser General Public License, v. 2.1.
+ * This program is distributed in the hope that it will be useful, but WITHOUT A 
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR A 
+ * PARTICULAR PURPOSE.  See the GNU Lesser General Public License for more details.
+ * You should have received a copy of the GNU Lesser General Public License,
+ * v.2.1 along with this distribution; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, 
+ * MA  02110-1301, USA.
+ * 
+ * (C) 1990-2008,
+ */
+
+
+package org.javasim.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.javasim.Simulation;
+import org.javasim.SimulationProcess;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Events per second for a running simulation of processes which do nothing
+ * but hold for one unit of time, so what is measured is the cost of moving
+ * control from one process to the next. Each invocation lets the simulation
+ * run on for EVENTS process wakeups. With a single process every hold finds
+ * it still the earliest event.
+ */
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ProcessSwitchBenchmark
+{
+    public static final int EVENTS = 1000;
+
+    @Param({ "1", "10", "100" })
+    public int processes;
+
+    static class Worker extends SimulationProcess
+    {
+        public Worker ()
+        {
+            setDaemon(true);
+        }
+
+        public void run ()
+        {
+            try
+            {
+                for (;;)
+                    hold(1.0);
+            }
+            catch (final Exception ex)
+            {
+            }
+        }
+    }
+
+    /*
+     * Runs the simulation for a fixed period each time the benchmark thread
+     * asks it to, then hands control back.
+     */
+
+    static class Controller extends SimulationProcess
+    {
+        public Controller (double period)
+        {
+            this.period = period;
+
+            setDaemon(true);
+        }
+
+        public void run ()
+        {
+            try
+            {
+                Simulation.start();
+
+                for (;;)
+                {
+                    synchronized (this)
+                    {
+                        done = true;
+                        notifyAll();
+
+                        while (!go)
+                            wait();
+
+                        go = false;
+                    }
+
+                    hold(period);
+                }
+            }
+            catch (final Exception ex)
+            {
+            }
+        }
+
+        public synchronized void begin () throws InterruptedException
+        {
+            resumeProcess();
+
+            await();
+        }
+
+        public synchronized void advance () throws InterruptedException
+        {
+            go = true;
+            notifyAll();
+
+            await();
+        }
+
+        private void await () throws InterruptedException
+        {
+            while (!done)
+                wait();
+
+            done = false;
+        }
+
+        private final double period;
+
+        private boolean done = false;
+
+        private boolean go = false;
+    }
+
+    @Setup
+    public void setup () throws Exception
+    {
+        for (int i = 0; i < processes; i++)
+            new Worker().activateAt(i / (double) processes);
+
+        controller = new Controller(EVENTS / (double) processes);
+        controller.begin();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(EVENTS)
+    public void holds () throws Exception
+    {
+        controller.advance();
+    }
+
+    private Controller controller;
+}
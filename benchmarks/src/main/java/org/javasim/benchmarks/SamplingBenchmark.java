@@ -0,0 +1,133 @@
+/*
+ * Copyright 1990-2008, Mark Little, University of Newcastle upon Tyne
+ * and others contributors as indicated 
+ * by the @authors tag. All rights reserved. 
+ * See the copyright.txt in the distribution for a
+ * full listing of individual contributors. 
+ * This copyrighted material is made available to anyone wishing to use,
+ * modify, copy, or redistribute it subject to the terms and conditions
+ * of the GNU Lesser General Public License, v. 2.1.
+ * This program is distributed in the hope that it will be useful, but WITHOUT A 
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR A 
+ * PARTICULAR PURPOSE.  See the GNU Lesser General Public License for more details.
+ * You should have received a copy of the GNU Lesser General Public License,
+ * v.2.1 along with this distribution; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, 
+ * MA  02110-1301, USA.
+ * 
+ * (C) 1990-2008,
+ */
+
+package org.javasim.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.javasim.SimulationContext;
+import org.javasim.streams.ExponentialStream;
+import org.javasim.streams.NormalStream;
+import org.javasim.streams.RandomStream;
+import org.javasim.streams.UniformGenerator;
+import org.javasim.streams.XoshiroGenerator;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Drawing SAMPLES numbers from a stream one at a time with getNumber,
+ * compared with drawing them in one call of fill, for the legacy and the
+ * xoshiro256** generators, and with or without the ziggurat.
+ */
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SamplingBenchmark
+{
+    @Param({ "LEGACY", "XOSHIRO" })
+    public String generator;
+
+    @Param({ "EXPONENTIAL", "NORMAL" })
+    public String distribution;
+
+    @Param({ "false", "true" })
+    public boolean ziggurat;
+
+    @Setup
+    public void setup () throws Exception
+    {
+        context = new SimulationContext();
+        previous = SimulationContext.bind(context);
+
+        context.setGenerator("XOSHIRO".equals(generator) ? new XoshiroGenerator() : new UniformGenerator());
+
+        if ("NORMAL".equals(distribution))
+        {
+            NormalStream normal = new NormalStream(10.0, 2.0);
+
+            if (ziggurat)
+                normal.setMethod(NormalStream.Method.ZIGGURAT);
+
+            stream = normal;
+        }
+        else
+        {
+            ExponentialStream exponential = new ExponentialStream(10.0);
+
+            if (ziggurat)
+                exponential.setMethod(ExponentialStream.Method.ZIGGURAT);
+
+            stream = exponential;
+        }
+
+        samples = new double[SamplingBenchmark.SAMPLES];
+    }
+
+    @TearDown
+    public void tearDown ()
+    {
+        SimulationContext.bind(previous);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(SamplingBenchmark.SAMPLES)
+    public void getNumber (Blackhole hole) throws Exception
+    {
+        for (int i = 0; i < SamplingBenchmark.SAMPLES; i++)
+            samples[i] = stream.getNumber();
+
+        hole.consume(samples);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(SamplingBenchmark.SAMPLES)
+    public void fill (Blackhole hole)
+    {
+        stream.fill(samples, 0, SamplingBenchmark.SAMPLES);
+
+        hole.consume(samples);
+    }
+
+    private static final int SAMPLES = 1024;
+
+    private SimulationContext context;
+
+    private SimulationContext previous;
+
+    private RandomStream stream;
+
+    private double[] samples;
+}
@@ -0,0 +1,126 @@
+/*
+ * Copyright 1990-2008, Mark Little, University of Newcastle upon Tyne
+ * and others contributors as indicated 
+ * by the @authors tag. All rights reserved. 
+ * See the copyright.txt in the distribution for a
+ * full listing of individual contributors. 
+ * This copyrighted material is made available to anyone wishing to use,
+ * modify, copy, or redistribute it subject to the terms and conditions
+ * of the GNU Lesser General Public License, v. 2.1.
+ * This program is distributed in the hope that it will be useful, but WITHOUT A 
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR A 
+ * PARTICULAR PURPOSE.  See the GNU Lesser General Public License for more details.
+ * You should have received a copy of the GNU Lesser General Public License,
+ * v.2.1 along with this distribution; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, 
+ * MA  02110-1301, USA.
+ * 
+ * (C) 1990-2008,
+ */
+
+
+package org.javasim.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.javasim.Semaphore;
+import org.javasim.SimulationContext;
+import org.javasim.SimulationEntity;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Events per second for processes contending for a Semaphore: each gets
+ * it, holds for one unit of time, and releases it, so with more processes
+ * than resources most gets block and most releases trigger a waiter. Each
+ * invocation runs EVENTS events from the benchmark thread with runFor.
+ */
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SemaphoreBenchmark
+{
+    public static final int EVENTS = 1000;
+
+    @Param({ "2", "16", "128" })
+    public int processes;
+
+    @Param({ "1" })
+    public int resources;
+
+    static class User extends SimulationEntity
+    {
+        public User (Semaphore semaphore)
+        {
+            this.semaphore = semaphore;
+
+            setDaemon(true);
+        }
+
+        public void run ()
+        {
+            try
+            {
+                for (;;)
+                {
+                    semaphore.get(this);
+
+                    hold(1.0);
+
+                    semaphore.release();
+                }
+            }
+            catch (final Exception ex)
+            {
+            }
+        }
+
+        private final Semaphore semaphore;
+    }
+
+    @Setup
+    public void setup () throws Exception
+    {
+        context = new SimulationContext();
+        previous = SimulationContext.bind(context);
+
+        Semaphore semaphore = new Semaphore(resources);
+
+        for (int i = 0; i < processes; i++)
+            new User(semaphore).activate();
+    }
+
+    @TearDown
+    public void tearDown () throws Exception
+    {
+        context.teardown();
+
+        SimulationContext.bind(previous);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(EVENTS)
+    public void getRelease () throws Exception
+    {
+        context.runFor(EVENTS);
+    }
+
+    private SimulationContext context;
+
+    private SimulationContext previous;
+}
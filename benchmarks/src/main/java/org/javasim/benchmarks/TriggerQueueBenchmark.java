@@ -0,0 +1,120 @@
+/*
+ * Copyright 1990-2008, Mark Little, University of Newcastle upon Tyne
+ * and others contributors as indicated 
+ * by the @authors tag. All rights reserved. 
+ * See the copyright.txt in the distribution for a
+ * full listing of individual contributors. 
+ * This copyrighted material is made available to anyone wishing to use,
+ * modify, copy, or redistribute it subject to the terms and conditions
+ * of the GNU Lesser General Public License, v. 2.1.
+ * This program is distributed in the hope that it will be useful, but WITHOUT A 
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR A 
+ * PARTICULAR PURPOSE.  See the GNU Lesser General Public License for more details.
+ * You should have received a copy of the GNU Lesser General Public License,
+ * v.2.1 along with this distribution; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, 
+ * MA  02110-1301, USA.
+ * 
+ * (C) 1990-2008,
+ */
+
+
+package org.javasim.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.javasim.SimulationContext;
+import org.javasim.SimulationEntity;
+import org.javasim.SimulationException;
+import org.javasim.TriggerQueue;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * TriggerQueue.triggerAll, which moves every waiting entity back on to the
+ * scheduler queue. Each operation is a whole cycle: the entities are put on
+ * the trigger queue, all triggered, and then cancelled again so that the
+ * next cycle starts from the same state. The entities are never started.
+ */
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TriggerQueueBenchmark
+{
+    @Param({ "10", "1000" })
+    public int waiting;
+
+    static class Waiter extends SimulationEntity
+    {
+        public void run ()
+        {
+        }
+    }
+
+    /*
+     * Entities normally put themselves on a trigger queue as they suspend,
+     * through a protected method, which is opened up here.
+     */
+
+    static class Queue extends TriggerQueue
+    {
+        void add (SimulationEntity toAdd) throws SimulationException
+        {
+            insert(toAdd);
+        }
+    }
+
+    @Setup
+    public void setup ()
+    {
+        context = new SimulationContext();
+        previous = SimulationContext.bind(context);
+
+        waiters = new Waiter[waiting];
+
+        for (int i = 0; i < waiting; i++)
+            waiters[i] = new Waiter();
+
+        queue = new Queue();
+    }
+
+    @TearDown
+    public void tearDown ()
+    {
+        SimulationContext.bind(previous);
+    }
+
+    @Benchmark
+    public void triggerAll () throws Exception
+    {
+        for (int i = 0; i < waiters.length; i++)
+            queue.add(waiters[i]);
+
+        queue.triggerAll();
+
+        for (int i = 0; i < waiters.length; i++)
+            waiters[i].cancel();
+    }
+
+    private SimulationContext context;
+
+    private SimulationContext previous;
+
+    private Waiter[] waiters;
+
+    private Queue queue;
+}
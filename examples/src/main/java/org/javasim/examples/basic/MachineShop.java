@@ -39,6 +39,8 @@ public class MachineShop extends SimulationProcess
         CheckFreq = 0;
         MachineActiveTime = 0.0;
         MachineFailedTime = 0.0;
+
+        JobQ = new Queue();
     }
 
     public void run ()
@@ -0,0 +1,263 @@
+/*
+ * Copyright 1990-2008, Mark Little, University of Newcastle upon Tyne
+ * and others contributors as indicated 
+ * by the @authors tag. All rights reserved. 
+ * See the copyright.txt in the distribution for a
+ * full listing of individual contributors. 
+ * This copyrighted material is made available to anyone wishing to use,
+ * modify, copy, or redistribute it subject to the terms and conditions
+ * of the GNU Lesser General Public License, v. 2.1.
+ * This program is distributed in the hope that it will be useful, but WITHOUT A 
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR A 
+ * PARTICULAR PURPOSE.  See the GNU Lesser General Public License for more details.
+ * You should have received a copy of the GNU Lesser General Public License,
+ * v.2.1 along with this distribution; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, 
+ * MA  02110-1301, USA.
+ * 
+ * (C) 1990-2008,
+ */
+
+package org.javasim;
+
+import java.util.IdentityHashMap;
+import java.util.List;
+
+import org.javasim.internal.EventNotice;
+import org.javasim.streams.UniformGenerator;
+
+/**
+ * A copy of a simulation at a point in simulated time: its clock, its
+ * pending events, the state of its random number generator, and the
+ * model, i.e., the entities, streams and statistics reached from the
+ * object given to SimulationContext.checkpoint. The copy is taken at once,
+ * so the original simulation may carry on.
+ * 
+ * A checkpoint can be restored any number of times, each time into a new
+ * continuation which shares nothing with the others. This allows a model
+ * to be warmed up once and then forked into many replications, each of
+ * which draws upon its own substream of the generator.
+ */
+
+public final class Checkpoint<M>
+{
+    /**
+     * The work done by each fork of a checkpoint.
+     */
+
+    public interface Continuation<M, R>
+    {
+        /**
+         * Run one continuation of the checkpointed simulation, which has been
+         * restored into a new SimulationContext bound to the calling thread.
+         * 
+         * @param model the continuation's copy of the model.
+         * @param fork the number of the fork, from 0.
+         * @return the results of the continuation.
+         * @throws Exception if the continuation fails.
+         */
+
+        public R run (M model, int fork) throws Exception;
+    }
+
+    /**
+     * Copies the objects of a simulation, each of them once.
+     */
+
+    public static final class Copier
+    {
+        /**
+         * Copy an object, or return the copy already made of it. Strings,
+         * enums and the boxed primitive types are not copied, since they
+         * cannot change.
+         * 
+         * @param original the object to copy, which may be <code>null</code>.
+         * @return the copy.
+         * @throws SimulationException if the object is not Checkpointable.
+         */
+
+        @SuppressWarnings("unchecked")
+        public <T> T copy (T original) throws SimulationException
+        {
+            if (original == null)
+                return null;
+
+            Object copy = copies.get(original);
+
+            if (copy != null)
+                return (T) copy;
+
+            if (original instanceof Checkpointable)
+            {
+                copy = ((Checkpointable) original).copy(this);
+
+                copies.put(original, copy);
+
+                return (T) copy;
+            }
+
+            if (Copier.isImmutable(original))
+                return original;
+
+            throw new SimulationException(original.getClass().getName() + " cannot be checkpointed.");
+        }
+
+        /**
+         * Record the copy of an object, before its fields are copied, so
+         * that objects which refer to it can find the copy.
+         * 
+         * @param original the object.
+         * @param copy its copy.
+         */
+
+        public <T> void register (T original, T copy)
+        {
+            copies.put(original, copy);
+        }
+
+        Copier ()
+        {
+        }
+
+        private static boolean isImmutable (Object o)
+        {
+            return (o instanceof String) || (o instanceof Enum) || (o instanceof Boolean)
+                    || (o instanceof Character) || (o instanceof Byte) || (o instanceof Short)
+                    || (o instanceof Integer) || (o instanceof Long) || (o instanceof Float)
+                    || (o instanceof Double);
+        }
+
+        private final IdentityHashMap<Object, Object> copies = new IdentityHashMap<Object, Object>();
+    }
+
+    /**
+     * @return the simulation time at which the checkpoint was taken.
+     */
+
+    public double time ()
+    {
+        return time;
+    }
+
+    /**
+     * @return the number of events which were pending.
+     */
+
+    public int pending ()
+    {
+        return actions.length;
+    }
+
+    /**
+     * Restore the checkpoint into the SimulationContext of the calling
+     * thread, which must be empty, e.g., a new one. The context's clock is
+     * set, the pending events are scheduled again in the order in which they
+     * were to run, and its generator is put back into the state it was in, so
+     * the continuation runs exactly as the original simulation would have.
+     * 
+     * @return the continuation's copy of the model.
+     * @throws SimulationException if the context is not empty.
+     */
+
+    public M restore () throws SimulationException
+    {
+        SimulationContext context = SimulationContext.current();
+
+        context.setGenerator(generator.copy());
+
+        return restore(context);
+    }
+
+    /**
+     * Fork the checkpoint into the given number of continuations, each run
+     * by a ReplicationRunner in a context of its own, and wait for them all
+     * to finish. Fork i draws upon substream i of the checkpoint's generator,
+     * so the forks are independent of each other, and the same each time.
+     * 
+     * @param forks the number of continuations.
+     * @param threads the number of continuations to run at once.
+     * @param continuation the work of each continuation.
+     * @return the results of each continuation, in order.
+     * @throws SimulationException if any continuation fails.
+     */
+
+    public <R> List<R> fork (int forks, int threads, final Continuation<M, R> continuation)
+            throws SimulationException
+    {
+        return new ReplicationRunner(threads, generator).run(forks, new ReplicationRunner.Model<R>()
+        {
+            public R run (int replication) throws Exception
+            {
+                return continuation.run(restore(SimulationContext.current()), replication);
+            }
+        });
+    }
+
+    Checkpoint (SimulationContext context, M model, EventNotice[] pending) throws SimulationException
+    {
+        Copier copier = new Copier();
+
+        time = context.currentTime();
+        queueType = context.getQueueType();
+        tickResolution = context.getTickResolution();
+        wheelResolution = context.getTimerWheel();
+        generator = context.getGenerator().copy();
+
+        copier.register(context.getGenerator(), generator);
+
+        this.model = copier.copy(model);
+
+        times = new double[pending.length];
+        actions = new EventAction[pending.length];
+
+        for (int i = 0; i < pending.length; i++)
+        {
+            times[i] = pending[i].evtime();
+            actions[i] = copier.copy(((SimulationEvent) pending[i]).action());
+        }
+    }
+
+    /*
+     * Copy everything again for the context, whose generator the copies of
+     * the streams will draw upon. Many continuations may do this at once,
+     * but they only read the checkpoint.
+     */
+
+    private M restore (SimulationContext context) throws SimulationException
+    {
+        if (!context.queue.isEmpty() || (context.currentTime() != 0.0))
+            throw new SimulationException("A checkpoint can only be restored into an empty context.");
+
+        Copier copier = new Copier();
+
+        copier.register(generator, context.getGenerator());
+
+        M copy = copier.copy(model);
+
+        context.setQueueType(queueType);
+        context.setTickResolution(tickResolution);
+        context.setTimerWheel(wheelResolution);
+        context.time = time;
+
+        for (int i = 0; i < actions.length; i++)
+            context.scheduleAt(times[i], copier.copy(actions[i]));
+
+        return copy;
+    }
+
+    private final double time;
+
+    private final Simulation.QueueType queueType;
+
+    private final double tickResolution;
+
+    private final double wheelResolution;
+
+    private final UniformGenerator generator;
+
+    private final M model;
+
+    private final double[] times;
+
+    private final EventAction[] actions;
+}
@@ -0,0 +1,48 @@
+/*
+ * Copyright 1990-2008, Mark Little, University of Newcastle upon Tyne
+ * and others contributors as indicated 
+ * by the @authors tag. All rights reserved. 
+ * See the copyright.txt in the distribution for a
+ * full listing of individual contributors. 
+ * This copyrighted material is made available to anyone wishing to use,
+ * modify, copy, or redistribute it subject to the terms and conditions
+ * of the GNU Lesser General Public License, v. 2.1.
+ * This program is distributed in the hope that it will be useful, but WITHOUT A 
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR A 
+ * PARTICULAR PURPOSE.  See the GNU Lesser General Public License for more details.
+ * You should have received a copy of the GNU Lesser General Public License,
+ * v.2.1 along with this distribution; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, 
+ * MA  02110-1301, USA.
+ * 
+ * (C) 1990-2008,
+ */
+
+package org.javasim;
+
+/**
+ * An object whose state can be captured by a Checkpoint. The entities of a
+ * simulation which is to be checkpointed, and the actions of its pending
+ * events, must implement this, as the random streams and statistics classes
+ * do. Since the state of a SimulationProcess is held on its thread's stack
+ * it cannot be captured, so only simulations which are made of events can
+ * be checkpointed.
+ */
+
+public interface Checkpointable
+{
+    /**
+     * Make a copy of this object, which shares nothing that may change with
+     * the original. Any other objects which it refers to, e.g., other
+     * entities, streams or statistics, should be copied by the copier, so
+     * that an object reached from several places is only copied once. An
+     * object which may be reached again from the objects it refers to should
+     * register its copy with the copier before copying them.
+     * 
+     * @param copier copies the objects this one refers to.
+     * @return the copy.
+     * @throws SimulationException if the object cannot be copied.
+     */
+
+    public Object copy (Checkpoint.Copier copier) throws SimulationException;
+}
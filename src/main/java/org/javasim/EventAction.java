@@ -0,0 +1,40 @@
+/*
+ * Copyright 1990-2008, Mark Little, University of Newcastle upon Tyne
+ * and others contributors as indicated 
+ * by the @authors tag. All rights reserved. 
+ * See the copyright.txt in the distribution for a
+ * full listing of individual contributors. 
+ * This copyrighted material is made available to anyone wishing to use,
+ * modify, copy, or redistribute it subject to the terms and conditions
+ * of the GNU Lesser General Public License, v. 2.1.
+ * This program is distributed in the hope that it will be useful, but WITHOUT A 
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR A 
+ * PARTICULAR PURPOSE.  See the GNU Lesser General Public License for more details.
+ * You should have received a copy of the GNU Lesser General Public License,
+ * v.2.1 along with this distribution; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, 
+ * MA  02110-1301, USA.
+ * 
+ * (C) 1990-2008,
+ */
+
+
+package org.javasim;
+
+/**
+ * The work done by a SimulationEvent when its time comes. This is normally
+ * given as a lambda. It runs on whichever thread is driving the scheduler at
+ * the time, so must not hold or otherwise suspend.
+ */
+@FunctionalInterface
+public interface EventAction
+{
+    /**
+     * Do the work of the event.
+     * 
+     * @throws SimulationException thrown if there's an error.
+     * @throws RestartException thrown if the simulation is restarted.
+     */
+
+    public void fire () throws SimulationException, RestartException;
+}
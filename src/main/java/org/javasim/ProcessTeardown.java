@@ -0,0 +1,38 @@
+/*
+ * Copyright 1990-2008, Mark Little, University of Newcastle upon Tyne
+ * and others contributors as indicated 
+ * by the @authors tag. All rights reserved. 
+ * See the copyright.txt in the distribution for a
+ * full listing of individual contributors. 
+ * This copyrighted material is made available to anyone wishing to use,
+ * modify, copy, or redistribute it subject to the terms and conditions
+ * of the GNU Lesser General Public License, v. 2.1.
+ * This program is distributed in the hope that it will be useful, but WITHOUT A 
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR A 
+ * PARTICULAR PURPOSE.  See the GNU Lesser General Public License for more details.
+ * You should have received a copy of the GNU Lesser General Public License,
+ * v.2.1 along with this distribution; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, 
+ * MA  02110-1301, USA.
+ * 
+ * (C) 1990-2008,
+ */
+
+
+package org.javasim;
+
+/**
+ * Raised within each suspended process when its context is torn down, to
+ * unwind its thread. It is an Error so that the catch blocks which process
+ * bodies normally have for SimulationException and RestartException let it
+ * through, and it is not reported when it reaches the top of the thread.
+ */
+final class ProcessTeardown extends Error
+{
+    public static final long serialVersionUID = 0xdeadbeef;
+
+    ProcessTeardown ()
+    {
+        super("Simulation torn down.", null, false, false);
+    }
+}
@@ -0,0 +1,177 @@
+/*
+ * Copyright 1990-2008, Mark Little, University of Newcastle upon Tyne
+ * and others contributors as indicated 
+ * by the @authors tag. All rights reserved. 
+ * See the copyright.txt in the distribution for a
+ * full listing of individual contributors. 
+ * This copyrighted material is made available to anyone wishing to use,
+ * modify, copy, or redistribute it subject to the terms and conditions
+ * of the GNU Lesser General Public License, v. 2.1.
+ * This program is distributed in the hope that it will be useful, but WITHOUT A 
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR A 
+ * PARTICULAR PURPOSE.  See the GNU Lesser General Public License for more details.
+ * You should have received a copy of the GNU Lesser General Public License,
+ * v.2.1 along with this distribution; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, 
+ * MA  02110-1301, USA.
+ * 
+ * (C) 1990-2008,
+ */
+
+
+package org.javasim;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.javasim.streams.UniformGenerator;
+
+/**
+ * Runs independent replications of a model in parallel on a pool of
+ * threads. Each replication is given its own SimulationContext, bound to
+ * the thread which runs it, so it has its own clock and scheduler queue,
+ * and its own substream of a generator so that the random numbers drawn by
+ * different replications do not overlap. Replication i always sees the same
+ * numbers whatever the size of the pool, so results are reproducible.
+ * 
+ * The model must keep its state in its own objects rather than in static
+ * fields, or replications running at the same time will interfere. When a
+ * replication returns its context is torn down, so any processes left
+ * suspended in it do not keep their threads. Results
+ * which are collected in Mean, Variance or histogram objects can be pooled
+ * across replications with their merge methods.
+ */
+public class ReplicationRunner
+{
+    /**
+     * A model to be replicated.
+     */
+
+    public interface Model<R>
+    {
+        /**
+         * Build and run one replication of the model, returning when the
+         * simulation has finished. This is called on a thread which has a
+         * new SimulationContext bound to it.
+         * 
+         * @param replication the number of the replication, from 0.
+         * @return the results of the replication.
+         * @throws Exception if the replication fails.
+         */
+
+        public R run (int replication) throws Exception;
+    }
+
+    /**
+     * Create a runner which uses the given number of threads and the
+     * default seeds.
+     * 
+     * @param threads the number of replications to run at once.
+     */
+
+    public ReplicationRunner (int threads)
+    {
+        this(threads, new UniformGenerator());
+    }
+
+    /**
+     * Create a runner which uses the given number of threads, and splits
+     * 'seeds' into a substream for each replication.
+     * 
+     * @param threads the number of replications to run at once.
+     * @param seeds the generator to split between the replications.
+     */
+
+    public ReplicationRunner (int threads, UniformGenerator seeds)
+    {
+        this.threads = Math.max(1, threads);
+        this.seeds = seeds;
+    }
+
+    /**
+     * Run the replications, waiting for them all to finish.
+     * 
+     * @param replications the number of replications to run.
+     * @param model the model to replicate.
+     * @return the results of each replication, in order.
+     * @throws SimulationException if any replication fails.
+     */
+
+    public <R> List<R> run (final int replications, final Model<R> model) throws SimulationException
+    {
+        ExecutorService pool = Executors.newFixedThreadPool(Math.min(threads, Math.max(1, replications)));
+        List<Future<R>> pending = new ArrayList<Future<R>>(replications);
+
+        try
+        {
+            for (int i = 0; i < replications; i++)
+            {
+                final int replication = i;
+                final UniformGenerator generator = seeds.substream(i, replications);
+
+                pending.add(pool.submit(new Callable<R>()
+                {
+                    public R call () throws Exception
+                    {
+                        SimulationContext context = new SimulationContext();
+                        SimulationContext previous;
+
+                        context.setGenerator(generator);
+
+                        previous = SimulationContext.bind(context);
+
+                        try
+                        {
+                            return model.run(replication);
+                        }
+                        finally
+                        {
+                            context.teardown();
+
+                            SimulationContext.bind(previous);
+                        }
+                    }
+                }));
+            }
+
+            List<R> results = new ArrayList<R>(replications);
+
+            for (int i = 0; i < replications; i++)
+            {
+                try
+                {
+                    results.add(pending.get(i).get());
+                }
+                catch (final ExecutionException ex)
+                {
+                    SimulationException failure = new SimulationException("Replication " + i + " failed.");
+
+                    failure.initCause(ex.getCause());
+
+                    throw failure;
+                }
+                catch (final InterruptedException ex)
+                {
+                    Thread.currentThread().interrupt();
+
+                    throw new SimulationException("Interrupted waiting for replication " + i);
+                }
+            }
+
+            return results;
+        }
+        finally
+        {
+            pool.shutdownNow();
+        }
+    }
+
+    private final int threads;
+
+    private final UniformGenerator seeds;
+}
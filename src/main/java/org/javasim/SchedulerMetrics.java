@@ -0,0 +1,193 @@
+/*
+ * Copyright 1990-2008, Mark Little, University of Newcastle upon Tyne
+ * and others contributors as indicated 
+ * by the @authors tag. All rights reserved. 
+ * See the copyright.txt in the distribution for a
+ * full listing of individual contributors. 
+ * This copyrighted material is made available to anyone wishing to use,
+ * modify, copy, or redistribute it subject to the terms and conditions
+ * of the GNU Lesser General Public License, v. 2.1.
+ * This program is distributed in the hope that it will be useful, but WITHOUT A 
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR A 
+ * PARTICULAR PURPOSE.  See the GNU Lesser General Public License for more details.
+ * You should have received a copy of the GNU Lesser General Public License,
+ * v.2.1 along with this distribution; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, 
+ * MA  02110-1301, USA.
+ * 
+ * (C) 1990-2008,
+ */
+
+
+package org.javasim;
+
+import java.util.Arrays;
+
+import org.javasim.internal.Instrumentation;
+
+/**
+ * A snapshot of what the scheduler of a SimulationContext has done since it
+ * was created, or since its metrics were last reset. Counting is switched on
+ * by starting the JVM with -Dorg.javasim.metrics=true; otherwise it costs
+ * nothing and every count is zero. A snapshot taken while the simulation is
+ * running may lag slightly behind it.
+ * 
+ * The cost histograms have one bucket per power of two nanoseconds: bucket
+ * 0 counts operations which took no measurable time, and bucket i those
+ * which took at least 2^(i-1) and less than 2^i nanoseconds.
+ */
+
+public final class SchedulerMetrics
+{
+    /**
+     * @return <code>true</code> if the scheduler is counting,
+     *         <code>false</code> otherwise.
+     */
+
+    public static boolean isEnabled ()
+    {
+        return Instrumentation.ENABLED;
+    }
+
+    /**
+     * @return the number of events dispatched: processes resumed (including
+     *         at the end of a hold which needed no thread switch) and
+     *         SimulationEvents fired.
+     */
+
+    public long eventsDispatched ()
+    {
+        return eventsDispatched;
+    }
+
+    /**
+     * @return the number of times control passed from one thread to another.
+     */
+
+    public long handoffs ()
+    {
+        return handoffs;
+    }
+
+    /**
+     * @return the number of entries on the scheduler queue.
+     */
+
+    public int queueLength ()
+    {
+        return queueLength;
+    }
+
+    /**
+     * @return the most entries there have been on the scheduler queue.
+     */
+
+    public int queueHighWater ()
+    {
+        return queueHighWater;
+    }
+
+    /**
+     * @return the times taken to insert into the scheduler queue.
+     */
+
+    public long[] insertCosts ()
+    {
+        return Arrays.copyOf(insertCosts, insertCosts.length);
+    }
+
+    /**
+     * @return the times taken to remove from the scheduler queue.
+     */
+
+    public long[] removeCosts ()
+    {
+        return Arrays.copyOf(removeCosts, removeCosts.length);
+    }
+
+    /**
+     * @return the times from a process being resumed to its thread running.
+     */
+
+    public long[] handoffLatencies ()
+    {
+        return Arrays.copyOf(handoffLatencies, handoffLatencies.length);
+    }
+
+    /**
+     * @return the simulated time which has passed since the first event.
+     */
+
+    public double simulatedTime ()
+    {
+        return simulatedTime;
+    }
+
+    /**
+     * @return the wall-clock time, in seconds, since the first event.
+     */
+
+    public double wallClockTime ()
+    {
+        return wallClockTime;
+    }
+
+    /**
+     * @return the simulated time which passes per second of wall-clock time.
+     */
+
+    public double timeRatio ()
+    {
+        return ((wallClockTime > 0.0) ? simulatedTime / wallClockTime : 0.0);
+    }
+
+    /**
+     * @return the events dispatched per second of wall-clock time.
+     */
+
+    public double eventsPerSecond ()
+    {
+        return ((wallClockTime > 0.0) ? eventsDispatched / wallClockTime : 0.0);
+    }
+
+    public String toString ()
+    {
+        return "SchedulerMetrics [events=" + eventsDispatched + ", handoffs="
+                + handoffs + ", queueLength=" + queueLength
+                + ", queueHighWater=" + queueHighWater + ", eventsPerSecond="
+                + eventsPerSecond() + ", timeRatio=" + timeRatio() + "]";
+    }
+
+    SchedulerMetrics (long eventsDispatched, long handoffs, int queueLength,
+            int queueHighWater, long[] insertCosts, long[] removeCosts,
+            long[] handoffLatencies, double simulatedTime, double wallClockTime)
+    {
+        this.eventsDispatched = eventsDispatched;
+        this.handoffs = handoffs;
+        this.queueLength = queueLength;
+        this.queueHighWater = queueHighWater;
+        this.insertCosts = insertCosts;
+        this.removeCosts = removeCosts;
+        this.handoffLatencies = handoffLatencies;
+        this.simulatedTime = simulatedTime;
+        this.wallClockTime = wallClockTime;
+    }
+
+    private final long eventsDispatched;
+
+    private final long handoffs;
+
+    private final int queueLength;
+
+    private final int queueHighWater;
+
+    private final long[] insertCosts;
+
+    private final long[] removeCosts;
+
+    private final long[] handoffLatencies;
+
+    private final double simulatedTime;
+
+    private final double wallClockTime;
+}
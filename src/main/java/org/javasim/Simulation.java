@@ -21,19 +21,42 @@
 package org.javasim;
 
 import java.util.NoSuchElementException;
+import java.util.function.BooleanSupplier;
 
 import org.javasim.internal.SimulationProcessIterator;
 import org.javasim.internal.SimulationProcessList;
+import org.javasim.trace.EventTracer;
 
 /**
  * A class to encapsulate the various methods to start, stop or
- * reset the simulation.
+ * reset the simulation. They act upon the SimulationContext of the
+ * calling thread.
  * 
  * @author marklittle
  *
  */
 public class Simulation
 {
+    /**
+     * The data structures which may be used to hold the scheduler queue:
+     * HEAP - a binary heap. This is the default.
+     * CALENDAR - a calendar queue, which stays O(1) with millions of entries.
+     * LADDER - a ladder queue, which stays O(1) even when the distribution of
+     * event times is heavily skewed.
+     * LIST - an ordered list, which may suit simulations with few processes.
+     */
+
+    public enum QueueType { HEAP, CALENDAR, LADDER, LIST };
+
+    /**
+     * The kinds of thread which may run the body of each process:
+     * PLATFORM - the process is itself a platform thread. This is the default.
+     * VIRTUAL - the body runs on a virtual thread, so many thousands of
+     * processes cost little more than their stacks. This needs Java 21 or later.
+     */
+
+    public enum ThreadType { PLATFORM, VIRTUAL };
+
     /**
      * This routine resets the simulation time to zero and removes all
      * entries from the scheduler queue (as their times may no longer
@@ -41,23 +64,34 @@ public class Simulation
      * suspended will raise the RestartSimulation exception, which the
      * application should catch. It should then perform any work necessary
      * to put the process back in a state ready for restarting the simulation
-     * before calling Cancel on the process.
+     * before calling Cancel on the process. The processes are dealt with one
+     * at a time, and each has suspended itself again (or finished) before
+     * this returns.
      * 
      * @throws SimulationException if an error occurs.
      */
     
-    public static synchronized void reset () throws SimulationException
+    public static void reset () throws SimulationException
     {
-	Simulation._reset = true;
+	SimulationContext.current().reset();
+    }
+
+    /**
+     * Finish with the simulation altogether, releasing the threads of all of
+     * its processes so that nothing is left behind before another is run in
+     * the same JVM. Each process which is suspended is woken with an Error
+     * which unwinds its run method (running any finally blocks on the way),
+     * and this waits for every thread to end. The simulation is then empty
+     * and at time zero, and the processes cannot be used again. This must be
+     * called from outside the simulation, e.g., by the main thread once
+     * mainSuspend has returned.
+     * 
+     * @throws SimulationException if called by a process.
+     */
 
-	try
-	{
-	    Scheduler.reset();
-	}
-	finally
-	{
-	    Simulation._reset = false;
-	}
+    public static void teardown () throws SimulationException
+    {
+	SimulationContext.current().teardown();
     }
 
     /**
@@ -68,9 +102,9 @@ public class Simulation
      * @return <code>true</code> if the simulation is being reset, <code>false</code> otherwise.
      */
     
-    public static synchronized boolean isReset ()
+    public static boolean isReset ()
     {
-	return Simulation._reset;
+	return SimulationContext.current().isReset();
     }
     
     /**
@@ -79,9 +113,9 @@ public class Simulation
      * is, then they should act accordingly.
      */
     
-    public static synchronized void stop ()
+    public static void stop ()
     {
-	Simulation.running = false;
+	SimulationContext.current().stop();
     }
 
     /**
@@ -89,18 +123,192 @@ public class Simulation
      * previously stopped.
      */
     
-    public static synchronized void start ()
+    public static void start ()
+    {
+	SimulationContext.current().start();
+    }
+
+    /**
+     * Run the simulation from the calling thread, rather than from a
+     * controlling process, until the next event is due at or after the
+     * given time. The clock is then moved on to that time, so a further
+     * call carries on from where this one stopped. Any processes to take
+     * part should be activated first. This must not be called by a process.
+     * 
+     * @param until the time to run up to.
+     * @throws SimulationException if called from within the simulation, or
+     *             if an event fails, which stops the run at that event.
+     */
+
+    public static void runUntil (double until) throws SimulationException
+    {
+	SimulationContext.current().runUntil(until);
+    }
+
+    /**
+     * Run the simulation from the calling thread for at most the given
+     * number of events, where an event is a process being resumed (including
+     * at the end of a hold) or a SimulationEvent firing.
+     * 
+     * @param events the most events to run.
+     * @throws SimulationException if called from within the simulation, or
+     *             if an event fails, which stops the run at that event.
+     */
+
+    public static void runFor (long events) throws SimulationException
+    {
+	SimulationContext.current().runFor(events);
+    }
+
+    /**
+     * Run the simulation from the calling thread for as long as the condition
+     * holds. It is checked before each event, by whichever thread is about to
+     * run it, so it should be quick and must not suspend.
+     * 
+     * @param condition checked before each event.
+     * @throws SimulationException if called from within the simulation, or
+     *             if an event fails, which stops the run at that event.
+     */
+
+    public static void runWhile (BooleanSupplier condition) throws SimulationException
+    {
+	SimulationContext.current().runWhile(condition);
+    }
+
+    /**
+     * Take a snapshot of the scheduler's metrics, which are only counted if
+     * the JVM was started with -Dorg.javasim.metrics=true.
+     * 
+     * @return the snapshot.
+     */
+
+    public static SchedulerMetrics metrics ()
+    {
+	return SimulationContext.current().metrics();
+    }
+
+    /**
+     * Write a binary trace of activations, terminations and dispatches to
+     * the given tracer, or stop tracing if it is <code>null</code>.
+     * 
+     * @param tracer the tracer to use.
+     */
+
+    public static void setTracer (EventTracer tracer)
+    {
+	SimulationContext.current().setTracer(tracer);
+    }
+
+    /**
+     * Choose the data structure used for the scheduler queue. This would
+     * normally be done before the simulation is started, but any processes
+     * which are already scheduled are moved across in the same order.
+     * 
+     * @param type the queue to use.
+     */
+
+    public static void setQueueType (QueueType type)
+    {
+	SimulationContext.current().setQueueType(type);
+    }
+
+    /**
+     * @return the data structure being used for the scheduler queue.
+     */
+
+    public static QueueType getQueueType ()
+    {
+	return SimulationContext.current().getQueueType();
+    }
+
+    /**
+     * Put a hierarchical timing wheel, with ticks of the given width, in
+     * front of the scheduler queue, so that short timeouts which are mostly
+     * cancelled cost O(1) to set and cancel. A resolution of zero removes it.
+     * 
+     * @param resolution the width of a tick, or zero for no wheel.
+     */
+
+    public static void setTimerWheel (double resolution)
+    {
+	SimulationContext.current().setTimerWheel(resolution);
+    }
+
+    /**
+     * Run on a clock of whole ticks of the given width, rounding every time
+     * given to the scheduler to the nearest tick, with a radix heap for the
+     * scheduler queue. A resolution of zero goes back to continuous time.
+     * 
+     * @param resolution the width of a tick, or zero for continuous time.
+     */
+
+    public static void setTickResolution (double resolution)
+    {
+	SimulationContext.current().setTickResolution(resolution);
+    }
+
+    /**
+     * Choose the kind of thread used to run the body of each process. This
+     * only affects processes which have not yet been started, so would
+     * normally be done before any process is activated.
+     * 
+     * @param type the kind of thread to use.
+     * @throws SimulationException if the JVM does not support the type.
+     */
+
+    public static void setThreadType (ThreadType type) throws SimulationException
+    {
+	SimulationContext.current().setThreadType(type);
+    }
+
+    /**
+     * @return the kind of thread used to run the body of each process.
+     */
+
+    public static ThreadType getThreadType ()
+    {
+	return SimulationContext.current().getThreadType();
+    }
+
+    /**
+     * Schedule an action to run at the given simulation time, without
+     * creating a process for it. The action runs in time order with the
+     * processes on the scheduler queue, after anything else already
+     * scheduled for the same time.
+     * 
+     * @param time the time at which to run the action.
+     * @param action the work to do.
+     * @return the event, which may be used to cancel it.
+     * @throws SimulationException if the time has already passed.
+     */
+
+    public static SimulationEvent scheduleAt (double time, EventAction action) throws SimulationException
     {
-	Simulation.running = true;
+	return SimulationContext.current().scheduleAt(time, action);
+    }
+
+    /**
+     * Schedule an action to run after the given amount of simulation time,
+     * without creating a process for it.
+     * 
+     * @param delay the time to wait before running the action.
+     * @param action the work to do.
+     * @return the event, which may be used to cancel it.
+     * @throws SimulationException if the delay is negative.
+     */
+
+    public static SimulationEvent scheduleDelay (double delay, EventAction action) throws SimulationException
+    {
+	return SimulationContext.current().scheduleDelay(delay, action);
     }
 
     /**
      * Print out the contents of the current simulation queue.
      */
     
-    public static synchronized void printQueue ()
+    public static void printQueue ()
     {
-	SimulationProcess.allProcesses.print();
+	SimulationContext.current().printQueue();
     }
     
     /**
@@ -110,11 +318,8 @@ public class Simulation
      * otherwise.
      */
     
-    protected static synchronized boolean isStarted ()
+    protected static boolean isStarted ()
     {
-	return Simulation.running;
+	return SimulationContext.current().isRunning();
     }
-    
-    private static boolean running = false;
-    private static boolean _reset = false; 
 }
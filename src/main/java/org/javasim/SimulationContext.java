@@ -0,0 +1,1153 @@
+/*
+ * Copyright 1990-2008, Mark Little, University of Newcastle upon Tyne
+ * and others contributors as indicated 
+ * by the @authors tag. All rights reserved. 
+ * See the copyright.txt in the distribution for a
+ * full listing of individual contributors. 
+ * This copyrighted material is made available to anyone wishing to use,
+ * modify, copy, or redistribute it subject to the terms and conditions
+ * of the GNU Lesser General Public License, v. 2.1.
+ * This program is distributed in the hope that it will be useful, but WITHOUT A 
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR A 
+ * PARTICULAR PURPOSE.  See the GNU Lesser General Public License for more details.
+ * You should have received a copy of the GNU Lesser General Public License,
+ * v.2.1 along with this distribution; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, 
+ * MA  02110-1301, USA.
+ * 
+ * (C) 1990-2008,
+ */
+
+
+package org.javasim;
+
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.BooleanSupplier;
+
+import org.javasim.internal.CalendarQueue;
+import org.javasim.internal.CostHistogram;
+import org.javasim.internal.EventNotice;
+import org.javasim.internal.EventQueue;
+import org.javasim.internal.Instrumentation;
+import org.javasim.internal.LadderQueue;
+import org.javasim.internal.OrderedListQueue;
+import org.javasim.internal.ProcessRegistry;
+import org.javasim.internal.RadixHeapQueue;
+import org.javasim.internal.SimulationProcessHeap;
+import org.javasim.internal.TimerWheelQueue;
+import org.javasim.internal.VirtualThreads;
+import org.javasim.streams.UniformGenerator;
+import org.javasim.trace.EventTracer;
+
+/**
+ * Everything belonging to one simulation: the clock, the scheduler queue,
+ * the processes, the generator behind its random streams and whether or not
+ * it is running. Independent contexts can
+ * run at the same time, on different threads, within the one JVM.
+ * 
+ * A process belongs to the context which was current for the thread that
+ * created it. For a thread which is running a process that is the process'
+ * own context; any other thread uses the context bound to it, if any, or
+ * else the default context. The static methods of Simulation, Scheduler and
+ * SimulationProcess all act upon the current context, so applications which
+ * only ever run one simulation need not be aware of contexts at all.
+ */
+public class SimulationContext
+{
+    public SimulationContext ()
+    {
+        time = 0.0;
+        queue = new SimulationProcessHeap();
+        queueType = Simulation.QueueType.HEAP;
+        threadType = Simulation.ThreadType.PLATFORM;
+        processes = new ProcessRegistry();
+        generator = new UniformGenerator();
+        current = null;
+        running = false;
+        resetting = false;
+    }
+
+    /**
+     * @return the context used by threads which have not been bound to one.
+     */
+
+    public static SimulationContext getDefault ()
+    {
+        return SimulationContext.DEFAULT;
+    }
+
+    /**
+     * @return the context of the calling thread.
+     */
+
+    public static SimulationContext current ()
+    {
+        Thread thread = Thread.currentThread();
+
+        if (thread instanceof SimulationProcess)
+            return ((SimulationProcess) thread).context;
+
+        SimulationContext context = SimulationContext.BOUND.get();
+
+        return ((context == null) ? SimulationContext.DEFAULT : context);
+    }
+
+    /**
+     * Bind a context to the calling thread, so that processes it creates
+     * belong to that context and the static methods act upon it.
+     * 
+     * @param context the context to bind, or <code>null</code> to return
+     *        the thread to the default context.
+     * @return the context previously bound to the thread, if any.
+     */
+
+    public static SimulationContext bind (SimulationContext context)
+    {
+        SimulationContext previous = SimulationContext.BOUND.get();
+
+        if (context == null)
+            SimulationContext.BOUND.remove();
+        else
+            SimulationContext.BOUND.set(context);
+
+        return previous;
+    }
+
+    /**
+     * @return the current simulation time.
+     */
+
+    public double currentTime ()
+    {
+        return time;
+    }
+
+    /**
+     * @return the currently active process, or <code>null</code> if there
+     *         is none.
+     */
+
+    public SimulationProcess currentProcess ()
+    {
+        return current;
+    }
+
+    /**
+     * Start the simulation either from the start or from where it was
+     * previously stopped.
+     */
+
+    public void start ()
+    {
+        running = true;
+    }
+
+    /**
+     * Stop the simulation.
+     */
+
+    public void stop ()
+    {
+        running = false;
+    }
+
+    /**
+     * @return <code>true</code> if the simulation is running,
+     *         <code>false</code> otherwise.
+     */
+
+    public boolean isRunning ()
+    {
+        return running;
+    }
+
+    /**
+     * Run the simulation from the calling thread, as described for
+     * Simulation.runUntil, until the next event is due at or after the given
+     * time. The clock is then left at that time.
+     * 
+     * @param until the time to run up to.
+     * @throws SimulationException if called from within the simulation, or
+     *             if an event fails, which stops the run at that event.
+     */
+
+    public void runUntil (double until) throws SimulationException
+    {
+        drive(until, Long.MAX_VALUE, null);
+    }
+
+    /**
+     * Run the simulation from the calling thread, as described for
+     * Simulation.runFor, for at most the given number of events.
+     * 
+     * @param events the most events to run.
+     * @throws SimulationException if called from within the simulation, or
+     *             if an event fails, which stops the run at that event.
+     */
+
+    public void runFor (long events) throws SimulationException
+    {
+        drive(Double.POSITIVE_INFINITY, events, null);
+    }
+
+    /**
+     * Run the simulation from the calling thread, as described for
+     * Simulation.runWhile, for as long as the condition holds.
+     * 
+     * @param condition checked before each event.
+     * @throws SimulationException if called from within the simulation, or
+     *             if an event fails, which stops the run at that event.
+     */
+
+    public void runWhile (BooleanSupplier condition) throws SimulationException
+    {
+        if (condition == null)
+            throw new SimulationException("No condition given.");
+
+        drive(Double.POSITIVE_INFINITY, Long.MAX_VALUE, condition);
+    }
+
+    /**
+     * Reset the simulation, as described for Simulation.reset. This must be
+     * called by the active process of this context, or by another thread
+     * once the simulation has stopped.
+     * 
+     * @throws SimulationException if an error occurs.
+     */
+
+    public void reset () throws SimulationException
+    {
+        resetting = true;
+
+        try
+        {
+            resetQueue();
+        }
+        finally
+        {
+            resetting = false;
+        }
+    }
+
+    /**
+     * Tear down the simulation, as described for Simulation.teardown. This
+     * must be called from outside the simulation, once it has stopped.
+     * 
+     * @throws SimulationException if called by a process of this context.
+     */
+
+    public void teardown () throws SimulationException
+    {
+        List<SimulationProcess> all = processes.toList();
+
+        for (SimulationProcess p : all)
+        {
+            if (p.isCurrentThread())
+                throw new SimulationException("Teardown called from within the simulation.");
+        }
+
+        running = false;
+        tearingDown = true;
+
+        try
+        {
+            clearQueue();
+
+            for (SimulationProcess p : all)
+                p.release();
+        }
+        finally
+        {
+            tearingDown = false;
+        }
+
+        time = 0.0;
+        current = null;
+        processes = new ProcessRegistry();
+
+        resetMetrics();
+
+        mainResumed = false;
+    }
+
+    /**
+     * @return <code>true</code> if the simulation is being reset,
+     *         <code>false</code> otherwise.
+     */
+
+    public boolean isReset ()
+    {
+        return resetting;
+    }
+
+    boolean isTearingDown ()
+    {
+        return tearingDown;
+    }
+
+    /**
+     * Choose the data structure used for the scheduler queue. Any processes
+     * which are already scheduled are moved across in the same order.
+     * 
+     * @param type the queue to use.
+     */
+
+    public synchronized void setQueueType (Simulation.QueueType type)
+    {
+        queueType = type;
+
+        replaceQueue();
+    }
+
+    /**
+     * @return the data structure being used for the scheduler queue.
+     */
+
+    public synchronized Simulation.QueueType getQueueType ()
+    {
+        return queueType;
+    }
+
+    /**
+     * Put a hierarchical timing wheel in front of the scheduler queue, or
+     * take it away again. Activations due within the next 2^26 ticks of the
+     * given width go into the wheel, where they are added and removed in
+     * O(1), and only move on to the scheduler queue when they are about to
+     * run. This suits simulations which set many short timeouts, e.g., with
+     * timedWait, which are mostly cancelled before they expire. Any
+     * processes which are already scheduled are moved across in the same
+     * order.
+     * 
+     * @param resolution the width of a tick, or zero for no wheel.
+     */
+
+    public synchronized void setTimerWheel (double resolution)
+    {
+        if (resolution < 0.0)
+            throw new IllegalArgumentException("Invalid resolution " + resolution);
+
+        wheelResolution = resolution;
+
+        replaceQueue();
+    }
+
+    /**
+     * @return the tick width of the timing wheel, or zero if there is none.
+     */
+
+    public synchronized double getTimerWheel ()
+    {
+        return wheelResolution;
+    }
+
+    /**
+     * Run the simulation on a clock of whole ticks, which suits models which
+     * are naturally integer-timed, e.g., in clock cycles or nanoseconds. All
+     * of the times given to activateAt, activateDelay, hold and scheduleAt
+     * are then rounded to the nearest multiple of the resolution, and the
+     * scheduler queue becomes a radix heap keyed on the tick, which relies
+     * on the clock never going backwards to beat a comparison-based queue.
+     * The queue type chosen with setQueueType is used again once the
+     * resolution is set back to zero. This should be called before the
+     * simulation starts.
+     * 
+     * @param resolution the width of a tick, or zero for continuous time.
+     */
+
+    public synchronized void setTickResolution (double resolution)
+    {
+        if (resolution < 0.0)
+            throw new IllegalArgumentException("Invalid resolution " + resolution);
+
+        tickResolution = resolution;
+
+        replaceQueue();
+    }
+
+    /**
+     * @return the width of a tick, or zero if time is continuous.
+     */
+
+    public synchronized double getTickResolution ()
+    {
+        return tickResolution;
+    }
+
+    /**
+     * @return the current simulation time as a number of ticks.
+     * @throws SimulationException if time is continuous.
+     */
+
+    public long currentTick () throws SimulationException
+    {
+        if (tickResolution == 0.0)
+            throw new SimulationException("Time is not measured in ticks.");
+
+        return Math.round(time / tickResolution);
+    }
+
+    /*
+     * The given time, on the clock in use.
+     */
+
+    double quantise (double at)
+    {
+        if (tickResolution == 0.0)
+            return at;
+
+        return Math.round(at / tickResolution) * tickResolution;
+    }
+
+    private void replaceQueue ()
+    {
+        EventQueue replacement;
+
+        if (tickResolution > 0.0)
+            replacement = new RadixHeapQueue(tickResolution);
+        else
+        {
+            switch (queueType)
+            {
+            case CALENDAR:
+                replacement = new CalendarQueue();
+                break;
+            case LADDER:
+                replacement = new LadderQueue();
+                break;
+            case LIST:
+                replacement = new OrderedListQueue();
+                break;
+            default:
+                replacement = new SimulationProcessHeap();
+                break;
+            }
+        }
+
+        if (wheelResolution > 0.0)
+            replacement = new TimerWheelQueue(replacement, wheelResolution);
+
+        queue.transferTo(replacement);
+
+        queue = replacement;
+    }
+
+    /**
+     * Choose the kind of thread used to run the body of each process which
+     * has not yet been started.
+     * 
+     * @param type the kind of thread to use.
+     * @throws SimulationException if the JVM does not support the type.
+     */
+
+    public synchronized void setThreadType (Simulation.ThreadType type) throws SimulationException
+    {
+        if ((type == Simulation.ThreadType.VIRTUAL) && !VirtualThreads.isSupported())
+            throw new SimulationException("Virtual threads are not supported by this JVM.");
+
+        threadType = type;
+    }
+
+    /**
+     * @return the kind of thread used to run the body of each process.
+     */
+
+    public synchronized Simulation.ThreadType getThreadType ()
+    {
+        return threadType;
+    }
+
+    /**
+     * @return the generator shared by the random streams created in this
+     *         context.
+     */
+
+    public synchronized UniformGenerator getGenerator ()
+    {
+        return generator;
+    }
+
+    /**
+     * Replace the generator used by random streams which are created in
+     * this context from now on.
+     * 
+     * @param generator the generator to use.
+     */
+
+    public synchronized void setGenerator (UniformGenerator generator)
+    {
+        this.generator = generator;
+    }
+
+    /**
+     * Take a snapshot of what the scheduler has done since this context was
+     * created, or since its metrics were last reset. Everything is zero
+     * unless SchedulerMetrics.isEnabled(). This may be called from any
+     * thread, at any time.
+     * 
+     * @return the snapshot.
+     */
+
+    public SchedulerMetrics metrics ()
+    {
+        EventQueue q = queue;
+        long start = wallStart;
+        double simulated = 0.0;
+        double wall = 0.0;
+
+        if (start != 0L)
+        {
+            simulated = time - simStart;
+            wall = (System.nanoTime() - start) / 1.0e9;
+        }
+
+        return new SchedulerMetrics(dispatched, handoffs, q.size(),
+                q.highWater(), q.insertCosts().counts(),
+                q.removeCosts().counts(), latencies.counts(), simulated, wall);
+    }
+
+    /**
+     * Start counting again from zero. Reset and teardown do this too.
+     */
+
+    public void resetMetrics ()
+    {
+        dispatched = 0L;
+        handoffs = 0L;
+        latencies.clear();
+        wallStart = 0L;
+        queue.clearCounters();
+    }
+
+    /**
+     * Take a checkpoint of the simulation, with a copy of the given model,
+     * which may then be restored or forked. The simulation must be made of
+     * events, since the state of a process cannot be captured, and the
+     * model and the actions of the pending events must be Checkpointable.
+     * This is normally called from outside the simulation once it has been
+     * driven through its warm-up, e.g., with runUntil.
+     * 
+     * @param model the entities, streams and statistics of the simulation.
+     * @return the checkpoint.
+     * @throws SimulationException if the simulation cannot be checkpointed.
+     */
+
+    public synchronized <M> Checkpoint<M> checkpoint (M model) throws SimulationException
+    {
+        if ((current != null) && current.isCurrentThread())
+            throw new SimulationException("A process cannot checkpoint its own simulation.");
+
+        EventNotice[] pending = queue.ordered();
+
+        for (int i = 0; i < pending.length; i++)
+        {
+            if (pending[i].proc() != null)
+                throw new SimulationException("A simulation with processes cannot be checkpointed.");
+        }
+
+        return new Checkpoint<M>(this, model, pending);
+    }
+
+    /**
+     * Trace what the scheduler does from now on. The tracer should be set
+     * before the simulation starts, or while it is stopped.
+     * 
+     * @param tracer the tracer, or <code>null</code> to stop tracing.
+     */
+
+    public void setTracer (EventTracer tracer)
+    {
+        this.tracer = tracer;
+    }
+
+    /**
+     * @return the tracer, or <code>null</code> if there is none.
+     */
+
+    public EventTracer getTracer ()
+    {
+        return tracer;
+    }
+
+    /**
+     * Schedule an action to run at the given simulation time, as described
+     * for Simulation.scheduleAt.
+     * 
+     * @param at the time at which to run the action.
+     * @param action the work to do.
+     * @return the event, which may be used to cancel it.
+     * @throws SimulationException if the time has already passed.
+     */
+
+    public SimulationEvent scheduleAt (double at, EventAction action) throws SimulationException
+    {
+        if (at < time)
+            throw new SimulationException("Invalid time " + at);
+
+        SimulationEvent event = new SimulationEvent(this, action, ++events);
+
+        at = quantise(at);
+
+        queue.insert(event, at);
+
+        if (tracer != null)
+            tracer.record(time, at, event.getId(), EventTracer.Kind.SCHEDULE);
+
+        return event;
+    }
+
+    /**
+     * Schedule an action to run after the given amount of simulation time.
+     * 
+     * @param delay the time to wait before running the action.
+     * @param action the work to do.
+     * @return the event, which may be used to cancel it.
+     * @throws SimulationException if the delay is negative.
+     */
+
+    public SimulationEvent scheduleDelay (double delay, EventAction action) throws SimulationException
+    {
+        if (delay < 0)
+            throw new SimulationException("Invalid delay time " + delay);
+
+        return scheduleAt(time + delay, action);
+    }
+
+    /**
+     * Print out the contents of the simulation queue.
+     */
+
+    public void printQueue ()
+    {
+        processes.print();
+    }
+
+    /*
+     * The main thread waits here for the simulation to hand back control.
+     * The resume is remembered, so it is not lost if it comes first. As with
+     * the processes, the handoff is a volatile flag and park/unpark.
+     */
+
+    void suspendMain ()
+    {
+        mainThread = Thread.currentThread();
+
+        while (!mainResumed)
+            LockSupport.park(this);
+
+        mainResumed = false;
+        mainThread = null;
+    }
+
+    void resumeMain ()
+    {
+        mainResumed = true;
+
+        Thread waiting = mainThread;
+
+        if (waiting != null)
+            LockSupport.unpark(waiting);
+    }
+
+    /*
+     * It is possible that the currently active process may remove itself
+     * from the simulation queue. In which case we don't want to suspend the
+     * process since it needs to continue to run. The return value indicates
+     * whether or not to call suspend on the currently active process.
+     *
+     * Only the active process calls this, and it hands control directly to
+     * the next one, so there is no need for a lock around it.
+     */
+
+    boolean schedule () throws SimulationException
+    {
+        if (running)
+        {
+            SimulationProcess p = currentProcessOrFail();
+
+            try
+            {
+                /*
+                 * For some reason when executing tests in junit an old and dead
+                 * thread appears in the simulation queue. Have only ever seen this
+                 * be a single thread instance, but it is reproducible every time.
+                 *
+                 * https://github.com/nmcl/JavaSim/issues/64
+                 *
+                 * Will try to find out what actually causes this and remove the
+                 * workaround eventually.
+                 *
+                 * https://github.com/nmcl/JavaSim/issues/76
+                 */
+
+                current = nextProcess();
+                boolean done = true;
+
+                do
+                {
+                    if (current != null)
+                    {
+                        if (current.getThreadGroup() == null)
+                        {
+                            current = nextProcess();
+                            p = currentProcessOrFail();
+                            done = false;
+                        }
+                        else
+                            done = true;
+                    }
+                    else if (driving)
+                    {
+                        // the bound has been reached, or an event failed, so hand back to the driver
+
+                        resumeMain();
+
+                        return true;
+                    }
+                    else if (failed != null)
+                        throw eventFailed();
+                    else
+                        throw new NoSuchElementException();
+                }
+                while (!done);
+            }
+            catch (NoSuchElementException e)
+            {
+                System.out.println("Simulation queue empty.");
+
+                return false;
+            }
+            catch (NullPointerException e)
+            {
+                System.out.println("Simulation queue empty.");
+
+                return false;
+            }
+
+            if (current.evtime() < 0)
+                throw new SimulationException("Invalid SimulationProcess wakeup time.");
+            else
+                time = current.evtime();
+
+            if (p != current)
+            {
+                current.resumeProcess();
+
+                return true;
+            }
+            else
+                return false;
+        }
+        else
+            throw new SimulationException("Simulation not started.");
+    }
+
+    void unschedule (SimulationProcess p)
+    {
+        try
+        {
+            queue.remove(p.eventNotice); // remove from queue
+        }
+        catch (NoSuchElementException e)
+        {
+        }
+
+        p.deactivate();
+    }
+
+    /*
+     * The short cut for hold: if the active process would still be the
+     * first to run at the given time then just move the clock on, rather
+     * than putting it on the queue only to take it straight off again.
+     */
+
+    boolean skipTo (double at)
+    {
+        if (!running || resetting)
+            return false;
+
+        at = quantise(at);
+
+        EventNotice first = queue.first();
+
+        if ((first != null) && (first.evtime() <= at))
+            return false;
+
+        if (driving && !withinBound(at))
+            return false;
+
+        if (Instrumentation.ENABLED)
+            dispatching(at);
+
+        if (tracer != null)
+            tracer.record(at, at, current.getId(), EventTracer.Kind.RESUME);
+
+        time = at;
+
+        return true;
+    }
+
+    SimulationProcess currentProcessOrFail () throws SimulationException
+    {
+        if (current == null)
+            throw new SimulationException("Current not set.");
+
+        return current;
+    }
+
+    /*
+     * Remove the next process from the queue, running any events which come
+     * before it on the way. Events run with no current process, so that they
+     * cannot be mistaken for (and suspend) the process which is giving up
+     * control.
+     */
+
+    private SimulationProcess nextProcess () throws NoSuchElementException
+    {
+        EventNotice n = take();
+
+        if (n == null)
+            return null;
+
+        while (n.proc() == null)
+        {
+            SimulationProcess active = ((current != null) && current.isCurrentThread()) ? current : null;
+
+            time = n.evtime();
+            current = null;
+
+            try
+            {
+                ((SimulationEvent) n).fire();
+            }
+            catch (final Exception ex)
+            {
+                // stop the run, which reports the failure
+
+                failed = ex;
+
+                return null;
+            }
+            finally
+            {
+                current = active;
+            }
+
+            n = take();
+
+            if (n == null)
+                return null;
+        }
+
+        return n.proc();
+    }
+
+    /*
+     * Remove the next entry from the queue, or return null if the simulation
+     * is being driven and the entry lies beyond the bound.
+     */
+
+    private EventNotice take () throws NoSuchElementException
+    {
+        if (driving)
+        {
+            EventNotice first = queue.first();
+
+            if ((first == null) || !withinBound(first.evtime()))
+                return null;
+        }
+
+        EventNotice n = queue.remove();
+
+        if (Instrumentation.ENABLED)
+            dispatching(n.evtime());
+
+        if (tracer != null)
+            traced(n);
+
+        return n;
+    }
+
+    private void traced (EventNotice n)
+    {
+        SimulationProcess p = n.proc();
+
+        if (p != null)
+            tracer.record(n.evtime(), n.evtime(), p.getId(), EventTracer.Kind.RESUME);
+        else
+            tracer.record(n.evtime(), n.evtime(), ((SimulationEvent) n).getId(), EventTracer.Kind.FIRE);
+    }
+
+    /*
+     * The instrumentation. The counts are only changed by the active thread,
+     * as it dispatches an event or hands control to another, so they need no
+     * locking; a snapshot taken by some other thread may just be a little
+     * out of date.
+     */
+
+    private void dispatching (double at)
+    {
+        if (wallStart == 0L)
+        {
+            simStart = at;
+            wallStart = System.nanoTime(); // publishes simStart
+        }
+
+        dispatched++;
+    }
+
+    void handingOff (boolean timed)
+    {
+        handoffs++;
+        handoffStart = (timed ? System.nanoTime() : 0L);
+    }
+
+    void handedOff ()
+    {
+        long start = handoffStart;
+
+        if (start != 0L)
+        {
+            latencies.record(System.nanoTime() - start);
+            handoffStart = 0L;
+        }
+    }
+
+    /*
+     * May the next event, due at the given time, run? If so it is counted
+     * against the budget.
+     */
+
+    private boolean withinBound (double at)
+    {
+        if ((at >= horizon) || (budget <= 0))
+            return false;
+
+        if ((condition != null) && !condition.getAsBoolean())
+            return false;
+
+        budget--;
+
+        return true;
+    }
+
+    /*
+     * The calling thread runs events until it comes to a process, then hands
+     * control to it and waits. The processes pass control among themselves
+     * as usual, and the first to find the bound reached (or the queue empty)
+     * hands it back. Only the driver and the active process touch the bound,
+     * and they take turns through the handoff, so it needs no locking.
+     */
+
+    private void drive (double until, long events, BooleanSupplier test) throws SimulationException
+    {
+        if ((current != null) && current.isCurrentThread())
+            throw new SimulationException("Simulation cannot be driven from within.");
+
+        if (driving)
+            throw new SimulationException("Simulation is already being driven.");
+
+        horizon = until;
+        budget = events;
+        condition = test;
+        driving = true;
+        running = true;
+
+        try
+        {
+            EventNotice n;
+
+            while ((n = take()) != null)
+            {
+                time = n.evtime();
+
+                SimulationProcess p = n.proc();
+
+                if (p == null)
+                {
+                    try
+                    {
+                        ((SimulationEvent) n).fire();
+                    }
+                    catch (final Exception ex)
+                    {
+                        failed = ex;
+
+                        break;
+                    }
+                }
+                else if (p.getThreadGroup() != null)  // see schedule
+                {
+                    current = p;
+                    p.resumeProcess();
+
+                    suspendMain();
+
+                    break;
+                }
+            }
+        }
+        finally
+        {
+            driving = false;
+            condition = null;
+        }
+
+        if (failed != null)
+            throw eventFailed();
+
+        EventNotice first = queue.first();
+
+        if ((until != Double.POSITIVE_INFINITY) && (time < until) && ((first == null) || (first.evtime() >= until)))
+        {
+            if (tickResolution == 0.0)
+                time = until;
+            else
+                time = Math.max(time, Math.floor(until / tickResolution) * tickResolution);
+        }
+    }
+
+    /*
+     * The exception from the event which stopped the run, as a
+     * SimulationException for whoever was running it.
+     */
+
+    private SimulationException eventFailed ()
+    {
+        Throwable cause = failed;
+
+        failed = null;
+
+        if (cause instanceof SimulationException)
+            return (SimulationException) cause;
+
+        SimulationException ex = new SimulationException("Event failed: " + cause);
+
+        ex.initCause(cause);
+
+        return ex;
+    }
+
+    /*
+     * Empty the queue, then resume every process so that it sees the reset
+     * and raises RestartException.
+     */
+
+    private void resetQueue ()
+    {
+        SimulationProcess active = ((current != null) && current.isCurrentThread()) ? current : null;
+
+        // set resetting process to idle
+
+        if (active != null)
+            unschedule(active);
+
+        clearQueue();
+
+        /*
+         * Every other process which has been started is suspended, so we
+         * resume each in turn to raise RestartException, and wait for it to
+         * suspend itself again, ready for the restart, before moving on.
+         */
+
+        for (SimulationProcess p : processes.toList())
+        {
+            if (p != active)
+                p.restart();
+        }
+
+        time = 0.0;
+
+        resetMetrics();
+
+        // a process which reset the simulation carries on as the active one
+
+        current = active;
+    }
+
+    private void clearQueue ()
+    {
+        boolean finished = false;
+
+        do
+        {
+            try
+            {
+                SimulationProcess tmp = queue.remove().proc();
+
+                if (tmp != null)  // events are simply dropped
+                    tmp.deactivate();
+            }
+            catch (NoSuchElementException e)
+            {
+                finished = true;
+            }
+
+        } while (!finished);
+    }
+
+    /*
+     * The state is only changed by the active process, and control passes
+     * between processes through a volatile handoff, so it needs no locking.
+     * The time is volatile too, as metrics() may read it from any thread.
+     */
+
+    volatile double time;
+
+    EventQueue queue;
+
+    SimulationProcess current;
+
+    ProcessRegistry processes;
+
+    private volatile Thread mainThread = null;
+
+    private volatile boolean mainResumed = false;
+
+    private boolean driving = false;
+
+    private double horizon;
+
+    private long budget;
+
+    private BooleanSupplier condition = null;
+
+    private volatile long dispatched = 0L;
+
+    private volatile long handoffs = 0L;
+
+    private volatile long handoffStart = 0L;
+
+    private final CostHistogram latencies = new CostHistogram();
+
+    private volatile long wallStart = 0L;
+
+    private double simStart;
+
+    EventTracer tracer = null;
+
+    private long events = 0L;
+
+    private Throwable failed = null;
+
+    private Simulation.QueueType queueType;
+
+    private double wheelResolution = 0.0;
+
+    private double tickResolution = 0.0;
+
+    private Simulation.ThreadType threadType;
+
+    private UniformGenerator generator;
+
+    private volatile boolean running;
+
+    private volatile boolean resetting;
+
+    private volatile boolean tearingDown = false;
+
+    private static final SimulationContext DEFAULT = new SimulationContext();
+
+    private static final ThreadLocal<SimulationContext> BOUND = new ThreadLocal<SimulationContext>();
+}
@@ -0,0 +1,102 @@
+/*
+ * Copyright 1990-2008, Mark Little, University of Newcastle upon Tyne
+ * and others contributors as indicated 
+ * by the @authors tag. All rights reserved. 
+ * See the copyright.txt in the distribution for a
+ * full listing of individual contributors. 
+ * This copyrighted material is made available to anyone wishing to use,
+ * modify, copy, or redistribute it subject to the terms and conditions
+ * of the GNU Lesser General Public License, v. 2.1.
+ * This program is distributed in the hope that it will be useful, but WITHOUT A 
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR A 
+ * PARTICULAR PURPOSE.  See the GNU Lesser General Public License for more details.
+ * You should have received a copy of the GNU Lesser General Public License,
+ * v.2.1 along with this distribution; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, 
+ * MA  02110-1301, USA.
+ * 
+ * (C) 1990-2008,
+ */
+
+
+package org.javasim;
+
+import java.util.NoSuchElementException;
+
+import org.javasim.internal.EventNotice;
+
+/**
+ * An event which runs a callback at a given simulation time, without the
+ * cost of a thread of its own. Events share the scheduler queue with
+ * processes, so run in the same time order as process wakeups (and after
+ * anything already scheduled for the same time). They are created through
+ * Simulation.scheduleAt and Simulation.scheduleDelay, which return the
+ * event so that it can be cancelled. Each event belongs to the context in
+ * which it was scheduled.
+ */
+public class SimulationEvent extends EventNotice
+{
+    /**
+     * Cancel the event if it has not yet run.
+     * 
+     * @return <code>true</code> if the event was cancelled,
+     *         <code>false</code> if it had already run or been cancelled.
+     */
+
+    public boolean cancel ()
+    {
+        try
+        {
+            context.queue.remove(this);
+
+            return true;
+        }
+        catch (NoSuchElementException e)
+        {
+            return false;
+        }
+    }
+
+    /**
+     * @return the number of this event among those scheduled in its
+     *         context, from 1, which identifies it in a trace.
+     */
+
+    public long getId ()
+    {
+        return id;
+    }
+
+    /**
+     * @return <code>true</code> if the event is waiting to run,
+     *         <code>false</code> otherwise.
+     */
+
+    public boolean isPending ()
+    {
+        return isScheduled();
+    }
+
+    SimulationEvent (SimulationContext context, EventAction action, long id)
+    {
+        this.context = context;
+        this.action = action;
+        this.id = id;
+    }
+
+    void fire () throws SimulationException, RestartException
+    {
+        action.fire();
+    }
+
+    EventAction action ()
+    {
+        return action;
+    }
+
+    private final SimulationContext context;
+
+    private final EventAction action;
+
+    private final long id;
+}
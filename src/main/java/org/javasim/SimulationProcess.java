@@ -32,8 +32,14 @@
 package org.javasim;
 
 import java.util.NoSuchElementException;
+import java.util.concurrent.locks.LockSupport;
 
-import org.javasim.internal.SimulationProcessList;
+import org.javasim.internal.EventNotice;
+import org.javasim.internal.EventQueue;
+import org.javasim.internal.Instrumentation;
+import org.javasim.internal.ProcessRegistry;
+import org.javasim.internal.VirtualThreads;
+import org.javasim.trace.EventTracer;
 
 public class SimulationProcess extends Thread
 {
@@ -48,13 +54,13 @@ public class SimulationProcess extends Thread
             wakeuptime = SimulationProcess.NEVER;
 
             if (!idle())
-                Scheduler.unschedule(this); // remove from scheduler queue
+                context.unschedule(this); // remove from scheduler queue
 
-            if (this == SimulationProcess.Current)
+            if (this == context.current)
             {
                 try
                 {
-                    Scheduler.schedule();
+                    context.schedule();
                 }
                 catch (SimulationException e)
                 {
@@ -70,7 +76,7 @@ public class SimulationProcess extends Thread
 
     public final double time ()
     {
-        return SimulationProcess.currentTime();
+        return context.currentTime();
     }
 
     /**
@@ -83,7 +89,15 @@ public class SimulationProcess extends Thread
             throws SimulationException, NoSuchElementException
     {
         if (!idle())
-            return Scheduler.getQueue().getNext(this);
+        {
+            EventQueue queue = context.queue;
+            EventNotice next = queue.getNext(eventNotice);
+
+            while ((next != null) && (next.proc() == null))  // skip events
+                next = queue.getNext(next);
+
+            return ((next == null) ? null : next.proc());
+        }
         else
             throw new SimulationException("SimulationProcess not on run queue.");
     }
@@ -114,10 +128,12 @@ public class SimulationProcess extends Thread
 
         passivated = false;
 
-        if (Scheduler.getQueue().insertBefore(this, p))
+        if (context.queue.insertBefore(eventNotice, p.eventNotice))
             wakeuptime = p.wakeuptime;
         else
             throw new SimulationException("'before' process is not scheduled.");
+
+        trace(EventTracer.Kind.ACTIVATE);
     }
 
     /**
@@ -140,10 +156,12 @@ public class SimulationProcess extends Thread
 
         passivated = false;
 
-        if (Scheduler.getQueue().insertAfter(this, p))
+        if (context.queue.insertAfter(eventNotice, p.eventNotice))
             wakeuptime = p.wakeuptime;
         else
             throw new SimulationException("'after' process is not scheduled.");
+
+        trace(EventTracer.Kind.ACTIVATE);
     }
 
     /**
@@ -165,12 +183,14 @@ public class SimulationProcess extends Thread
         if (terminated || !idle())
             return;
 
-        if (AtTime < SimulationProcess.currentTime())
+        if (AtTime < context.currentTime())
             throw new SimulationException("Invalid time " + AtTime);
 
         passivated = false;
-        wakeuptime = AtTime;
-        Scheduler.getQueue().insert(this, prior);
+        wakeuptime = context.quantise(AtTime);
+        context.queue.insert(eventNotice, wakeuptime, prior);
+
+        trace(EventTracer.Kind.ACTIVATE);
     }
 
     /**
@@ -212,8 +232,10 @@ public class SimulationProcess extends Thread
             throw new SimulationException("Invalid delay time " + Delay);
 
         passivated = false;
-        wakeuptime = Scheduler.getSimulationTime() + Delay;
-        Scheduler.getQueue().insert(this, prior);
+        wakeuptime = context.quantise(context.currentTime() + Delay);
+        context.queue.insert(eventNotice, wakeuptime, prior);
+
+        trace(EventTracer.Kind.ACTIVATE);
     }
 
     /**
@@ -246,8 +268,10 @@ public class SimulationProcess extends Thread
             return;
 
         passivated = false;
-        wakeuptime = currentTime();
-        Scheduler.getQueue().insert(this, true);
+        wakeuptime = context.currentTime();
+        context.queue.insert(eventNotice, wakeuptime, true);
+
+        trace(EventTracer.Kind.ACTIVATE);
     }
 
     /**
@@ -262,11 +286,11 @@ public class SimulationProcess extends Thread
             throws SimulationException, RestartException
     {
         if (!idle())
-            Scheduler.unschedule(this);
+            context.unschedule(this);
 
         activateBefore(p);
 
-        if (SimulationProcess.Current == this)
+        if (context.current == this)
             suspendProcess();
     }
 
@@ -282,11 +306,11 @@ public class SimulationProcess extends Thread
             throws SimulationException, RestartException
     {
         if (!idle())
-            Scheduler.unschedule(this);
+            context.unschedule(this);
 
         activateAfter(p);
 
-        if (SimulationProcess.Current == this)
+        if (context.current == this)
             suspendProcess();
     }
 
@@ -305,11 +329,11 @@ public class SimulationProcess extends Thread
             throws SimulationException, RestartException
     {
         if (!idle())
-            Scheduler.unschedule(this);
+            context.unschedule(this);
 
         activateAt(AtTime, prior);
 
-        if (SimulationProcess.Current == this)
+        if (context.current == this)
         {
             suspendProcess();
         }
@@ -345,11 +369,11 @@ public class SimulationProcess extends Thread
             throws SimulationException, RestartException
     {
         if (!idle())
-            Scheduler.unschedule(this);
+            context.unschedule(this);
 
         activateDelay(Delay, prior);
 
-        if (SimulationProcess.Current == this)
+        if (context.current == this)
             suspendProcess();
     }
 
@@ -377,11 +401,11 @@ public class SimulationProcess extends Thread
     public void reactivate () throws SimulationException, RestartException
     {
         if (!idle())
-            Scheduler.unschedule(this);
+            context.unschedule(this);
 
         activate();
 
-        if (SimulationProcess.Current == this)
+        if (context.current == this)
             suspendProcess();
     }
 
@@ -400,9 +424,11 @@ public class SimulationProcess extends Thread
 
         if (!idle()) // process is running or on queue to be run
         {
+            trace(EventTracer.Kind.CANCEL);
+
             // currently active, so simply suspend
 
-            if (this == SimulationProcess.Current)
+            if (this == context.current)
             {
                 wakeuptime = SimulationProcess.NEVER;
                 passivated = true;
@@ -410,7 +436,7 @@ public class SimulationProcess extends Thread
             }
             else
             {
-                Scheduler.unschedule(this); // remove from queue
+                context.unschedule(this); // remove from queue
             }
         }
     }
@@ -426,18 +452,26 @@ public class SimulationProcess extends Thread
             terminated = passivated = true;
             wakeuptime = SimulationProcess.NEVER;
 
-            if ((this != SimulationProcess.Current) && (!idle()))
-                Scheduler.unschedule(this);
+            trace(EventTracer.Kind.TERMINATE);
+
+            if ((this != context.current) && (!idle()))
+                context.unschedule(this);
 
             try
             {
-                Scheduler.schedule();
+                context.schedule();
             }
             catch (SimulationException e)
             {
             }
 
-            SimulationProcess.allProcesses.remove(this);
+            /*
+             * A process which has been started may still have a thread
+             * suspended, which teardown will need to find.
+             */
+
+            if (!started)
+                context.processes.remove(registration);
         }
     }
 
@@ -449,7 +483,7 @@ public class SimulationProcess extends Thread
 
     public synchronized boolean idle ()
     {
-        if (wakeuptime >= SimulationProcess.currentTime())
+        if (wakeuptime >= context.currentTime())
             return false;
         else
             return true;
@@ -484,10 +518,7 @@ public class SimulationProcess extends Thread
 
     public static SimulationProcess current () throws SimulationException
     {
-        if (SimulationProcess.Current == null)
-            throw new SimulationException("Current not set.");
-
-        return SimulationProcess.Current;
+        return SimulationContext.current().currentProcessOrFail();
     }
 
     /**
@@ -496,28 +527,17 @@ public class SimulationProcess extends Thread
 
     public static double currentTime ()
     {
-        return Scheduler.getSimulationTime();
+        return SimulationContext.current().currentTime();
     }
 
     /**
-     * Suspend the main thread.
+     * Suspend the main thread until a process calls mainResume. If that
+     * has already happened then return straight away.
      */
 
     public static void mainSuspend ()
     {
-        SimulationProcess.mainThread = Thread.currentThread();
-
-        synchronized (SimulationProcess.mainThread)
-        {
-            try
-            {
-                SimulationProcess.mainThread.wait();
-            }
-            catch (final Exception ex)
-            {
-                ex.printStackTrace();
-            }
-        }
+        SimulationContext.current().suspendMain();
     }
 
     /**
@@ -526,20 +546,7 @@ public class SimulationProcess extends Thread
 
     public static void mainResume () throws SimulationException
     {
-        if (SimulationProcess.mainThread == null)
-            throw new SimulationException("No main thread");
-
-        synchronized (SimulationProcess.mainThread)
-        {
-            try
-            {
-                SimulationProcess.mainThread.notify();
-            }
-            catch (final Exception ex)
-            {
-                ex.printStackTrace();
-            }
-        }
+        SimulationContext.current().resumeMain();
     }
 
     protected SimulationProcess()
@@ -549,14 +556,16 @@ public class SimulationProcess extends Thread
         passivated = true;
         started = false;
 
-        SimulationProcess.allProcesses.insert(this);
+        setUncaughtExceptionHandler(SimulationProcess.TEARDOWN_HANDLER);
+
+        registration = context.processes.insert(this);
     }
 
     protected void setEvtime (double time) throws SimulationException
     {
         if (!idle())
         {
-            if (time >= SimulationProcess.currentTime())
+            if (time >= context.currentTime())
                 wakeuptime = time;
             else
                 throw new SimulationException("Time " + time + " invalid.");
@@ -571,9 +580,24 @@ public class SimulationProcess extends Thread
 
     protected void hold (double t) throws SimulationException, RestartException
     {
-        if ((this == SimulationProcess.Current)
-                || (SimulationProcess.Current == null))
+        if ((this == context.current)
+                || (context.current == null))
         {
+            /*
+             * If nothing else is due to run by the time we would wake up then
+             * there is no need to go through the queue or switch threads.
+             */
+
+            if ((this == context.current) && !terminated
+                    && !eventNotice.isScheduled() && checkTime(t)
+                    && context.skipTo(context.currentTime() + t))
+            {
+                passivated = false;
+                wakeuptime = context.currentTime();
+
+                return;
+            }
+
             wakeuptime = SimulationProcess.NEVER;
             activateDelay(t, false);
             suspendProcess();
@@ -584,7 +608,7 @@ public class SimulationProcess extends Thread
 
     protected void passivate () throws RestartException
     {
-        if (!passivated && (this == SimulationProcess.Current))
+        if (!passivated && (this == context.current))
             cancel();
     }
 
@@ -595,33 +619,33 @@ public class SimulationProcess extends Thread
 
     protected void suspendProcess () throws RestartException
     {
+        if (context.isTearingDown())
+            throw new ProcessTeardown();
+
         try
         {
-            if (Scheduler.schedule())
+            if (context.isReset())
             {
-                synchronized (mutex)
-                {
-                    count--;
-
-                    if (count == 0)
-                    {
-                        try
-                        {
-                            mutex.wait();
-                        }
-                        catch (Exception e)
-                        {
-                        }
-                    }
-
-                }
+                /*
+                 * We were resumed by reset and have got ourselves ready for
+                 * the next run, so stay off the queue and tell the resetter.
+                 */
+
+                context.unschedule(this);
+                acknowledge();
+                waitForPermit();
             }
+            else if (context.schedule())
+                waitForPermit();
         }
         catch (SimulationException e)
         {
         }
 
-        if (Simulation.isReset())
+        if (context.isTearingDown())
+            throw new ProcessTeardown();
+
+        if (context.isReset())
             throw new RestartException();
     }
 
@@ -637,30 +661,175 @@ public class SimulationProcess extends Thread
          * To compensate for the initial call to Resume by the application.
          */
 
-        if (SimulationProcess.Current == null)
+        if (context.current == null)
         {
-            SimulationProcess.Current = this;
-            wakeuptime = SimulationProcess.currentTime();
+            context.current = this;
+            wakeuptime = context.currentTime();
         }
 
-        if (!terminated)
+        if (!terminated && !context.isTearingDown())
         {
             if (!started)
             {
                 started = true;
-                start();
+
+                if (Instrumentation.ENABLED)
+                    context.handingOff(false);
+
+                if (context.getThreadType() == Simulation.ThreadType.VIRTUAL)
+                {
+                    body = VirtualThreads.create(getName(), () -> {
+                        SimulationContext.bind(context);
+
+                        try
+                        {
+                            run();
+                        }
+                        catch (final ProcessTeardown ex)
+                        {
+                        }
+                        finally
+                        {
+                            synchronized (this)
+                            {
+                                exited = true;
+                                notifyAll();
+                            }
+                        }
+                    });
+                    body.start();
+                }
+                else
+                    start();
             }
             else
             {
-                synchronized (mutex)
-                {
-                    count++;
+                if (Instrumentation.ENABLED)
+                    context.handingOff(true);
+
+                permit = true;
+                LockSupport.unpark((body != null) ? body : this);
+            }
+        }
+    }
 
-                    if (count >= 0)
-                        mutex.notify();
+    /*
+     * Called by reset for each process which is suspended: make it raise
+     * RestartException, and wait until it has suspended itself again or its
+     * thread has finished. The thread of a platform process notifies itself
+     * as it ends, so there is no need to poll.
+     */
+
+    void restart ()
+    {
+        if (!started || terminated || finished())
+            return;
+
+        context.current = this;
+
+        permit = true;
+        LockSupport.unpark((body != null) ? body : this);
+
+        boolean interrupted = false;
+
+        synchronized (this)
+        {
+            while (!acknowledged && !finished())
+            {
+                try
+                {
+                    wait();
+                }
+                catch (final InterruptedException ex)
+                {
+                    interrupted = true;
                 }
             }
+
+            acknowledged = false;
+        }
+
+        if (interrupted)
+            Thread.currentThread().interrupt();
+    }
+
+    /*
+     * Called by teardown: wake the thread, which raises ProcessTeardown from
+     * wherever it is suspended, and wait for it to finish.
+     */
+
+    void release ()
+    {
+        if (!started)
+            return;
+
+        Thread thread = (body != null) ? body : this;
+        boolean interrupted = false;
+
+        permit = true;
+        LockSupport.unpark(thread);
+
+        for (;;)
+        {
+            try
+            {
+                thread.join();
+
+                break;
+            }
+            catch (final InterruptedException ex)
+            {
+                interrupted = true;
+            }
         }
+
+        if (interrupted)
+            Thread.currentThread().interrupt();
+    }
+
+    /*
+     * Is the caller running as this process?
+     */
+
+    boolean isCurrentThread ()
+    {
+        return Thread.currentThread() == ((body != null) ? body : this);
+    }
+
+    private boolean finished ()
+    {
+        return (body != null) ? exited : !isAlive();
+    }
+
+    private synchronized void acknowledge ()
+    {
+        acknowledged = true;
+        notifyAll();
+    }
+
+    /*
+     * Only one process runs at a time, so the one which resumes us simply
+     * sets our permit and unparks us. No monitor is needed, and a virtual
+     * thread does not pin its carrier.
+     */
+
+    private void waitForPermit ()
+    {
+        while (!permit)
+            LockSupport.park(this);
+
+        permit = false;
+
+        if (Instrumentation.ENABLED)
+            context.handedOff();
+    }
+
+    private void trace (EventTracer.Kind kind)
+    {
+        EventTracer tracer = context.tracer;
+
+        if (tracer != null)
+            tracer.record(context.currentTime(), wakeuptime, getId(), kind);
     }
 
     private boolean checkTime (double time)
@@ -677,7 +846,16 @@ public class SimulationProcess extends Thread
         wakeuptime = SimulationProcess.NEVER;
     }
 
-    static SimulationProcessList allProcesses = new SimulationProcessList();
+    /*
+     * The context this process belongs to, which is that of the thread which
+     * created it.
+     */
+
+    final SimulationContext context = SimulationContext.current();
+
+    final EventNotice eventNotice = new EventNotice(this);
+
+    private final ProcessRegistry.Entry registration;
 
     private double wakeuptime;
 
@@ -687,11 +865,24 @@ public class SimulationProcess extends Thread
 
     private boolean started;
 
-    private Object mutex = new Object();
+    /*
+     * If the process body runs on a virtual thread then this is it.
+     */
+
+    private Thread body = null;
+
+    private volatile boolean permit = false;
 
-    private int count = 1;
+    private boolean acknowledged = false;
 
-    private static Thread mainThread = null;
+    private boolean exited = false;
+
+    /*
+     * Keeps the unwinding of a torn down process quiet.
+     */
 
-    static SimulationProcess Current = null;
+    private static final Thread.UncaughtExceptionHandler TEARDOWN_HANDLER = (thread, ex) -> {
+        if (!(ex instanceof ProcessTeardown))
+            thread.getThreadGroup().uncaughtException(thread, ex);
+    };
 }
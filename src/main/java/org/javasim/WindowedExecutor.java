@@ -0,0 +1,386 @@
+/*
+ * Copyright 1990-2008, Mark Little, University of Newcastle upon Tyne
+ * and others contributors as indicated 
+ * by the @authors tag. All rights reserved. 
+ * See the copyright.txt in the distribution for a
+ * full listing of individual contributors. 
+ * This copyrighted material is made available to anyone wishing to use,
+ * modify, copy, or redistribute it subject to the terms and conditions
+ * of the GNU Lesser General Public License, v. 2.1.
+ * This program is distributed in the hope that it will be useful, but WITHOUT A 
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR A 
+ * PARTICULAR PURPOSE.  See the GNU Lesser General Public License for more details.
+ * You should have received a copy of the GNU Lesser General Public License,
+ * v.2.1 along with this distribution; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, 
+ * MA  02110-1301, USA.
+ * 
+ * (C) 1990-2008,
+ */
+
+
+package org.javasim;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Phaser;
+
+import org.javasim.internal.EventNotice;
+import org.javasim.streams.UniformGenerator;
+
+/**
+ * Runs a model which is divided into partitions, such as the sites of a
+ * regional network, in parallel time windows (as in YAWNS). Each partition
+ * is an ordinary simulation with its own SimulationContext, so its own
+ * clock and scheduler queue, built from SimulationProcess and
+ * SimulationEvent in the usual way. Partitions only affect each other
+ * through actions posted with post(), which must be at least the lookahead
+ * in the future.
+ * 
+ * All of the partitions advance together through a window of time starting
+ * at the earliest event anywhere and lasting for the lookahead, each on its
+ * own thread. Nothing posted during a window can fall within it, so at the
+ * end of each window the partitions meet at a barrier, hand over what has
+ * been posted between them, and go on to the next. Posted actions are
+ * handed over in a fixed order, so the results do not depend on how the
+ * threads happened to run.
+ */
+public class WindowedExecutor
+{
+    /**
+     * A model to be partitioned.
+     */
+
+    public interface Model
+    {
+        /**
+         * Create and activate the processes of one partition, and schedule
+         * its initial events. This is called with the partition's context
+         * bound to the calling thread.
+         * 
+         * @param partition the number of the partition, from 0.
+         * @param executor the executor, which may be kept for posting.
+         * @throws Exception if the partition cannot be built.
+         */
+
+        public void build (int partition, WindowedExecutor executor) throws Exception;
+    }
+
+    /**
+     * Create an executor.
+     * 
+     * @param partitions the number of partitions, each run by its own thread.
+     * @param lookahead the smallest delay of anything posted between
+     *        partitions.
+     */
+
+    public WindowedExecutor (int partitions, double lookahead)
+    {
+        if (!(lookahead > 0.0))
+            throw new IllegalArgumentException("Invalid lookahead " + lookahead);
+
+        this.lookahead = lookahead;
+        this.contexts = new SimulationContext[Math.max(1, partitions)];
+        this.outboxes = new Outbox[contexts.length][contexts.length];
+        this.nextTimes = new double[contexts.length];
+        this.phaser = new Phaser(contexts.length);
+        this.finished = new CountDownLatch(contexts.length);
+
+        UniformGenerator seeds = new UniformGenerator();
+
+        for (int i = 0; i < contexts.length; i++)
+        {
+            contexts[i] = new SimulationContext();
+            contexts[i].setGenerator(seeds.substream(i, contexts.length));
+
+            for (int j = 0; j < contexts.length; j++)
+                outboxes[i][j] = new Outbox();
+        }
+    }
+
+    /**
+     * @return the number of partitions.
+     */
+
+    public int numberOfPartitions ()
+    {
+        return contexts.length;
+    }
+
+    /**
+     * @param partition the number of a partition.
+     * @return the context of the partition.
+     */
+
+    public SimulationContext getContext (int partition)
+    {
+        return contexts[partition];
+    }
+
+    /**
+     * @return the number of windows the last run took.
+     */
+
+    public long windows ()
+    {
+        return windows;
+    }
+
+    /**
+     * Build the model and run it until the given time, waiting for all of
+     * the partitions to get there. The partitions are then torn down, so no
+     * process threads are left behind. An executor can only be run once.
+     * 
+     * @param endTime the time at which to stop.
+     * @param model the model.
+     * @throws SimulationException if the model fails.
+     */
+
+    public void run (double endTime, Model model) throws SimulationException
+    {
+        synchronized (this)
+        {
+            if (drivers != null)
+                throw new SimulationException("Executor has already been run.");
+
+            drivers = new Driver[contexts.length];
+        }
+
+        this.endTime = endTime;
+
+        SimulationContext previous = SimulationContext.bind(contexts[0]);
+
+        try
+        {
+            for (int i = 0; i < contexts.length; i++)
+            {
+                SimulationContext.bind(contexts[i]);
+
+                model.build(i, this);
+
+                drivers[i] = new Driver(i);
+            }
+        }
+        catch (final Exception ex)
+        {
+            throw failure("Partition could not be built.", ex);
+        }
+        finally
+        {
+            SimulationContext.bind(previous);
+        }
+
+        running = true;
+
+        for (Driver driver : drivers)
+            driver.begin();
+
+        boolean interrupted = false;
+
+        for (;;)
+        {
+            try
+            {
+                finished.await();
+
+                break;
+            }
+            catch (final InterruptedException ex)
+            {
+                interrupted = true;
+            }
+        }
+
+        if (interrupted)
+            Thread.currentThread().interrupt();
+
+        for (SimulationContext context : contexts)
+            context.teardown();
+
+        if (failed != null)
+            throw failure("Partition failed.", failed);
+    }
+
+    /**
+     * Post an action to run in a partition after the given delay. This is
+     * called from within a partition, and the delay is measured from that
+     * partition's current time; while the model is being built it may be
+     * any delay, but while it is running the delay must be at least the
+     * lookahead (unless the action is for the same partition).
+     * 
+     * @param partition the partition in which to run the action.
+     * @param delay the time to wait before running the action.
+     * @param action the work to do.
+     * @throws SimulationException if the delay is too short or the calling
+     *         thread is not in a partition.
+     */
+
+    public void post (int partition, double delay, EventAction action) throws SimulationException
+    {
+        SimulationContext context = SimulationContext.current();
+        int source = partitionOf(context);
+        double at = context.currentTime() + delay;
+
+        if (delay < 0)
+            throw new SimulationException("Invalid delay time " + delay);
+
+        if (!running || (source == partition))
+        {
+            contexts[partition].scheduleAt(at, action);
+
+            return;
+        }
+
+        if (delay < lookahead)
+            throw new SimulationException("Delay " + delay + " between partitions is less than the lookahead.");
+
+        outboxes[source][partition].add(at, action);
+    }
+
+    private int partitionOf (SimulationContext context) throws SimulationException
+    {
+        for (int i = 0; i < contexts.length; i++)
+        {
+            if (contexts[i] == context)
+                return i;
+        }
+
+        throw new SimulationException("Not called from a partition.");
+    }
+
+    private static SimulationException failure (String reason, Throwable cause)
+    {
+        if (cause instanceof SimulationException)
+            return (SimulationException) cause;
+
+        SimulationException ex = new SimulationException(reason);
+
+        ex.initCause(cause);
+
+        return ex;
+    }
+
+    /*
+     * The actions posted from one partition to another during a window.
+     */
+
+    private static class Outbox
+    {
+        void add (double at, EventAction action)
+        {
+            times.add(at);
+            actions.add(action);
+        }
+
+        final List<Double> times = new ArrayList<Double>();
+
+        final List<EventAction> actions = new ArrayList<EventAction>();
+    }
+
+    /*
+     * Drives one partition through the windows, taking part in the barriers
+     * for it. While the driver waits at a barrier it is the active process,
+     * so nothing else in the partition runs.
+     */
+
+    private class Driver extends SimulationProcess
+    {
+        public Driver (int index)
+        {
+            this.index = index;
+        }
+
+        public void run ()
+        {
+            try
+            {
+                context.start();
+
+                for (;;)
+                {
+                    // take delivery of what was posted in the last window
+
+                    for (int i = 0; i < contexts.length; i++)
+                    {
+                        Outbox outbox = outboxes[i][index];
+
+                        for (int j = 0; j < outbox.actions.size(); j++)
+                            context.scheduleAt(outbox.times.get(j), outbox.actions.get(j));
+
+                        outbox.times.clear();
+                        outbox.actions.clear();
+                    }
+
+                    EventNotice first = context.queue.first();
+
+                    nextTimes[index] = (first == null) ? Double.POSITIVE_INFINITY : first.evtime();
+
+                    if (phaser.arriveAndAwaitAdvance() < 0)
+                        break;
+
+                    double start = Double.POSITIVE_INFINITY;
+
+                    for (double time : nextTimes)
+                        start = Math.min(start, time);
+
+                    if (start >= endTime)
+                        break;
+
+                    if (index == 0)
+                        windows++;
+
+                    // prior, so that the window ends before anything at its end time
+
+                    reactivateAt(Math.min(start + lookahead, endTime), true);
+
+                    if (phaser.arriveAndAwaitAdvance() < 0)
+                        break;
+                }
+
+                context.stop();
+            }
+            catch (final Throwable ex)
+            {
+                synchronized (WindowedExecutor.this)
+                {
+                    if (failed == null)
+                        failed = ex;
+                }
+
+                phaser.forceTermination();
+            }
+
+            finished.countDown();
+        }
+
+        void begin ()
+        {
+            resumeProcess();
+        }
+
+        private final int index;
+    }
+
+    private final double lookahead;
+
+    private final SimulationContext[] contexts;
+
+    private final Outbox[][] outboxes;
+
+    private final double[] nextTimes;
+
+    private final Phaser phaser;
+
+    private final CountDownLatch finished;
+
+    private Driver[] drivers = null;
+
+    private double endTime;
+
+    private volatile boolean running = false;
+
+    private Throwable failed = null;
+
+    private long windows = 0;
+}
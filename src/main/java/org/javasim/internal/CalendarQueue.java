@@ -0,0 +1,351 @@
+/*
+ * Copyright 1990-2008, Mark Little, University of Newcastle upon Tyne
+ * and others contributors as indicated 
+ * by the @authors tag. All rights reserved. 
+ * See the copyright.txt in the distribution for a
+ * full listing of individual contributors. 
+ * This copyrighted material is made available to anyone wishing to use,
+ * modify, copy, or redistribute it subject to the terms and conditions
+ * of the GNU Lesser General Public License, v. 2.1.
+ * This program is distributed in the hope that it will be useful, but WITHOUT A 
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR A 
+ * PARTICULAR PURPOSE.  See the GNU Lesser General Public License for more details.
+ * You should have received a copy of the GNU Lesser General Public License,
+ * v.2.1 along with this distribution; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, 
+ * MA  02110-1301, USA.
+ * 
+ * (C) 1990-2008,
+ */
+
+package org.javasim.internal;
+
+import java.util.Arrays;
+
+/**
+ * The scheduler queue held as a calendar queue, after R. Brown, "Calendar
+ * Queues: A Fast O(1) Priority Queue Implementation for the Simulation Event
+ * Set Problem", CACM 31(10), 1988.
+ * 
+ * Time is divided into days of a fixed width, and a year of days is mapped
+ * on to an array of buckets, each of which is an ordered list. Entries are
+ * dequeued by walking forward through the days from the last one used. The
+ * number of buckets is doubled or halved as the queue grows or shrinks, and
+ * at the same time the day width is recalculated from the gaps between the
+ * distinct times at the front of the queue, so that each bucket holds only a
+ * few entries, or only one time where many entries share a time. The width
+ * is also recalculated if the lists and days searched per operation grow
+ * long while the size stays the same. Enqueue and dequeue are then O(1)
+ * amortised.
+ */
+
+public class CalendarQueue extends EventQueue
+{
+    public CalendarQueue()
+    {
+        this(CalendarQueue.MIN_BUCKETS, 1.0);
+    }
+
+    /**
+     * Create a calendar with at least 'buckets' buckets, each 'width' wide. These
+     * will be adjusted as entries are added and removed.
+     */
+
+    public CalendarQueue(int buckets, double width)
+    {
+        int number = CalendarQueue.MIN_BUCKETS;
+
+        while (number < buckets)
+            number <<= 1;
+
+        lastTime = 0.0;
+        resizing = false;
+
+        build(number, ((width > 0.0) ? width : 1.0));
+    }
+
+    public synchronized int size ()
+    {
+        return size;
+    }
+
+    public synchronized EventNotice first ()
+    {
+        return ((size == 0) ? null : buckets[locate()].head);
+    }
+
+    public synchronized EventNotice[] toArray ()
+    {
+        EventNotice[] entries = new EventNotice[size];
+        int offset = 0;
+
+        for (int i = 0; i < buckets.length; i++)
+            offset = buckets[i].copyInto(entries, offset);
+
+        return entries;
+    }
+
+    /**
+     * @return the current width of a day.
+     */
+
+    public synchronized double width ()
+    {
+        return width;
+    }
+
+    /**
+     * @return the current number of buckets.
+     */
+
+    public synchronized int buckets ()
+    {
+        return buckets.length;
+    }
+
+    protected void enqueue (EventNotice n)
+    {
+        long day = day(n.time);
+        int bucket = (int) (day & mask);
+
+        if (day < lastDay)
+            lastDay = day;
+
+        work += buckets[bucket].insert(n);
+        n.index = bucket;
+        size++;
+
+        if (!resizing && (size > (buckets.length << 1)))
+            resize(buckets.length << 1);
+        else
+            account();
+    }
+
+    protected void dequeue (EventNotice n)
+    {
+        buckets[n.index].unlink(n);
+        n.index = EventNotice.NOT_QUEUED;
+        size--;
+
+        shrink();
+        account();
+    }
+
+    protected EventNotice dequeue ()
+    {
+        EventNotice n = buckets[locate()].removeFirst();
+
+        n.index = EventNotice.NOT_QUEUED;
+        size--;
+        lastTime = n.time;
+
+        shrink();
+        account();
+
+        return n;
+    }
+
+    /*
+     * Find the bucket whose head is the earliest entry on the queue, moving
+     * the current day on to it. Normally this is found within a year of the
+     * current day; if not, the calendar is sparse and a direct search of the
+     * bucket heads is quicker. The queue must not be empty.
+     */
+
+    private int locate ()
+    {
+        long day = lastDay;
+
+        for (int i = 0; i < buckets.length; i++, day++)
+        {
+            int bucket = (int) (day & mask);
+            EventNotice head = buckets[bucket].head;
+
+            if ((head != null) && (day(head.time) <= day))
+            {
+                lastDay = day;
+                work += i;
+
+                return bucket;
+            }
+        }
+
+        int earliest = -1;
+
+        work += buckets.length << 1;
+
+        for (int i = 0; i < buckets.length; i++)
+        {
+            EventNotice head = buckets[i].head;
+
+            if ((head != null)
+                    && ((earliest == -1) || (EventQueue.compare(head, buckets[earliest].head) < 0)))
+                earliest = i;
+        }
+
+        lastDay = day(buckets[earliest].head.time);
+
+        return earliest;
+    }
+
+    private void shrink ()
+    {
+        if (!resizing && (buckets.length > CalendarQueue.MIN_BUCKETS)
+                && (size < (buckets.length >> 1)))
+            resize(buckets.length >> 1);
+    }
+
+    /*
+     * Count an operation, and if over the last 'size' or so operations the
+     * lists have been searched for much more than a few entries or days
+     * each, the width no longer suits the times on the queue, even though
+     * its size has not changed enough to resize it: so sample the width
+     * again. As this happens at most once every 'size' operations the cost
+     * remains O(1) amortised.
+     */
+
+    private void account ()
+    {
+        if (resizing || (++operations < Math.max(size, CalendarQueue.MIN_OPERATIONS)))
+            return;
+
+        if (work > CalendarQueue.COST_LIMIT * operations)
+            resize(buckets.length);
+
+        work = 0;
+        operations = 0;
+    }
+
+    private void resize (int number)
+    {
+        resizing = true;
+
+        try
+        {
+            double newWidth = sampleWidth();
+            EventNotice[] entries = toArray();
+
+            build(number, newWidth);
+
+            for (int i = 0; i < entries.length; i++)
+                enqueue(entries[i]);
+        }
+        finally
+        {
+            resizing = false;
+            work = 0;
+            operations = 0;
+        }
+    }
+
+    /*
+     * Take a few entries off the front of the queue, going on until at least
+     * a few distinct times have been seen, and work out the average
+     * separation of those times, ignoring any gaps which are more than twice
+     * the average. A day is made three times this wide, as Brown suggests,
+     * but divided by the average number of entries for each time, so that
+     * when many entries share each time a day holds only one of those times
+     * and inserting at a time never has to pass over the entries of a later
+     * one. If all of the entries are for the same time then the width is left
+     * alone.
+     */
+
+    private double sampleWidth ()
+    {
+        int samples = ((size <= 5) ? size : Math.min(5 + size / 10, CalendarQueue.SAMPLES));
+
+        if (samples < 2)
+            return width;
+
+        double savedTime = lastTime;
+        EventNotice[] sampled = new EventNotice[samples];
+        int count = 0, distinct = 0;
+
+        while ((size > 0) && ((count < samples) || (distinct < CalendarQueue.MIN_GAPS)))
+        {
+            if (count == sampled.length)
+                sampled = Arrays.copyOf(sampled, count << 1);
+
+            sampled[count] = dequeue();
+
+            if ((count > 0) && (sampled[count].time > sampled[count - 1].time))
+                distinct++;
+
+            count++;
+        }
+
+        double average = (distinct == 0) ? 0.0 : (sampled[count - 1].time - sampled[0].time) / distinct;
+        double total = 0.0;
+        int gaps = 0;
+
+        for (int i = 1; i < count; i++)
+        {
+            double gap = sampled[i].time - sampled[i - 1].time;
+
+            if ((gap > 0.0) && (gap <= 2.0 * average))
+            {
+                total += gap;
+                gaps++;
+            }
+        }
+
+        for (int i = 0; i < count; i++)
+            enqueue(sampled[i]);
+
+        lastTime = savedTime;
+
+        if ((gaps == 0) || (total <= 0.0))
+            return width;
+
+        return (3.0 * total / gaps) * (distinct + 1) / count;
+    }
+
+    private void build (int number, double newWidth)
+    {
+        buckets = new NoticeList[number];
+
+        for (int i = 0; i < number; i++)
+            buckets[i] = new NoticeList();
+
+        mask = number - 1;
+        width = newWidth;
+        inverseWidth = 1.0 / newWidth;
+        size = 0;
+        lastDay = day(lastTime);
+    }
+
+    private long day (double time)
+    {
+        return (long) (time * inverseWidth);
+    }
+
+    private static final int MIN_BUCKETS = 2;
+
+    private static final int SAMPLES = 25;
+
+    private static final int MIN_GAPS = 3;
+
+    private static final int MIN_OPERATIONS = 64;
+
+    private static final int COST_LIMIT = 16;
+
+    private NoticeList[] buckets;
+
+    private int mask;
+
+    private double width;
+
+    private double inverseWidth;
+
+    private int size;
+
+    private long lastDay;
+
+    private double lastTime;
+
+    private boolean resizing;
+
+    private long work;
+
+    private int operations;
+}
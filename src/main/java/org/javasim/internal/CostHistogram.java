@@ -0,0 +1,88 @@
+/*
+ * Copyright 1990-2008, Mark Little, University of Newcastle upon Tyne
+ * and others contributors as indicated 
+ * by the @authors tag. All rights reserved. 
+ * See the copyright.txt in the distribution for a
+ * full listing of individual contributors. 
+ * This copyrighted material is made available to anyone wishing to use,
+ * modify, copy, or redistribute it subject to the terms and conditions
+ * of the GNU Lesser General Public License, v. 2.1.
+ * This program is distributed in the hope that it will be useful, but WITHOUT A 
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR A 
+ * PARTICULAR PURPOSE.  See the GNU Lesser General Public License for more details.
+ * You should have received a copy of the GNU Lesser General Public License,
+ * v.2.1 along with this distribution; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, 
+ * MA  02110-1301, USA.
+ * 
+ * (C) 1990-2008,
+ */
+
+
+package org.javasim.internal;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * A histogram of the time taken by some operation, with one bucket per
+ * power of two nanoseconds: bucket 0 counts operations which took no
+ * measurable time, and bucket i (for i > 0) those which took at least
+ * 2^(i-1) and less than 2^i nanoseconds. Recording is a shift and an
+ * increment. It is not synchronised, as the scheduler only records from
+ * the active thread, but each count is published with an ordered store so
+ * the histogram may be read from any other thread.
+ */
+
+public final class CostHistogram
+{
+    /**
+     * Count an operation.
+     * 
+     * @param nanos how long it took.
+     */
+
+    public void record (long nanos)
+    {
+        int i = 64 - Long.numberOfLeadingZeros(Math.max(nanos, 0L));
+
+        counts.lazySet(i, counts.get(i) + 1);
+    }
+
+    /**
+     * @return the number of operations in each bucket.
+     */
+
+    public long[] counts ()
+    {
+        long[] copy = new long[counts.length()];
+
+        for (int i = 0; i < copy.length; i++)
+            copy[i] = counts.get(i);
+
+        return copy;
+    }
+
+    /**
+     * Add in the counts of another histogram.
+     * 
+     * @param other the histogram to add.
+     */
+
+    public void merge (CostHistogram other)
+    {
+        for (int i = 0; i < counts.length(); i++)
+            counts.lazySet(i, counts.get(i) + other.counts.get(i));
+    }
+
+    /**
+     * Forget everything which has been recorded.
+     */
+
+    public void clear ()
+    {
+        for (int i = 0; i < counts.length(); i++)
+            counts.set(i, 0L);
+    }
+
+    private final AtomicLongArray counts = new AtomicLongArray(65);
+}
@@ -0,0 +1,98 @@
+/*
+ * Copyright 1990-2008, Mark Little, University of Newcastle upon Tyne
+ * and others contributors as indicated 
+ * by the @authors tag. All rights reserved. 
+ * See the copyright.txt in the distribution for a
+ * full listing of individual contributors. 
+ * This copyrighted material is made available to anyone wishing to use,
+ * modify, copy, or redistribute it subject to the terms and conditions
+ * of the GNU Lesser General Public License, v. 2.1.
+ * This program is distributed in the hope that it will be useful, but WITHOUT A 
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR A 
+ * PARTICULAR PURPOSE.  See the GNU Lesser General Public License for more details.
+ * You should have received a copy of the GNU Lesser General Public License,
+ * v.2.1 along with this distribution; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, 
+ * MA  02110-1301, USA.
+ * 
+ * (C) 1990-2008,
+ */
+
+package org.javasim.internal;
+
+import org.javasim.SimulationProcess;
+
+/**
+ * An entry on the scheduler queue. As in SIMULA, an event notice records
+ * the time at which its process is due to run. Each process owns a single
+ * notice for its lifetime, so placing it on (or taking it off) the queue
+ * never allocates. The notice also remembers where it currently lives in
+ * the queue (a heap slot, or the list it is linked into), so that removing
+ * an arbitrary process does not require a search.
+ */
+
+public class EventNotice
+{
+    public EventNotice(SimulationProcess p)
+    {
+        proc = p;
+        time = SimulationProcess.NEVER;
+        sequence = 0;
+        index = EventNotice.NOT_QUEUED;
+    }
+
+    /**
+     * Create a notice which has no process, for an event which is run by the
+     * scheduler itself.
+     */
+
+    protected EventNotice()
+    {
+        this(null);
+    }
+
+    /**
+     * @return the process associated with this notice, or <code>null</code>
+     *         if it is not for a process.
+     */
+
+    public final SimulationProcess proc ()
+    {
+        return proc;
+    }
+
+    /**
+     * @return the time at which this notice is scheduled.
+     */
+
+    public final double evtime ()
+    {
+        return time;
+    }
+
+    /**
+     * @return <code>true</code> if this notice is currently on a queue,
+     *         <code>false</code> otherwise.
+     */
+
+    public final boolean isScheduled ()
+    {
+        return index != EventNotice.NOT_QUEUED;
+    }
+
+    static final int NOT_QUEUED = -1;
+
+    double time;
+
+    long sequence;
+
+    int index;
+
+    EventNotice prev;
+
+    EventNotice next;
+
+    NoticeList list;
+
+    private SimulationProcess proc;
+}
@@ -0,0 +1,448 @@
+/*
+ * Copyright 1990-2008, Mark Little, University of Newcastle upon Tyne
+ * and others contributors as indicated 
+ * by the @authors tag. All rights reserved. 
+ * See the copyright.txt in the distribution for a
+ * full listing of individual contributors. 
+ * This copyrighted material is made available to anyone wishing to use,
+ * modify, copy, or redistribute it subject to the terms and conditions
+ * of the GNU Lesser General Public License, v. 2.1.
+ * This program is distributed in the hope that it will be useful, but WITHOUT A 
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR A 
+ * PARTICULAR PURPOSE.  See the GNU Lesser General Public License for more details.
+ * You should have received a copy of the GNU Lesser General Public License,
+ * v.2.1 along with this distribution; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, 
+ * MA  02110-1301, USA.
+ * 
+ * (C) 1990-2008,
+ */
+
+package org.javasim.internal;
+
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.NoSuchElementException;
+
+/**
+ * The scheduler queue. Entries are event notices ordered on (time,
+ * sequence): notices inserted for the same time run in the order in which
+ * they were inserted, unless 'prior' was requested, in which case they go
+ * in front of everything already waiting for that time. Non-prior inserts
+ * are given increasing sequence numbers and prior inserts decreasing ones,
+ * so every implementation only has to order on the pair.
+ * 
+ * Implementations provide the data structure; the ordering rules, and the
+ * operations which are not on the fast path, live here. So does the
+ * instrumentation, which times each insert and remove and tracks the
+ * longest the queue has been, when Instrumentation.ENABLED is set.
+ */
+
+public abstract class EventQueue
+{
+    /**
+     * @return the number of entries on the queue.
+     */
+
+    public abstract int size ();
+
+    /**
+     * @return the entry at the head of the queue, or <code>null</code> if the
+     *         queue is empty. The entry is not removed.
+     */
+
+    public abstract EventNotice first ();
+
+    /**
+     * @return the entries on the queue, in no particular order.
+     */
+
+    public abstract EventNotice[] toArray ();
+
+    /**
+     * @return <code>true</code> if the queue is empty, <code>false</code>
+     *         otherwise.
+     */
+
+    public synchronized boolean isEmpty ()
+    {
+        return size() == 0;
+    }
+
+    public synchronized void insert (EventNotice n, double time)
+    {
+        insert(n, time, false);
+    }
+
+    /**
+     * Insert the notice for the given time. If 'prior' is true then it will
+     * be placed before any other entry with the same time, otherwise after
+     * them. If the notice is already on the queue then it is moved.
+     * 
+     * @param n the notice to insert.
+     * @param time the time at which it should be run.
+     * @param prior whether or not it goes before others with the same time.
+     */
+
+    public synchronized void insert (EventNotice n, double time, boolean prior)
+    {
+        long start = (Instrumentation.ENABLED ? System.nanoTime() : 0L);
+
+        if (n.isScheduled())
+            dequeue(n);
+
+        n.time = time;
+        n.sequence = (prior ? nextPriorSequence-- : nextSequence++);
+
+        enqueue(n);
+
+        if (Instrumentation.ENABLED)
+            inserted(start);
+    }
+
+    /**
+     * Insert 'ToInsert' immediately before 'Before', with the same time. This
+     * has to renumber the entries which share that time, so is O(n).
+     * 
+     * @return <code>true</code> if 'Before' was on the queue,
+     *         <code>false</code> otherwise.
+     */
+
+    public synchronized boolean insertBefore (EventNotice ToInsert,
+            EventNotice Before)
+    {
+        if ((ToInsert == Before) || !Before.isScheduled())
+            return false;
+
+        long start = (Instrumentation.ENABLED ? System.nanoTime() : 0L);
+
+        if (ToInsert.isScheduled())
+            dequeue(ToInsert);
+
+        double time = Before.time;
+        long sequence = Before.sequence;
+
+        makeRoom(time, sequence);
+
+        ToInsert.time = time;
+        ToInsert.sequence = sequence;
+
+        enqueue(ToInsert);
+
+        if (Instrumentation.ENABLED)
+            inserted(start);
+
+        return true;
+    }
+
+    /**
+     * Insert 'ToInsert' immediately after 'After', with the same time. This
+     * has to renumber the entries which share that time, so is O(n).
+     * 
+     * @return <code>true</code> if 'After' was on the queue,
+     *         <code>false</code> otherwise.
+     */
+
+    public synchronized boolean insertAfter (EventNotice ToInsert,
+            EventNotice After)
+    {
+        if ((ToInsert == After) || !After.isScheduled())
+            return false;
+
+        long start = (Instrumentation.ENABLED ? System.nanoTime() : 0L);
+
+        if (ToInsert.isScheduled())
+            dequeue(ToInsert);
+
+        double time = After.time;
+        long sequence = After.sequence + 1;
+
+        makeRoom(time, sequence);
+
+        ToInsert.time = time;
+        ToInsert.sequence = sequence;
+
+        enqueue(ToInsert);
+
+        if (Instrumentation.ENABLED)
+            inserted(start);
+
+        return true;
+    }
+
+    /**
+     * Remove the given entry from the queue.
+     * 
+     * @return the entry removed.
+     * @throws NoSuchElementException if the entry is not on the queue.
+     */
+
+    public synchronized EventNotice remove (EventNotice element)
+            throws NoSuchElementException
+    {
+        if (!element.isScheduled())
+            throw new NoSuchElementException();
+
+        long start = (Instrumentation.ENABLED ? System.nanoTime() : 0L);
+
+        dequeue(element);
+
+        if (Instrumentation.ENABLED)
+            removeCosts.record(System.nanoTime() - start);
+
+        return element;
+    }
+
+    /**
+     * Remove the entry at the head of the queue.
+     * 
+     * @return the entry removed.
+     * @throws NoSuchElementException if the queue is empty.
+     */
+
+    public synchronized EventNotice remove () throws NoSuchElementException
+    {
+        if (size() == 0)
+            throw new NoSuchElementException();
+
+        if (!Instrumentation.ENABLED)
+            return dequeue();
+
+        long start = System.nanoTime();
+        EventNotice n = dequeue();
+
+        removeCosts.record(System.nanoTime() - start);
+
+        return n;
+    }
+
+    /**
+     * @return the entry which will run after 'current', or <code>null</code>
+     *         if there is none. If 'current' is not on the queue then it must
+     *         be the active process, so the head of the queue is returned.
+     *         This is not on any fast path, so it simply scans the queue.
+     * @throws NoSuchElementException if the queue is empty.
+     */
+
+    public synchronized EventNotice getNext (EventNotice current)
+            throws NoSuchElementException
+    {
+        if ((size() == 0) || (current == null))
+            throw new NoSuchElementException();
+
+        if (!current.isScheduled())
+            return first();
+
+        EventNotice next = null;
+        EventNotice[] entries = toArray();
+
+        for (int i = 0; i < entries.length; i++)
+        {
+            if ((EventQueue.compare(current, entries[i]) < 0)
+                    && ((next == null) || (EventQueue.compare(entries[i], next) < 0)))
+                next = entries[i];
+        }
+
+        return next;
+    }
+
+    /**
+     * Move every entry on to the 'other' queue, which must be empty. The
+     * relative order of the entries, including those for the same time, is
+     * preserved.
+     * 
+     * @param other the queue to receive the entries.
+     */
+
+    public synchronized void transferTo (EventQueue other)
+    {
+        synchronized (other)
+        {
+            EventNotice[] entries = toArray();
+
+            for (int i = 0; i < entries.length; i++)
+            {
+                dequeue(entries[i]);
+                other.enqueue(entries[i]);
+            }
+
+            other.nextSequence = Math.max(other.nextSequence, nextSequence);
+            other.nextPriorSequence = Math.min(other.nextPriorSequence, nextPriorSequence);
+
+            other.insertCosts.merge(insertCosts);
+            other.removeCosts.merge(removeCosts);
+            other.highWater = Math.max(other.highWater, highWater);
+        }
+    }
+
+    /**
+     * @return the times taken by inserts, which are only recorded if
+     *         Instrumentation.ENABLED is set.
+     */
+
+    public synchronized CostHistogram insertCosts ()
+    {
+        return insertCosts;
+    }
+
+    /**
+     * @return the times taken by removes, which are only recorded if
+     *         Instrumentation.ENABLED is set.
+     */
+
+    public synchronized CostHistogram removeCosts ()
+    {
+        return removeCosts;
+    }
+
+    /**
+     * @return the most entries there have been on the queue at once, which
+     *         is only tracked if Instrumentation.ENABLED is set.
+     */
+
+    public synchronized int highWater ()
+    {
+        return highWater;
+    }
+
+    /**
+     * Forget the recorded costs and high-water mark.
+     */
+
+    public synchronized void clearCounters ()
+    {
+        insertCosts.clear();
+        removeCosts.clear();
+        highWater = size();
+    }
+
+    /**
+     * @return the entries on the queue, in the order in which they will run.
+     */
+
+    public synchronized EventNotice[] ordered ()
+    {
+        EventNotice[] ordered = toArray();
+
+        Arrays.sort(ordered, EventQueue.ORDER);
+
+        return ordered;
+    }
+
+    /**
+     * Print the times of the entries, in the order in which they will run.
+     */
+
+    public synchronized void print ()
+    {
+        EventNotice[] ordered = ordered();
+
+        for (int i = 0; i < ordered.length; i++)
+            System.out.println(ordered[i].time);
+    }
+
+    /**
+     * Add the notice, whose time and sequence have already been set, to the
+     * data structure. The notice must be marked as scheduled.
+     */
+
+    protected abstract void enqueue (EventNotice n);
+
+    /**
+     * Take the given notice, which is known to be on the queue, out of the
+     * data structure and mark it as no longer scheduled.
+     */
+
+    protected abstract void dequeue (EventNotice n);
+
+    /**
+     * Take the first notice out of the data structure, which is known not to
+     * be empty, and mark it as no longer scheduled.
+     */
+
+    protected abstract EventNotice dequeue ();
+
+    /**
+     * Called when the sequence number of a notice on the queue has been
+     * changed without altering its position relative to any other entry.
+     */
+
+    protected void resequenced (EventNotice n)
+    {
+    }
+
+    /**
+     * @return a negative number, zero, or a positive number as 'a' runs
+     *         before, at the same point as, or after 'b'.
+     */
+
+    protected static final int compare (EventNotice a, EventNotice b)
+    {
+        if (a.time < b.time)
+            return -1;
+
+        if (a.time > b.time)
+            return 1;
+
+        return Long.compare(a.sequence, b.sequence);
+    }
+
+    /*
+     * The entries for 'time' from 'sequence' onwards are shuffled up by one so
+     * that 'sequence' becomes free. Their relative order does not change, and
+     * neither does their order relative to anything else on the queue, so the
+     * data structure does not have to be rearranged.
+     */
+
+    private void makeRoom (double time, long sequence)
+    {
+        EventNotice[] entries = toArray();
+        long highest = sequence;
+
+        for (int i = 0; i < entries.length; i++)
+        {
+            EventNotice n = entries[i];
+
+            if ((n.time == time) && (n.sequence >= sequence))
+            {
+                n.sequence++;
+
+                resequenced(n);
+
+                if (n.sequence > highest)
+                    highest = n.sequence;
+            }
+        }
+
+        if (highest >= nextSequence)
+            nextSequence = highest + 1;
+    }
+
+    static final Comparator<EventNotice> ORDER = new Comparator<EventNotice>()
+    {
+        public int compare (EventNotice a, EventNotice b)
+        {
+            return EventQueue.compare(a, b);
+        }
+    };
+
+    private void inserted (long start)
+    {
+        insertCosts.record(System.nanoTime() - start);
+
+        int length = size();
+
+        if (length > highWater)
+            highWater = length;
+    }
+
+    private long nextSequence = 0;
+
+    private long nextPriorSequence = -1;
+
+    private final CostHistogram insertCosts = new CostHistogram();
+
+    private final CostHistogram removeCosts = new CostHistogram();
+
+    private volatile int highWater = 0;
+}
@@ -0,0 +1,42 @@
+/*
+ * Copyright 1990-2008, Mark Little, University of Newcastle upon Tyne
+ * and others contributors as indicated 
+ * by the @authors tag. All rights reserved. 
+ * See the copyright.txt in the distribution for a
+ * full listing of individual contributors. 
+ * This copyrighted material is made available to anyone wishing to use,
+ * modify, copy, or redistribute it subject to the terms and conditions
+ * of the GNU Lesser General Public License, v. 2.1.
+ * This program is distributed in the hope that it will be useful, but WITHOUT A 
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR A 
+ * PARTICULAR PURPOSE.  See the GNU Lesser General Public License for more details.
+ * You should have received a copy of the GNU Lesser General Public License,
+ * v.2.1 along with this distribution; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, 
+ * MA  02110-1301, USA.
+ * 
+ * (C) 1990-2008,
+ */
+
+
+package org.javasim.internal;
+
+/**
+ * The switch for the scheduler's instrumentation, which is read once from
+ * the system property org.javasim.metrics. Since it is a static final, the
+ * JIT removes the instrumented code altogether when it is off, which it is
+ * by default.
+ */
+
+public final class Instrumentation
+{
+    /**
+     * <code>true</code> if the scheduler is counting what it does.
+     */
+
+    public static final boolean ENABLED = Boolean.getBoolean("org.javasim.metrics");
+
+    private Instrumentation ()
+    {
+    }
+}
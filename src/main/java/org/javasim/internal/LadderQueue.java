@@ -0,0 +1,369 @@
+/*
+ * Copyright 1990-2008, Mark Little, University of Newcastle upon Tyne
+ * and others contributors as indicated 
+ * by the @authors tag. All rights reserved. 
+ * See the copyright.txt in the distribution for a
+ * full listing of individual contributors. 
+ * This copyrighted material is made available to anyone wishing to use,
+ * modify, copy, or redistribute it subject to the terms and conditions
+ * of the GNU Lesser General Public License, v. 2.1.
+ * This program is distributed in the hope that it will be useful, but WITHOUT A 
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR A 
+ * PARTICULAR PURPOSE.  See the GNU Lesser General Public License for more details.
+ * You should have received a copy of the GNU Lesser General Public License,
+ * v.2.1 along with this distribution; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, 
+ * MA  02110-1301, USA.
+ * 
+ * (C) 1990-2008,
+ */
+
+package org.javasim.internal;
+
+import java.util.Arrays;
+
+/**
+ * The scheduler queue held as a ladder queue, after W. T. Tang, R. S. M. Goh
+ * and I. L.-J. Thng, "Ladder Queue: An O(1) Priority Queue Structure for
+ * Large-Scale Discrete Event Simulation", ACM TOMACS 15(3), 2005.
+ * 
+ * There are three tiers. Entries for the distant future are simply appended
+ * to an unsorted top list. When they are needed they are spread over the
+ * buckets of a rung whose width is derived from their actual range, and any
+ * bucket which is still too full when it is reached is spread over a finer
+ * rung beneath it, and so on. Only a bucket with a handful of entries is
+ * ever sorted, into the bottom list, from which entries are dequeued. Since
+ * every rung is sized from the entries it receives, the cost stays O(1)
+ * amortised however skewed the distribution of times is.
+ * 
+ * Every list is doubly linked through the notices, and each notice records
+ * the list it is on, so removing an arbitrary entry is O(1).
+ */
+
+public class LadderQueue extends EventQueue
+{
+    public LadderQueue()
+    {
+        top = new NoticeList();
+        bottom = new NoticeList();
+        rungs = new Rung[LadderQueue.MAX_RUNGS];
+
+        for (int i = 0; i < rungs.length; i++)
+            rungs[i] = new Rung();
+
+        scratch = new EventNotice[LadderQueue.THRESHOLD + 1];
+
+        empty();
+    }
+
+    public synchronized int size ()
+    {
+        return size;
+    }
+
+    public synchronized EventNotice first ()
+    {
+        if (size == 0)
+            return null;
+
+        if (bottom.head == null)
+            refill();
+
+        return bottom.head;
+    }
+
+    public synchronized EventNotice[] toArray ()
+    {
+        EventNotice[] entries = new EventNotice[size];
+        int offset = bottom.copyInto(entries, 0);
+
+        for (int x = 0; x < activeRungs; x++)
+        {
+            Rung r = rungs[x];
+
+            for (int i = r.current; i < r.number; i++)
+                offset = r.buckets[i].copyInto(entries, offset);
+        }
+
+        top.copyInto(entries, offset);
+
+        return entries;
+    }
+
+    /**
+     * @return the number of rungs currently in use.
+     */
+
+    public synchronized int rungs ()
+    {
+        return activeRungs;
+    }
+
+    protected void enqueue (EventNotice n)
+    {
+        n.index = 0;
+        size++;
+
+        if (n.time >= topStart)
+        {
+            append(top, n);
+
+            if (n.time > topMax)
+                topMax = n.time;
+
+            if (n.time < topMin)
+                topMin = n.time;
+
+            return;
+        }
+
+        /*
+         * Entries go into the coarsest rung whose unused buckets cover them.
+         * Anything beyond the end of a rung but still below the one above it
+         * goes in the last bucket, unless that has already been used, in
+         * which case it must belong below.
+         */
+
+        for (int x = 0; x < activeRungs; x++)
+        {
+            Rung r = rungs[x];
+            double bucket = Math.floor((n.time - r.start) * r.inverseWidth);
+
+            if ((bucket >= r.current) && (r.current < r.number))
+            {
+                append(r.buckets[(bucket < r.number) ? (int) bucket : r.number - 1], n);
+
+                return;
+            }
+        }
+
+        bottom.insert(n);
+        n.list = bottom;
+    }
+
+    protected void dequeue (EventNotice n)
+    {
+        n.list.unlink(n);
+        n.list = null;
+        n.index = EventNotice.NOT_QUEUED;
+
+        if (--size == 0)
+            empty();
+    }
+
+    protected EventNotice dequeue ()
+    {
+        if (bottom.head == null)
+            refill();
+
+        EventNotice n = bottom.removeFirst();
+
+        n.list = null;
+        n.index = EventNotice.NOT_QUEUED;
+
+        if (--size == 0)
+            empty();
+
+        return n;
+    }
+
+    /*
+     * The bottom list is empty, so move the next bucket down into it. Empty
+     * rungs are discarded on the way and, if the ladder runs out, the top
+     * list becomes its first rung. The queue must not be empty.
+     */
+
+    private void refill ()
+    {
+        for (;;)
+        {
+            if (activeRungs == 0)
+            {
+                if ((top.size <= LadderQueue.THRESHOLD) || (topMax == topMin))
+                {
+                    topStart = Math.nextUp(topMax);
+                    sortInto(top);
+                }
+                else
+                {
+                    Rung r = rungs[activeRungs++];
+
+                    r.spread(top, topMin, topMax);
+                    topStart = Math.max(r.start + r.number * r.width, Math.nextUp(topMax));
+                }
+
+                topMin = Double.POSITIVE_INFINITY;
+                topMax = Double.NEGATIVE_INFINITY;
+
+                if (bottom.head != null)
+                    return;
+
+                continue;
+            }
+
+            Rung r = rungs[activeRungs - 1];
+
+            while ((r.current < r.number) && (r.buckets[r.current].size == 0))
+                r.current++;
+
+            if (r.current == r.number)
+            {
+                activeRungs--;
+
+                continue;
+            }
+
+            NoticeList bucket = r.buckets[r.current++];
+
+            if ((bucket.size > LadderQueue.THRESHOLD)
+                    && (activeRungs < LadderQueue.MAX_RUNGS))
+            {
+                double min = Double.POSITIVE_INFINITY;
+                double max = Double.NEGATIVE_INFINITY;
+
+                for (EventNotice n = bucket.head; n != null; n = n.next)
+                {
+                    if (n.time < min)
+                        min = n.time;
+
+                    if (n.time > max)
+                        max = n.time;
+                }
+
+                if (max > min)
+                {
+                    rungs[activeRungs++].spread(bucket, min, max);
+
+                    continue;
+                }
+            }
+
+            sortInto(bucket);
+
+            return;
+        }
+    }
+
+    /*
+     * Empty the (unsorted) list into the bottom list, which is itself empty,
+     * in order.
+     */
+
+    private void sortInto (NoticeList from)
+    {
+        int number = from.size;
+
+        if (scratch.length < number)
+            scratch = new EventNotice[Math.max(number, scratch.length << 1)];
+
+        from.copyInto(scratch, 0);
+        from.head = from.tail = null;
+        from.size = 0;
+
+        Arrays.sort(scratch, 0, number, EventQueue.ORDER);
+
+        for (int i = 0; i < number; i++)
+        {
+            bottom.append(scratch[i]);
+            scratch[i].list = bottom;
+            scratch[i] = null;
+        }
+    }
+
+    private void empty ()
+    {
+        activeRungs = 0;
+        topStart = Double.NEGATIVE_INFINITY;
+        topMin = Double.POSITIVE_INFINITY;
+        topMax = Double.NEGATIVE_INFINITY;
+    }
+
+    private static void append (NoticeList list, EventNotice n)
+    {
+        list.append(n);
+        n.list = list;
+    }
+
+    /*
+     * A rung of the ladder. The buckets are kept between uses so that
+     * spreading entries over a rung does not normally allocate.
+     */
+
+    private static class Rung
+    {
+        /*
+         * Spread the entries of the (unsorted) list, whose times lie in
+         * [min, max], evenly over this rung, which is not in use.
+         */
+
+        void spread (NoticeList from, double min, double max)
+        {
+            int entries = from.size;
+
+            number = entries + 1;
+            start = min;
+            width = (max - min) / entries;
+            inverseWidth = 1.0 / width;
+            current = 0;
+
+            if ((buckets == null) || (buckets.length < number))
+            {
+                NoticeList[] old = buckets;
+
+                buckets = new NoticeList[Math.max(number, (old == null) ? 0 : old.length << 1)];
+
+                for (int i = 0; i < buckets.length; i++)
+                    buckets[i] = (((old != null) && (i < old.length)) ? old[i] : new NoticeList());
+            }
+
+            EventNotice n = from.head;
+
+            from.head = from.tail = null;
+            from.size = 0;
+
+            while (n != null)
+            {
+                EventNotice next = n.next;
+                double bucket = Math.floor((n.time - start) * inverseWidth);
+
+                LadderQueue.append(buckets[(bucket < number) ? (int) bucket : number - 1], n);
+
+                n = next;
+            }
+        }
+
+        NoticeList[] buckets;
+
+        int number;
+
+        int current;
+
+        double start;
+
+        double width;
+
+        double inverseWidth;
+    }
+
+    private static final int THRESHOLD = 50;
+
+    private static final int MAX_RUNGS = 8;
+
+    private NoticeList top;
+
+    private NoticeList bottom;
+
+    private Rung[] rungs;
+
+    private EventNotice[] scratch;
+
+    private int activeRungs;
+
+    private int size;
+
+    private double topStart;
+
+    private double topMin;
+
+    private double topMax;
+}
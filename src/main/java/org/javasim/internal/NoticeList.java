@@ -0,0 +1,138 @@
+/*
+ * Copyright 1990-2008, Mark Little, University of Newcastle upon Tyne
+ * and others contributors as indicated 
+ * by the @authors tag. All rights reserved. 
+ * See the copyright.txt in the distribution for a
+ * full listing of individual contributors. 
+ * This copyrighted material is made available to anyone wishing to use,
+ * modify, copy, or redistribute it subject to the terms and conditions
+ * of the GNU Lesser General Public License, v. 2.1.
+ * This program is distributed in the hope that it will be useful, but WITHOUT A 
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR A 
+ * PARTICULAR PURPOSE.  See the GNU Lesser General Public License for more details.
+ * You should have received a copy of the GNU Lesser General Public License,
+ * v.2.1 along with this distribution; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, 
+ * MA  02110-1301, USA.
+ * 
+ * (C) 1990-2008,
+ */
+
+package org.javasim.internal;
+
+/**
+ * A doubly linked list of event notices, threaded through the notices
+ * themselves. If entries are added with insert then the list is kept in
+ * (time, sequence) order. Simulations mostly schedule later and later
+ * times, so the insertion point is searched for from the tail; anything
+ * earlier than the head (typically a 'prior' activation at the current
+ * time) goes straight to the front. Entries added with append are left in
+ * the order they arrive.
+ */
+
+final class NoticeList
+{
+    /*
+     * Returns how many entries had to be passed over from the tail, so that
+     * a queue can tell when its lists have become too long to search.
+     */
+
+    int insert (EventNotice n)
+    {
+        int steps = 0;
+
+        if (head == null)
+        {
+            n.prev = n.next = null;
+            head = tail = n;
+        }
+        else if (EventQueue.compare(n, head) < 0)
+        {
+            n.prev = null;
+            n.next = head;
+            head.prev = n;
+            head = n;
+        }
+        else
+        {
+            EventNotice p = tail;
+
+            while (EventQueue.compare(p, n) > 0)
+            {
+                p = p.prev;
+                steps++;
+            }
+
+            n.prev = p;
+            n.next = p.next;
+
+            if (p.next == null)
+                tail = n;
+            else
+                p.next.prev = n;
+
+            p.next = n;
+        }
+
+        size++;
+
+        return steps;
+    }
+
+    /*
+     * Add to the end of the list, regardless of order.
+     */
+
+    void append (EventNotice n)
+    {
+        n.next = null;
+        n.prev = tail;
+
+        if (tail == null)
+            head = n;
+        else
+            tail.next = n;
+
+        tail = n;
+        size++;
+    }
+
+    void unlink (EventNotice n)
+    {
+        if (n.prev == null)
+            head = n.next;
+        else
+            n.prev.next = n.next;
+
+        if (n.next == null)
+            tail = n.prev;
+        else
+            n.next.prev = n.prev;
+
+        n.prev = n.next = null;
+        size--;
+    }
+
+    EventNotice removeFirst ()
+    {
+        EventNotice n = head;
+
+        unlink(n);
+
+        return n;
+    }
+
+    int copyInto (EventNotice[] into, int offset)
+    {
+        for (EventNotice n = head; n != null; n = n.next)
+            into[offset++] = n;
+
+        return offset;
+    }
+
+    EventNotice head;
+
+    EventNotice tail;
+
+    int size;
+}
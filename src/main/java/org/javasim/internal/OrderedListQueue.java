@@ -0,0 +1,78 @@
+/*
+ * Copyright 1990-2008, Mark Little, University of Newcastle upon Tyne
+ * and others contributors as indicated 
+ * by the @authors tag. All rights reserved. 
+ * See the copyright.txt in the distribution for a
+ * full listing of individual contributors. 
+ * This copyrighted material is made available to anyone wishing to use,
+ * modify, copy, or redistribute it subject to the terms and conditions
+ * of the GNU Lesser General Public License, v. 2.1.
+ * This program is distributed in the hope that it will be useful, but WITHOUT A 
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR A 
+ * PARTICULAR PURPOSE.  See the GNU Lesser General Public License for more details.
+ * You should have received a copy of the GNU Lesser General Public License,
+ * v.2.1 along with this distribution; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, 
+ * MA  02110-1301, USA.
+ * 
+ * (C) 1990-2008,
+ */
+
+package org.javasim.internal;
+
+/**
+ * The scheduler queue held as a single ordered list, which is how earlier
+ * releases organised it. Insertion is proportional to the number of entries
+ * it has to pass, but removal is O(1) and there is very little overhead, so
+ * this may be the best choice for simulations with only a few processes.
+ */
+
+public class OrderedListQueue extends EventQueue
+{
+    public OrderedListQueue()
+    {
+        list = new NoticeList();
+    }
+
+    public synchronized int size ()
+    {
+        return list.size;
+    }
+
+    public synchronized EventNotice first ()
+    {
+        return list.head;
+    }
+
+    public synchronized EventNotice[] toArray ()
+    {
+        EventNotice[] entries = new EventNotice[list.size];
+
+        list.copyInto(entries, 0);
+
+        return entries;
+    }
+
+    protected void enqueue (EventNotice n)
+    {
+        list.insert(n);
+        n.index = 0;
+    }
+
+    protected void dequeue (EventNotice n)
+    {
+        list.unlink(n);
+        n.index = EventNotice.NOT_QUEUED;
+    }
+
+    protected EventNotice dequeue ()
+    {
+        EventNotice n = list.removeFirst();
+
+        n.index = EventNotice.NOT_QUEUED;
+
+        return n;
+    }
+
+    private NoticeList list;
+}
@@ -0,0 +1,185 @@
+/*
+ * Copyright 1990-2008, Mark Little, University of Newcastle upon Tyne
+ * and others contributors as indicated 
+ * by the @authors tag. All rights reserved. 
+ * See the copyright.txt in the distribution for a
+ * full listing of individual contributors. 
+ * This copyrighted material is made available to anyone wishing to use,
+ * modify, copy, or redistribute it subject to the terms and conditions
+ * of the GNU Lesser General Public License, v. 2.1.
+ * This program is distributed in the hope that it will be useful, but WITHOUT A 
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR A 
+ * PARTICULAR PURPOSE.  See the GNU Lesser General Public License for more details.
+ * You should have received a copy of the GNU Lesser General Public License,
+ * v.2.1 along with this distribution; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, 
+ * MA  02110-1301, USA.
+ * 
+ * (C) 1990-2008,
+ */
+
+
+package org.javasim.internal;
+
+import java.lang.ref.Reference;
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.javasim.SimulationProcess;
+
+/**
+ * The processes belonging to a simulation, kept so that they can all be
+ * found again when it is reset. Processes are added and removed in
+ * constant time through the Entry returned when they are added, and are
+ * only weakly referenced, so a process which has been dropped by the
+ * application (and whose thread is not running) can still be garbage
+ * collected; its entry then goes the next time the registry is changed.
+ */
+public class ProcessRegistry
+{
+    /**
+     * The registration of a process, used to remove it again.
+     */
+
+    public static final class Entry extends WeakReference<SimulationProcess>
+    {
+        Entry (SimulationProcess process, ProcessRegistry owner)
+        {
+            super(process, owner.cleared);
+
+            this.owner = owner;
+        }
+
+        final ProcessRegistry owner;
+
+        Entry prev = null;
+
+        Entry next = null;
+
+        boolean linked = true;
+    }
+
+    /**
+     * Add a process.
+     * 
+     * @param process the process.
+     * @return the entry, to give to remove.
+     */
+
+    public synchronized Entry insert (SimulationProcess process)
+    {
+        expunge();
+
+        Entry entry = new Entry(process, this);
+
+        entry.prev = tail;
+
+        if (tail != null)
+            tail.next = entry;
+        else
+            head = entry;
+
+        tail = entry;
+        size++;
+
+        return entry;
+    }
+
+    /**
+     * Remove a process, if it is still registered here.
+     * 
+     * @param entry the entry returned when it was added.
+     */
+
+    public synchronized void remove (Entry entry)
+    {
+        if ((entry != null) && (entry.owner == this))
+            unlink(entry);
+    }
+
+    /**
+     * @return the number of processes registered, which may include some
+     *         which have been collected but not yet removed.
+     */
+
+    public synchronized int size ()
+    {
+        expunge();
+
+        return size;
+    }
+
+    /**
+     * @return the processes which are still registered and have not been
+     *         collected, in the order in which they were added.
+     */
+
+    public synchronized List<SimulationProcess> toList ()
+    {
+        expunge();
+
+        List<SimulationProcess> processes = new ArrayList<SimulationProcess>(size);
+
+        for (Entry entry = head; entry != null; entry = entry.next)
+        {
+            SimulationProcess process = entry.get();
+
+            if (process != null)
+                processes.add(process);
+        }
+
+        return processes;
+    }
+
+    /**
+     * Print out the wakeup time of each registered process.
+     */
+
+    public void print ()
+    {
+        for (SimulationProcess process : toList())
+            System.out.println(process.evtime());
+    }
+
+    /*
+     * Drop the entries of processes which have been collected.
+     */
+
+    private void expunge ()
+    {
+        Reference<? extends SimulationProcess> ref;
+
+        while ((ref = cleared.poll()) != null)
+            unlink((Entry) ref);
+    }
+
+    private void unlink (Entry entry)
+    {
+        if (!entry.linked)
+            return;
+
+        if (entry.prev != null)
+            entry.prev.next = entry.next;
+        else
+            head = entry.next;
+
+        if (entry.next != null)
+            entry.next.prev = entry.prev;
+        else
+            tail = entry.prev;
+
+        entry.prev = entry.next = null;
+        entry.linked = false;
+        size--;
+    }
+
+    private final ReferenceQueue<SimulationProcess> cleared = new ReferenceQueue<SimulationProcess>();
+
+    private Entry head = null;
+
+    private Entry tail = null;
+
+    private int size = 0;
+}
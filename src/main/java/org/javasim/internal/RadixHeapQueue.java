@@ -0,0 +1,252 @@
+/*
+ * Copyright 1990-2008, Mark Little, University of Newcastle upon Tyne
+ * and others contributors as indicated 
+ * by the @authors tag. All rights reserved. 
+ * See the copyright.txt in the distribution for a
+ * full listing of individual contributors. 
+ * This copyrighted material is made available to anyone wishing to use,
+ * modify, copy, or redistribute it subject to the terms and conditions
+ * of the GNU Lesser General Public License, v. 2.1.
+ * This program is distributed in the hope that it will be useful, but WITHOUT A 
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR A 
+ * PARTICULAR PURPOSE.  See the GNU Lesser General Public License for more details.
+ * You should have received a copy of the GNU Lesser General Public License,
+ * v.2.1 along with this distribution; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, 
+ * MA  02110-1301, USA.
+ * 
+ * (C) 1990-2008,
+ */
+
+package org.javasim.internal;
+
+/**
+ * The scheduler queue held as a radix heap, after R. K. Ahuja, K. Mehlhorn,
+ * J. B. Orlin and R. E. Tarjan, "Faster Algorithms for the Shortest Path
+ * Problem", JACM 37(2), 1990, for simulations whose times are whole numbers
+ * of ticks. This relies on the clock never going backwards: every entry is
+ * at or after the tick of the last entry removed, and is kept in the bucket
+ * given by the highest bit in which its tick differs from that one. Bucket
+ * zero holds the entries for that same tick, in order. When it runs dry the
+ * lowest non-empty bucket is emptied into the buckets below it, around its
+ * own earliest tick. An entry can only move down, so each is moved at most
+ * 64 times, and inserts and removes are O(1) and O(log C) amortised, where
+ * C is the span of ticks on the queue, with no comparisons between entries
+ * outside bucket zero.
+ * 
+ * Ticks are found by rounding times to the nearest multiple of the
+ * resolution, and entries in the same tick are ordered as usual. Should an
+ * entry be inserted before the last tick removed, which only happens once
+ * the clock has been reset, the heap is rebuilt around it.
+ */
+
+public class RadixHeapQueue extends EventQueue
+{
+    /**
+     * @param resolution the width of a tick.
+     */
+
+    public RadixHeapQueue(double resolution)
+    {
+        if (!(resolution > 0.0))
+            throw new IllegalArgumentException("Invalid resolution " + resolution);
+
+        this.resolution = resolution;
+
+        buckets = new NoticeList[BUCKETS];
+
+        for (int i = 0; i < BUCKETS; i++)
+            buckets[i] = new NoticeList();
+    }
+
+    /**
+     * @return the width of a tick.
+     */
+
+    public double resolution ()
+    {
+        return resolution;
+    }
+
+    public synchronized int size ()
+    {
+        return size;
+    }
+
+    public synchronized EventNotice first ()
+    {
+        if (buckets[0].head != null)
+            return buckets[0].head;
+
+        if ((minimum == null) && (size > 0))
+        {
+            NoticeList list = buckets[lowest()];
+
+            for (EventNotice n = list.head; n != null; n = n.next)
+            {
+                if ((minimum == null) || before(n, minimum))
+                    minimum = n;
+            }
+        }
+
+        return minimum;
+    }
+
+    public synchronized EventNotice[] toArray ()
+    {
+        EventNotice[] entries = new EventNotice[size];
+        int offset = 0;
+
+        for (int i = 0; i < BUCKETS; i++)
+            offset = buckets[i].copyInto(entries, offset);
+
+        return entries;
+    }
+
+    protected void enqueue (EventNotice n)
+    {
+        long tick = tick(n.time);
+
+        if (tick < last)
+        {
+            if (size == 0)
+                last = tick;
+            else
+                rebuild(tick);
+        }
+
+        if (size == 0)
+            minimum = n;
+        else if ((minimum != null) && before(n, minimum))
+            minimum = n;
+
+        place(n, tick);
+        size++;
+    }
+
+    protected void dequeue (EventNotice n)
+    {
+        buckets[n.index].unlink(n);
+        n.index = EventNotice.NOT_QUEUED;
+        size--;
+
+        if (n == minimum)
+            minimum = null;
+    }
+
+    protected EventNotice dequeue ()
+    {
+        if (buckets[0].head == null)
+            refill();
+
+        EventNotice n = buckets[0].removeFirst();
+
+        n.index = EventNotice.NOT_QUEUED;
+        size--;
+
+        if (n == minimum)
+            minimum = null;
+
+        return n;
+    }
+
+    /*
+     * Move on to the earliest tick in the lowest non-empty bucket, and
+     * spread that bucket's entries over the buckets below it; those for
+     * the tick itself land in bucket zero.
+     */
+
+    private void refill ()
+    {
+        NoticeList list = buckets[lowest()];
+        long earliest = Long.MAX_VALUE;
+
+        for (EventNotice n = list.head; n != null; n = n.next)
+            earliest = Math.min(earliest, tick(n.time));
+
+        last = earliest;
+
+        while (list.head != null)
+        {
+            EventNotice n = list.removeFirst();
+
+            place(n, tick(n.time));
+        }
+    }
+
+    /*
+     * Start again from an earlier tick. The entries keep their relative
+     * order since, within a tick, bucket zero is ordered on sequence.
+     */
+
+    private void rebuild (long tick)
+    {
+        EventNotice[] entries = toArray();
+
+        for (int i = 0; i < BUCKETS; i++)
+        {
+            while (buckets[i].head != null)
+                buckets[i].removeFirst();
+        }
+
+        last = tick;
+
+        for (int i = 0; i < entries.length; i++)
+            place(entries[i], tick(entries[i].time));
+    }
+
+    private void place (EventNotice n, long tick)
+    {
+        int bucket = ((tick == last) ? 0 : 64 - Long.numberOfLeadingZeros(tick ^ last));
+
+        if (bucket == 0)
+            buckets[0].insert(n);
+        else
+            buckets[bucket].append(n);
+
+        n.index = bucket;
+    }
+
+    private int lowest ()
+    {
+        int i = 1;
+
+        while (buckets[i].head == null)
+            i++;
+
+        return i;
+    }
+
+    private boolean before (EventNotice a, EventNotice b)
+    {
+        long ta = tick(a.time);
+        long tb = tick(b.time);
+
+        if (ta != tb)
+            return ta < tb;
+
+        return EventQueue.compare(a, b) < 0;
+    }
+
+    private long tick (double time)
+    {
+        return Math.round(time / resolution);
+    }
+
+    private static final int BUCKETS = 65;
+
+    private final double resolution;
+
+    private final NoticeList[] buckets;
+
+    private long last = 0L;
+
+    private int size = 0;
+
+    /*
+     * The head of the queue when bucket zero is empty, or null if it has to
+     * be found again.
+     */
+
+    private EventNotice minimum = null;
+}
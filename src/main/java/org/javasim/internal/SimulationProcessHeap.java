@@ -0,0 +1,206 @@
+/*
+ * Copyright 1990-2008, Mark Little, University of Newcastle upon Tyne
+ * and others contributors as indicated 
+ * by the @authors tag. All rights reserved. 
+ * See the copyright.txt in the distribution for a
+ * full listing of individual contributors. 
+ * This copyrighted material is made available to anyone wishing to use,
+ * modify, copy, or redistribute it subject to the terms and conditions
+ * of the GNU Lesser General Public License, v. 2.1.
+ * This program is distributed in the hope that it will be useful, but WITHOUT A 
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR A 
+ * PARTICULAR PURPOSE.  See the GNU Lesser General Public License for more details.
+ * You should have received a copy of the GNU Lesser General Public License,
+ * v.2.1 along with this distribution; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, 
+ * MA  02110-1301, USA.
+ * 
+ * (C) 1990-2008,
+ */
+
+package org.javasim.internal;
+
+import java.util.Arrays;
+
+/**
+ * The scheduler queue held as an indexed binary min-heap of event notices.
+ * Insert, remove and remove-first are all O(log n).
+ * 
+ * The keys are kept in primitive arrays alongside the notices so that the
+ * sift operations do not have to chase references. Every notice records its
+ * own position in the heap, so removing an arbitrary process does not
+ * require a search.
+ */
+
+public class SimulationProcessHeap extends EventQueue
+{
+    public SimulationProcessHeap()
+    {
+        this(SimulationProcessHeap.INITIAL_CAPACITY);
+    }
+
+    public SimulationProcessHeap(int capacity)
+    {
+        if (capacity < 1)
+            capacity = 1;
+
+        times = new double[capacity];
+        sequences = new long[capacity];
+        notices = new EventNotice[capacity];
+        size = 0;
+    }
+
+    public synchronized int size ()
+    {
+        return size;
+    }
+
+    public synchronized EventNotice first ()
+    {
+        return ((size == 0) ? null : notices[0]);
+    }
+
+    public synchronized EventNotice[] toArray ()
+    {
+        return Arrays.copyOf(notices, size);
+    }
+
+    protected void enqueue (EventNotice n)
+    {
+        if (size == notices.length)
+            grow();
+
+        siftUp(size++, n);
+    }
+
+    protected void dequeue (EventNotice n)
+    {
+        removeAt(n.index);
+    }
+
+    protected EventNotice dequeue ()
+    {
+        return removeAt(0);
+    }
+
+    protected void resequenced (EventNotice n)
+    {
+        sequences[n.index] = n.sequence;
+    }
+
+    private EventNotice removeAt (int i)
+    {
+        EventNotice removed = notices[i];
+        int last = --size;
+
+        if (i != last)
+        {
+            EventNotice moved = notices[last];
+
+            notices[last] = null;
+
+            if ((i > 0) && before(moved, (i - 1) >>> 1))
+                siftUp(i, moved);
+            else
+                siftDown(i, moved);
+        }
+        else
+            notices[last] = null;
+
+        removed.index = EventNotice.NOT_QUEUED;
+
+        return removed;
+    }
+
+    /*
+     * Move 'n' up from the hole at 'i' until its parent is no later than it.
+     */
+
+    private void siftUp (int i, EventNotice n)
+    {
+        while (i > 0)
+        {
+            int parent = (i - 1) >>> 1;
+
+            if (!before(n, parent))
+                break;
+
+            place(i, notices[parent]);
+            i = parent;
+        }
+
+        place(i, n);
+    }
+
+    /*
+     * Move 'n' down from the hole at 'i' until neither child is earlier than
+     * it.
+     */
+
+    private void siftDown (int i, EventNotice n)
+    {
+        int half = size >>> 1;
+
+        while (i < half)
+        {
+            int child = (i << 1) + 1;
+            int right = child + 1;
+
+            if ((right < size) && less(right, child))
+                child = right;
+
+            if (!after(n, child))
+                break;
+
+            place(i, notices[child]);
+            i = child;
+        }
+
+        place(i, n);
+    }
+
+    private void place (int i, EventNotice n)
+    {
+        times[i] = n.time;
+        sequences[i] = n.sequence;
+        notices[i] = n;
+        n.index = i;
+    }
+
+    private boolean less (int i, int j)
+    {
+        return (times[i] < times[j])
+                || ((times[i] == times[j]) && (sequences[i] < sequences[j]));
+    }
+
+    private boolean before (EventNotice n, int j)
+    {
+        return (n.time < times[j])
+                || ((n.time == times[j]) && (n.sequence < sequences[j]));
+    }
+
+    private boolean after (EventNotice n, int j)
+    {
+        return (n.time > times[j])
+                || ((n.time == times[j]) && (n.sequence > sequences[j]));
+    }
+
+    private void grow ()
+    {
+        int capacity = notices.length << 1;
+
+        times = Arrays.copyOf(times, capacity);
+        sequences = Arrays.copyOf(sequences, capacity);
+        notices = Arrays.copyOf(notices, capacity);
+    }
+
+    private static final int INITIAL_CAPACITY = 64;
+
+    private double[] times;
+
+    private long[] sequences;
+
+    private EventNotice[] notices;
+
+    private int size;
+}
@@ -0,0 +1,356 @@
+/*
+ * Copyright 1990-2008, Mark Little, University of Newcastle upon Tyne
+ * and others contributors as indicated 
+ * by the @authors tag. All rights reserved. 
+ * See the copyright.txt in the distribution for a
+ * full listing of individual contributors. 
+ * This copyrighted material is made available to anyone wishing to use,
+ * modify, copy, or redistribute it subject to the terms and conditions
+ * of the GNU Lesser General Public License, v. 2.1.
+ * This program is distributed in the hope that it will be useful, but WITHOUT A 
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR A 
+ * PARTICULAR PURPOSE.  See the GNU Lesser General Public License for more details.
+ * You should have received a copy of the GNU Lesser General Public License,
+ * v.2.1 along with this distribution; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, 
+ * MA  02110-1301, USA.
+ * 
+ * (C) 1990-2008,
+ */
+
+package org.javasim.internal;
+
+/**
+ * A hierarchical timing wheel, after G. Varghese and T. Lauck, "Hashed and
+ * Hierarchical Timing Wheels", SOSP 1987, in front of another scheduler
+ * queue. Time is cut into ticks of a fixed width, and entries due within
+ * the next 2^26 ticks are dropped, unordered, into the wheel slot for their
+ * tick, so both inserting and removing them are O(1). The finest level has
+ * a slot per tick and each coarser level a slot per 64 slots of the level
+ * below. As time moves on, the entries in a coarse slot are spread over the
+ * finer slots, and the entries in a tick's slot are only moved on to the
+ * queue behind when that tick may hold the next entry to run. Anything
+ * else, e.g., an entry for a tick which has already been reached, goes
+ * straight on to the queue behind.
+ * 
+ * This suits simulations which set many near-future timeouts which are
+ * mostly cancelled before they expire, since those entries never reach the
+ * queue behind at all.
+ */
+
+public class TimerWheelQueue extends EventQueue
+{
+    /**
+     * @param queue the queue into which entries are moved as they become due.
+     * @param resolution the width of a tick.
+     */
+
+    public TimerWheelQueue(EventQueue queue, double resolution)
+    {
+        if (!(resolution > 0.0))
+            throw new IllegalArgumentException("Invalid resolution " + resolution);
+
+        this.queue = queue;
+        this.resolution = resolution;
+
+        slots = new NoticeList[LEVELS][];
+        occupied = new long[LEVELS][];
+
+        for (int i = 0; i < LEVELS; i++)
+        {
+            int size = 1 << (SHIFTS[i + 1] - SHIFTS[i]);
+
+            slots[i] = new NoticeList[size];
+            occupied[i] = new long[(size + 63) / 64];
+
+            for (int j = 0; j < size; j++)
+                slots[i][j] = new NoticeList();
+        }
+    }
+
+    /**
+     * @return the queue behind the wheel.
+     */
+
+    public EventQueue queue ()
+    {
+        return queue;
+    }
+
+    /**
+     * @return the width of a tick.
+     */
+
+    public double resolution ()
+    {
+        return resolution;
+    }
+
+    public synchronized int size ()
+    {
+        return queue.size() + wheeled;
+    }
+
+    public synchronized EventNotice first ()
+    {
+        settle();
+
+        return queue.first();
+    }
+
+    public synchronized EventNotice[] toArray ()
+    {
+        EventNotice[] behind = queue.toArray();
+        EventNotice[] entries = new EventNotice[behind.length + wheeled];
+        int offset = behind.length;
+
+        System.arraycopy(behind, 0, entries, 0, behind.length);
+
+        for (int i = 0; i < LEVELS; i++)
+        {
+            for (int j = 0; j < slots[i].length; j++)
+                offset = slots[i][j].copyInto(entries, offset);
+        }
+
+        return entries;
+    }
+
+    /**
+     * @return the number of entries in the wheel, rather than on the queue
+     *         behind it.
+     */
+
+    public synchronized int wheeled ()
+    {
+        return wheeled;
+    }
+
+    protected void enqueue (EventNotice n)
+    {
+        long tick = tick(n.time);
+
+        /*
+         * With nothing in the wheel its position is free, so bring it back
+         * to the last tick run, or to this entry's if that is earlier (as it
+         * is after a reset).
+         */
+
+        if (wheeled == 0)
+            cursor = Math.min(tick, last);
+
+        place(n, tick);
+    }
+
+    protected void dequeue (EventNotice n)
+    {
+        if (n.index != TimerWheelQueue.WHEELED)
+            queue.dequeue(n);
+        else
+        {
+            long tick = tick(n.time);
+            int level = level(tick);
+            int slot = slot(tick, level);
+            NoticeList list = slots[level][slot];
+
+            list.unlink(n);
+
+            if (list.size == 0)
+                occupied[level][slot >>> 6] &= ~(1L << slot);
+
+            n.index = EventNotice.NOT_QUEUED;
+            wheeled--;
+        }
+    }
+
+    protected EventNotice dequeue ()
+    {
+        settle();
+
+        EventNotice n = queue.dequeue();
+
+        last = tick(n.time);
+
+        return n;
+    }
+
+    protected void resequenced (EventNotice n)
+    {
+        if (n.index != TimerWheelQueue.WHEELED)
+            queue.resequenced(n);
+    }
+
+    /*
+     * Put the entry in the slot for its tick, or on the queue behind if it
+     * is outside the wheel.
+     */
+
+    private void place (EventNotice n, long tick)
+    {
+        int level = level(tick);
+
+        if (level < 0)
+            queue.enqueue(n);
+        else
+        {
+            int slot = slot(tick, level);
+
+            slots[level][slot].append(n);
+            occupied[level][slot >>> 6] |= 1L << slot;
+            n.index = TimerWheelQueue.WHEELED;
+            wheeled++;
+        }
+    }
+
+    /*
+     * Move entries out of the wheel until the head of the queue behind is
+     * known to be the head of the whole queue, i.e., until the earliest
+     * occupied slot starts at a later tick than the head. Ticks never run
+     * backwards as times increase, so comparing ticks is enough.
+     */
+
+    private void settle ()
+    {
+        while (wheeled > 0)
+        {
+            EventNotice head = queue.first();
+            long limit = ((head == null) ? Long.MAX_VALUE : tick(head.time));
+
+            if (!nextOccupied() || (found > limit))
+                return;
+
+            NoticeList list = slots[foundLevel][foundSlot];
+
+            occupied[foundLevel][foundSlot >>> 6] &= ~(1L << foundSlot);
+            wheeled -= list.size;
+            cursor = found;
+
+            /*
+             * The entries of a tick go on to the queue behind; those of a
+             * coarser slot are spread over the finer levels, now that the
+             * wheel has reached it.
+             */
+
+            while (list.head != null)
+            {
+                EventNotice n = list.removeFirst();
+
+                n.index = EventNotice.NOT_QUEUED;
+
+                if (foundLevel == 0)
+                    queue.enqueue(n);
+                else
+                    place(n, tick(n.time));
+            }
+        }
+    }
+
+    /*
+     * Find the first tick, from the cursor on, at which an occupied slot
+     * starts. No entry lies in the slot of a coarse level which the cursor
+     * is in (it would have been put in a finer one), so the search of those
+     * levels starts from the next slot.
+     */
+
+    private boolean nextOccupied ()
+    {
+        for (int i = 0; i < LEVELS; i++)
+        {
+            int from = (int) (cursor >>> SHIFTS[i]) & (slots[i].length - 1);
+
+            if (i > 0)
+                from++;
+
+            int slot = nextSet(occupied[i], from);
+
+            if (slot >= 0)
+            {
+                found = ((cursor >>> SHIFTS[i + 1]) << SHIFTS[i + 1]) | ((long) slot << SHIFTS[i]);
+                foundLevel = i;
+                foundSlot = slot;
+
+                return true;
+            }
+        }
+
+        return false;
+    }
+
+    private static int nextSet (long[] bits, int from)
+    {
+        for (int word = from >>> 6; word < bits.length; word++)
+        {
+            long w = bits[word];
+
+            if (word == from >>> 6)
+                w &= -1L << from;
+
+            if (w != 0L)
+                return (word << 6) + Long.numberOfTrailingZeros(w);
+        }
+
+        return -1;
+    }
+
+    /*
+     * The level of the wheel for an entry at 'tick', which is the one at
+     * which it first differs from the cursor, or -1 if it belongs on the
+     * queue behind.
+     */
+
+    private int level (long tick)
+    {
+        if (tick < cursor)
+            return -1;
+
+        long d = tick ^ cursor;
+
+        for (int i = 0; i < LEVELS; i++)
+        {
+            if ((d >>> SHIFTS[i + 1]) == 0L)
+                return i;
+        }
+
+        return -1;
+    }
+
+    private int slot (long tick, int level)
+    {
+        return (int) (tick >>> SHIFTS[level]) & (slots[level].length - 1);
+    }
+
+    private long tick (double time)
+    {
+        return (long) (time / resolution);
+    }
+
+    static final int WHEELED = -2;
+
+    /*
+     * The bit offsets of the levels: 256 ticks at the finest, then 64 slots
+     * at each of the others.
+     */
+
+    private static final int[] SHIFTS = { 0, 8, 14, 20, 26 };
+
+    private static final int LEVELS = SHIFTS.length - 1;
+
+    private final EventQueue queue;
+
+    private final double resolution;
+
+    private final NoticeList[][] slots;
+
+    private final long[][] occupied;
+
+    private long cursor = 0L;
+
+    private long last = 0L;
+
+    private int wheeled = 0;
+
+    private long found;
+
+    private int foundLevel;
+
+    private int foundSlot;
+}
@@ -0,0 +1,89 @@
+/*
+ * Copyright 1990-2008, Mark Little, University of Newcastle upon Tyne
+ * and others contributors as indicated 
+ * by the @authors tag. All rights reserved. 
+ * See the copyright.txt in the distribution for a
+ * full listing of individual contributors. 
+ * This copyrighted material is made available to anyone wishing to use,
+ * modify, copy, or redistribute it subject to the terms and conditions
+ * of the GNU Lesser General Public License, v. 2.1.
+ * This program is distributed in the hope that it will be useful, but WITHOUT A 
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR A 
+ * PARTICULAR PURPOSE.  See the GNU Lesser General Public License for more details.
+ * You should have received a copy of the GNU Lesser General Public License,
+ * v.2.1 along with this distribution; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, 
+ * MA  02110-1301, USA.
+ * 
+ * (C) 1990-2008,
+ */
+
+
+package org.javasim.internal;
+
+import java.util.function.BiFunction;
+
+/**
+ * Creates the virtual threads on which process bodies may run. Virtual
+ * threads only exist from Java 21, so the factory which makes them is
+ * compiled separately into the multi-release part of the jar and looked up
+ * by name. On earlier JVMs it is simply not found and virtual threads are
+ * reported as unsupported.
+ */
+
+public final class VirtualThreads
+{
+    /**
+     * @return <code>true</code> if this JVM can run process bodies on
+     * virtual threads, <code>false</code> otherwise.
+     */
+
+    public static boolean isSupported ()
+    {
+        return (factory != null);
+    }
+
+    /**
+     * Create, but do not start, a virtual thread which will run the body.
+     * 
+     * @param name the name of the thread.
+     * @param body the code for the thread to run.
+     * @return the new thread.
+     * @throws UnsupportedOperationException if virtual threads are not supported.
+     */
+
+    public static Thread create (String name, Runnable body)
+    {
+        if (factory == null)
+            throw new UnsupportedOperationException("Virtual threads are not supported by this JVM.");
+
+        return factory.apply(name, body);
+    }
+
+    private VirtualThreads ()
+    {
+    }
+
+    @SuppressWarnings("unchecked")
+    private static BiFunction<String, Runnable, Thread> load ()
+    {
+        try
+        {
+            return (BiFunction<String, Runnable, Thread>) Class.forName(FACTORY).getDeclaredConstructor().newInstance();
+        }
+        catch (final ReflectiveOperationException ex)
+        {
+            // not found before Java 21
+
+            return null;
+        }
+        catch (final LinkageError ex)
+        {
+            return null;
+        }
+    }
+
+    private static final String FACTORY = "org.javasim.internal.VirtualThreadFactory";
+
+    private static final BiFunction<String, Runnable, Thread> factory = load();
+}
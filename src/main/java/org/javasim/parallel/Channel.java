@@ -0,0 +1,108 @@
+/*
+ * Copyright 1990-2008, Mark Little, University of Newcastle upon Tyne
+ * and others contributors as indicated 
+ * by the @authors tag. All rights reserved. 
+ * See the copyright.txt in the distribution for a
+ * full listing of individual contributors. 
+ * This copyrighted material is made available to anyone wishing to use,
+ * modify, copy, or redistribute it subject to the terms and conditions
+ * of the GNU Lesser General Public License, v. 2.1.
+ * This program is distributed in the hope that it will be useful, but WITHOUT A 
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR A 
+ * PARTICULAR PURPOSE.  See the GNU Lesser General Public License for more details.
+ * You should have received a copy of the GNU Lesser General Public License,
+ * v.2.1 along with this distribution; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, 
+ * MA  02110-1301, USA.
+ * 
+ * (C) 1990-2008,
+ */
+
+
+package org.javasim.parallel;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A bounded, lock-free channel from one thread to one other. Each entry is
+ * a message, or null for a null message, together with a promise from the
+ * sender that nothing it sends later will have an earlier time.
+ */
+class Channel
+{
+    Channel (int capacity)
+    {
+        int size = 1;
+
+        while (size < capacity)
+            size <<= 1;
+
+        messages = new Message[size];
+        promises = new double[size];
+        mask = size - 1;
+    }
+
+    /*
+     * Add an entry if there is room. Only the sending thread calls this.
+     */
+
+    boolean offer (Message message, double promise)
+    {
+        long t = tail.get();
+
+        if (t - head.get() == messages.length)
+            return false;
+
+        int slot = (int) (t & mask);
+
+        messages[slot] = message;
+        promises[slot] = promise;
+
+        tail.lazySet(t + 1);
+
+        return true;
+    }
+
+    /*
+     * Take the entries which have arrived, passing each message to the
+     * receiver and returning the latest promise, or the given one if there
+     * is nothing new. Only the receiving thread calls this.
+     */
+
+    double drain (ConservativeEngine.Partition receiver, double promise)
+    {
+        long h = head.get();
+        long t = tail.get();
+
+        if (h == t)
+            return promise;
+
+        for (; h < t; h++)
+        {
+            int slot = (int) (h & mask);
+            Message message = messages[slot];
+
+            if (message != null)
+            {
+                messages[slot] = null;
+                receiver.pending.add(message);
+            }
+
+            promise = Math.max(promise, promises[slot]);
+        }
+
+        head.lazySet(t);
+
+        return promise;
+    }
+
+    private final Message[] messages;
+
+    private final double[] promises;
+
+    private final int mask;
+
+    private final AtomicLong head = new AtomicLong();
+
+    private final AtomicLong tail = new AtomicLong();
+}
@@ -0,0 +1,358 @@
+/*
+ * Copyright 1990-2008, Mark Little, University of Newcastle upon Tyne
+ * and others contributors as indicated 
+ * by the @authors tag. All rights reserved. 
+ * See the copyright.txt in the distribution for a
+ * full listing of individual contributors. 
+ * This copyrighted material is made available to anyone wishing to use,
+ * modify, copy, or redistribute it subject to the terms and conditions
+ * of the GNU Lesser General Public License, v. 2.1.
+ * This program is distributed in the hope that it will be useful, but WITHOUT A 
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR A 
+ * PARTICULAR PURPOSE.  See the GNU Lesser General Public License for more details.
+ * You should have received a copy of the GNU Lesser General Public License,
+ * v.2.1 along with this distribution; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, 
+ * MA  02110-1301, USA.
+ * 
+ * (C) 1990-2008,
+ */
+
+
+package org.javasim.parallel;
+
+import java.util.Arrays;
+import java.util.PriorityQueue;
+
+import org.javasim.SimulationException;
+
+/**
+ * A conservative (Chandy-Misra-Bryant) engine. The logical processes are
+ * divided into partitions, each with its own queue of pending messages and
+ * its own thread, and the partitions are connected by bounded lock-free
+ * channels. A partition only handles a message once it is sure that no
+ * message with an earlier time can still arrive from another partition, so
+ * nothing is ever undone and logical processes need not save their state.
+ * 
+ * That certainty comes from the lookahead declared for the model: a message
+ * sent from one partition to another must be sent with a delay of at least
+ * the lookahead. Every entry on a channel carries a promise that nothing
+ * sent later on it will be earlier than the sender's time plus the
+ * lookahead, and a partition with nothing safe to do sends null messages
+ * (promises with no message) so that its neighbours can move on.
+ * 
+ * Logical processes are placed in partition (identity % partitions), and
+ * messages sent from startup are delivered directly, whatever their delay.
+ */
+public class ConservativeEngine extends Engine
+{
+    /**
+     * The default number of entries in each channel.
+     */
+
+    public static final int DEFAULT_CAPACITY = 1024;
+
+    /**
+     * Create an engine with the given number of partitions.
+     * 
+     * @param partitions the number of partitions, each run by its own thread.
+     * @param lookahead the smallest delay of any message between partitions.
+     */
+
+    public ConservativeEngine (int partitions, double lookahead)
+    {
+        this(partitions, lookahead, DEFAULT_CAPACITY);
+    }
+
+    /**
+     * Create an engine with the given number of partitions.
+     * 
+     * @param partitions the number of partitions, each run by its own thread.
+     * @param lookahead the smallest delay of any message between partitions.
+     * @param capacity the number of entries each channel can hold.
+     */
+
+    public ConservativeEngine (int partitions, double lookahead, int capacity)
+    {
+        if (!(lookahead > 0.0))
+            throw new IllegalArgumentException("Invalid lookahead " + lookahead);
+
+        this.partitions = Math.max(1, partitions);
+        this.lookahead = lookahead;
+        this.capacity = Math.max(1, capacity);
+    }
+
+    /**
+     * @return the number of null messages sent by the last run.
+     */
+
+    public long nullMessages ()
+    {
+        return nulls;
+    }
+
+    public void run (double endTime) throws SimulationException
+    {
+        begin();
+
+        this.endTime = endTime;
+
+        all = new Partition[Math.max(1, Math.min(partitions, processes.size()))];
+
+        for (int i = 0; i < all.length; i++)
+            all[i] = new Partition(i);
+
+        for (Partition from : all)
+        {
+            for (Partition to : all)
+            {
+                if (from != to)
+                {
+                    Channel channel = new Channel(capacity);
+
+                    from.out[to.index] = channel;
+                    to.in[from.index] = channel;
+                }
+            }
+        }
+
+        for (LogicalProcess process : processes)
+            process.startup();
+
+        running = true;
+
+        Thread[] others = new Thread[all.length - 1];
+
+        for (int i = 0; i < others.length; i++)
+        {
+            others[i] = new Thread(all[i + 1], "Partition-" + (i + 1));
+            others[i].start();
+        }
+
+        all[0].run();
+
+        boolean interrupted = false;
+
+        for (Thread other : others)
+        {
+            for (;;)
+            {
+                try
+                {
+                    other.join();
+
+                    break;
+                }
+                catch (final InterruptedException ex)
+                {
+                    interrupted = true;
+                }
+            }
+        }
+
+        if (interrupted)
+            Thread.currentThread().interrupt();
+
+        if (failed != null)
+            throw failure("Model failed.", failed);
+
+        for (Partition partition : all)
+        {
+            committed += partition.committed;
+            nulls += partition.nulls;
+        }
+    }
+
+    void send (LogicalProcess from, Message message) throws SimulationException
+    {
+        Partition source = partitionOf(from.identity);
+        Partition target = partitionOf(message.destination);
+
+        if (!running || (source == target))
+        {
+            target.pending.add(message);
+
+            return;
+        }
+
+        if (message.time < from.now + lookahead)
+            throw new SimulationException("Delay " + (message.time - from.now) + " between partitions is less than the lookahead.");
+
+        if (message.time < endTime)  // later ones will never be handled
+            source.put(target.index, message, from.now + lookahead);
+    }
+
+    private Partition partitionOf (int identity)
+    {
+        return all[identity % all.length];
+    }
+
+    class Partition implements Runnable
+    {
+        Partition (int index)
+        {
+            this.index = index;
+            this.in = new Channel[all.length];
+            this.out = new Channel[all.length];
+            this.clocks = new double[all.length];
+            this.promised = new double[all.length];
+
+            Arrays.fill(clocks, 0.0);
+            Arrays.fill(promised, Double.NEGATIVE_INFINITY);
+
+            clocks[index] = Double.POSITIVE_INFINITY;
+        }
+
+        public void run ()
+        {
+            try
+            {
+                for (;;)
+                {
+                    if (failed != null)
+                        return;
+
+                    double bound = receive();
+                    Message next = pending.peek();
+
+                    if ((next != null) && (next.time < bound) && (next.time < endTime))
+                    {
+                        pending.poll();
+
+                        LogicalProcess process = processes.get(next.destination);
+
+                        process.now = next.time;
+                        process.handle(next);
+
+                        committed++;
+
+                        continue;
+                    }
+
+                    /*
+                     * Blocked: nothing this partition does from now on can
+                     * be earlier than the horizon.
+                     */
+
+                    double horizon = (next == null) ? bound : Math.min(next.time, bound);
+
+                    if (horizon >= endTime)
+                    {
+                        for (int i = 0; i < out.length; i++)
+                        {
+                            if ((out[i] != null) && (promised[i] < Double.POSITIVE_INFINITY))
+                                put(i, null, Double.POSITIVE_INFINITY);
+                        }
+
+                        return;
+                    }
+
+                    boolean progress = false;
+
+                    for (int i = 0; i < out.length; i++)
+                    {
+                        if ((out[i] != null) && (promise(horizon + lookahead) > promised[i]))
+                        {
+                            put(i, null, horizon + lookahead);
+                            nulls++;
+                            progress = true;
+                        }
+                    }
+
+                    if (!progress)
+                        Thread.yield();
+                }
+            }
+            catch (final Throwable ex)
+            {
+                synchronized (ConservativeEngine.this)
+                {
+                    if (failed == null)
+                        failed = ex;
+                }
+            }
+        }
+
+        /*
+         * Send on a channel, taking in what has arrived while waiting for
+         * room so that two partitions sending to each other cannot block.
+         */
+
+        void put (int to, Message message, double promise) throws SimulationException
+        {
+            promise = promise(promise);
+
+            while (!out[to].offer(message, promise))
+            {
+                if (failed != null)
+                    throw new SimulationException("Partition " + to + " failed.");
+
+                receive();
+                Thread.yield();
+            }
+
+            promised[to] = promise;
+        }
+
+        /*
+         * Take in everything which has arrived, returning the time before
+         * which no more messages can arrive.
+         */
+
+        private double receive ()
+        {
+            double bound = Double.POSITIVE_INFINITY;
+
+            for (int i = 0; i < in.length; i++)
+            {
+                if (in[i] != null)
+                    clocks[i] = in[i].drain(this, clocks[i]);
+
+                bound = Math.min(bound, clocks[i]);
+            }
+
+            return bound;
+        }
+
+        /*
+         * A promise at or beyond the end time is as good as for ever.
+         */
+
+        private double promise (double time)
+        {
+            return (time >= endTime) ? Double.POSITIVE_INFINITY : time;
+        }
+
+        final int index;
+
+        final PriorityQueue<Message> pending = new PriorityQueue<Message>();
+
+        final Channel[] in;
+
+        final Channel[] out;
+
+        long committed = 0;
+
+        long nulls = 0;
+
+        private final double[] clocks;
+
+        private final double[] promised;
+    }
+
+    private final int partitions;
+
+    private final double lookahead;
+
+    private final int capacity;
+
+    private double endTime;
+
+    private boolean running = false;
+
+    private Partition[] all;
+
+    private volatile Throwable failed = null;
+
+    private long nulls = 0;
+}
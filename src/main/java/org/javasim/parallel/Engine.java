@@ -0,0 +1,134 @@
+/*
+ * Copyright 1990-2008, Mark Little, University of Newcastle upon Tyne
+ * and others contributors as indicated 
+ * by the @authors tag. All rights reserved. 
+ * See the copyright.txt in the distribution for a
+ * full listing of individual contributors. 
+ * This copyrighted material is made available to anyone wishing to use,
+ * modify, copy, or redistribute it subject to the terms and conditions
+ * of the GNU Lesser General Public License, v. 2.1.
+ * This program is distributed in the hope that it will be useful, but WITHOUT A 
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR A 
+ * PARTICULAR PURPOSE.  See the GNU Lesser General Public License for more details.
+ * You should have received a copy of the GNU Lesser General Public License,
+ * v.2.1 along with this distribution; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, 
+ * MA  02110-1301, USA.
+ * 
+ * (C) 1990-2008,
+ */
+
+
+package org.javasim.parallel;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.javasim.SimulationException;
+
+/**
+ * Runs a model made of logical processes. The engines differ in how (and
+ * whether) they spread the logical processes over threads, but a model
+ * gives the same results on all of them.
+ */
+public abstract class Engine
+{
+    /**
+     * Add a logical process to the model. Identities are given out in the
+     * order in which logical processes are added, from 0.
+     * 
+     * @param process the logical process.
+     * @return its identity.
+     * @throws SimulationException if it already belongs to an engine, or
+     *         this engine has been run.
+     */
+
+    public synchronized int add (LogicalProcess process) throws SimulationException
+    {
+        if (process.engine != null)
+            throw new SimulationException("Logical process already added to an engine.");
+
+        if (started)
+            throw new SimulationException("Engine has already been run.");
+
+        process.attach(this, processes.size());
+        processes.add(process);
+
+        return process.identity;
+    }
+
+    /**
+     * @param identity the identity of a logical process.
+     * @return the logical process.
+     */
+
+    public LogicalProcess getProcess (int identity)
+    {
+        return processes.get(identity);
+    }
+
+    /**
+     * @return the number of logical processes in the model.
+     */
+
+    public int numberOfProcesses ()
+    {
+        return processes.size();
+    }
+
+    /**
+     * @return the number of messages handled by the last run, not counting
+     *         any which were undone.
+     */
+
+    public long committedEvents ()
+    {
+        return committed;
+    }
+
+    /**
+     * Run the model, handling every message with a time before endTime, and
+     * return when it has finished. An engine can only be run once.
+     * 
+     * @param endTime the time at which to stop.
+     * @throws SimulationException if the model fails.
+     */
+
+    public abstract void run (double endTime) throws SimulationException;
+
+    /*
+     * Mark the engine as started, so that the model can no longer change.
+     */
+
+    synchronized void begin () throws SimulationException
+    {
+        if (started)
+            throw new SimulationException("Engine has already been run.");
+
+        started = true;
+    }
+
+    /*
+     * Deliver a message sent by a logical process.
+     */
+
+    abstract void send (LogicalProcess from, Message message) throws SimulationException;
+
+    static SimulationException failure (String reason, Throwable cause)
+    {
+        if (cause instanceof SimulationException)
+            return (SimulationException) cause;
+
+        SimulationException ex = new SimulationException(reason);
+
+        ex.initCause(cause);
+
+        return ex;
+    }
+
+    final List<LogicalProcess> processes = new ArrayList<LogicalProcess>();
+
+    long committed = 0;
+
+    private boolean started = false;
+}
@@ -0,0 +1,174 @@
+/*
+ * Copyright 1990-2008, Mark Little, University of Newcastle upon Tyne
+ * and others contributors as indicated 
+ * by the @authors tag. All rights reserved. 
+ * See the copyright.txt in the distribution for a
+ * full listing of individual contributors. 
+ * This copyrighted material is made available to anyone wishing to use,
+ * modify, copy, or redistribute it subject to the terms and conditions
+ * of the GNU Lesser General Public License, v. 2.1.
+ * This program is distributed in the hope that it will be useful, but WITHOUT A 
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR A 
+ * PARTICULAR PURPOSE.  See the GNU Lesser General Public License for more details.
+ * You should have received a copy of the GNU Lesser General Public License,
+ * v.2.1 along with this distribution; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, 
+ * MA  02110-1301, USA.
+ * 
+ * (C) 1990-2008,
+ */
+
+
+package org.javasim.parallel;
+
+import org.javasim.SimulationException;
+
+/**
+ * An entity of a model written in the event-scheduling style, for the
+ * engines in this package. Rather than a thread which holds, a logical
+ * process is a set of state variables and a handler which is called for
+ * each message sent to it, at the time of the message; the handler changes
+ * the state and may send further messages to any logical process. Because
+ * there is no thread stack, an engine is free to run different logical
+ * processes at the same time on different threads, and (for optimistic
+ * engines) to save the state of a logical process and later put it back.
+ * 
+ * A logical process must only share information with others through
+ * messages, and must take any random numbers it needs from random(), whose
+ * state is saved and restored with the rest of it.
+ */
+public abstract class LogicalProcess
+{
+    /**
+     * @return the identity of this logical process within its engine.
+     */
+
+    public final int identity ()
+    {
+        return identity;
+    }
+
+    /**
+     * @return the time of the message being handled, or of the last one
+     *         handled.
+     */
+
+    public final double currentTime ()
+    {
+        return now;
+    }
+
+    protected LogicalProcess ()
+    {
+    }
+
+    /**
+     * Called once for each logical process when the engine starts, at time
+     * 0, to send the messages which get the model going.
+     * 
+     * @throws SimulationException thrown if there's an error.
+     */
+
+    protected void startup () throws SimulationException
+    {
+    }
+
+    /**
+     * Handle a message which has been sent to this logical process. The
+     * current time is the time of the message.
+     * 
+     * @param message the message.
+     * @throws SimulationException thrown if there's an error.
+     */
+
+    protected abstract void handle (Message message) throws SimulationException;
+
+    /**
+     * Return a copy of the state of this logical process, which must not
+     * change when the logical process itself does. This need only be
+     * provided by models which are run on an optimistic engine.
+     * 
+     * @return the saved state.
+     */
+
+    protected Object saveState ()
+    {
+        throw new UnsupportedOperationException(getClass().getName() + " does not save its state.");
+    }
+
+    /**
+     * Put back state previously returned by saveState.
+     * 
+     * @param state the saved state.
+     */
+
+    protected void restoreState (Object state)
+    {
+        throw new UnsupportedOperationException(getClass().getName() + " does not restore its state.");
+    }
+
+    /**
+     * Send a message to a logical process, to be handled after the given
+     * delay.
+     * 
+     * @param destination the identity of the receiver, which may be this one.
+     * @param delay the time until the message is handled, which must be
+     *        greater than zero.
+     * @param payload the data to send, which the receiver must not change.
+     * @throws SimulationException if the delay or destination is invalid.
+     */
+
+    protected final void send (int destination, double delay, Object payload) throws SimulationException
+    {
+        if (engine == null)
+            throw new SimulationException("Logical process has not been added to an engine.");
+
+        if (!(delay > 0.0))
+            throw new SimulationException("Invalid delay time " + delay);
+
+        if ((destination < 0) || (destination >= engine.numberOfProcesses()))
+            throw new SimulationException("Invalid destination " + destination);
+
+        engine.send(this, new Message(now + delay, identity, sequence++, destination, payload));
+    }
+
+    /**
+     * @return the next number from this logical process's own generator,
+     *         uniformly distributed on [0, 1).
+     */
+
+    protected final double random ()
+    {
+        // SplitMix64, which needs only the one word of state
+
+        long z = (seed += 0x9E3779B97F4A7C15L);
+
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        z = z ^ (z >>> 31);
+
+        return (z >>> 11) * 0x1.0p-53;
+    }
+
+    /*
+     * Set when the logical process is added to an engine. The seed depends
+     * only on the identity, so every engine gives the same numbers.
+     */
+
+    void attach (Engine engine, int identity)
+    {
+        this.engine = engine;
+        this.identity = identity;
+        this.seed = identity * 0xD1B54A32D192ED03L;
+    }
+
+    Engine engine = null;
+
+    int identity = -1;
+
+    double now = 0.0;
+
+    long sequence = 0;
+
+    long seed = 0;
+}
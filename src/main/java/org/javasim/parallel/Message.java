@@ -0,0 +1,134 @@
+/*
+ * Copyright 1990-2008, Mark Little, University of Newcastle upon Tyne
+ * and others contributors as indicated 
+ * by the @authors tag. All rights reserved. 
+ * See the copyright.txt in the distribution for a
+ * full listing of individual contributors. 
+ * This copyrighted material is made available to anyone wishing to use,
+ * modify, copy, or redistribute it subject to the terms and conditions
+ * of the GNU Lesser General Public License, v. 2.1.
+ * This program is distributed in the hope that it will be useful, but WITHOUT A 
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR A 
+ * PARTICULAR PURPOSE.  See the GNU Lesser General Public License for more details.
+ * You should have received a copy of the GNU Lesser General Public License,
+ * v.2.1 along with this distribution; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, 
+ * MA  02110-1301, USA.
+ * 
+ * (C) 1990-2008,
+ */
+
+
+package org.javasim.parallel;
+
+/**
+ * A timestamped event sent from one logical process to another. Messages
+ * are ordered by time, then by the identity of the sender and the order in
+ * which it sent them, so that every engine runs simultaneous events in the
+ * same order.
+ */
+public final class Message implements Comparable<Message>
+{
+    /**
+     * @return the simulation time at which the message is to be handled.
+     */
+
+    public final double time ()
+    {
+        return time;
+    }
+
+    /**
+     * @return the identity of the logical process which sent the message.
+     */
+
+    public final int source ()
+    {
+        return source;
+    }
+
+    /**
+     * @return the identity of the logical process which receives the message.
+     */
+
+    public final int destination ()
+    {
+        return destination;
+    }
+
+    /**
+     * @return the data carried by the message.
+     */
+
+    public final Object payload ()
+    {
+        return payload;
+    }
+
+    public int compareTo (Message other)
+    {
+        if (time != other.time)
+            return (time < other.time) ? -1 : 1;
+
+        if (source != other.source)
+            return (source < other.source) ? -1 : 1;
+
+        if (sequence != other.sequence)
+            return (sequence < other.sequence) ? -1 : 1;
+
+        return 0;
+    }
+
+    public String toString ()
+    {
+        return "Message " + source + ":" + sequence + " -> " + destination + " @ " + time;
+    }
+
+    Message (double time, int source, long sequence, int destination, Object payload)
+    {
+        this.time = time;
+        this.source = source;
+        this.sequence = sequence;
+        this.destination = destination;
+        this.payload = payload;
+        this.positive = null;
+    }
+
+    /*
+     * Create the anti-message which cancels the given message.
+     */
+
+    Message (Message positive)
+    {
+        this.time = positive.time;
+        this.source = positive.source;
+        this.sequence = positive.sequence;
+        this.destination = positive.destination;
+        this.payload = null;
+        this.positive = positive;
+    }
+
+    final double time;
+
+    final int source;
+
+    final long sequence;
+
+    final int destination;
+
+    final Object payload;
+
+    /*
+     * For an anti-message, the message which it cancels.
+     */
+
+    final Message positive;
+
+    /*
+     * Maintained by the engine which owns the destination.
+     */
+
+    boolean processed = false;
+
+    boolean cancelled = false;
+}
@@ -0,0 +1,166 @@
+/*
+ * Copyright 1990-2008, Mark Little, University of Newcastle upon Tyne
+ * and others contributors as indicated 
+ * by the @authors tag. All rights reserved. 
+ * See the copyright.txt in the distribution for a
+ * full listing of individual contributors. 
+ * This copyrighted material is made available to anyone wishing to use,
+ * modify, copy, or redistribute it subject to the terms and conditions
+ * of the GNU Lesser General Public License, v. 2.1.
+ * This program is distributed in the hope that it will be useful, but WITHOUT A 
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR A 
+ * PARTICULAR PURPOSE.  See the GNU Lesser General Public License for more details.
+ * You should have received a copy of the GNU Lesser General Public License,
+ * v.2.1 along with this distribution; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, 
+ * MA  02110-1301, USA.
+ * 
+ * (C) 1990-2008,
+ */
+
+
+package org.javasim.parallel;
+
+import java.util.HashSet;
+import java.util.PriorityQueue;
+
+import org.javasim.SimulationContext;
+import org.javasim.SimulationException;
+import org.javasim.SimulationProcess;
+
+/**
+ * Runs a model on a single thread, on the ordinary scheduler of a
+ * SimulationContext of its own. This is the reference against which the
+ * parallel engines are checked and measured.
+ * 
+ * Messages wait in a priority queue, and a SimulationEvent is scheduled
+ * for each distinct time which handles those due then in the order of
+ * Message, as the parallel engines do, rather than the order in which
+ * they were sent.
+ */
+public class SequentialEngine extends Engine
+{
+    public void run (double endTime) throws SimulationException
+    {
+        begin();
+
+        pending.clear();
+        times.clear();
+
+        context = new SimulationContext();
+
+        SimulationContext previous = SimulationContext.bind(context);
+
+        try
+        {
+            new Driver(endTime).await();
+        }
+        finally
+        {
+            SimulationContext.bind(previous);
+        }
+
+        if (failed != null)
+            throw failure("Model failed.", failed);
+    }
+
+    void send (LogicalProcess from, final Message message) throws SimulationException
+    {
+        pending.add(message);
+
+        if (times.add(message.time))
+            context.scheduleAt(message.time, () -> deliver(message.time));
+    }
+
+    /*
+     * Handle every message due at the given time, including any sent for
+     * that time while doing so.
+     */
+
+    private void deliver (double time)
+    {
+        Message message;
+
+        while (((message = pending.peek()) != null) && (message.time == time))
+        {
+            pending.poll();
+
+            if ((failed != null) || (time >= endTime))
+                continue;
+
+            LogicalProcess process = processes.get(message.destination);
+
+            process.now = time;
+
+            try
+            {
+                process.handle(message);
+
+                committed++;
+            }
+            catch (final Throwable ex)
+            {
+                failed = ex;
+            }
+        }
+
+        times.remove(time);
+    }
+
+    /*
+     * Starts the logical processes, then holds until the end time while the
+     * messages are handled as it goes.
+     */
+
+    private class Driver extends SimulationProcess
+    {
+        public Driver (double endTime)
+        {
+            SequentialEngine.this.endTime = endTime;
+        }
+
+        public void run ()
+        {
+            try
+            {
+                for (LogicalProcess process : processes)
+                    process.startup();
+
+                context.start();
+
+                hold(endTime);
+
+                context.stop();
+            }
+            catch (final Throwable ex)
+            {
+                if (failed == null)
+                    failed = ex;
+            }
+
+            try
+            {
+                SimulationProcess.mainResume();
+            }
+            catch (final SimulationException ex)
+            {
+            }
+        }
+
+        public void await ()
+        {
+            resumeProcess();
+            SimulationProcess.mainSuspend();
+        }
+    }
+
+    private SimulationContext context;
+
+    private double endTime;
+
+    private Throwable failed = null;
+
+    private final PriorityQueue<Message> pending = new PriorityQueue<Message>();
+
+    private final HashSet<Double> times = new HashSet<Double>();
+}
@@ -0,0 +1,501 @@
+/*
+ * Copyright 1990-2008, Mark Little, University of Newcastle upon Tyne
+ * and others contributors as indicated 
+ * by the @authors tag. All rights reserved. 
+ * See the copyright.txt in the distribution for a
+ * full listing of individual contributors. 
+ * This copyrighted material is made available to anyone wishing to use,
+ * modify, copy, or redistribute it subject to the terms and conditions
+ * of the GNU Lesser General Public License, v. 2.1.
+ * This program is distributed in the hope that it will be useful, but WITHOUT A 
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR A 
+ * PARTICULAR PURPOSE.  See the GNU Lesser General Public License for more details.
+ * You should have received a copy of the GNU Lesser General Public License,
+ * v.2.1 along with this distribution; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, 
+ * MA  02110-1301, USA.
+ * 
+ * (C) 1990-2008,
+ */
+
+
+package org.javasim.parallel;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Phaser;
+
+import org.javasim.SimulationException;
+
+/**
+ * An optimistic (Time Warp) engine. The logical processes are shared out
+ * between a number of threads, each of which handles the messages for its
+ * own logical processes in time order as fast as it can, without waiting
+ * to find out whether a message with an earlier time is still to come from
+ * another thread. When such a straggler does arrive, the logical process is
+ * rolled back: its state is restored from the copy saved before the first
+ * message later than the straggler, those messages are put back to be
+ * handled again, and an anti-message is sent for each message they sent,
+ * which cancels it (rolling back its receiver in turn if necessary).
+ * 
+ * Every so often the threads stop together to compute global virtual time
+ * (GVT), the earliest time of any message not yet handled. Nothing can be
+ * rolled back to before GVT, so the saved states and messages from before
+ * it are thrown away (fossil collection). The run ends when GVT reaches the
+ * end time.
+ * 
+ * Logical processes run here must implement saveState and restoreState.
+ */
+public class TimeWarpEngine extends Engine
+{
+    /**
+     * The default number of messages each thread handles between
+     * computations of GVT.
+     */
+
+    public static final int DEFAULT_GVT_INTERVAL = 1000;
+
+    /**
+     * Create an engine which uses the given number of threads.
+     * 
+     * @param threads the number of threads.
+     */
+
+    public TimeWarpEngine (int threads)
+    {
+        this(threads, DEFAULT_GVT_INTERVAL);
+    }
+
+    /**
+     * Create an engine which uses the given number of threads, and computes
+     * GVT after each thread has handled gvtInterval messages. A longer
+     * interval means fewer pauses but more memory for saved state.
+     * 
+     * @param threads the number of threads.
+     * @param gvtInterval the number of messages between GVT computations.
+     */
+
+    public TimeWarpEngine (int threads, int gvtInterval)
+    {
+        this.threads = Math.max(1, threads);
+        this.gvtInterval = Math.max(1, gvtInterval);
+    }
+
+    /**
+     * @return the number of messages which were handled and then rolled
+     *         back by the last run.
+     */
+
+    public long rolledBackEvents ()
+    {
+        return rolledBack;
+    }
+
+    public void run (double endTime) throws SimulationException
+    {
+        begin();
+
+        this.endTime = endTime;
+
+        workers = new Worker[Math.max(1, Math.min(threads, processes.size()))];
+        tracks = new Track[processes.size()];
+        minima = new double[workers.length];
+        phaser = new Phaser(workers.length);
+
+        for (int i = 0; i < workers.length; i++)
+            workers[i] = new Worker(i);
+
+        for (int i = 0; i < tracks.length; i++)
+        {
+            tracks[i] = new Track(processes.get(i), workerOf(i));
+            tracks[i].worker.owned.add(tracks[i]);
+        }
+
+        for (LogicalProcess process : processes)
+            process.startup();
+
+        running = true;
+
+        Thread[] others = new Thread[workers.length - 1];
+
+        for (int i = 0; i < others.length; i++)
+        {
+            others[i] = new Thread(workers[i + 1], "TimeWarp-" + (i + 1));
+            others[i].start();
+        }
+
+        workers[0].run();
+
+        boolean interrupted = false;
+
+        for (Thread other : others)
+        {
+            for (;;)
+            {
+                try
+                {
+                    other.join();
+
+                    break;
+                }
+                catch (final InterruptedException ex)
+                {
+                    interrupted = true;
+                }
+            }
+        }
+
+        if (interrupted)
+            Thread.currentThread().interrupt();
+
+        if (failed != null)
+            throw failure("Model failed.", failed);
+
+        for (Worker worker : workers)
+        {
+            committed += worker.committed;
+            rolledBack += worker.rolledBack;
+
+            for (Track track : worker.owned)
+                committed += track.history.size();
+        }
+    }
+
+    void send (LogicalProcess from, Message message) throws SimulationException
+    {
+        Track track = tracks[from.identity];
+        Worker owner = workerOf(message.destination);
+
+        if (track.active != null)
+            track.active.sent.add(message);
+
+        if (!running)
+            owner.pending.add(message);
+        else if (owner == track.worker)
+            owner.receive(message);
+        else
+            owner.inbox.offer(message);
+    }
+
+    private Worker workerOf (int identity)
+    {
+        return workers[identity % workers.length];
+    }
+
+    /*
+     * The state saved before a message was handled, and the messages sent
+     * while handling it.
+     */
+
+    private static class Record
+    {
+        Record (Message event, LogicalProcess process)
+        {
+            this.event = event;
+            this.state = process.saveState();
+            this.now = process.now;
+            this.sequence = process.sequence;
+            this.seed = process.seed;
+        }
+
+        final Message event;
+
+        final Object state;
+
+        final double now;
+
+        final long sequence;
+
+        final long seed;
+
+        final List<Message> sent = new ArrayList<Message>(2);
+    }
+
+    /*
+     * The messages handled by a logical process since GVT, oldest first.
+     */
+
+    private static class Track
+    {
+        Track (LogicalProcess process, Worker worker)
+        {
+            this.process = process;
+            this.worker = worker;
+        }
+
+        final LogicalProcess process;
+
+        final Worker worker;
+
+        final ArrayDeque<Record> history = new ArrayDeque<Record>();
+
+        Record active = null;
+    }
+
+    private class Worker implements Runnable
+    {
+        Worker (int index)
+        {
+            this.index = index;
+        }
+
+        public void run ()
+        {
+            try
+            {
+                int idle = 0;
+
+                while (!phaser.isTerminated())
+                {
+                    if (gvtRequested)
+                    {
+                        if (!agree())
+                            break;
+
+                        continue;
+                    }
+
+                    drain();
+
+                    Message next = next();
+
+                    if ((next == null) || (next.time >= endTime))
+                    {
+                        /*
+                         * Nothing to do until a message arrives, or the
+                         * others agree that there never will be.
+                         */
+
+                        if (++idle >= IDLE_SPINS)
+                        {
+                            gvtRequested = true;
+                            idle = 0;
+                        }
+                        else
+                            Thread.yield();
+
+                        continue;
+                    }
+
+                    idle = 0;
+
+                    execute(pending.poll());
+
+                    if (++handled >= gvtInterval)
+                        gvtRequested = true;
+                }
+            }
+            catch (final Throwable ex)
+            {
+                fail(ex);
+            }
+        }
+
+        void fail (Throwable ex)
+        {
+            synchronized (TimeWarpEngine.this)
+            {
+                if (failed == null)
+                    failed = ex;
+            }
+
+            phaser.forceTermination();
+        }
+
+        /*
+         * Stop with the other threads to compute GVT, then throw away what
+         * is older. Returns false if the run is over.
+         */
+
+        private boolean agree ()
+        {
+            if (phaser.arriveAndAwaitAdvance() < 0)
+                return false;
+
+            // everything sent before now is in an inbox
+
+            drain();
+
+            Message next = next();
+
+            minima[index] = (next == null) ? Double.POSITIVE_INFINITY : next.time;
+
+            if (phaser.arriveAndAwaitAdvance() < 0)
+                return false;
+
+            double gvt = Double.POSITIVE_INFINITY;
+
+            for (double min : minima)
+                gvt = Math.min(gvt, min);
+
+            for (Track track : owned)
+            {
+                while (!track.history.isEmpty() && (track.history.peekFirst().event.time < gvt))
+                {
+                    track.history.removeFirst();
+                    committed++;
+                }
+            }
+
+            if (index == 0)
+                gvtRequested = false;
+
+            if (phaser.arriveAndAwaitAdvance() < 0)
+                return false;
+
+            handled = 0;
+
+            return gvt < endTime;
+        }
+
+        private void drain ()
+        {
+            Message message;
+
+            while ((message = inbox.poll()) != null)
+            {
+                if (message.positive == null)
+                    receive(message);
+                else
+                    annihilate(message.positive);
+            }
+        }
+
+        private Message next ()
+        {
+            Message next;
+
+            while (((next = pending.peek()) != null) && next.cancelled)
+                pending.poll();
+
+            return next;
+        }
+
+        private void execute (Message message) throws SimulationException
+        {
+            Track track = tracks[message.destination];
+            LogicalProcess process = track.process;
+            Record record = new Record(message, process);
+
+            message.processed = true;
+            process.now = message.time;
+            track.active = record;
+
+            try
+            {
+                process.handle(message);
+            }
+            finally
+            {
+                track.active = null;
+            }
+
+            track.history.addLast(record);
+        }
+
+        void receive (Message message)
+        {
+            Track track = tracks[message.destination];
+            Record last = track.history.peekLast();
+
+            if ((last != null) && (last.event.compareTo(message) > 0))
+                rollback(track, message);
+
+            pending.add(message);
+        }
+
+        private void annihilate (Message message)
+        {
+            message.cancelled = true;
+
+            if (message.processed)
+                rollback(tracks[message.destination], message);
+        }
+
+        /*
+         * Undo every message handled by the track's logical process from
+         * the given one on. Those which have not been cancelled go back on
+         * the pending queue.
+         */
+
+        private void rollback (Track track, Message from)
+        {
+            Record earliest = null;
+            Record record;
+
+            while (((record = track.history.peekLast()) != null) && (record.event.compareTo(from) >= 0))
+            {
+                track.history.removeLast();
+
+                record.event.processed = false;
+
+                if (!record.event.cancelled)
+                    pending.add(record.event);
+
+                for (Message sent : record.sent)
+                {
+                    Worker owner = workerOf(sent.destination);
+
+                    if (owner == this)
+                        annihilate(sent);
+                    else
+                        owner.inbox.offer(new Message(sent));
+                }
+
+                earliest = record;
+                rolledBack++;
+            }
+
+            if (earliest != null)
+            {
+                LogicalProcess process = track.process;
+
+                process.restoreState(earliest.state);
+                process.now = earliest.now;
+                process.sequence = earliest.sequence;
+                process.seed = earliest.seed;
+            }
+        }
+
+        final int index;
+
+        final List<Track> owned = new ArrayList<Track>();
+
+        final PriorityQueue<Message> pending = new PriorityQueue<Message>();
+
+        final ConcurrentLinkedQueue<Message> inbox = new ConcurrentLinkedQueue<Message>();
+
+        long committed = 0;
+
+        long rolledBack = 0;
+
+        private int handled = 0;
+    }
+
+    private static final int IDLE_SPINS = 64;
+
+    private final int threads;
+
+    private final int gvtInterval;
+
+    private double endTime;
+
+    private boolean running = false;
+
+    private Worker[] workers;
+
+    private Track[] tracks;
+
+    private double[] minima;
+
+    private Phaser phaser;
+
+    private volatile boolean gvtRequested = false;
+
+    private Throwable failed = null;
+
+    private long rolledBack = 0;
+}
@@ -105,6 +105,28 @@ public class Histogram extends PrecisionHistogram
         super.setValue(value);
     }
 
+    /**
+     * Add the samples in 'other' to this histogram, then merge buckets
+     * until there are no more than the maximum allowed.
+     * 
+     * @param other the histogram to add.
+     * @throws IllegalArgumentException if the two cannot be merged.
+     */
+
+    public void merge (Mean other) throws IllegalArgumentException
+    {
+        super.merge(other);
+
+        try
+        {
+            while (numberOfBuckets() > maxSize)
+                mergeBuckets();
+        }
+        catch (StatisticsException e)
+        {
+        }
+    }
+
     /**
      * Save the state of the histogram to the file named 'fileName'.
      * 
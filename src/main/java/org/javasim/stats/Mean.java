@@ -25,7 +25,11 @@ import java.io.*;
 import java.io.FileNotFoundException;
 import java.io.IOException;
 
-public class Mean
+import org.javasim.Checkpoint;
+import org.javasim.Checkpointable;
+import org.javasim.SimulationException;
+
+public class Mean implements Checkpointable, Cloneable
 {
     public Mean()
     {
@@ -104,6 +108,45 @@ public class Mean
         return _Mean;
     }
 
+    /**
+     * Add the samples summarised by 'other' to this instance, as if they
+     * had been given to it directly. This is how the results of independent
+     * replications are pooled.
+     * 
+     * @param other the statistics to add.
+     * @throws IllegalArgumentException if the two cannot be merged.
+     */
+
+    public void merge (Mean other) throws IllegalArgumentException
+    {
+        if (other._Number == 0)
+            return;
+
+        if (other._Max > _Max)
+            _Max = other._Max;
+        if (other._Min < _Min)
+            _Min = other._Min;
+        _Sum += other._Sum;
+        _Number += other._Number;
+        _Mean = _Sum / _Number;
+    }
+
+    /**
+     * @return a copy of this instance, for a checkpoint.
+     */
+
+    public Mean copy (Checkpoint.Copier copier) throws SimulationException
+    {
+        try
+        {
+            return (Mean) clone();
+        }
+        catch (final CloneNotSupportedException ex)
+        {
+            throw new SimulationException(ex.toString());
+        }
+    }
+
     /**
      * Save the state of the histogram to the file named 'fileName'.
      * 
@@ -29,6 +29,9 @@ import java.io.PrintWriter;
 import java.io.FileNotFoundException;
 import java.io.IOException;
 
+import org.javasim.Checkpoint;
+import org.javasim.SimulationException;
+
 /**
  * This is the base histogram class which keeps an exact total of all values
  * input, i.e., a bucket is created for each new value. This can take up a lot
@@ -82,6 +85,66 @@ public class PrecisionHistogram extends Variance
         add(trail, value, false);
     }
 
+    /**
+     * Add the samples in 'other', which must also be a histogram, to this
+     * one. The bucket counts are added together, creating any buckets this
+     * histogram does not yet have.
+     * 
+     * @param other the histogram to add.
+     * @throws IllegalArgumentException if the two cannot be merged.
+     */
+
+    public void merge (Mean other) throws IllegalArgumentException
+    {
+        if (other.numberOfSamples() == 0)
+            return;
+
+        if (!(other instanceof PrecisionHistogram))
+            throw new IllegalArgumentException("Cannot merge statistics into a histogram.");
+
+        super.merge(other);
+
+        for (Bucket b = ((PrecisionHistogram) other).Head; b != null; b = b.cdr())
+        {
+            create(b.name());
+
+            for (Bucket ptr = Head; ptr != null; ptr = ptr.cdr())
+            {
+                if (ptr.name() == b.name())
+                {
+                    ptr.incrementSize(b.size());
+                    break;
+                }
+            }
+        }
+    }
+
+    /**
+     * @return a copy of this histogram, and of its buckets, for a checkpoint.
+     */
+
+    public PrecisionHistogram copy (Checkpoint.Copier copier) throws SimulationException
+    {
+        PrecisionHistogram h = (PrecisionHistogram) super.copy(copier);
+        Bucket tail = null;
+
+        h.Head = null;
+
+        for (Bucket b = Head; b != null; b = b.cdr())
+        {
+            Bucket c = new Bucket(b);
+
+            if (tail == null)
+                h.Head = c;
+            else
+                tail.setCdr(c);
+
+            tail = c;
+        }
+
+        return h;
+    }
+
     /**
      * Empty the histogram.
      */
@@ -158,6 +158,27 @@ public class SimpleHistogram extends PrecisionHistogram
         throw new IllegalArgumentException("Name " + name + " out of range.");
     }
 
+    /**
+     * Add the samples in 'other' to this histogram. Both must have been
+     * created with the same range and bucket width.
+     * 
+     * @param other the histogram to add.
+     * @throws IllegalArgumentException if the two cannot be merged.
+     */
+
+    public void merge (Mean other) throws IllegalArgumentException
+    {
+        if (!(other instanceof SimpleHistogram))
+            throw new IllegalArgumentException("Cannot merge statistics into a SimpleHistogram.");
+
+        SimpleHistogram h = (SimpleHistogram) other;
+
+        if ((h.minIndex != minIndex) || (h.maxIndex != maxIndex) || (h.width != width))
+            throw new IllegalArgumentException("Cannot merge histograms with different buckets.");
+
+        super.merge(other);
+    }
+
     /**
      * @return the width of each bucket.
      */
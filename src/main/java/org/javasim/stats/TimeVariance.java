@@ -70,6 +70,25 @@ public class TimeVariance extends Variance
         store(value);
     }
 
+    /**
+     * The time average depends on the simulation time at which it is read,
+     * which separate runs do not share, so a TimeVariance cannot be pooled
+     * with anything except empty statistics. Merge the sample statistics
+     * into a Variance instead, or pool the values of timeAverage from each
+     * run.
+     * 
+     * @param other the statistics to add.
+     * @throws IllegalArgumentException unless 'other' has no samples.
+     */
+
+    public void merge (Mean other) throws IllegalArgumentException
+    {
+        if (other.numberOfSamples() == 0)
+            return;
+
+        throw new IllegalArgumentException("Cannot merge time-weighted statistics.");
+    }
+
     /**
      * @return the average value given up to the current simulation time.
      */
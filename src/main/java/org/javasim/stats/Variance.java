@@ -58,6 +58,26 @@ public class Variance extends Mean
         super.reset();
     }
 
+    /**
+     * Add the samples summarised by 'other', which must also be a Variance,
+     * to this instance.
+     * 
+     * @param other the statistics to add.
+     * @throws IllegalArgumentException if the two cannot be merged.
+     */
+
+    public void merge (Mean other) throws IllegalArgumentException
+    {
+        if (other.numberOfSamples() == 0)
+            return;
+
+        if (!(other instanceof Variance))
+            throw new IllegalArgumentException("Cannot merge a Mean into a Variance.");
+
+        _sqr += ((Variance) other)._sqr;
+        super.merge(other);
+    }
+
     /**
      * @return the variance.
      */
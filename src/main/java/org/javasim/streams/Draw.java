@@ -22,12 +22,16 @@ package org.javasim.streams;
 
 import java.io.IOException;
 
+import org.javasim.Checkpoint;
+import org.javasim.Checkpointable;
+import org.javasim.SimulationException;
+
 /**
  * Return true or false with probability given when constructed. Uses a
  * UniformStream.
  */
 
-public class Draw
+public class Draw implements Checkpointable
 {
     /**
      * Probability of true is 'p'.
@@ -74,6 +78,25 @@ public class Draw
             return false;
     }
     
+    /**
+     * @return a copy of this instance, which draws upon a copy of its stream.
+     */
+
+    public Draw copy (Checkpoint.Copier copier) throws SimulationException
+    {
+        Draw d = new Draw(this);
+
+        d.s = copier.copy(s);
+
+        return d;
+    }
+
+    private Draw(Draw other)
+    {
+        s = other.s;
+        prob = other.prob;
+    }
+
     private UniformStream s;
 
     private double prob;
@@ -0,0 +1,315 @@
+/*
+ * Copyright 1990-2008, Mark Little, University of Newcastle upon Tyne
+ * and others contributors as indicated 
+ * by the @authors tag. All rights reserved. 
+ * See the copyright.txt in the distribution for a
+ * full listing of individual contributors. 
+ * This copyrighted material is made available to anyone wishing to use,
+ * modify, copy, or redistribute it subject to the terms and conditions
+ * of the GNU Lesser General Public License, v. 2.1.
+ * This program is distributed in the hope that it will be useful, but WITHOUT A 
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR A 
+ * PARTICULAR PURPOSE.  See the GNU Lesser General Public License for more details.
+ * You should have received a copy of the GNU Lesser General Public License,
+ * v.2.1 along with this distribution; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, 
+ * MA  02110-1301, USA.
+ * 
+ * (C) 1990-2008,
+ */
+
+package org.javasim.streams;
+
+import java.io.IOException;
+
+/**
+ * Returns one of a finite set of outcomes, each with a given probability,
+ * e.g., a routing decision taken from a measured table. The outcomes are
+ * numbered from 0; getNumber returns the value given for the outcome, or
+ * its number if no values were given, and nextIndex returns the number
+ * itself.
+ * 
+ * The alias tables of A. J. Walker (1977), built as described by M. D.
+ * Vose (1991), let each draw take constant time however many outcomes
+ * there are: a single uniform number chooses a column, whose leading bits
+ * pick one of the n equally likely columns and whose remaining bits decide
+ * between the column's own outcome and its alias. That needs the 53 bits
+ * of a XoshiroGenerator; with fewer, as from the legacy generator, a
+ * second uniform number makes the decision so that the probabilities are
+ * not rounded. Building the tables takes time proportional to n.
+ */
+
+public class EmpiricalStream extends RandomStream
+{
+    /**
+     * Create a stream whose outcome 'i' has probability
+     * weights[i] / sum(weights).
+     */
+
+    public EmpiricalStream(double[] weights)
+    {
+        this(null, weights);
+    }
+
+    /**
+     * Create a stream whose outcome 'i' has probability
+     * weights[i] / sum(weights). Ignore the first 'StreamSelect' values
+     * before starting to return values.
+     */
+
+    public EmpiricalStream(double[] weights, int StreamSelect)
+    {
+        this(null, weights, StreamSelect);
+    }
+
+    /**
+     * Create a stream whose outcome 'i' has probability
+     * weights[i] / sum(weights). Ignore the first 'StreamSelect' values
+     * before starting to return values. The seeds to the RandomStream are
+     * 'MGSeed' and 'LCGSeed'.
+     */
+
+    public EmpiricalStream(double[] weights, int StreamSelect, long MGSeed,
+            long LCGSeed)
+    {
+        this(null, weights, StreamSelect, MGSeed, LCGSeed);
+    }
+
+    /**
+     * Create a stream which returns values[i] with probability
+     * weights[i] / sum(weights).
+     */
+
+    public EmpiricalStream(double[] values, double[] weights)
+    {
+        super();
+
+        build(values, weights);
+    }
+
+    /**
+     * Create a stream which returns values[i] with probability
+     * weights[i] / sum(weights). Ignore the first 'StreamSelect' values
+     * before starting to return values.
+     */
+
+    public EmpiricalStream(double[] values, double[] weights, int StreamSelect)
+    {
+        super();
+
+        build(values, weights);
+        select(StreamSelect);
+    }
+
+    /**
+     * Create a stream which returns values[i] with probability
+     * weights[i] / sum(weights). Ignore the first 'StreamSelect' values
+     * before starting to return values. The seeds to the RandomStream are
+     * 'MGSeed' and 'LCGSeed'.
+     */
+
+    public EmpiricalStream(double[] values, double[] weights, int StreamSelect,
+            long MGSeed, long LCGSeed)
+    {
+        super(MGSeed, LCGSeed);
+
+        build(values, weights);
+        select(StreamSelect);
+    }
+
+    /**
+     * @return the value of the next outcome.
+     */
+
+    public double getNumber () throws IOException, ArithmeticException
+    {
+        return values[nextIndex()];
+    }
+
+    /**
+     * @return the number of the next outcome, from 0 to size() - 1.
+     */
+
+    public int nextIndex ()
+    {
+        if (getGenerator().bits() >= EmpiricalStream.SPLIT_BITS)
+            return index(uniform());
+
+        int i = Math.min((int) (uniform() * columns), columns - 1); // as in index
+
+        return (uniform() < threshold[i]) ? i : alias[i];
+    }
+
+    /**
+     * Put the numbers of the next 'len' outcomes into 'dst', starting at
+     * 'off'.
+     * 
+     * @throws IndexOutOfBoundsException if the range is not within 'dst'.
+     */
+
+    public void fillIndices (int[] dst, int off, int len) throws IndexOutOfBoundsException
+    {
+        if ((off < 0) || (len < 0) || (len > dst.length - off))
+            throw new IndexOutOfBoundsException("Range " + off + "+" + len + " is outside an array of " + dst.length);
+
+        for (int i = off; i < off + len; i++)
+            dst[i] = nextIndex();
+    }
+
+    /**
+     * @return the number of outcomes.
+     */
+
+    public int size ()
+    {
+        return values.length;
+    }
+
+    /**
+     * @return the probability of outcome 'i'.
+     */
+
+    public double probability (int i)
+    {
+        return probabilities[i];
+    }
+
+    /**
+     * Fill with uniform numbers and turn each into an outcome in place,
+     * where each outcome takes a single uniform number.
+     */
+
+    protected void generate (double[] dst, int from, int to)
+    {
+        if (getGenerator().bits() < EmpiricalStream.SPLIT_BITS)
+        {
+            for (int i = from; i < to; i++)
+                dst[i] = values[nextIndex()];
+
+            return;
+        }
+
+        uniforms(dst, from, to);
+
+        for (int i = from; i < to; i++)
+            dst[i] = values[index(dst[i])];
+    }
+
+    /*
+     * The leading bits of u choose the column and the rest decide between
+     * it and its alias. u * columns may round up to columns when u is just
+     * below 1, which is clamped to the last column; the fraction is then 1,
+     * so that gives the alias as the rounding intended.
+     */
+
+    private int index (double u)
+    {
+        double j = u * columns;
+        int i = Math.min((int) j, columns - 1);
+
+        return (j - i < threshold[i]) ? i : alias[i];
+    }
+
+    /*
+     * Vose's method: each column whose outcome is less likely than 1/n is
+     * filled up by the remainder of one which is more likely, until every
+     * column holds exactly 1/n.
+     */
+
+    private void build (double[] v, double[] weights)
+    {
+        int n = weights.length;
+        double sum = 0.0;
+
+        if (n == 0)
+            throw new IllegalArgumentException("There must be at least one outcome.");
+
+        if ((v != null) && (v.length != n))
+            throw new IllegalArgumentException("There are " + v.length + " values but " + n + " weights.");
+
+        double largest = 0.0;
+
+        for (double w : weights)
+        {
+            if (!(w >= 0.0) || Double.isInfinite(w))
+                throw new IllegalArgumentException("The weight " + w + " is invalid.");
+
+            largest = Math.max(largest, w);
+        }
+
+        if (!(largest > 0.0))
+            throw new IllegalArgumentException("The weights must not all be zero.");
+
+        /*
+         * Weights are taken relative to the largest, so the sum is at most n
+         * however large they are.
+         */
+
+        for (double w : weights)
+            sum += w / largest;
+
+        values = new double[n];
+        probabilities = new double[n];
+        threshold = new double[n];
+        alias = new int[n];
+        columns = n;
+
+        double[] scaled = new double[n];
+        int[] small = new int[n];
+        int[] large = new int[n];
+        int smalls = 0, larges = 0;
+
+        for (int i = 0; i < n; i++)
+        {
+            values[i] = (v == null) ? i : v[i];
+            probabilities[i] = (weights[i] / largest) / sum;
+            scaled[i] = probabilities[i] * n;
+            alias[i] = i;
+
+            if (scaled[i] < 1.0)
+                small[smalls++] = i;
+            else
+                large[larges++] = i;
+        }
+
+        while ((smalls > 0) && (larges > 0))
+        {
+            int less = small[--smalls];
+            int more = large[--larges];
+
+            threshold[less] = scaled[less];
+            alias[less] = more;
+            scaled[more] = (scaled[more] + scaled[less]) - 1.0;
+
+            if (scaled[more] < 1.0)
+                small[smalls++] = more;
+            else
+                large[larges++] = more;
+        }
+
+        // whatever is left holds 1/n, give or take rounding
+
+        while (larges > 0)
+            threshold[large[--larges]] = 1.0;
+
+        while (smalls > 0)
+            threshold[small[--smalls]] = 1.0;
+    }
+
+    private double[] values;
+
+    private double[] probabilities;
+
+    private double[] threshold;
+
+    private int[] alias;
+
+    private int columns;
+
+    /*
+     * The fewest bits from the generator for one uniform number to choose
+     * both the column and the outcome.
+     */
+
+    private static final int SPLIT_BITS = 53;
+}
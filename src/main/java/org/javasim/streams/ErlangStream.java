@@ -24,11 +24,20 @@ import java.io.IOException;
 
 /**
  * Returns a number from an Erlang distribution with the given mean and standard
- * deviation.
+ * deviation. The shape k is (mean / sd)^2. Up to a threshold shape each
+ * number is made from the product of k uniform numbers, as it always has
+ * been; above it, where that is slow and the product may underflow, the
+ * constant time gamma method of GammaStream is used instead.
  */
 
 public class ErlangStream extends RandomStream
 {
+    /**
+     * The shape above which the gamma method is used by default.
+     */
+
+    public static final long DEFAULT_THRESHOLD = 32;
+
     /**
      * Create a stream with mean 'm' and standard deviation 'sd'.
      */
@@ -42,6 +51,8 @@ public class ErlangStream extends RandomStream
 
         double z = Mean / StandardDeviation;
         k = (long) (z * z);
+        d = k - 1.0 / 3.0;
+        c = 1.0 / Math.sqrt(9.0 * d);
     }
 
     /**
@@ -58,8 +69,9 @@ public class ErlangStream extends RandomStream
 
         double z = Mean / StandardDeviation;
         k = (long) (z * z);
-        for (int ss = 0; ss < StreamSelect * 1000; ss++)
-            uniform();
+        d = k - 1.0 / 3.0;
+        c = 1.0 / Math.sqrt(9.0 * d);
+        select(StreamSelect);
     }
 
     /**
@@ -78,8 +90,9 @@ public class ErlangStream extends RandomStream
 
         double z = Mean / StandardDeviation;
         k = (long) (z * z);
-        for (int ss = 0; ss < StreamSelect * 1000; ss++)
-            uniform();
+        d = k - 1.0 / 3.0;
+        c = 1.0 / Math.sqrt(9.0 * d);
+        select(StreamSelect);
     }
 
     /**
@@ -88,6 +101,9 @@ public class ErlangStream extends RandomStream
 
     public double getNumber () throws IOException, ArithmeticException
     {
+        if (k > threshold)
+            return (Mean / k) * GammaStream.standard(this, d, c);
+
         double z = 1.0;
         for (int i = 0; i < k; i++)
             z *= uniform();
@@ -95,9 +111,80 @@ public class ErlangStream extends RandomStream
         return -(Mean / k) * Math.log(z);
     }
 
+    /**
+     * Set the shape above which the gamma method is used, which is
+     * DEFAULT_THRESHOLD unless changed. Long.MAX_VALUE keeps the product of
+     * uniform numbers for every shape, which reproduces the results of
+     * earlier releases exactly.
+     * 
+     * @param threshold the largest shape for which the product is used.
+     */
+
+    public void setThreshold (long threshold)
+    {
+        this.threshold = threshold;
+    }
+
+    /**
+     * @return the largest shape for which the product is used.
+     */
+
+    public long getThreshold ()
+    {
+        return threshold;
+    }
+
+    /**
+     * Each number takes 'k' uniform numbers, so these are drawn a block at
+     * a time into a scratch array and multiplied together.
+     */
+
+    protected void generate (double[] dst, int from, int to)
+    {
+        if (k > threshold)
+        {
+            double scale = Mean / k;
+
+            for (int i = from; i < to; i++)
+                dst[i] = scale * GammaStream.standard(this, d, c);
+
+            return;
+        }
+
+        int n = (int) k;
+        double scale = -(Mean / k);
+        int perBlock = Math.max(1, ErlangStream.BLOCK / Math.max(n, 1));
+        double[] u = new double[perBlock * n];
+
+        for (int i = from; i < to; i += perBlock)
+        {
+            int count = Math.min(perBlock, to - i);
+
+            uniforms(u, 0, count * n);
+
+            for (int j = 0, p = 0; j < count; j++)
+            {
+                double z = 1.0;
+
+                for (int e = 0; e < n; e++)
+                    z *= u[p++];
+
+                dst[i + j] = scale * Math.log(z);
+            }
+        }
+    }
+
+    private static final int BLOCK = 1024;
+
     private double Mean;
 
     private double StandardDeviation;
 
     private long k;
+
+    private double d;
+
+    private double c;
+
+    private long threshold = ErlangStream.DEFAULT_THRESHOLD;
 }
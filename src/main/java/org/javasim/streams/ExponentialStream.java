@@ -28,6 +28,14 @@ import java.io.IOException;
 
 public class ExponentialStream extends RandomStream
 {
+    /**
+     * How the numbers are produced: LOGARITHM takes the logarithm of a
+     * uniform number, as this class always has; ZIGGURAT is faster, but
+     * gives a different sequence of numbers.
+     */
+
+    public enum Method { LOGARITHM, ZIGGURAT };
+
     /**
      * Create stream with mean 'm'.
      */
@@ -49,8 +57,7 @@ public class ExponentialStream extends RandomStream
 
         Mean = m;
 
-        for (int i = 0; i < StreamSelect * 1000; i++)
-            uniform();
+        select(StreamSelect);
     }
 
     /**
@@ -65,8 +72,7 @@ public class ExponentialStream extends RandomStream
 
         Mean = m;
 
-        for (int i = 0; i < StreamSelect * 1000; i++)
-            uniform();
+        select(StreamSelect);
     }
 
     /**
@@ -75,8 +81,55 @@ public class ExponentialStream extends RandomStream
 
     public double getNumber () throws IOException, ArithmeticException
     {
+        if (method == Method.ZIGGURAT)
+            return Mean * Ziggurat.exponential(this);
+
         return -Mean * Math.log(uniform());
     }
 
+    /**
+     * Choose how subsequent numbers are produced. The default is LOGARITHM,
+     * which reproduces the results of earlier releases exactly.
+     */
+
+    public void setMethod (Method method)
+    {
+        this.method = method;
+    }
+
+    /**
+     * @return how the numbers are produced.
+     */
+
+    public Method getMethod ()
+    {
+        return method;
+    }
+
+    /**
+     * Fill with uniform numbers and transform them in place, unless the
+     * ziggurat is in use.
+     */
+
+    protected void generate (double[] dst, int from, int to)
+    {
+        if (method == Method.ZIGGURAT)
+        {
+            for (int i = from; i < to; i++)
+                dst[i] = Mean * Ziggurat.exponential(this);
+
+            return;
+        }
+
+        uniforms(dst, from, to);
+
+        double m = -Mean;
+
+        for (int i = from; i < to; i++)
+            dst[i] = m * Math.log(dst[i]);
+    }
+
     private double Mean;
+
+    private Method method = Method.LOGARITHM;
 }
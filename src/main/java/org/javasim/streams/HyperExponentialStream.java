@@ -63,8 +63,7 @@ public class HyperExponentialStream extends RandomStream
         z = cv * cv;
         p = 0.5 * (1.0 - Math.sqrt((z - 1.0) / (z + 1.0)));
 
-        for (int ss = 0; ss < StreamSelect * 1000; ss++)
-            uniform();
+        select(StreamSelect);
     }
 
     /**
@@ -86,8 +85,7 @@ public class HyperExponentialStream extends RandomStream
         z = cv * cv;
         p = 0.5 * (1.0 - Math.sqrt((z - 1.0) / (z + 1.0)));
 
-        for (int ss = 0; ss < StreamSelect * 1000; ss++)
-            uniform();
+        select(StreamSelect);
     }
 
     /**
@@ -106,6 +104,29 @@ public class HyperExponentialStream extends RandomStream
         return -0.5 * z * Math.log(uniform());
     }
 
+    /**
+     * Each number takes a uniform number to choose the branch and another
+     * for its value, so pairs are drawn into a scratch array.
+     */
+
+    protected void generate (double[] dst, int from, int to)
+    {
+        double pp = p, high = -0.5 * (mean / (1.0 - p)), low = -0.5 * (mean / p);
+        double[] u = new double[2 * Math.min(to - from, HyperExponentialStream.BLOCK)];
+
+        for (int i = from; i < to; i += u.length / 2)
+        {
+            int count = Math.min(u.length / 2, to - i);
+
+            uniforms(u, 0, 2 * count);
+
+            for (int j = 0; j < count; j++)
+                dst[i + j] = ((u[2 * j] > pp) ? high : low) * Math.log(u[2 * j + 1]);
+        }
+    }
+
+    private static final int BLOCK = 1024;
+
     private double mean;
 
     private double standardDeviation;
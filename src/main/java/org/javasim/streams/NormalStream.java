@@ -29,6 +29,14 @@ import java.io.IOException;
 
 public class NormalStream extends RandomStream
 {
+    /**
+     * How the numbers are produced: POLAR is the polar method, as this
+     * class always has used; ZIGGURAT is faster, but gives a different
+     * sequence of numbers.
+     */
+
+    public enum Method { POLAR, ZIGGURAT };
+
     /**
      * Create stream with mean 'm' and standard deviation 'sd'.
      */
@@ -55,8 +63,7 @@ public class NormalStream extends RandomStream
         standardDeviation = sd;
         z = 0.0;
 
-        for (int ss = 0; ss < StreamSelect * 1000; ss++)
-            uniform();
+        select(StreamSelect);
     }
 
     /**
@@ -74,8 +81,7 @@ public class NormalStream extends RandomStream
         standardDeviation = sd;
         z = 0.0;
 
-        for (int ss = 0; ss < StreamSelect * 1000; ss++)
-            uniform();
+        select(StreamSelect);
     }
 
     /**
@@ -88,6 +94,9 @@ public class NormalStream extends RandomStream
 
     public double getNumber () throws IOException, ArithmeticException
     {
+        if (method == Method.ZIGGURAT)
+            return mean + Ziggurat.normal(this) * standardDeviation;
+
         // Use the polar method, due to Box, Muller and Marsaglia
         // Taken from Seminumerical Algorithms, Knuth, Addison-Wesley, p.117
 
@@ -117,9 +126,90 @@ public class NormalStream extends RandomStream
         return mean + X2 * standardDeviation;
     }
 
+    /**
+     * Choose how subsequent numbers are produced. The default is POLAR,
+     * which reproduces the results of earlier releases exactly. Any number
+     * left over from the last pair the polar method produced is discarded.
+     */
+
+    public void setMethod (Method method)
+    {
+        this.method = method;
+
+        z = 0.0;
+    }
+
+    /**
+     * @return how the numbers are produced.
+     */
+
+    public Method getMethod ()
+    {
+        return method;
+    }
+
+    /**
+     * The polar method as in getNumber, keeping any number left over for
+     * the next call. Each block holds as many pairs of uniform numbers as
+     * there are pairs still to produce, so that no more are drawn than
+     * getNumber would have drawn, even though some pairs are rejected.
+     */
+
+    protected void generate (double[] dst, int from, int to)
+    {
+        double m = mean, sd = standardDeviation;
+
+        if (method == Method.ZIGGURAT)
+        {
+            for (int i = from; i < to; i++)
+                dst[i] = m + Ziggurat.normal(this) * sd;
+
+            return;
+        }
+
+        double[] u = new double[2 * Math.min((to - from + 1) / 2, NormalStream.BLOCK)];
+        int i = from;
+
+        if ((i < to) && (z != 0.0))
+        {
+            dst[i++] = m + z * sd;
+            z = 0.0;
+        }
+
+        while (i < to)
+        {
+            int pairs = Math.min((to - i + 1) / 2, NormalStream.BLOCK);
+
+            uniforms(u, 0, 2 * pairs);
+
+            for (int j = 0; j < 2 * pairs; j += 2)
+            {
+                double v1 = 2.0 * u[j] - 1.0;
+                double v2 = 2.0 * u[j + 1] - 1.0;
+                double S = v1 * v1 + v2 * v2;
+
+                if (S >= 1.0)
+                    continue;
+
+                S = Math.sqrt((-2.0 * Math.log(S)) / S);
+
+                dst[i++] = m + v1 * S * sd;
+
+                if (i < to)
+                    dst[i++] = m + v2 * S * sd;
+                else
+                    z = v2 * S;
+            }
+        }
+    }
+
+    private static final int BLOCK = 512;
+
     private double mean;
 
     private double standardDeviation;
 
     private double z;
+
+    private Method method = Method.POLAR;
 }
@@ -21,6 +21,17 @@
 package org.javasim.streams;
 
 import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.function.DoubleConsumer;
+import java.util.stream.DoubleStream;
+import java.util.stream.StreamSupport;
+
+import org.javasim.Checkpoint;
+import org.javasim.Checkpointable;
+import org.javasim.SimulationContext;
+import org.javasim.SimulationException;
 
 /**
  * The class RandomStream is the base class from which the other distribution
@@ -30,10 +41,13 @@ import java.io.IOException;
  * generator as suggested by Maclaren and Marsaglia (See Knuth Vol2,
  * Seminumerical Algorithms). The multiplicative generator is courtesy I.
  * Mitrani 1992, private correspondence: Y[i+1] = Y[i] * 5^5 mod 2^26, period is
- * 2^24, initial seed must be odd
+ * 2^24, initial seed must be odd. The state of these generators is held in
+ * a UniformGenerator which belongs to the current SimulationContext; a
+ * context may instead be given a XoshiroGenerator, which is faster and
+ * whose streams are independent of each other.
  */
 
-public abstract class RandomStream
+public abstract class RandomStream implements Checkpointable, Cloneable
 {
     /**
      * @return In derived classes this method returns the value obtained by the stream.
@@ -42,6 +56,59 @@ public abstract class RandomStream
 
     public abstract double getNumber () throws IOException, ArithmeticException;
 
+    /**
+     * Put the next 'len' numbers from the stream into 'dst', starting at
+     * 'off'. The numbers are exactly those which 'len' calls of getNumber
+     * would have returned, but are produced in one loop.
+     * 
+     * @param dst the array to fill.
+     * @param off the first index to fill.
+     * @param len how many numbers to draw.
+     * @throws IndexOutOfBoundsException if the range is not within 'dst'.
+     */
+
+    public final void fill (double[] dst, int off, int len) throws IndexOutOfBoundsException, ArithmeticException
+    {
+        if ((off < 0) || (len < 0) || (len > dst.length - off))
+            throw new IndexOutOfBoundsException("Range " + off + "+" + len + " is outside an array of " + dst.length);
+
+        generate(dst, off, off + len);
+    }
+
+    /**
+     * @return an endless stream of the numbers from this stream. Like the
+     *         stream itself it is sequential, and drawing from it draws
+     *         from the generator.
+     */
+
+    public DoubleStream doubles ()
+    {
+        return doubles(Long.MAX_VALUE);
+    }
+
+    /**
+     * @return a stream of the next 'size' numbers from this stream, which
+     *         are drawn in blocks using fill.
+     */
+
+    public DoubleStream doubles (long size)
+    {
+        return StreamSupport.doubleStream(spliterator(size), false);
+    }
+
+    /**
+     * @return a spliterator over the next 'size' numbers from this stream.
+     *         It cannot be split, since the numbers must be drawn in order.
+     */
+
+    public Spliterator.OfDouble spliterator (long size)
+    {
+        if (size < 0)
+            throw new IllegalArgumentException("Negative size " + size);
+
+        return new Numbers(size);
+    }
+
     /**
      * @return a chi-square error measure on the uniform distribution function.
      */
@@ -65,102 +132,178 @@ public abstract class RandomStream
         return 1.0 - (rtN / r);
     }
 
+    /**
+     * Create a stream which draws upon the generator of the current
+     * SimulationContext.
+     */
+
     protected RandomStream()
     {
-      if (series == null)
-      {
-        series = new double[128];
+        generator = SimulationContext.current().getGenerator();
+    }
 
-        mSeed = 772531;
-        lSeed = 1878892440;
+    /**
+     * Create a stream which draws upon the generator of the current
+     * SimulationContext, first restarting that generator from the given
+     * seeds. As the generator is shared, this affects the other streams
+     * in the same context too.
+     */
 
-        for (int i = 0; i < RandomStream.sizeOfSeries
-                / RandomStream.sizeOfDouble; i++)
-            series[i] = mgen();
-      }
+    protected RandomStream(long MGSeed, long LCGSeed)
+    {
+        generator = SimulationContext.current().getGenerator();
+        generator.setSeeds(MGSeed, LCGSeed);
     }
 
-    protected RandomStream(long MGSeed, long LCGSeed)
+    /**
+     * @return a copy of this stream, which draws upon the copier's copy of
+     *         the generator.
+     */
+
+    public RandomStream copy (Checkpoint.Copier copier) throws SimulationException
     {
-        series = new double[128];
+        try
+        {
+            RandomStream s = (RandomStream) clone();
+
+            s.generator = copier.copy(generator);
+
+            return s;
+        }
+        catch (final CloneNotSupportedException ex)
+        {
+            throw new SimulationException(ex.toString());
+        }
+    }
 
-        // Clean up input parameters
+    /**
+     * Draw upon the given generator from now on, e.g., one which this
+     * stream's thread owns rather than the one its context shares.
+     * 
+     * @param generator the generator to use.
+     */
 
-        if ((MGSeed & 1) == 0)
-            MGSeed--;
-        if (MGSeed < 0)
-            MGSeed = -MGSeed;
-        if (LCGSeed < 0)
-            LCGSeed = -LCGSeed;
+    public void setGenerator (UniformGenerator generator)
+    {
+        this.generator = generator;
+    }
+
+    /**
+     * @return the generator this stream draws upon.
+     */
 
-        // Initialise state
+    public UniformGenerator getGenerator ()
+    {
+        return generator;
+    }
 
-        mSeed = MGSeed;
-        lSeed = LCGSeed;
+    /**
+     * Move to the 'StreamSelect'th stream of the generator: the legacy
+     * generator skips 1000 numbers for each stream, whereas one which can
+     * be split hands out an independent generator in constant time.
+     */
 
-        for (int i = 0; i < RandomStream.sizeOfSeries
-                / RandomStream.sizeOfDouble; i++)
-            series[i] = mgen();
+    protected final void select (int StreamSelect)
+    {
+        generator = generator.select(StreamSelect);
     }
 
     protected final double uniform ()
     {
-        // A linear congruential generator based on the algorithm from
-        // "Algorithms", R. Sedgewick, Addison-Wesley, Reading MA, 1983.
-        // pp. 36-38.
+        return generator.uniform();
+    }
+
+    /**
+     * Put the numbers for dst[from] to dst[to - 1] into 'dst'. Derived
+     * classes override this with a loop specialised to their distribution,
+     * usually by calling uniforms and then transforming the array in place;
+     * by default getNumber is called for each one.
+     */
+
+    protected void generate (double[] dst, int from, int to) throws ArithmeticException
+    {
+        try
+        {
+            for (int i = from; i < to; i++)
+                dst[i] = getNumber();
+        }
+        catch (final IOException ex)
+        {
+            throw new UncheckedIOException(ex);
+        }
+    }
+
+    /**
+     * Put the next uniform numbers into dst[from] to dst[to - 1].
+     */
+
+    protected final void uniforms (double[] dst, int from, int to)
+    {
+        generator.fill(dst, from, to);
+    }
 
-        long m = 100000000;
-        long b = 31415821;
-        long m1 = 10000;
+    /*
+     * Hands out numbers one at a time, or a block at a time when the rest
+     * are wanted, but never draws more than 'remaining'.
+     */
 
-        // Do the multiplication in pieces to avoid overflow
+    private final class Numbers extends Spliterators.AbstractDoubleSpliterator
+    {
+        Numbers (long size)
+        {
+            super(size, Spliterator.ORDERED | Spliterator.NONNULL | (size == Long.MAX_VALUE ? 0 : Spliterator.SIZED));
 
-        long p0 = lSeed % m1, p1 = lSeed / m1, q0 = b % m1, q1 = b / m1;
+            remaining = size;
+        }
 
-        lSeed = (((((p0 * q1 + p1 * q0) % m1) * m1 + p0 * q0) % m) + 1) % m;
+        public boolean tryAdvance (DoubleConsumer action)
+        {
+            if (remaining == 0)
+                return false;
 
-        // The results of the LC generator are shuffled with
-        // the multiplicative generator as suggested by
-        // Maclaren and Marsaglia (See Knuth Vol2, Seminumerical Algorithms)
+            if (remaining != Long.MAX_VALUE)
+                remaining--;
 
-        long choose = lSeed
-                % (RandomStream.sizeOfSeries / RandomStream.sizeOfDouble);
+            generate(one, 0, 1);
+            action.accept(one[0]);
 
-        double result = series[(int) choose];
-        series[(int) choose] = mgen();
+            return true;
+        }
 
-        return result;
-    }
+        public void forEachRemaining (DoubleConsumer action)
+        {
+            double[] block = new double[(int) Math.min(remaining, RandomStream.BLOCK)];
 
-    private double mgen ()
-    {
-        // A multiplicative generator, courtesy I. Mitrani 1992,
-        // private correspondence
-        // Y[i+1] = Y[i] * 5^5 mod 2^26
-        // period is 2^24, initial seed must be odd
+            while (remaining > 0)
+            {
+                int n = (int) Math.min(remaining, block.length);
 
-        long two2the26th = 67108864; // 2**26
+                generate(block, 0, n);
 
-        mSeed = (mSeed * 25) % two2the26th;
-        mSeed = (mSeed * 25) % two2the26th;
-        mSeed = (mSeed * 5) % two2the26th;
+                if (remaining != Long.MAX_VALUE)
+                    remaining -= n;
 
-        return (double) mSeed / (double) two2the26th;
-    }
+                for (int i = 0; i < n; i++)
+                    action.accept(block[i]);
+            }
+        }
 
-    private static long mSeed = 0;
+        public Spliterator.OfDouble trySplit ()
+        {
+            return null;
+        }
 
-    private static long lSeed = 0;
+        public long estimateSize ()
+        {
+            return remaining;
+        }
 
-    private static double[] series = null;
+        private long remaining;
 
-    /*
-     * We do this so that we can have the same results when running on most Unix
-     * boxes with C++. It doesn't make any difference to the randomness of a
-     * distribution.
-     */
+        private final double[] one = new double[1];
+    }
 
-    static private final long sizeOfSeries = 1024;
+    private static final int BLOCK = 1024;
 
-    static private final long sizeOfDouble = 8;
+    private UniformGenerator generator;
 }
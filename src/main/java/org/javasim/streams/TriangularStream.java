@@ -50,8 +50,7 @@ public class TriangularStream extends RandomStream {
     this.b = b;
     this.c = c;
 
-    for (int i = 0; i < StreamSelect * 1000; i++)
-      uniform();
+    select(StreamSelect);
   }
 
   /**
@@ -66,8 +65,7 @@ public class TriangularStream extends RandomStream {
     this.b = b;
     this.c = c;
 
-    for (int i = 0; i < StreamSelect * 1000; i++)
-      uniform();
+    select(StreamSelect);
   }
 
   /**
@@ -86,6 +84,21 @@ public class TriangularStream extends RandomStream {
 
   }
 
+  /**
+   * Fill with uniform numbers and transform them in place.
+   */
+
+  protected void generate(double[] dst, int from, int to) {
+    uniforms(dst, from, to);
+
+    double F = (c - a) / (b - a);
+
+    for (int i = from; i < to; i++) {
+      double rand = dst[i];
+      dst[i] = (rand < F) ? a + Math.sqrt(rand * (b - a) * (c - a)) : b - Math.sqrt((1 - rand) * (b - a) * (b - c));
+    }
+  }
+
   private double a;
   private double b;
   private double c;
@@ -0,0 +1,329 @@
+/*
+ * Copyright 1990-2008, Mark Little, University of Newcastle upon Tyne
+ * and others contributors as indicated 
+ * by the @authors tag. All rights reserved. 
+ * See the copyright.txt in the distribution for a
+ * full listing of individual contributors. 
+ * This copyrighted material is made available to anyone wishing to use,
+ * modify, copy, or redistribute it subject to the terms and conditions
+ * of the GNU Lesser General Public License, v. 2.1.
+ * This program is distributed in the hope that it will be useful, but WITHOUT A 
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR A 
+ * PARTICULAR PURPOSE.  See the GNU Lesser General Public License for more details.
+ * You should have received a copy of the GNU Lesser General Public License,
+ * v.2.1 along with this distribution; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, 
+ * MA  02110-1301, USA.
+ * 
+ * (C) 1990-2008,
+ */
+
+
+package org.javasim.streams;
+
+import org.javasim.Checkpoint;
+import org.javasim.Checkpointable;
+
+/**
+ * The state behind the uniform numbers from which every RandomStream
+ * builds its distribution: a linear congruential generator based on the
+ * algorithm from "Algorithms", R. Sedgewick, Addison-Wesley, Reading MA,
+ * 1983 pp. 36-38, shuffled with a multiplicative generator as suggested by
+ * Maclaren and Marsaglia (See Knuth Vol2, Seminumerical Algorithms).
+ * 
+ * All of the streams created within a SimulationContext share its
+ * generator, so a simulation behaves exactly as it did when this state was
+ * global, but independent contexts do not disturb each other. The
+ * generator can be split into substreams which start far apart in both
+ * underlying sequences, e.g., one for each replication of a model. Like
+ * the rest of a context, a generator should only be used by one thread at
+ * a time.
+ */
+
+public class UniformGenerator implements Checkpointable
+{
+    /**
+     * Create a generator with the default seeds.
+     */
+
+    public UniformGenerator()
+    {
+        this(UniformGenerator.DEFAULT_MGSEED, UniformGenerator.DEFAULT_LCGSEED);
+    }
+
+    /**
+     * Create a generator with the given seeds.
+     * 
+     * @param MGSeed the seed for the multiplicative generator, which must be odd.
+     * @param LCGSeed the seed for the linear congruential generator.
+     */
+
+    public UniformGenerator(long MGSeed, long LCGSeed)
+    {
+        series = new double[UniformGenerator.sizeOfSeries / UniformGenerator.sizeOfDouble];
+
+        setSeeds(MGSeed, LCGSeed);
+    }
+
+    /**
+     * Create a generator in the same state as another one.
+     * 
+     * @param other the generator to copy.
+     */
+
+    public UniformGenerator(UniformGenerator other)
+    {
+        mSeed = other.mSeed;
+        lSeed = other.lSeed;
+        series = other.series.clone();
+    }
+
+    /**
+     * For subclasses which keep generator state of their own, and so have
+     * no use for the shuffle table.
+     * 
+     * @param shuffled whether the table should be created, in which case the
+     *        default seeds are used.
+     */
+
+    protected UniformGenerator(boolean shuffled)
+    {
+        series = new double[shuffled ? UniformGenerator.sizeOfSeries / UniformGenerator.sizeOfDouble : 0];
+
+        if (shuffled)
+            setSeeds(UniformGenerator.DEFAULT_MGSEED, UniformGenerator.DEFAULT_LCGSEED);
+    }
+
+    /**
+     * Restart the generator from the given seeds.
+     * 
+     * @param MGSeed the seed for the multiplicative generator, which must be odd.
+     * @param LCGSeed the seed for the linear congruential generator.
+     */
+
+    public void setSeeds (long MGSeed, long LCGSeed)
+    {
+        // Clean up input parameters
+
+        if ((MGSeed & 1) == 0)
+            MGSeed--;
+        if (MGSeed < 0)
+            MGSeed = -MGSeed;
+        if (LCGSeed < 0)
+            LCGSeed = -LCGSeed;
+
+        mSeed = MGSeed;
+        lSeed = LCGSeed;
+
+        for (int i = 0; i < series.length; i++)
+            series[i] = mgen();
+    }
+
+    /**
+     * Create the 'index'th of 'count' substreams of this generator. Each
+     * substream starts from this generator's current state moved on by
+     * index/count of the period of each underlying generator, so the
+     * substreams do not overlap until one of them has drawn more than
+     * 1/count of that period.
+     * 
+     * @param index which substream, from 0 to count-1.
+     * @param count the number of substreams.
+     * @return the new generator.
+     * @throws IllegalArgumentException if the index is out of range.
+     */
+
+    public UniformGenerator substream (int index, int count) throws IllegalArgumentException
+    {
+        if ((count <= 0) || (index < 0) || (index >= count))
+            throw new IllegalArgumentException("Substream " + index + " of " + count + " is invalid.");
+
+        long lSteps = (UniformGenerator.LCG_PERIOD / count) * index;
+        long mSteps = (UniformGenerator.MG_PERIOD / count) * index;
+
+        return new UniformGenerator(jumpMG(mSeed, mSteps), jumpLCG(lSeed, lSteps));
+    }
+
+    /**
+     * Choose the stream which a RandomStream created with 'StreamSelect'
+     * should draw upon. The shuffle table means that this generator cannot
+     * be jumped ahead, so, as it always has been, it is moved on by 1000
+     * numbers for each stream and shared.
+     * 
+     * @param index the stream, from 0.
+     * @return the generator for the stream.
+     */
+
+    public UniformGenerator select (int index)
+    {
+        for (int i = 0; i < index * 1000; i++)
+            uniform();
+
+        return this;
+    }
+
+    /**
+     * @return a generator in the same state as this one.
+     */
+
+    public UniformGenerator copy ()
+    {
+        return new UniformGenerator(this);
+    }
+
+    /**
+     * @return a generator in the same state as this one.
+     */
+
+    public UniformGenerator copy (Checkpoint.Copier copier)
+    {
+        return copy();
+    }
+
+    /**
+     * @return the next number, uniformly distributed on [0, 1).
+     */
+
+    public double uniform ()
+    {
+        // A linear congruential generator based on the algorithm from
+        // "Algorithms", R. Sedgewick, Addison-Wesley, Reading MA, 1983.
+        // pp. 36-38.
+
+        long m = UniformGenerator.LCG_PERIOD;
+        long b = UniformGenerator.LCG_MULTIPLIER;
+        long m1 = 10000;
+
+        // Do the multiplication in pieces to avoid overflow
+
+        long p0 = lSeed % m1, p1 = lSeed / m1, q0 = b % m1, q1 = b / m1;
+
+        lSeed = (((((p0 * q1 + p1 * q0) % m1) * m1 + p0 * q0) % m) + 1) % m;
+
+        // The results of the LC generator are shuffled with
+        // the multiplicative generator as suggested by
+        // Maclaren and Marsaglia (See Knuth Vol2, Seminumerical Algorithms)
+
+        int choose = (int) (lSeed % series.length);
+
+        double result = series[choose];
+        series[choose] = mgen();
+
+        return result;
+    }
+
+    /**
+     * @return the number of random bits in each number from uniform. Here
+     *         that is 24, as the multiplicative generator gives multiples
+     *         of 2^-26 whose lowest two bits never change.
+     */
+
+    public int bits ()
+    {
+        return 24;
+    }
+
+    /**
+     * Put the next uniform numbers into dst[from] to dst[to - 1], exactly
+     * as that many calls of uniform would.
+     */
+
+    public void fill (double[] dst, int from, int to)
+    {
+        for (int i = from; i < to; i++)
+            dst[i] = uniform();
+    }
+
+    private double mgen ()
+    {
+        // A multiplicative generator, courtesy I. Mitrani 1992,
+        // private correspondence
+        // Y[i+1] = Y[i] * 5^5 mod 2^26
+        // period is 2^24, initial seed must be odd
+
+        long two2the26th = UniformGenerator.MG_MODULUS;
+
+        mSeed = (mSeed * 25) % two2the26th;
+        mSeed = (mSeed * 25) % two2the26th;
+        mSeed = (mSeed * 5) % two2the26th;
+
+        return (double) mSeed / (double) two2the26th;
+    }
+
+    /*
+     * Move the LCG x' = bx + 1 (mod m) on by the given number of steps,
+     * by repeated squaring of the affine map.
+     */
+
+    private static long jumpLCG (long seed, long steps)
+    {
+        long m = UniformGenerator.LCG_PERIOD;
+        long mul = UniformGenerator.LCG_MULTIPLIER, add = 1;
+        long accMul = 1, accAdd = 0;
+
+        seed %= m;
+
+        while (steps > 0)
+        {
+            if ((steps & 1) != 0)
+            {
+                accMul = (accMul * mul) % m;
+                accAdd = (accAdd * mul + add) % m;
+            }
+
+            add = ((mul + 1) * add) % m;
+            mul = (mul * mul) % m;
+            steps >>= 1;
+        }
+
+        return (accMul * seed + accAdd) % m;
+    }
+
+    /*
+     * Move the multiplicative generator on by the given number of steps.
+     */
+
+    private static long jumpMG (long seed, long steps)
+    {
+        long m = UniformGenerator.MG_MODULUS;
+        long mul = 3125, acc = 1;
+
+        while (steps > 0)
+        {
+            if ((steps & 1) != 0)
+                acc = (acc * mul) % m;
+
+            mul = (mul * mul) % m;
+            steps >>= 1;
+        }
+
+        return (acc * seed) % m;
+    }
+
+    /*
+     * We do this so that we can have the same results when running on most Unix
+     * boxes with C++. It doesn't make any difference to the randomness of a
+     * distribution.
+     */
+
+    private static final int sizeOfSeries = 1024;
+
+    private static final int sizeOfDouble = 8;
+
+    private static final long DEFAULT_MGSEED = 772531;
+
+    private static final long DEFAULT_LCGSEED = 1878892440;
+
+    private static final long LCG_PERIOD = 100000000;
+
+    private static final long LCG_MULTIPLIER = 31415821;
+
+    private static final long MG_MODULUS = 67108864; // 2**26
+
+    private static final long MG_PERIOD = 16777216; // 2**24
+
+    private long mSeed;
+
+    private long lSeed;
+
+    private final double[] series;
+}
@@ -55,8 +55,7 @@ public class UniformStream extends RandomStream
         hi = h;
         range = hi - lo;
 
-        for (int i = 0; i < StreamSelect * 1000; i++)
-            uniform();
+        select(StreamSelect);
     }
 
     /**
@@ -74,8 +73,7 @@ public class UniformStream extends RandomStream
         hi = h;
         range = hi - lo;
 
-        for (int i = 0; i < StreamSelect * 1000; i++)
-            uniform();
+        select(StreamSelect);
     }
 
     /**
@@ -87,6 +85,20 @@ public class UniformStream extends RandomStream
         return lo + (range * uniform());
     }
 
+    /**
+     * Fill with uniform numbers and scale them in place.
+     */
+
+    protected void generate (double[] dst, int from, int to)
+    {
+        uniforms(dst, from, to);
+
+        double l = lo, r = range;
+
+        for (int i = from; i < to; i++)
+            dst[i] = l + (r * dst[i]);
+    }
+
     private double lo;
 
     private double hi;
@@ -0,0 +1,319 @@
+/*
+ * Copyright 1990-2008, Mark Little, University of Newcastle upon Tyne
+ * and others contributors as indicated 
+ * by the @authors tag. All rights reserved. 
+ * See the copyright.txt in the distribution for a
+ * full listing of individual contributors. 
+ * This copyrighted material is made available to anyone wishing to use,
+ * modify, copy, or redistribute it subject to the terms and conditions
+ * of the GNU Lesser General Public License, v. 2.1.
+ * This program is distributed in the hope that it will be useful, but WITHOUT A 
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR A 
+ * PARTICULAR PURPOSE.  See the GNU Lesser General Public License for more details.
+ * You should have received a copy of the GNU Lesser General Public License,
+ * v.2.1 along with this distribution; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, 
+ * MA  02110-1301, USA.
+ * 
+ * (C) 1990-2008,
+ */
+
+package org.javasim.streams;
+
+import org.javasim.Checkpoint;
+
+/**
+ * A UniformGenerator based on xoshiro256** (D. Blackman and S. Vigna,
+ * "Scrambled linear pseudorandom number generators", 2018), which has a
+ * period of 2^256 - 1 and only four longs of state.
+ * 
+ * Unlike the legacy generator a stream can be split off in constant time:
+ * select and substream seed a new generator by mixing this one's state
+ * with the index through SplitMix64, so each stream may own its generator
+ * and be used by its own thread. With a period this long the chance of
+ * two such generators overlapping is negligible; where non-overlapping
+ * sequences must be guaranteed, jump moves a generator on by 2^128.
+ * 
+ * Give a SimulationContext one of these with setGenerator to use it for
+ * the streams created there. The legacy UniformGenerator remains the
+ * default, so that existing results are reproduced exactly.
+ */
+
+public class XoshiroGenerator extends UniformGenerator
+{
+    /**
+     * Create a generator with the default seed.
+     */
+
+    public XoshiroGenerator()
+    {
+        this(XoshiroGenerator.DEFAULT_SEED);
+    }
+
+    /**
+     * Create a generator whose state is expanded from the given seed.
+     * 
+     * @param seed any value.
+     */
+
+    public XoshiroGenerator(long seed)
+    {
+        super(false);
+
+        setSeed(seed);
+    }
+
+    /**
+     * Create a generator in exactly the given state.
+     * 
+     * @throws IllegalArgumentException if the state is all zero.
+     */
+
+    public XoshiroGenerator(long s0, long s1, long s2, long s3) throws IllegalArgumentException
+    {
+        super(false);
+
+        if ((s0 | s1 | s2 | s3) == 0)
+            throw new IllegalArgumentException("The state of a xoshiro256** generator cannot be all zero.");
+
+        this.s0 = s0;
+        this.s1 = s1;
+        this.s2 = s2;
+        this.s3 = s3;
+    }
+
+    /**
+     * Create a generator in the same state as another one.
+     * 
+     * @param other the generator to copy.
+     */
+
+    public XoshiroGenerator(XoshiroGenerator other)
+    {
+        super(false);
+
+        s0 = other.s0;
+        s1 = other.s1;
+        s2 = other.s2;
+        s3 = other.s3;
+    }
+
+    /**
+     * @return a copy of the four words of state, from which the
+     *         generator can be recreated with the four argument constructor.
+     */
+
+    public long[] state ()
+    {
+        return new long[] { s0, s1, s2, s3 };
+    }
+
+    /**
+     * Restart the generator from the given seed.
+     * 
+     * @param seed any value.
+     */
+
+    public void setSeed (long seed)
+    {
+        long x = seed;
+
+        s0 = XoshiroGenerator.mix(x += XoshiroGenerator.GOLDEN_GAMMA);
+        s1 = XoshiroGenerator.mix(x += XoshiroGenerator.GOLDEN_GAMMA);
+        s2 = XoshiroGenerator.mix(x += XoshiroGenerator.GOLDEN_GAMMA);
+        s3 = XoshiroGenerator.mix(x + XoshiroGenerator.GOLDEN_GAMMA);
+    }
+
+    /**
+     * Restart the generator from a seed made of both of the legacy seeds,
+     * so that the seeded RandomStream constructors still work.
+     */
+
+    public void setSeeds (long MGSeed, long LCGSeed)
+    {
+        setSeed(XoshiroGenerator.mix(MGSeed) ^ LCGSeed);
+    }
+
+    /**
+     * @return an independent generator for the 'index'th of 'count'
+     *         substreams. This generator is not changed.
+     * @throws IllegalArgumentException if the index is out of range.
+     */
+
+    public UniformGenerator substream (int index, int count) throws IllegalArgumentException
+    {
+        if ((count <= 0) || (index < 0) || (index >= count))
+            throw new IllegalArgumentException("Substream " + index + " of " + count + " is invalid.");
+
+        long state = s0 ^ Long.rotateLeft(s1, 16) ^ Long.rotateLeft(s2, 32) ^ Long.rotateLeft(s3, 48);
+
+        return new XoshiroGenerator(XoshiroGenerator.split(state, index));
+    }
+
+    /**
+     * @return this generator for stream 0, otherwise a new one split off
+     *         from it in constant time. Splitting draws one number from
+     *         this generator, so streams created one after another differ
+     *         even when they select the same index.
+     */
+
+    public UniformGenerator select (int index)
+    {
+        if (index == 0)
+            return this;
+
+        return new XoshiroGenerator(XoshiroGenerator.split(nextLong(), index));
+    }
+
+    /**
+     * Move this generator on by 2^128 numbers, as though nextLong had been
+     * called that many times. Calling this repeatedly on copies of one
+     * generator gives up to 2^128 sequences which cannot overlap.
+     */
+
+    public void jump ()
+    {
+        long t0 = 0, t1 = 0, t2 = 0, t3 = 0;
+
+        for (long word : XoshiroGenerator.JUMP)
+        {
+            for (int b = 0; b < 64; b++)
+            {
+                if ((word & (1L << b)) != 0)
+                {
+                    t0 ^= s0;
+                    t1 ^= s1;
+                    t2 ^= s2;
+                    t3 ^= s3;
+                }
+
+                nextLong();
+            }
+        }
+
+        s0 = t0;
+        s1 = t1;
+        s2 = t2;
+        s3 = t3;
+    }
+
+    public UniformGenerator copy ()
+    {
+        return new XoshiroGenerator(this);
+    }
+
+    public UniformGenerator copy (Checkpoint.Copier copier)
+    {
+        return copy();
+    }
+
+    /**
+     * @return the next number, uniformly distributed on (0, 1) with 53
+     *         bits of precision. Zero is never returned, so that the
+     *         streams may safely take its logarithm.
+     */
+
+    public double uniform ()
+    {
+        return ((nextLong() >>> 11) + 0.5) * XoshiroGenerator.DOUBLE_UNIT;
+    }
+
+    /**
+     * @return 53, the number of random bits in each number from uniform.
+     */
+
+    public int bits ()
+    {
+        return 53;
+    }
+
+    /**
+     * Put the next uniform numbers into dst[from] to dst[to - 1], with the
+     * state held in locals for the length of the loop.
+     */
+
+    public void fill (double[] dst, int from, int to)
+    {
+        long x0 = s0, x1 = s1, x2 = s2, x3 = s3;
+
+        for (int i = from; i < to; i++)
+        {
+            long result = Long.rotateLeft(x1 * 5, 7) * 9;
+            long t = x1 << 17;
+
+            x2 ^= x0;
+            x3 ^= x1;
+            x1 ^= x2;
+            x0 ^= x3;
+            x2 ^= t;
+            x3 = Long.rotateLeft(x3, 45);
+
+            dst[i] = ((result >>> 11) + 0.5) * XoshiroGenerator.DOUBLE_UNIT;
+        }
+
+        s0 = x0;
+        s1 = x1;
+        s2 = x2;
+        s3 = x3;
+    }
+
+    /**
+     * @return the next 64 bits.
+     */
+
+    public long nextLong ()
+    {
+        long result = Long.rotateLeft(s1 * 5, 7) * 9;
+        long t = s1 << 17;
+
+        s2 ^= s0;
+        s3 ^= s1;
+        s1 ^= s2;
+        s0 ^= s3;
+        s2 ^= t;
+        s3 = Long.rotateLeft(s3, 45);
+
+        return result;
+    }
+
+    /*
+     * The seed of the 'index'th generator split off from 'state'. Both are
+     * mixed, rather than the index being added in steps of GOLDEN_GAMMA, so
+     * that the SplitMix64 sequences which setSeed expands the seeds of
+     * neighbouring indexes into are unrelated, not shifted copies of one
+     * another.
+     */
+
+    private static long split (long state, int index)
+    {
+        return XoshiroGenerator.mix(state ^ XoshiroGenerator.mix(index + 1L));
+    }
+
+    /*
+     * The SplitMix64 finaliser, which is used to expand seeds.
+     */
+
+    private static long mix (long z)
+    {
+        z = (z ^ (z >>> 30)) * 0xbf58476d1ce4e5b9L;
+        z = (z ^ (z >>> 27)) * 0x94d049bb133111ebL;
+
+        return z ^ (z >>> 31);
+    }
+
+    private static final long DEFAULT_SEED = 772531;
+
+    private static final long GOLDEN_GAMMA = 0x9e3779b97f4a7c15L;
+
+    private static final double DOUBLE_UNIT = 0x1.0p-53;
+
+    private static final long[] JUMP = { 0x180ec6d33cfd0abaL, 0xd5a61266f0c9392cL, 0xa9582618e03fc9aaL, 0x39abdc4529b1661cL };
+
+    private long s0;
+
+    private long s1;
+
+    private long s2;
+
+    private long s3;
+}
@@ -0,0 +1,226 @@
+/*
+ * Copyright 1990-2008, Mark Little, University of Newcastle upon Tyne
+ * and others contributors as indicated 
+ * by the @authors tag. All rights reserved. 
+ * See the copyright.txt in the distribution for a
+ * full listing of individual contributors. 
+ * This copyrighted material is made available to anyone wishing to use,
+ * modify, copy, or redistribute it subject to the terms and conditions
+ * of the GNU Lesser General Public License, v. 2.1.
+ * This program is distributed in the hope that it will be useful, but WITHOUT A 
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR A 
+ * PARTICULAR PURPOSE.  See the GNU Lesser General Public License for more details.
+ * You should have received a copy of the GNU Lesser General Public License,
+ * v.2.1 along with this distribution; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, 
+ * MA  02110-1301, USA.
+ * 
+ * (C) 1990-2008,
+ */
+
+package org.javasim.streams;
+
+/**
+ * Ziggurat sampling of the standard normal and exponential distributions,
+ * after G. Marsaglia and W. W. Tsang, "The Ziggurat Method for Generating
+ * Random Variables", Journal of Statistical Software 5(8), 2000, in the
+ * form given by J. A. Doornik (2005) which needs only uniform doubles.
+ * 
+ * The density is covered by layers of equal area. Almost every number
+ * costs a uniform number to choose a layer and give the position across
+ * it, and a comparison; only near the edges of the layers, or in the tail,
+ * is an exponential evaluated. With the 53 bits of a XoshiroGenerator the
+ * leading bits of a single uniform number choose the layer and the rest,
+ * 45 or more, give the position. A generator with fewer bits, such as the
+ * legacy one with 24, would leave the position on a coarse lattice, so
+ * the layer and the position are then drawn separately. The tables are
+ * computed once and shared by every stream.
+ */
+
+final class Ziggurat
+{
+    /**
+     * @return a number from the standard normal distribution.
+     */
+
+    static double normal (RandomStream s)
+    {
+        boolean split = (s.getGenerator().bits() >= Ziggurat.SPLIT_BITS);
+
+        for (;;)
+        {
+            int i;
+            double u;
+
+            if (split)
+            {
+                double j = s.uniform() * Ziggurat.NORMAL_LAYERS;
+
+                i = (int) j;
+                u = 2.0 * (j - i) - 1.0;
+            }
+            else
+            {
+                i = (int) (s.uniform() * Ziggurat.NORMAL_LAYERS);
+                u = 2.0 * s.uniform() - 1.0;
+            }
+
+            if (Math.abs(u) < Ziggurat.NORMAL_RATIO[i])
+                return u * Ziggurat.NORMAL_X[i];
+
+            if (i == 0)
+                return normalTail(s, u < 0.0);
+
+            double x = u * Ziggurat.NORMAL_X[i];
+            double f0 = Ziggurat.NORMAL_F[i];
+            double f1 = Ziggurat.NORMAL_F[i + 1];
+
+            if (f0 + s.uniform() * (f1 - f0) < Math.exp(-0.5 * x * x))
+                return x;
+        }
+    }
+
+    /**
+     * @return a number from the exponential distribution with mean 1.
+     */
+
+    static double exponential (RandomStream s)
+    {
+        boolean split = (s.getGenerator().bits() >= Ziggurat.SPLIT_BITS);
+
+        for (;;)
+        {
+            int i;
+            double u;
+
+            if (split)
+            {
+                double j = s.uniform() * Ziggurat.EXPONENTIAL_LAYERS;
+
+                i = (int) j;
+                u = j - i;
+            }
+            else
+            {
+                i = (int) (s.uniform() * Ziggurat.EXPONENTIAL_LAYERS);
+                u = s.uniform();
+            }
+
+            if (u < Ziggurat.EXPONENTIAL_RATIO[i])
+                return u * Ziggurat.EXPONENTIAL_X[i];
+
+            if (i == 0)
+                return Ziggurat.EXPONENTIAL_R - Math.log(s.uniform());
+
+            double x = u * Ziggurat.EXPONENTIAL_X[i];
+            double f0 = Ziggurat.EXPONENTIAL_F[i];
+            double f1 = Ziggurat.EXPONENTIAL_F[i + 1];
+
+            if (f0 + s.uniform() * (f1 - f0) < Math.exp(-x))
+                return x;
+        }
+    }
+
+    /*
+     * Marsaglia's method for the normal tail beyond NORMAL_R.
+     */
+
+    private static double normalTail (RandomStream s, boolean negative)
+    {
+        double x, y;
+
+        do
+        {
+            x = Math.log(s.uniform()) / Ziggurat.NORMAL_R;
+            y = Math.log(s.uniform());
+        }
+        while (-2.0 * y < x * x);
+
+        return negative ? x - Ziggurat.NORMAL_R : Ziggurat.NORMAL_R - x;
+    }
+
+    private Ziggurat()
+    {
+    }
+
+    /*
+     * The fewest bits from the generator for one uniform number to give both
+     * the layer and the position.
+     */
+
+    private static final int SPLIT_BITS = 53;
+
+    private static final int NORMAL_LAYERS = 128;
+
+    private static final double NORMAL_R = 3.442619855899;
+
+    private static final double NORMAL_AREA = 9.91256303526217e-3;
+
+    private static final int EXPONENTIAL_LAYERS = 256;
+
+    private static final double EXPONENTIAL_R = 7.697117470131487;
+
+    private static final double EXPONENTIAL_AREA = 3.949659822581572e-3;
+
+    /*
+     * X[i] is the right hand edge of layer i, counting down from the base,
+     * whose width is that of a rectangle with the area of the base layer
+     * and tail together; F[i] is the density at X[i], and RATIO[i] is
+     * X[i + 1] / X[i], below which a point lies under the layer above.
+     */
+
+    private static final double[] NORMAL_X = new double[NORMAL_LAYERS + 1];
+
+    private static final double[] NORMAL_F = new double[NORMAL_LAYERS + 1];
+
+    private static final double[] NORMAL_RATIO = new double[NORMAL_LAYERS];
+
+    private static final double[] EXPONENTIAL_X = new double[EXPONENTIAL_LAYERS + 1];
+
+    private static final double[] EXPONENTIAL_F = new double[EXPONENTIAL_LAYERS + 1];
+
+    private static final double[] EXPONENTIAL_RATIO = new double[EXPONENTIAL_LAYERS];
+
+    static
+    {
+        double f = Math.exp(-0.5 * NORMAL_R * NORMAL_R);
+
+        NORMAL_X[0] = NORMAL_AREA / f;
+        NORMAL_X[1] = NORMAL_R;
+        NORMAL_F[0] = 0.0;
+        NORMAL_F[1] = f;
+
+        for (int i = 2; i < NORMAL_LAYERS; i++)
+        {
+            NORMAL_X[i] = Math.sqrt(-2.0 * Math.log(NORMAL_AREA / NORMAL_X[i - 1] + f));
+            f = Math.exp(-0.5 * NORMAL_X[i] * NORMAL_X[i]);
+            NORMAL_F[i] = f;
+        }
+
+        NORMAL_X[NORMAL_LAYERS] = 0.0;
+        NORMAL_F[NORMAL_LAYERS] = 1.0;
+
+        for (int i = 0; i < NORMAL_LAYERS; i++)
+            NORMAL_RATIO[i] = NORMAL_X[i + 1] / NORMAL_X[i];
+
+        f = Math.exp(-EXPONENTIAL_R);
+
+        EXPONENTIAL_X[0] = EXPONENTIAL_AREA / f;
+        EXPONENTIAL_X[1] = EXPONENTIAL_R;
+        EXPONENTIAL_F[0] = 0.0;
+        EXPONENTIAL_F[1] = f;
+
+        for (int i = 2; i < EXPONENTIAL_LAYERS; i++)
+        {
+            EXPONENTIAL_X[i] = -Math.log(EXPONENTIAL_AREA / EXPONENTIAL_X[i - 1] + f);
+            f = Math.exp(-EXPONENTIAL_X[i]);
+            EXPONENTIAL_F[i] = f;
+        }
+
+        EXPONENTIAL_X[EXPONENTIAL_LAYERS] = 0.0;
+        EXPONENTIAL_F[EXPONENTIAL_LAYERS] = 1.0;
+
+        for (int i = 0; i < EXPONENTIAL_LAYERS; i++)
+            EXPONENTIAL_RATIO[i] = EXPONENTIAL_X[i + 1] / EXPONENTIAL_X[i];
+    }
+}
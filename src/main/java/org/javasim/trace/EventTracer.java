@@ -0,0 +1,398 @@
+/*
+ * Copyright 1990-2008, Mark Little, University of Newcastle upon Tyne
+ * and others contributors as indicated 
+ * by the @authors tag. All rights reserved. 
+ * See the copyright.txt in the distribution for a
+ * full listing of individual contributors. 
+ * This copyrighted material is made available to anyone wishing to use,
+ * modify, copy, or redistribute it subject to the terms and conditions
+ * of the GNU Lesser General Public License, v. 2.1.
+ * This program is distributed in the hope that it will be useful, but WITHOUT A 
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR A 
+ * PARTICULAR PURPOSE.  See the GNU Lesser General Public License for more details.
+ * You should have received a copy of the GNU Lesser General Public License,
+ * v.2.1 along with this distribution; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, 
+ * MA  02110-1301, USA.
+ * 
+ * (C) 1990-2008,
+ */
+
+package org.javasim.trace;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Writes a binary trace of what the scheduler does to a rolling set of
+ * memory-mapped files. Each record has a fixed size and is written straight
+ * into the mapped file, so tracing an event allocates nothing and makes no
+ * system call; the operating system writes the pages out in its own time.
+ * <p>
+ * The trace for base path <code>dir/run</code> is held in the segment files
+ * <code>dir/run.0.trace</code>, <code>dir/run.1.trace</code> and so on. When
+ * a segment is full the next one is started, and only the most recent
+ * segments are kept, so a long run holds on to a bounded amount of disk.
+ * Any segments left from an earlier trace with the same base are removed
+ * when the tracer is created. The trace can be read back with the
+ * TraceReader.
+ * <p>
+ * A tracer is given to a SimulationContext, and is only written to by the
+ * active process of that context, so it does no locking and should not be
+ * shared between contexts which run at the same time.
+ */
+
+public final class EventTracer implements Closeable
+{
+    /**
+     * What a record describes.
+     */
+
+    public enum Kind
+    {
+        /**
+         * A process was put on the scheduler queue; the record's time is
+         * when it will wake up.
+         */
+        ACTIVATE,
+        /**
+         * A process was given control.
+         */
+        RESUME,
+        /**
+         * A process was taken off the scheduler queue.
+         */
+        CANCEL,
+        /**
+         * A process terminated.
+         */
+        TERMINATE,
+        /**
+         * An event was scheduled; the record's time is when it will run.
+         */
+        SCHEDULE,
+        /**
+         * An event was run.
+         */
+        FIRE;
+
+        /**
+         * @return the value written to the trace for this kind, which is never zero.
+         */
+
+        public int code ()
+        {
+            return ordinal() + 1;
+        }
+
+        /**
+         * @param code a value read from the trace.
+         * @return the kind, or <code>null</code> if the code is not valid.
+         */
+
+        public static Kind fromCode (int code)
+        {
+            return ((code > 0) && (code <= KINDS.length)) ? KINDS[code - 1] : null;
+        }
+
+        private static final Kind[] KINDS = values();
+    }
+
+    /**
+     * Trace to segments of 2M records (64 MB) each, keeping the last four.
+     * 
+     * @param base the path from which the segment file names are made.
+     * @throws IOException thrown if the first segment cannot be created.
+     */
+
+    public EventTracer (Path base) throws IOException
+    {
+        this(base, DEFAULT_RECORDS_PER_SEGMENT, DEFAULT_SEGMENTS_KEPT);
+    }
+
+    /**
+     * Trace to segments of the given size.
+     * 
+     * @param base the path from which the segment file names are made.
+     * @param recordsPerSegment the number of records in each segment.
+     * @param segmentsKept the number of the most recent segments to keep.
+     * @throws IOException thrown if the first segment cannot be created.
+     */
+
+    public EventTracer (Path base, int recordsPerSegment, int segmentsKept)
+            throws IOException
+    {
+        if ((recordsPerSegment <= 0)
+                || (recordsPerSegment > (Integer.MAX_VALUE - HEADER_SIZE) / RECORD_SIZE))
+            throw new IllegalArgumentException("Invalid segment size " + recordsPerSegment);
+
+        if (segmentsKept <= 0)
+            throw new IllegalArgumentException("Invalid number of segments " + segmentsKept);
+
+        this.base = base.toAbsolutePath();
+        this.recordsPerSegment = recordsPerSegment;
+        this.segmentsKept = segmentsKept;
+
+        try (DirectoryStream<Path> stale = Files.newDirectoryStream(this.base.getParent(),
+                this.base.getFileName() + ".*" + SUFFIX))
+        {
+            for (Path p : stale)
+            {
+                if (segmentIndex(this.base, p) >= 0)
+                    Files.delete(p);
+            }
+        }
+
+        open(0);
+    }
+
+    /**
+     * Append a record to the trace. This does nothing once the tracer has
+     * been closed, or if it could not start a new segment.
+     * 
+     * @param now the simulation time the record applies to.
+     * @param at the time at which the activation or event is due, which is
+     *            the same as now for a resume or fire.
+     * @param process the id of the process, or of the event.
+     * @param kind what happened.
+     */
+
+    public void record (double now, double at, long process, Kind kind)
+    {
+        if (position == limit)
+        {
+            if (buffer == null)
+                return;
+
+            roll();
+
+            if (buffer == null)
+                return;
+        }
+
+        MappedByteBuffer b = buffer;
+        int p = position;
+
+        b.putDouble(p, now);
+        b.putDouble(p + 8, at);
+        b.putLong(p + 16, process);
+        b.putInt(p + 24, kind.code());
+        b.putInt(p + 28, (int) count);
+
+        position = p + RECORD_SIZE;
+        count++;
+    }
+
+    /**
+     * @return the number of records written since the tracer was created,
+     *         including any in segments which have since been removed.
+     */
+
+    public long count ()
+    {
+        return count;
+    }
+
+    /**
+     * @return the path from which the segment file names are made.
+     */
+
+    public Path base ()
+    {
+        return base;
+    }
+
+    /**
+     * Make sure that everything traced so far is on disk.
+     */
+
+    public void flush ()
+    {
+        if (buffer != null)
+            buffer.force();
+    }
+
+    /**
+     * Flush the trace and stop tracing. Any further records are dropped.
+     */
+
+    public void close ()
+    {
+        flush();
+
+        buffer = null;
+        position = limit = 0;
+    }
+
+    /**
+     * @param base the path from which the segment file names are made.
+     * @param index the number of the segment.
+     * @return the path of the segment file.
+     */
+
+    public static Path segment (Path base, long index)
+    {
+        return base.resolveSibling(base.getFileName() + "." + index + SUFFIX);
+    }
+
+    /*
+     * The index of the given segment file of the trace, or -1 if it is not
+     * one.
+     */
+
+    static long segmentIndex (Path base, Path file)
+    {
+        String prefix = base.getFileName() + ".";
+        String name = file.getFileName().toString();
+
+        if (!name.startsWith(prefix) || !name.endsWith(SUFFIX))
+            return -1L;
+
+        String index = name.substring(prefix.length(), name.length() - SUFFIX.length());
+
+        if (index.isEmpty())
+            return -1L;
+
+        for (int i = 0; i < index.length(); i++)
+        {
+            if (!Character.isDigit(index.charAt(i)))
+                return -1L;
+        }
+
+        try
+        {
+            return Long.parseLong(index);
+        }
+        catch (NumberFormatException e)
+        {
+            return -1L;
+        }
+    }
+
+    /*
+     * Start the next segment, first forcing out the one just filled, and
+     * remove the segments which are no longer kept. A segment which cannot
+     * be removed yet, e.g., because some platforms refuse to delete a file
+     * which is still mapped, is tried again at the next roll; only failing
+     * to start a segment stops the trace.
+     */
+
+    private void roll ()
+    {
+        buffer.force();
+
+        try
+        {
+            open(segment + 1);
+        }
+        catch (IOException e)
+        {
+            System.err.println("EventTracer: cannot start segment " + (segment + 1) + ", tracing stopped: " + e.getMessage());
+
+            close();
+
+            return;
+        }
+
+        for (; removed <= segment - segmentsKept; removed++)
+        {
+            try
+            {
+                Files.deleteIfExists(segment(base, removed));
+            }
+            catch (IOException e)
+            {
+                System.err.println("EventTracer: cannot remove segment " + removed + " yet: " + e.getMessage());
+
+                break;
+            }
+        }
+    }
+
+    /*
+     * Map the next segment, which is zero filled, so a reader knows where
+     * the records stop by finding a zero kind.
+     */
+
+    private void open (long index) throws IOException
+    {
+        int size = HEADER_SIZE + recordsPerSegment * RECORD_SIZE;
+
+        buffer = null;
+        position = limit = 0;
+
+        try (FileChannel channel = FileChannel.open(segment(base, index),
+                StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING,
+                StandardOpenOption.READ, StandardOpenOption.WRITE))
+        {
+            MappedByteBuffer b = channel.map(FileChannel.MapMode.READ_WRITE, 0, size);
+
+            b.order(ByteOrder.BIG_ENDIAN);
+            b.putLong(0, MAGIC);
+            b.putInt(8, VERSION);
+            b.putInt(12, RECORD_SIZE);
+            b.putLong(16, index);
+            b.putInt(24, recordsPerSegment);
+
+            buffer = b;
+            segment = index;
+            position = HEADER_SIZE;
+            limit = size;
+        }
+    }
+
+    /**
+     * The magic number at the start of each segment, "JSIMTRC1".
+     */
+
+    public static final long MAGIC = 0x4a53494d54524331L;
+
+    /**
+     * The version of the record format.
+     */
+
+    public static final int VERSION = 1;
+
+    /**
+     * The size of the header at the start of each segment, in bytes.
+     */
+
+    public static final int HEADER_SIZE = 32;
+
+    /**
+     * The size of each record, in bytes.
+     */
+
+    public static final int RECORD_SIZE = 32;
+
+    static final String SUFFIX = ".trace";
+
+    private static final int DEFAULT_RECORDS_PER_SEGMENT = 2 * 1024 * 1024;
+
+    private static final int DEFAULT_SEGMENTS_KEPT = 4;
+
+    private final Path base;
+
+    private final int recordsPerSegment;
+
+    private final int segmentsKept;
+
+    private MappedByteBuffer buffer;
+
+    private long segment;
+
+    private long removed = 0L;
+
+    private int position;
+
+    private int limit;
+
+    private long count = 0L;
+}
@@ -0,0 +1,203 @@
+/*
+ * Copyright 1990-2008, Mark Little, University of Newcastle upon Tyne
+ * and others contributors as indicated 
+ * by the @authors tag. All rights reserved. 
+ * See the copyright.txt in the distribution for a
+ * full listing of individual contributors. 
+ * This copyrighted material is made available to anyone wishing to use,
+ * modify, copy, or redistribute it subject to the terms and conditions
+ * of the GNU Lesser General Public License, v. 2.1.
+ * This program is distributed in the hope that it will be useful, but WITHOUT A 
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR A 
+ * PARTICULAR PURPOSE.  See the GNU Lesser General Public License for more details.
+ * You should have received a copy of the GNU Lesser General Public License,
+ * v.2.1 along with this distribution; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, 
+ * MA  02110-1301, USA.
+ * 
+ * (C) 1990-2008,
+ */
+
+package org.javasim.trace;
+
+import java.io.IOException;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
+
+/**
+ * Reads back the segments of a trace written by an EventTracer, oldest
+ * first. It may also be run from the command line to print a trace:
+ * 
+ * <pre>
+ * java org.javasim.trace.TraceReader base [-process id] [-kind KIND] [-from time] [-to time]
+ * </pre>
+ */
+
+public class TraceReader
+{
+    /**
+     * @param base the path the trace was written with.
+     */
+
+    public TraceReader (Path base)
+    {
+        this.base = base.toAbsolutePath();
+    }
+
+    /**
+     * @return the segment files of the trace, oldest first.
+     * @throws IOException thrown if the directory cannot be read.
+     */
+
+    public List<Path> segments () throws IOException
+    {
+        List<Long> indices = new ArrayList<Long>();
+
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(base.getParent(),
+                base.getFileName() + ".*" + EventTracer.SUFFIX))
+        {
+            for (Path p : files)
+            {
+                long index = EventTracer.segmentIndex(base, p);
+
+                if (index >= 0)
+                    indices.add(index);
+            }
+        }
+
+        Collections.sort(indices);
+
+        List<Path> segments = new ArrayList<Path>(indices.size());
+
+        for (Long index : indices)
+            segments.add(EventTracer.segment(base, index));
+
+        return segments;
+    }
+
+    /**
+     * Pass every record of the trace to the action, in the order in which
+     * they were written.
+     * 
+     * @param action what to do with each record.
+     * @throws IOException thrown if the trace cannot be read or is not valid.
+     */
+
+    public void forEach (Consumer<TraceRecord> action) throws IOException
+    {
+        forEach(null, action);
+    }
+
+    /**
+     * Pass the records of the trace which satisfy the filter to the action,
+     * in the order in which they were written.
+     * 
+     * @param filter which records to pass, or <code>null</code> for all.
+     * @param action what to do with each record.
+     * @throws IOException thrown if the trace cannot be read or is not valid.
+     */
+
+    public void forEach (Predicate<TraceRecord> filter,
+            Consumer<TraceRecord> action) throws IOException
+    {
+        for (Path segment : segments())
+        {
+            MappedByteBuffer b;
+
+            try (FileChannel channel = FileChannel.open(segment, StandardOpenOption.READ))
+            {
+                b = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            }
+
+            b.order(ByteOrder.BIG_ENDIAN);
+
+            if ((b.limit() < EventTracer.HEADER_SIZE) || (b.getLong(0) != EventTracer.MAGIC))
+                throw new IOException(segment + " is not a trace.");
+
+            if ((b.getInt(8) != EventTracer.VERSION) || (b.getInt(12) != EventTracer.RECORD_SIZE))
+                throw new IOException(segment + " has an unknown trace format.");
+
+            for (int p = EventTracer.HEADER_SIZE; p + EventTracer.RECORD_SIZE <= b.limit(); p += EventTracer.RECORD_SIZE)
+            {
+                EventTracer.Kind kind = EventTracer.Kind.fromCode(b.getInt(p + 24));
+
+                if (kind == null)
+                    break;
+
+                TraceRecord r = new TraceRecord(b.getDouble(p), b.getDouble(p + 8),
+                        b.getLong(p + 16), kind, b.getInt(p + 28));
+
+                if ((filter == null) || filter.test(r))
+                    action.accept(r);
+            }
+        }
+    }
+
+    /**
+     * Read all of the records of the trace which satisfy the filter.
+     * 
+     * @param filter which records to return, or <code>null</code> for all.
+     * @return the records.
+     * @throws IOException thrown if the trace cannot be read or is not valid.
+     */
+
+    public List<TraceRecord> read (Predicate<TraceRecord> filter) throws IOException
+    {
+        final List<TraceRecord> records = new ArrayList<TraceRecord>();
+
+        forEach(filter, records::add);
+
+        return records;
+    }
+
+    public static void main (String[] args) throws IOException
+    {
+        if (args.length == 0)
+        {
+            System.err.println("Usage: TraceReader base [-process id] [-kind KIND] [-from time] [-to time]");
+            System.exit(1);
+        }
+
+        long process = -1L;
+        EventTracer.Kind kind = null;
+        double from = Double.NEGATIVE_INFINITY;
+        double to = Double.POSITIVE_INFINITY;
+
+        for (int i = 1; i < args.length - 1; i += 2)
+        {
+            if (args[i].equals("-process"))
+                process = Long.parseLong(args[i + 1]);
+            else if (args[i].equals("-kind"))
+                kind = EventTracer.Kind.valueOf(args[i + 1].toUpperCase());
+            else if (args[i].equals("-from"))
+                from = Double.parseDouble(args[i + 1]);
+            else if (args[i].equals("-to"))
+                to = Double.parseDouble(args[i + 1]);
+            else
+                System.err.println("Unknown option " + args[i]);
+        }
+
+        final long p = process;
+        final EventTracer.Kind k = kind;
+        final double f = from;
+        final double t = to;
+
+        new TraceReader(Paths.get(args[0])).forEach(
+                r -> ((p < 0) || (r.process() == p)) && ((k == null) || (r.kind() == k))
+                        && (r.now() >= f) && (r.now() <= t),
+                System.out::println);
+    }
+
+    private final Path base;
+}
@@ -0,0 +1,100 @@
+/*
+ * Copyright 1990-2008, Mark Little, University of Newcastle upon Tyne
+ * and others contributors as indicated 
+ * by the @authors tag. All rights reserved. 
+ * See the copyright.txt in the distribution for a
+ * full listing of individual contributors. 
+ * This copyrighted material is made available to anyone wishing to use,
+ * modify, copy, or redistribute it subject to the terms and conditions
+ * of the GNU Lesser General Public License, v. 2.1.
+ * This program is distributed in the hope that it will be useful, but WITHOUT A 
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR A 
+ * PARTICULAR PURPOSE.  See the GNU Lesser General Public License for more details.
+ * You should have received a copy of the GNU Lesser General Public License,
+ * v.2.1 along with this distribution; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, 
+ * MA  02110-1301, USA.
+ * 
+ * (C) 1990-2008,
+ */
+
+package org.javasim.trace;
+
+/**
+ * A record read back from a trace.
+ */
+
+public final class TraceRecord
+{
+    public TraceRecord (double now, double at, long process,
+            EventTracer.Kind kind, int sequence)
+    {
+        this.now = now;
+        this.at = at;
+        this.process = process;
+        this.kind = kind;
+        this.sequence = sequence;
+    }
+
+    /**
+     * @return the simulation time the record applies to.
+     */
+
+    public double now ()
+    {
+        return now;
+    }
+
+    /**
+     * @return the time at which the activation or event is due.
+     */
+
+    public double at ()
+    {
+        return at;
+    }
+
+    /**
+     * @return the id of the process, or of the event.
+     */
+
+    public long process ()
+    {
+        return process;
+    }
+
+    /**
+     * @return what happened.
+     */
+
+    public EventTracer.Kind kind ()
+    {
+        return kind;
+    }
+
+    /**
+     * @return the low 32 bits of the record's position in the trace, which
+     *         may be used to spot records lost from a rolled trace.
+     */
+
+    public int sequence ()
+    {
+        return sequence;
+    }
+
+    public String toString ()
+    {
+        return sequence + " " + now + " " + kind + " " + process
+                + ((at != now) ? " at " + at : "");
+    }
+
+    private final double now;
+
+    private final double at;
+
+    private final long process;
+
+    private final EventTracer.Kind kind;
+
+    private final int sequence;
+}
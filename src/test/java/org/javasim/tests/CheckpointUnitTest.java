@@ -0,0 +1,286 @@
+/*
+ * Copyright 1990-2008, Mark Little, University of Newcastle upon Tyne
+ * and others contributors as indicated 
+ * by the @authors tag. All rights reserved. 
+ * See the copyright.txt in the distribution for a
+ * full listing of individual contributors. 
+ * This copyrighted material is made available to anyone wishing to use,
+ * modify, copy, or redistribute it subject to the terms and conditions
+ * of the GNU Lesser General Public License, v. 2.1.
+ * This program is distributed in the hope that it will be useful, but WITHOUT A 
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR A 
+ * PARTICULAR PURPOSE.  See the GNU Lesser General Public License for more details.
+ * You should have received a copy of the GNU Lesser General Public License,
+ * v.2.1 along with this distribution; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, 
+ * MA  02110-1301, USA.
+ * 
+ * (C) 1990-2008,
+ */
+
+package org.javasim.tests;
+
+import java.util.ArrayDeque;
+import java.util.List;
+
+import org.javasim.Checkpoint;
+import org.javasim.Checkpointable;
+import org.javasim.EventAction;
+import org.javasim.Simulation;
+import org.javasim.SimulationContext;
+import org.javasim.SimulationException;
+import org.javasim.SimulationProcess;
+import org.javasim.stats.Mean;
+import org.javasim.streams.ExponentialStream;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class CheckpointUnitTest
+{
+    /*
+     * A single server queue, made of events.
+     */
+
+    static class Model implements Checkpointable
+    {
+        public Model ()
+        {
+            this(new ExponentialStream(8), new ExponentialStream(6), new Mean());
+        }
+
+        public Model copy (Checkpoint.Copier copier) throws SimulationException
+        {
+            Model m = new Model(copier.copy(arrivals), copier.copy(service), copier.copy(waits));
+
+            m.waiting.addAll(waiting);
+            m.busy = busy;
+
+            return m;
+        }
+
+        void arrive () throws Exception
+        {
+            waiting.add(SimulationProcess.currentTime());
+
+            if (!busy)
+                serve();
+
+            Simulation.scheduleDelay(arrivals.getNumber(), new Arrival(this));
+        }
+
+        void depart () throws Exception
+        {
+            busy = false;
+
+            if (!waiting.isEmpty())
+                serve();
+        }
+
+        private Model (ExponentialStream arrivals, ExponentialStream service, Mean waits)
+        {
+            this.arrivals = arrivals;
+            this.service = service;
+            this.waits = waits;
+        }
+
+        private void serve () throws Exception
+        {
+            busy = true;
+            waits.setValue(SimulationProcess.currentTime() - waiting.remove());
+
+            Simulation.scheduleDelay(service.getNumber(), new Departure(this));
+        }
+
+        final ExponentialStream arrivals;
+
+        final ExponentialStream service;
+
+        final Mean waits;
+
+        final ArrayDeque<Double> waiting = new ArrayDeque<Double>();
+
+        boolean busy = false;
+    }
+
+    static class Arrival implements EventAction, Checkpointable
+    {
+        public Arrival (Model model)
+        {
+            this.model = model;
+        }
+
+        public void fire () throws SimulationException
+        {
+            try
+            {
+                model.arrive();
+            }
+            catch (final Exception ex)
+            {
+                throw new SimulationException(ex.toString());
+            }
+        }
+
+        public Arrival copy (Checkpoint.Copier copier) throws SimulationException
+        {
+            return new Arrival(copier.copy(model));
+        }
+
+        private final Model model;
+    }
+
+    static class Departure implements EventAction, Checkpointable
+    {
+        public Departure (Model model)
+        {
+            this.model = model;
+        }
+
+        public void fire () throws SimulationException
+        {
+            try
+            {
+                model.depart();
+            }
+            catch (final Exception ex)
+            {
+                throw new SimulationException(ex.toString());
+            }
+        }
+
+        public Departure copy (Checkpoint.Copier copier) throws SimulationException
+        {
+            return new Departure(copier.copy(model));
+        }
+
+        private final Model model;
+    }
+
+    @Before
+    public void setUp ()
+    {
+        previous = SimulationContext.bind(new SimulationContext());
+    }
+
+    @After
+    public void tearDown () throws Exception
+    {
+        Simulation.teardown();
+
+        SimulationContext.bind(previous);
+    }
+
+    /*
+     * A restored checkpoint carries on exactly as the original does, and
+     * does not disturb it.
+     */
+
+    @Test
+    public void testRestore () throws Exception
+    {
+        Model model = warmUp();
+        Checkpoint<Model> checkpoint = SimulationContext.current().checkpoint(model);
+        int samples = model.waits.numberOfSamples();
+
+        assertEquals(1000.0, checkpoint.time(), 0.0);
+        assertTrue(checkpoint.pending() > 0);
+
+        Simulation.runUntil(2000);
+
+        double mean = model.waits.mean();
+        int total = model.waits.numberOfSamples();
+
+        assertTrue(total > samples);
+
+        SimulationContext restored = new SimulationContext();
+        SimulationContext original = SimulationContext.bind(restored);
+
+        try
+        {
+            Model copy = checkpoint.restore();
+
+            assertNotSame(model, copy);
+            assertEquals(samples, copy.waits.numberOfSamples());
+            assertEquals(1000.0, SimulationProcess.currentTime(), 0.0);
+
+            Simulation.runUntil(2000);
+
+            assertEquals(total, copy.waits.numberOfSamples());
+            assertEquals(mean, copy.waits.mean(), 0.0);
+        }
+        finally
+        {
+            restored.teardown();
+
+            SimulationContext.bind(original);
+        }
+
+        assertEquals(total, model.waits.numberOfSamples());
+    }
+
+    /*
+     * Each fork draws upon its own substream, so the forks differ from each
+     * other but not from one run to the next.
+     */
+
+    @Test
+    public void testFork () throws Exception
+    {
+        Model model = warmUp();
+        Checkpoint<Model> checkpoint = SimulationContext.current().checkpoint(model);
+        Checkpoint.Continuation<Model, Double> continuation = new Checkpoint.Continuation<Model, Double>()
+        {
+            public Double run (Model m, int fork) throws Exception
+            {
+                assertEquals(1000.0, SimulationProcess.currentTime(), 0.0);
+
+                Simulation.runUntil(2000);
+
+                return m.waits.mean();
+            }
+        };
+
+        List<Double> means = checkpoint.fork(4, 2, continuation);
+
+        assertEquals(4, means.size());
+        assertEquals(means, checkpoint.fork(4, 1, continuation));
+
+        for (int i = 1; i < means.size(); i++)
+            assertTrue(means.get(i).doubleValue() != means.get(i - 1).doubleValue());
+
+        // the original is left as it was
+
+        assertEquals(1000.0, SimulationProcess.currentTime(), 0.0);
+    }
+
+    @Test
+    public void testRefused () throws Exception
+    {
+        Simulation.scheduleAt(5, () -> {});
+
+        try
+        {
+            SimulationContext.current().checkpoint(null);
+
+            fail();
+        }
+        catch (final SimulationException ex)
+        {
+        }
+    }
+
+    private Model warmUp () throws Exception
+    {
+        Model model = new Model();
+
+        Simulation.scheduleAt(0, new Arrival(model));
+        Simulation.runUntil(1000);
+
+        return model;
+    }
+
+    private SimulationContext previous;
+}
@@ -0,0 +1,116 @@
+/*
+ * Copyright 1990-2008, Mark Little, University of Newcastle upon Tyne
+ * and others contributors as indicated 
+ * by the @authors tag. All rights reserved. 
+ * See the copyright.txt in the distribution for a
+ * full listing of individual contributors. 
+ * This copyrighted material is made available to anyone wishing to use,
+ * modify, copy, or redistribute it subject to the terms and conditions
+ * of the GNU Lesser General Public License, v. 2.1.
+ * This program is distributed in the hope that it will be useful, but WITHOUT A 
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR A 
+ * PARTICULAR PURPOSE.  See the GNU Lesser General Public License for more details.
+ * You should have received a copy of the GNU Lesser General Public License,
+ * v.2.1 along with this distribution; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, 
+ * MA  02110-1301, USA.
+ * 
+ * (C) 1990-2008,
+ */
+
+
+package org.javasim.tests;
+
+import java.util.List;
+
+import org.javasim.ReplicationRunner;
+import org.javasim.Simulation;
+import org.javasim.SimulationProcess;
+import org.javasim.stats.Mean;
+import org.javasim.stats.Variance;
+import org.javasim.streams.ExponentialStream;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class ReplicationRunnerUnitTest
+{
+    static class Sampler extends SimulationProcess
+    {
+        public void run ()
+        {
+            try
+            {
+                ExponentialStream delay = new ExponentialStream(10.0);
+
+                Simulation.start();
+
+                for (int i = 0; i < 100; i++)
+                {
+                    double start = currentTime();
+
+                    hold(delay.getNumber());
+
+                    gaps.setValue(currentTime() - start);
+                }
+
+                Simulation.stop();
+
+                SimulationProcess.mainResume();
+            }
+            catch (final Exception ex)
+            {
+            }
+        }
+
+        public void await ()
+        {
+            resumeProcess();
+            SimulationProcess.mainSuspend();
+        }
+
+        final Variance gaps = new Variance();
+    }
+
+    static class Model implements ReplicationRunner.Model<Variance>
+    {
+        public Variance run (int replication) throws Exception
+        {
+            Sampler sampler = new Sampler();
+
+            sampler.await();
+
+            return sampler.gaps;
+        }
+    }
+
+    @Test
+    public void test () throws Exception
+    {
+        List<Variance> parallel = new ReplicationRunner(4).run(REPLICATIONS, new Model());
+        List<Variance> serial = new ReplicationRunner(1).run(REPLICATIONS, new Model());
+
+        assertEquals(REPLICATIONS, parallel.size());
+
+        Variance pooled = new Variance();
+        Variance means = new Variance();
+
+        for (int i = 0; i < REPLICATIONS; i++)
+        {
+            assertEquals(100, parallel.get(i).numberOfSamples());
+            assertEquals(serial.get(i).sum(), parallel.get(i).sum(), 0.0);
+
+            if (i > 0)
+                assertTrue(parallel.get(i).sum() != parallel.get(i - 1).sum());
+
+            pooled.merge(parallel.get(i));
+            means.setValue(parallel.get(i).mean());
+        }
+
+        assertEquals(100 * REPLICATIONS, pooled.numberOfSamples());
+        assertEquals(means.mean(), pooled.mean(), 1e-9);
+        assertTrue(Math.abs(pooled.mean() - 10.0) < 1.5);
+    }
+
+    private static final int REPLICATIONS = 8;
+}
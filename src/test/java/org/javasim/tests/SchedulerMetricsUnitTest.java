@@ -0,0 +1,128 @@
+/*
+ * Copyright 1990-2008, Mark Little, University of Newcastle upon Tyne
+ * and others contributors as indicated 
+ * by the @authors tag. All rights reserved. 
+ * See the copyright.txt in the distribution for a
+ * full listing of individual contributors. 
+ * This copyrighted material is made available to anyone wishing to use,
+ * modify, copy, or redistribute it subject to the terms and conditions
+ * of the GNU Lesser General Public License, v. 2.1.
+ * This program is distributed in the hope that it will be useful, but WITHOUT A 
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR A 
+ * PARTICULAR PURPOSE.  See the GNU Lesser General Public License for more details.
+ * You should have received a copy of the GNU Lesser General Public License,
+ * v.2.1 along with this distribution; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, 
+ * MA  02110-1301, USA.
+ * 
+ * (C) 1990-2008,
+ */
+
+
+package org.javasim.tests;
+
+import org.javasim.Simulation;
+import org.javasim.SchedulerMetrics;
+import org.javasim.SimulationContext;
+import org.javasim.SimulationProcess;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class SchedulerMetricsUnitTest
+{
+    /*
+     * The switch is read once, so set it before any of the scheduler is
+     * loaded. Each test class has a JVM to itself.
+     */
+
+    static
+    {
+        System.setProperty("org.javasim.metrics", "true");
+    }
+
+    static class Ticker extends SimulationProcess
+    {
+        public void run ()
+        {
+            for (;;)
+            {
+                try
+                {
+                    hold(1);
+                }
+                catch (final Exception ex)
+                {
+                }
+            }
+        }
+    }
+
+    @Test
+    public void test () throws Exception
+    {
+        SimulationContext context = new SimulationContext();
+        SimulationContext previous = SimulationContext.bind(context);
+
+        try
+        {
+            for (int i = 0; i < TICKERS; i++)
+                new Ticker().activate();
+
+            Simulation.scheduleAt(50.5, () -> {});
+
+            Simulation.runUntil(100.5);
+
+            SchedulerMetrics metrics = Simulation.metrics();
+
+            if (!SchedulerMetrics.isEnabled())
+            {
+                assertEquals(0L, metrics.eventsDispatched());
+                assertEquals(0L, metrics.handoffs());
+
+                return;
+            }
+
+            // each ticker starts and then wakes 100 times, plus the event
+
+            assertEquals(TICKERS * 101L + 1, metrics.eventsDispatched());
+
+            // every wakeup is on another thread, bar the driver's own event
+
+            assertEquals(TICKERS * 101L, metrics.handoffs());
+
+            assertEquals(TICKERS, metrics.queueLength());
+            assertEquals(TICKERS + 1, metrics.queueHighWater());
+            assertEquals(100.5, metrics.simulatedTime(), 0.0);
+            assertTrue(metrics.wallClockTime() > 0.0);
+            assertTrue(metrics.eventsPerSecond() > 0.0);
+
+            assertTrue(sum(metrics.insertCosts()) >= TICKERS * 101);
+            assertEquals(metrics.eventsDispatched(), sum(metrics.removeCosts()));
+            assertEquals(TICKERS * 100L, sum(metrics.handoffLatencies()));
+
+            context.resetMetrics();
+
+            assertEquals(0L, context.metrics().eventsDispatched());
+            assertEquals(0.0, context.metrics().wallClockTime(), 0.0);
+
+            Simulation.teardown();
+        }
+        finally
+        {
+            SimulationContext.bind(previous);
+        }
+    }
+
+    private static long sum (long[] counts)
+    {
+        long total = 0;
+
+        for (int i = 0; i < counts.length; i++)
+            total += counts[i];
+
+        return total;
+    }
+
+    private static final int TICKERS = 3;
+}
@@ -0,0 +1,158 @@
+/*
+ * Copyright 1990-2008, Mark Little, University of Newcastle upon Tyne
+ * and others contributors as indicated 
+ * by the @authors tag. All rights reserved. 
+ * See the copyright.txt in the distribution for a
+ * full listing of individual contributors. 
+ * This copyrighted material is made available to anyone wishing to use,
+ * modify, copy, or redistribute it subject to the terms and conditions
+ * of the GNU Lesser General Public License, v. 2.1.
+ * This program is distributed in the hope that it will be useful, but WITHOUT A 
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR A 
+ * PARTICULAR PURPOSE.  See the GNU Lesser General Public License for more details.
+ * You should have received a copy of the GNU Lesser General Public License,
+ * v.2.1 along with this distribution; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, 
+ * MA  02110-1301, USA.
+ * 
+ * (C) 1990-2008,
+ */
+
+
+package org.javasim.tests;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.javasim.Simulation;
+import org.javasim.SimulationContext;
+import org.javasim.SimulationProcess;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class SimulationContextUnitTest
+{
+    static class Worker extends SimulationProcess
+    {
+        public Worker (int id, List<String> trace)
+        {
+            this.id = id;
+            this.trace = trace;
+        }
+
+        public void run ()
+        {
+            try
+            {
+                for (int i = 0; i < 5; i++)
+                {
+                    hold(id + 1);
+
+                    trace.add(id + "@" + currentTime());
+                }
+
+                terminate();
+            }
+            catch (final Exception ex)
+            {
+            }
+        }
+
+        private final int id;
+
+        private final List<String> trace;
+    }
+
+    static class Controller extends SimulationProcess
+    {
+        public void run ()
+        {
+            try
+            {
+                for (int i = 0; i < WORKERS; i++)
+                    new Worker(i, trace).activate();
+
+                Simulation.start();
+
+                hold(100);
+
+                Simulation.stop();
+            }
+            catch (final Exception ex)
+            {
+            }
+
+            synchronized (this)
+            {
+                finished = true;
+                notifyAll();
+            }
+        }
+
+        public synchronized void await () throws InterruptedException
+        {
+            resumeProcess();
+
+            while (!finished)
+                wait();
+        }
+
+        final List<String> trace = new ArrayList<String>();
+
+        private boolean finished = false;
+    }
+
+    static class Replication extends Thread
+    {
+        public void run ()
+        {
+            context = new SimulationContext();
+
+            SimulationContext.bind(context);
+
+            try
+            {
+                controller = new Controller();
+                controller.await();
+            }
+            catch (final Exception ex)
+            {
+            }
+        }
+
+        SimulationContext context;
+
+        Controller controller;
+    }
+
+    @Test
+    public void test () throws Exception
+    {
+        Replication[] replications = new Replication[4];
+
+        for (int i = 0; i < replications.length; i++)
+        {
+            replications[i] = new Replication();
+            replications[i].start();
+        }
+
+        for (int i = 0; i < replications.length; i++)
+            replications[i].join();
+
+        List<String> expected = replications[0].controller.trace;
+
+        assertEquals(WORKERS * 5, expected.size());
+
+        for (int i = 0; i < replications.length; i++)
+        {
+            assertEquals(100.0, replications[i].context.currentTime(), 0.0);
+            assertEquals(expected, replications[i].controller.trace);
+        }
+
+        assertEquals(0.0, SimulationContext.getDefault().currentTime(), 0.0);
+        assertFalse(SimulationContext.getDefault().isRunning());
+    }
+
+    private static final int WORKERS = 10;
+}
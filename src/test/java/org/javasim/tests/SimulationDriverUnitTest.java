@@ -0,0 +1,240 @@
+/*
+ * Copyright 1990-2008, Mark Little, University of Newcastle upon Tyne
+ * and others contributors as indicated 
+ * by the @authors tag. All rights reserved. 
+ * See the copyright.txt in the distribution for a
+ * full listing of individual contributors. 
+ * This copyrighted material is made available to anyone wishing to use,
+ * modify, copy, or redistribute it subject to the terms and conditions
+ * of the GNU Lesser General Public License, v. 2.1.
+ * This program is distributed in the hope that it will be useful, but WITHOUT A 
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR A 
+ * PARTICULAR PURPOSE.  See the GNU Lesser General Public License for more details.
+ * You should have received a copy of the GNU Lesser General Public License,
+ * v.2.1 along with this distribution; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, 
+ * MA  02110-1301, USA.
+ * 
+ * (C) 1990-2008,
+ */
+
+
+package org.javasim.tests;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.javasim.Simulation;
+import org.javasim.SimulationContext;
+import org.javasim.SimulationException;
+import org.javasim.SimulationProcess;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class SimulationDriverUnitTest
+{
+    static class Ticker extends SimulationProcess
+    {
+        public void run ()
+        {
+            for (;;)
+            {
+                try
+                {
+                    hold(1);
+
+                    ticks++;
+                }
+                catch (final Exception ex)
+                {
+                }
+            }
+        }
+
+        int ticks = 0;
+    }
+
+    static class Intruder extends SimulationProcess
+    {
+        public void run ()
+        {
+            try
+            {
+                Simulation.runFor(1);
+            }
+            catch (final SimulationException ex)
+            {
+                refused = true;
+            }
+
+            try
+            {
+                terminate();
+            }
+            catch (final Exception ex)
+            {
+            }
+        }
+
+        boolean refused = false;
+    }
+
+    @Before
+    public void setUp ()
+    {
+        previous = SimulationContext.bind(new SimulationContext());
+    }
+
+    @After
+    public void tearDown () throws Exception
+    {
+        Simulation.teardown();
+
+        SimulationContext.bind(previous);
+    }
+
+    @Test
+    public void testRunUntil () throws Exception
+    {
+        Ticker ticker = new Ticker();
+
+        ticker.activate();
+
+        Simulation.runUntil(10.5);
+
+        assertEquals(10, ticker.ticks);
+        assertEquals(10.5, SimulationProcess.currentTime(), 0.0);
+
+        // an event due at the horizon is left for the next run
+
+        Simulation.runUntil(20);
+
+        assertEquals(19, ticker.ticks);
+        assertEquals(20.0, SimulationProcess.currentTime(), 0.0);
+
+        Simulation.runUntil(21);
+
+        assertEquals(20, ticker.ticks);
+    }
+
+    @Test
+    public void testRunFor () throws Exception
+    {
+        Ticker ticker = new Ticker();
+
+        ticker.activate();
+
+        // the first event starts the ticker
+
+        Simulation.runFor(5);
+
+        assertEquals(4, ticker.ticks);
+        assertEquals(4.0, SimulationProcess.currentTime(), 0.0);
+
+        Simulation.runFor(3);
+
+        assertEquals(7, ticker.ticks);
+    }
+
+    @Test
+    public void testRunWhile () throws Exception
+    {
+        final Ticker ticker = new Ticker();
+
+        ticker.activate();
+
+        Simulation.runWhile(() -> ticker.ticks < 7);
+
+        assertEquals(7, ticker.ticks);
+        assertEquals(7.0, SimulationProcess.currentTime(), 0.0);
+    }
+
+    @Test
+    public void testEvents () throws Exception
+    {
+        final List<Double> fired = new ArrayList<Double>();
+
+        for (int i = 1; i <= 3; i++)
+            Simulation.scheduleAt(i, () -> fired.add(SimulationProcess.currentTime()));
+
+        Simulation.runUntil(2.5);
+
+        assertEquals(2, fired.size());
+        assertEquals(2.5, SimulationProcess.currentTime(), 0.0);
+
+        // nothing left before the horizon, so the clock moves straight to it
+
+        Simulation.runUntil(100);
+
+        assertEquals(3, fired.size());
+        assertEquals(100.0, SimulationProcess.currentTime(), 0.0);
+    }
+
+    @Test
+    public void testFromWithin () throws Exception
+    {
+        Intruder intruder = new Intruder();
+
+        intruder.activate();
+
+        Simulation.runUntil(1);
+
+        assertTrue(intruder.refused);
+    }
+
+    /*
+     * An event which throws stops the run, whether it is fired by the
+     * driver or on the thread of a process handing over, and the run may
+     * then carry on from there.
+     */
+
+    @Test
+    public void testEventFails () throws Exception
+    {
+        Simulation.scheduleAt(0.5, () -> { throw new IllegalStateException("first"); });
+
+        try
+        {
+            Simulation.runUntil(10);
+
+            fail();
+        }
+        catch (final SimulationException ex)
+        {
+            assertTrue(ex.getCause() instanceof IllegalStateException);
+        }
+
+        assertEquals(0.5, SimulationProcess.currentTime(), 0.0);
+
+        Ticker ticker = new Ticker();
+
+        ticker.activate();
+
+        Simulation.scheduleAt(2.5, () -> { throw new IllegalStateException("second"); });
+
+        try
+        {
+            Simulation.runUntil(10);
+
+            fail();
+        }
+        catch (final SimulationException ex)
+        {
+            assertEquals("second", ex.getCause().getMessage());
+        }
+
+        // the ticker, started at 0.5, is due at 2.5 too but after the event
+
+        assertEquals(1, ticker.ticks);
+        assertEquals(2.5, SimulationProcess.currentTime(), 0.0);
+
+        Simulation.runUntil(10);
+
+        assertEquals(9, ticker.ticks);
+    }
+
+    private SimulationContext previous;
+}
@@ -0,0 +1,139 @@
+/*
+ * Copyright 1990-2008, Mark Little, University of Newcastle upon Tyne
+ * and others contributors as indicated 
+ * by the @authors tag. All rights reserved. 
+ * See the copyright.txt in the distribution for a
+ * full listing of individual contributors. 
+ * This copyrighted material is made available to anyone wishing to use,
+ * modify, copy, or redistribute it subject to the terms and conditions
+ * of the GNU Lesser General Public License, v. 2.1.
+ * This program is distributed in the hope that it will be useful, but WITHOUT A 
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR A 
+ * PARTICULAR PURPOSE.  See the GNU Lesser General Public License for more details.
+ * You should have received a copy of the GNU Lesser General Public License,
+ * v.2.1 along with this distribution; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, 
+ * MA  02110-1301, USA.
+ * 
+ * (C) 1990-2008,
+ */
+
+
+package org.javasim.tests;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.javasim.Simulation;
+import org.javasim.SimulationEvent;
+import org.javasim.SimulationException;
+import org.javasim.SimulationProcess;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class SimulationEventUnitTest
+{
+    static class Sampler extends SimulationProcess
+    {
+        public void run ()
+        {
+            try
+            {
+                record("process");
+                terminate();
+            }
+            catch (final Exception ex)
+            {
+            }
+        }
+    }
+
+    static class Controller extends SimulationProcess
+    {
+        public void run ()
+        {
+            try
+            {
+                final Sampler sampler = new Sampler();
+
+                Simulation.scheduleAt(3, () -> record("at"));
+                Simulation.scheduleDelay(1, () -> record("delay"));
+                Simulation.scheduleDelay(4, () -> sampler.activate());
+
+                cancelled = Simulation.scheduleAt(2, () -> record("cancelled"));
+                cancelled.cancel();
+
+                Simulation.start();
+
+                hold(3);
+
+                record("controller");
+
+                hold(10);
+
+                Simulation.stop();
+            }
+            catch (final Exception ex)
+            {
+            }
+
+            synchronized (this)
+            {
+                finished = true;
+                notifyAll();
+            }
+        }
+
+        public synchronized void await () throws InterruptedException
+        {
+            resumeProcess();
+
+            while (!finished)
+                wait();
+        }
+
+        SimulationEvent cancelled;
+
+        private boolean finished = false;
+    }
+
+    @Test
+    public void test () throws Exception
+    {
+        Controller controller = new Controller();
+
+        controller.await();
+
+        /*
+         * The event at 3 was scheduled before the controller's hold, so runs
+         * first. The sampler is activated by an event.
+         */
+
+        assertEquals("delay@1.0", trace.get(0));
+        assertEquals("at@3.0", trace.get(1));
+        assertEquals("controller@3.0", trace.get(2));
+        assertEquals("process@4.0", trace.get(3));
+        assertEquals(4, trace.size());
+
+        assertFalse(controller.cancelled.isPending());
+        assertFalse(controller.cancelled.cancel());
+
+        try
+        {
+            Simulation.scheduleAt(1, () -> record("past"));
+
+            fail();
+        }
+        catch (final SimulationException ex)
+        {
+        }
+    }
+
+    static void record (String what)
+    {
+        trace.add(what + "@" + SimulationProcess.currentTime());
+    }
+
+    private static final List<String> trace = new ArrayList<String>();
+}
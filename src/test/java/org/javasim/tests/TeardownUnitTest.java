@@ -0,0 +1,243 @@
+/*
+ * Copyright 1990-2008, Mark Little, University of Newcastle upon Tyne
+ * and others contributors as indicated 
+ * by the @authors tag. All rights reserved. 
+ * See the copyright.txt in the distribution for a
+ * full listing of individual contributors. 
+ * This copyrighted material is made available to anyone wishing to use,
+ * modify, copy, or redistribute it subject to the terms and conditions
+ * of the GNU Lesser General Public License, v. 2.1.
+ * This program is distributed in the hope that it will be useful, but WITHOUT A 
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR A 
+ * PARTICULAR PURPOSE.  See the GNU Lesser General Public License for more details.
+ * You should have received a copy of the GNU Lesser General Public License,
+ * v.2.1 along with this distribution; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, 
+ * MA  02110-1301, USA.
+ * 
+ * (C) 1990-2008,
+ */
+
+
+package org.javasim.tests;
+
+import org.javasim.RestartException;
+import org.javasim.Simulation;
+import org.javasim.SimulationContext;
+import org.javasim.SimulationException;
+import org.javasim.SimulationProcess;
+import org.javasim.internal.VirtualThreads;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class TeardownUnitTest
+{
+    static class Ticker extends SimulationProcess
+    {
+        public void run ()
+        {
+            for (;;)
+            {
+                try
+                {
+                    hold(1);
+
+                    ticks++;
+                }
+                catch (final RestartException ex)
+                {
+                    restarts++;
+                }
+                catch (final SimulationException ex)
+                {
+                }
+            }
+        }
+
+        int ticks = 0;
+
+        int restarts = 0;
+    }
+
+    static class Sleeper extends SimulationProcess
+    {
+        public void run ()
+        {
+            try
+            {
+                passivate();
+            }
+            catch (final Exception ex)
+            {
+            }
+        }
+    }
+
+    static class Controller extends SimulationProcess
+    {
+        public Controller (boolean reset)
+        {
+            this.reset = reset;
+        }
+
+        public void run ()
+        {
+            try
+            {
+                for (int i = 0; i < TICKERS; i++)
+                {
+                    tickers[i] = new Ticker();
+                    tickers[i].activate();
+                }
+
+                new Sleeper().activate();
+
+                Simulation.start();
+
+                hold(5.5);
+
+                if (reset)
+                {
+                    Simulation.reset();
+
+                    resetTime = currentTime();
+
+                    for (int i = 0; i < TICKERS; i++)
+                        tickers[i].activate();
+
+                    hold(2.5);
+                }
+
+                Simulation.stop();
+            }
+            catch (final Exception ex)
+            {
+            }
+
+            synchronized (this)
+            {
+                finished = true;
+                notifyAll();
+            }
+        }
+
+        public synchronized void await () throws InterruptedException
+        {
+            resumeProcess();
+
+            while (!finished)
+                wait();
+        }
+
+        final Ticker[] tickers = new Ticker[TICKERS];
+
+        double resetTime = -1.0;
+
+        private final boolean reset;
+
+        private boolean finished = false;
+    }
+
+    @Test
+    public void testTeardown () throws Exception
+    {
+        SimulationContext context = new SimulationContext();
+        SimulationContext previous = SimulationContext.bind(context);
+        int baseline = Thread.activeCount();
+
+        try
+        {
+            for (int run = 0; run < RUNS; run++)
+            {
+                Controller controller = new Controller(false);
+
+                controller.await();
+
+                for (int i = 0; i < TICKERS; i++)
+                    assertEquals(5, controller.tickers[i].ticks);
+
+                Simulation.teardown();
+
+                assertEquals(0.0, context.currentTime(), 0.0);
+                assertFalse(context.isRunning());
+                assertTrue(Thread.activeCount() <= baseline);
+            }
+        }
+        finally
+        {
+            SimulationContext.bind(previous);
+        }
+    }
+
+    @Test
+    public void testVirtualTeardown () throws Exception
+    {
+        if (!VirtualThreads.isSupported())
+            return;  // nothing to check before Java 21
+
+        SimulationContext context = new SimulationContext();
+        SimulationContext previous = SimulationContext.bind(context);
+
+        try
+        {
+            Simulation.setThreadType(Simulation.ThreadType.VIRTUAL);
+
+            for (int run = 0; run < RUNS; run++)
+            {
+                Controller controller = new Controller(false);
+
+                controller.await();
+
+                // returns once every virtual thread has finished
+
+                Simulation.teardown();
+
+                assertEquals(0.0, context.currentTime(), 0.0);
+            }
+        }
+        finally
+        {
+            SimulationContext.bind(previous);
+        }
+    }
+
+    @Test
+    public void testReset () throws Exception
+    {
+        SimulationContext context = new SimulationContext();
+        SimulationContext previous = SimulationContext.bind(context);
+
+        try
+        {
+            Controller controller = new Controller(true);
+
+            controller.await();
+
+            assertEquals(0.0, controller.resetTime, 0.0);
+            assertEquals(2.5, context.currentTime(), 0.0);
+
+            for (int i = 0; i < TICKERS; i++)
+            {
+                assertEquals(1, controller.tickers[i].restarts);
+                /*
+                 * Five before the reset, then one as each resumes at time
+                 * zero from the hold it made ready for the restart, and two
+                 * more before the controller stops.
+                 */
+
+                assertEquals(8, controller.tickers[i].ticks);
+            }
+
+            Simulation.teardown();
+        }
+        finally
+        {
+            SimulationContext.bind(previous);
+        }
+    }
+
+    private static final int TICKERS = 10;
+
+    private static final int RUNS = 50;
+}
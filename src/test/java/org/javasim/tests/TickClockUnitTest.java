@@ -0,0 +1,158 @@
+/*
+ * Copyright 1990-2008, Mark Little, University of Newcastle upon Tyne
+ * and others contributors as indicated 
+ * by the @authors tag. All rights reserved. 
+ * See the copyright.txt in the distribution for a
+ * full listing of individual contributors. 
+ * This copyrighted material is made available to anyone wishing to use,
+ * modify, copy, or redistribute it subject to the terms and conditions
+ * of the GNU Lesser General Public License, v. 2.1.
+ * This program is distributed in the hope that it will be useful, but WITHOUT A 
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR A 
+ * PARTICULAR PURPOSE.  See the GNU Lesser General Public License for more details.
+ * You should have received a copy of the GNU Lesser General Public License,
+ * v.2.1 along with this distribution; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, 
+ * MA  02110-1301, USA.
+ * 
+ * (C) 1990-2008,
+ */
+
+package org.javasim.tests;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.javasim.Simulation;
+import org.javasim.SimulationContext;
+import org.javasim.SimulationProcess;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class TickClockUnitTest
+{
+    static class Clocked extends SimulationProcess
+    {
+        public Clocked (double period)
+        {
+            this.period = period;
+        }
+
+        public void run ()
+        {
+            for (;;)
+            {
+                try
+                {
+                    hold(period);
+
+                    times.add(currentTime());
+                }
+                catch (final Exception ex)
+                {
+                }
+            }
+        }
+
+        final List<Double> times = new ArrayList<Double>();
+
+        private final double period;
+    }
+
+    @Before
+    public void setUp ()
+    {
+        previous = SimulationContext.bind(new SimulationContext());
+    }
+
+    @After
+    public void tearDown () throws Exception
+    {
+        Simulation.teardown();
+
+        SimulationContext.bind(previous);
+    }
+
+    /*
+     * Times are rounded to the nearest tick, and the clock stops on the last
+     * tick before the horizon.
+     */
+
+    @Test
+    public void testRounding () throws Exception
+    {
+        SimulationContext context = SimulationContext.current();
+
+        Simulation.setTickResolution(1.0);
+
+        Clocked fast = new Clocked(0.8);
+        Clocked slow = new Clocked(2.6);
+
+        fast.activate();
+        slow.activateDelay(0.4);
+
+        Simulation.runUntil(10.5);
+
+        assertEquals(10.0, SimulationProcess.currentTime(), 0.0);
+        assertEquals(10L, context.currentTick());
+
+        for (int i = 0; i < fast.times.size(); i++)
+            assertEquals(i + 1.0, fast.times.get(i), 0.0);
+
+        assertEquals(10, fast.times.size());
+        assertEquals(3.0, slow.times.get(0), 0.0);
+        assertEquals(6.0, slow.times.get(1), 0.0);
+        assertEquals(9.0, slow.times.get(2), 0.0);
+    }
+
+    /*
+     * On whole-nanosecond ticks the clock does not drift, as adding up
+     * fractions of a second in continuous time does.
+     */
+
+    @Test
+    public void testNanoseconds () throws Exception
+    {
+        List<Double> continuous = run(0.0, 1.0e-6);
+        List<Double> ticked = run(1.0e-9, 1.0e-6);
+
+        assertEquals(333, ticked.size());
+
+        for (int i = 0; i < ticked.size(); i++)
+        {
+            assertEquals(3L * (i + 1), Math.round(ticked.get(i) / 1.0e-9));
+            assertEquals(Math.round(ticked.get(i) / 1.0e-9) * 1.0e-9, ticked.get(i), 0.0);
+        }
+
+        assertFalse(continuous.equals(ticked));
+    }
+
+    private List<Double> run (double resolution, double until) throws Exception
+    {
+        SimulationContext previous = SimulationContext.bind(new SimulationContext());
+
+        try
+        {
+            Simulation.setTickResolution(resolution);
+
+            Clocked clocked = new Clocked(3.0e-9);
+
+            clocked.activate();
+
+            Simulation.runUntil(until);
+
+            return clocked.times;
+        }
+        finally
+        {
+            Simulation.teardown();
+
+            SimulationContext.bind(previous);
+        }
+    }
+
+    private SimulationContext previous;
+}
@@ -0,0 +1,131 @@
+/*
+ * Copyright 1990-2008, Mark Little, University of Newcastle upon Tyne
+ * and others contributors as indicated 
+ * by the @authors tag. All rights reserved. 
+ * See the copyright.txt in the distribution for a
+ * full listing of individual contributors. 
+ * This copyrighted material is made available to anyone wishing to use,
+ * modify, copy, or redistribute it subject to the terms and conditions
+ * of the GNU Lesser General Public License, v. 2.1.
+ * This program is distributed in the hope that it will be useful, but WITHOUT A 
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR A 
+ * PARTICULAR PURPOSE.  See the GNU Lesser General Public License for more details.
+ * You should have received a copy of the GNU Lesser General Public License,
+ * v.2.1 along with this distribution; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, 
+ * MA  02110-1301, USA.
+ * 
+ * (C) 1990-2008,
+ */
+
+package org.javasim.tests;
+
+import org.javasim.Simulation;
+import org.javasim.SimulationContext;
+import org.javasim.SimulationEntity;
+import org.javasim.SimulationProcess;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class TimerWheelUnitTest
+{
+    static class Receiver extends SimulationEntity
+    {
+        public void run ()
+        {
+            for (;;)
+            {
+                try
+                {
+                    timedWait(5);
+
+                    timeouts++;
+                }
+                catch (final InterruptedException ex)
+                {
+                    interrupts++;
+                }
+                catch (final Exception ex)
+                {
+                }
+            }
+        }
+
+        int timeouts = 0;
+
+        int interrupts = 0;
+    }
+
+    static class Sender extends SimulationEntity
+    {
+        public Sender (Receiver receiver)
+        {
+            this.receiver = receiver;
+        }
+
+        public void run ()
+        {
+            for (int i = 0;; i++)
+            {
+                try
+                {
+                    hold((i % 10 == 9) ? 7.5 : 1.25);
+
+                    if (receiver.isWaiting())
+                        interrupt(receiver, false);
+                }
+                catch (final Exception ex)
+                {
+                }
+            }
+        }
+
+        private final Receiver receiver;
+    }
+
+    /*
+     * Mostly cancelled timeouts give the same run with the wheel as without.
+     */
+
+    @Test
+    public void test () throws Exception
+    {
+        int[] plain = run(0.0);
+        int[] wheel = run(0.5);
+
+        assertTrue(plain[0] > 0);
+        assertTrue(plain[1] > 10 * plain[0]);
+
+        assertEquals(plain[0], wheel[0]);
+        assertEquals(plain[1], wheel[1]);
+    }
+
+    private int[] run (double resolution) throws Exception
+    {
+        SimulationContext previous = SimulationContext.bind(new SimulationContext());
+
+        try
+        {
+            Simulation.setTimerWheel(resolution);
+
+            Receiver receiver = new Receiver();
+            Sender sender = new Sender(receiver);
+
+            receiver.activate();
+            sender.activate();
+
+            Simulation.runUntil(10000);
+
+            assertEquals(10000.0, SimulationProcess.currentTime(), 0.0);
+
+            return new int[] { receiver.timeouts, receiver.interrupts };
+        }
+        finally
+        {
+            Simulation.teardown();
+
+            SimulationContext.bind(previous);
+        }
+    }
+}
@@ -0,0 +1,149 @@
+/*
+ * Copyright 1990-2008, Mark Little, University of Newcastle upon Tyne
+ * and others contributors as indicated 
+ * by the @authors tag. All rights reserved. 
+ * See the copyright.txt in the distribution for a
+ * full listing of individual contributors. 
+ * This copyrighted material is made available to anyone wishing to use,
+ * modify, copy, or redistribute it subject to the terms and conditions
+ * of the GNU Lesser General Public License, v. 2.1.
+ * This program is distributed in the hope that it will be useful, but WITHOUT A 
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR A 
+ * PARTICULAR PURPOSE.  See the GNU Lesser General Public License for more details.
+ * You should have received a copy of the GNU Lesser General Public License,
+ * v.2.1 along with this distribution; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, 
+ * MA  02110-1301, USA.
+ * 
+ * (C) 1990-2008,
+ */
+
+
+package org.javasim.tests;
+
+import org.javasim.Simulation;
+import org.javasim.SimulationException;
+import org.javasim.SimulationProcess;
+import org.javasim.internal.VirtualThreads;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class VirtualThreadUnitTest
+{
+    static class Sleeper extends SimulationProcess
+    {
+        public Sleeper (double delay)
+        {
+            this.delay = delay;
+        }
+
+        public void run ()
+        {
+            try
+            {
+                for (int i = 0; i < HOLDS; i++)
+                    hold(delay);
+
+                onOwnThread = (Thread.currentThread() == this);
+                completed++;
+
+                terminate();
+            }
+            catch (final Exception ex)
+            {
+            }
+        }
+
+        boolean onOwnThread = true;
+
+        private double delay;
+    }
+
+    static class Controller extends SimulationProcess
+    {
+        public void run ()
+        {
+            try
+            {
+                for (int i = 0; i < sleepers.length; i++)
+                {
+                    sleepers[i] = new Sleeper(1.0 + (i % 10));
+                    sleepers[i].activate();
+                }
+
+                Simulation.start();
+
+                hold(HOLDS * 20.0);
+
+                Simulation.stop();
+            }
+            catch (final Exception ex)
+            {
+            }
+
+            synchronized (this)
+            {
+                finished = true;
+                notifyAll();
+            }
+        }
+
+        public synchronized void await () throws InterruptedException
+        {
+            resumeProcess();
+
+            while (!finished)
+                wait();
+        }
+
+        Sleeper[] sleepers = new Sleeper[PROCESSES];
+
+        private boolean finished = false;
+    }
+
+    @Test
+    public void test () throws Exception
+    {
+        if (!VirtualThreads.isSupported())
+        {
+            try
+            {
+                Simulation.setThreadType(Simulation.ThreadType.VIRTUAL);
+
+                fail();
+            }
+            catch (final SimulationException ex)
+            {
+            }
+
+            return;  // nothing more can be checked before Java 21
+        }
+
+        Simulation.setThreadType(Simulation.ThreadType.VIRTUAL);
+
+        Controller controller = new Controller();
+
+        controller.await();
+
+        assertEquals(PROCESSES, completed);
+
+        for (Sleeper s : controller.sleepers)
+        {
+            assertTrue(s.terminated());
+            assertFalse(s.onOwnThread);
+        }
+
+        assertEquals(HOLDS * 20.0, SimulationProcess.currentTime(), 0.0);
+    }
+
+    /*
+     * Far more processes than could comfortably be given platform threads.
+     */
+
+    private static final int PROCESSES = 10000;
+
+    private static final int HOLDS = 5;
+
+    private static volatile int completed = 0;
+}
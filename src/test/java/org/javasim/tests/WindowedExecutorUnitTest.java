@@ -0,0 +1,168 @@
+/*
+ * Copyright 1990-2008, Mark Little, University of Newcastle upon Tyne
+ * and others contributors as indicated 
+ * by the @authors tag. All rights reserved. 
+ * See the copyright.txt in the distribution for a
+ * full listing of individual contributors. 
+ * This copyrighted material is made available to anyone wishing to use,
+ * modify, copy, or redistribute it subject to the terms and conditions
+ * of the GNU Lesser General Public License, v. 2.1.
+ * This program is distributed in the hope that it will be useful, but WITHOUT A 
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR A 
+ * PARTICULAR PURPOSE.  See the GNU Lesser General Public License for more details.
+ * You should have received a copy of the GNU Lesser General Public License,
+ * v.2.1 along with this distribution; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, 
+ * MA  02110-1301, USA.
+ * 
+ * (C) 1990-2008,
+ */
+
+
+package org.javasim.tests;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.javasim.SimulationException;
+import org.javasim.SimulationProcess;
+import org.javasim.WindowedExecutor;
+import org.javasim.streams.ExponentialStream;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class WindowedExecutorUnitTest
+{
+    /*
+     * A site which sends work on to the next site every so often, and
+     * records what arrives from the previous one.
+     */
+
+    static class Site extends SimulationProcess
+    {
+        public Site (int index, WindowedExecutor executor)
+        {
+            this.index = index;
+            this.executor = executor;
+
+            setDaemon(true);
+        }
+
+        public void run ()
+        {
+            try
+            {
+                for (;;)
+                {
+                    hold(gap.getNumber());
+
+                    final double at = currentTime() + LOOKAHEAD + transfer.getNumber();
+                    final Site next = sites[(index + 1) % sites.length];
+
+                    if (at < END)
+                        sent++;
+
+                    executor.post(next.index, at - currentTime(), () -> next.arrive(at));
+                }
+            }
+            catch (final Exception ex)
+            {
+            }
+        }
+
+        void arrive (double at)
+        {
+            if (SimulationProcess.currentTime() != at)
+                wrongTime = true;
+
+            arrivals.add(at);
+        }
+
+        final List<Double> arrivals = new ArrayList<Double>();
+
+        int sent = 0;
+
+        boolean wrongTime = false;
+
+        Site[] sites;
+
+        private final int index;
+
+        private final WindowedExecutor executor;
+
+        private final ExponentialStream gap = new ExponentialStream(1.0);
+
+        private final ExponentialStream transfer = new ExponentialStream(1.0);
+    }
+
+    static Site[] run (int partitions) throws Exception
+    {
+        final Site[] sites = new Site[partitions];
+        WindowedExecutor executor = new WindowedExecutor(partitions, LOOKAHEAD);
+
+        executor.run(END, (partition, exec) -> {
+            sites[partition] = new Site(partition, exec);
+            sites[partition].sites = sites;
+            sites[partition].activate();
+        });
+
+        assertTrue(executor.windows() > 0);
+
+        try
+        {
+            executor.run(END, (partition, exec) -> {});
+
+            fail();
+        }
+        catch (final SimulationException ex)
+        {
+        }
+
+        return sites;
+    }
+
+    @Test
+    public void test () throws Exception
+    {
+        Site[] first = run(PARTITIONS);
+        Site[] second = run(PARTITIONS);
+
+        for (int i = 0; i < PARTITIONS; i++)
+        {
+            Site site = first[i];
+            Site previous = first[(i + PARTITIONS - 1) % PARTITIONS];
+
+            assertFalse(site.wrongTime);
+            assertEquals(previous.sent, site.arrivals.size());
+            assertEquals(second[i].arrivals, site.arrivals);
+
+            for (int j = 1; j < site.arrivals.size(); j++)
+                assertTrue(site.arrivals.get(j - 1) <= site.arrivals.get(j));
+        }
+
+        assertTrue(first[0].arrivals.size() > 50);
+    }
+
+    @Test
+    public void testOutsidePartition () throws Exception
+    {
+        WindowedExecutor executor = new WindowedExecutor(2, LOOKAHEAD);
+
+        try
+        {
+            executor.post(0, LOOKAHEAD, () -> {});
+
+            fail();
+        }
+        catch (final SimulationException ex)
+        {
+        }
+    }
+
+    private static final int PARTITIONS = 4;
+
+    private static final double LOOKAHEAD = 2.0;
+
+    private static final double END = 200.0;
+}
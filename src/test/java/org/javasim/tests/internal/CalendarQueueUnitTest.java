@@ -0,0 +1,166 @@
+/*
+ * Copyright 1990-2008, Mark Little, University of Newcastle upon Tyne
+ * and others contributors as indicated 
+ * by the @authors tag. All rights reserved. 
+ * See the copyright.txt in the distribution for a
+ * full listing of individual contributors. 
+ * This copyrighted material is made available to anyone wishing to use,
+ * modify, copy, or redistribute it subject to the terms and conditions
+ * of the GNU Lesser General Public License, v. 2.1.
+ * This program is distributed in the hope that it will be useful, but WITHOUT A 
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR A 
+ * PARTICULAR PURPOSE.  See the GNU Lesser General Public License for more details.
+ * You should have received a copy of the GNU Lesser General Public License,
+ * v.2.1 along with this distribution; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, 
+ * MA  02110-1301, USA.
+ * 
+ * (C) 1990-2008,
+ */
+
+package org.javasim.tests.internal;
+
+import java.util.NoSuchElementException;
+import java.util.Random;
+
+import org.javasim.internal.CalendarQueue;
+import org.javasim.internal.EventNotice;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class CalendarQueueUnitTest
+{
+    @Test
+    public void testOrdering () throws Exception
+    {
+        CalendarQueue queue = new CalendarQueue();
+        EventNotice a = new EventNotice(null);
+        EventNotice b = new EventNotice(null);
+        EventNotice c = new EventNotice(null);
+        EventNotice d = new EventNotice(null);
+        EventNotice e = new EventNotice(null);
+
+        try
+        {
+            queue.remove();
+
+            fail();
+        }
+        catch (final NoSuchElementException ex)
+        {
+        }
+
+        queue.insert(a, 10.0);
+        queue.insert(b, 10.0);
+        queue.insert(c, 10.0, true);
+        queue.insert(d, 1000.5);
+
+        assertTrue(queue.insertBefore(e, b));
+        assertEquals(queue.first(), c);
+        assertEquals(queue.getNext(a), e);
+
+        assertEquals(queue.remove(), c);
+        assertEquals(queue.remove(), a);
+        assertEquals(queue.remove(), e);
+        assertEquals(queue.remove(), b);
+        assertEquals(queue.remove(), d);
+        assertTrue(queue.isEmpty());
+    }
+
+    /*
+     * A hold model with whole-number increments from 0 to 3, so that
+     * thousands of entries share each time. The width has to become narrow
+     * enough for a day to hold only one of those times, otherwise each
+     * insert passes over the entries of the later times in its day.
+     */
+
+    @Test
+    public void testTies () throws Exception
+    {
+        Random r = new Random(7);
+        CalendarQueue queue = new CalendarQueue();
+        double now = 0.0;
+
+        for (int i = 0; i < 100000; i++)
+            queue.insert(new EventNotice(null), 10.0 * r.nextDouble());
+
+        for (int i = 0; i < 400000; i++)
+        {
+            EventNotice n = queue.remove();
+
+            assertTrue(n.evtime() >= now);
+
+            now = n.evtime();
+
+            queue.insert(n, now + r.nextInt(4));
+        }
+
+        assertEquals(100000, queue.size());
+        assertTrue(queue.width() < 1.0);
+
+        // and once the increments are spread out again, so is the width
+
+        for (int i = 0; i < 400000; i++)
+        {
+            EventNotice n = queue.remove();
+
+            assertTrue(n.evtime() >= now);
+
+            now = n.evtime();
+
+            queue.insert(n, now + 100000.0 * r.nextDouble());
+        }
+
+        assertTrue(queue.width() > 1.0);
+    }
+
+    /*
+     * A hold model, whose queue grows and then drains, so that the calendar
+     * is resized in both directions.
+     */
+
+    @Test
+    public void testResize () throws Exception
+    {
+        Random r = new Random(99);
+        CalendarQueue queue = new CalendarQueue();
+        double now = 0.0;
+
+        for (int i = 0; i < 10000; i++)
+            queue.insert(new EventNotice(null), now - 5.0 * Math.log(r.nextDouble()));
+
+        assertTrue(queue.buckets() >= 4096);
+        assertTrue(queue.width() != 1.0);
+
+        for (int i = 0; i < 100000; i++)
+        {
+            EventNotice n = queue.remove();
+
+            assertTrue(n.evtime() >= now);
+
+            now = n.evtime();
+
+            if ((i < 50000) || (r.nextInt(4) == 0))
+                queue.insert(n, now - 5.0 * Math.log(r.nextDouble()));
+
+            if (queue.isEmpty())
+                break;
+        }
+
+        assertTrue(queue.buckets() < 4096);
+    }
+
+    /*
+     * Compare against the sorted list of QueueModel, which follows the same
+     * rules as SimulationProcessList, with times spread over several orders
+     * of magnitude.
+     */
+
+    @Test
+    public void testRandom () throws Exception
+    {
+        QueueModel.check(new CalendarQueue(), new Random(5678), 20000,
+                (r, now) -> now + ((r.nextInt(3) == 0) ? 0.0 : Math.floor(Math.pow(10, r.nextInt(5)) * r.nextDouble())));
+    }
+}
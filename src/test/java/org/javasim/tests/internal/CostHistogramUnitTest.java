@@ -0,0 +1,64 @@
+/*
+ * Copyright 1990-2008, Mark Little, University of Newcastle upon Tyne
+ * and others contributors as indicated 
+ * by the @authors tag. All rights reserved. 
+ * See the copyright.txt in the distribution for a
+ * full listing of individual contributors. 
+ * This copyrighted material is made available to anyone wishing to use,
+ * modify, copy, or redistribute it subject to the terms and conditions
+ * of the GNU Lesser General Public License, v. 2.1.
+ * This program is distributed in the hope that it will be useful, but WITHOUT A 
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR A 
+ * PARTICULAR PURPOSE.  See the GNU Lesser General Public License for more details.
+ * You should have received a copy of the GNU Lesser General Public License,
+ * v.2.1 along with this distribution; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, 
+ * MA  02110-1301, USA.
+ * 
+ * (C) 1990-2008,
+ */
+
+
+package org.javasim.tests.internal;
+
+import org.javasim.internal.CostHistogram;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class CostHistogramUnitTest
+{
+    @Test
+    public void test () throws Exception
+    {
+        CostHistogram histogram = new CostHistogram();
+
+        histogram.record(0);
+        histogram.record(1);
+        histogram.record(2);
+        histogram.record(3);
+        histogram.record(1000);
+        histogram.record(Long.MAX_VALUE);
+
+        long[] counts = histogram.counts();
+
+        assertEquals(65, counts.length);
+        assertEquals(1L, counts[0]);
+        assertEquals(1L, counts[1]);
+        assertEquals(2L, counts[2]);
+        assertEquals(1L, counts[10]);  // 512 <= 1000 < 1024
+        assertEquals(1L, counts[63]);
+
+        CostHistogram other = new CostHistogram();
+
+        other.record(3);
+        histogram.merge(other);
+
+        assertEquals(3L, histogram.counts()[2]);
+
+        histogram.clear();
+
+        for (long count : histogram.counts())
+            assertEquals(0L, count);
+    }
+}
@@ -0,0 +1,137 @@
+/*
+ * Copyright 1990-2008, Mark Little, University of Newcastle upon Tyne
+ * and others contributors as indicated 
+ * by the @authors tag. All rights reserved. 
+ * See the copyright.txt in the distribution for a
+ * full listing of individual contributors. 
+ * This copyrighted material is made available to anyone wishing to use,
+ * modify, copy, or redistribute it subject to the terms and conditions
+ * of the GNU Lesser General Public License, v. 2.1.
+ * This program is distributed in the hope that it will be useful, but WITHOUT A 
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR A 
+ * PARTICULAR PURPOSE.  See the GNU Lesser General Public License for more details.
+ * You should have received a copy of the GNU Lesser General Public License,
+ * v.2.1 along with this distribution; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, 
+ * MA  02110-1301, USA.
+ * 
+ * (C) 1990-2008,
+ */
+
+package org.javasim.tests.internal;
+
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.Random;
+
+import org.javasim.internal.EventNotice;
+import org.javasim.internal.LadderQueue;
+import org.javasim.internal.SimulationProcessHeap;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class LadderQueueUnitTest
+{
+    @Test
+    public void testOrdering () throws Exception
+    {
+        LadderQueue queue = new LadderQueue();
+        EventNotice a = new EventNotice(null);
+        EventNotice b = new EventNotice(null);
+        EventNotice c = new EventNotice(null);
+        EventNotice d = new EventNotice(null);
+
+        queue.insert(a, 3.0);
+        queue.insert(b, 3.0);
+        queue.insert(c, 1.0);
+
+        assertEquals(queue.remove(), c);
+
+        queue.insert(d, 3.0, true);
+
+        assertTrue(d.isScheduled());
+        assertEquals(queue.remove(), d);
+
+        queue.remove(a);
+
+        assertFalse(a.isScheduled());
+        assertEquals(queue.remove(), b);
+        assertTrue(queue.isEmpty());
+    }
+
+    /*
+     * Run the same operations against a heap, with times drawn from a
+     * distribution with a very long tail and with bursts of identical times,
+     * and check that both queues give up their entries in the same order.
+     */
+
+    @Test
+    public void testSkewed () throws Exception
+    {
+        Random r = new Random(4321);
+        LadderQueue ladder = new LadderQueue();
+        SimulationProcessHeap heap = new SimulationProcessHeap();
+        IdentityHashMap<EventNotice, EventNotice> twins = new IdentityHashMap<EventNotice, EventNotice>();
+        ArrayList<EventNotice> scheduled = new ArrayList<EventNotice>();
+        boolean deeper = false;
+        double now = 0.0;
+
+        for (int i = 0; i < 200000; i++)
+        {
+            int op = r.nextInt(10);
+
+            if ((op < 5) || heap.isEmpty())
+            {
+                EventNotice n = new EventNotice(null);
+                EventNotice twin = new EventNotice(null);
+                double time;
+
+                if (op == 0)
+                    time = now;
+                else if (op == 1)
+                    time = now + 1000.0;
+                else
+                    time = now - ((r.nextInt(10) == 0) ? 10000.0 : 1.0) * Math.log(r.nextDouble());
+
+                boolean prior = r.nextBoolean();
+
+                ladder.insert(n, time, prior);
+                heap.insert(twin, time, prior);
+                twins.put(n, twin);
+                scheduled.add(n);
+            }
+            else if (op == 5)
+            {
+                int pos = r.nextInt(scheduled.size());
+                EventNotice n = scheduled.get(pos);
+
+                scheduled.set(pos, scheduled.get(scheduled.size() - 1));
+                scheduled.remove(scheduled.size() - 1);
+
+                ladder.remove(n);
+                heap.remove(twins.get(n));
+            }
+            else
+            {
+                EventNotice n = ladder.remove();
+
+                assertSame(twins.get(n), heap.remove());
+                assertTrue(n.evtime() >= now);
+
+                now = n.evtime();
+                scheduled.remove(n);
+            }
+
+            if (ladder.rungs() > 1)
+                deeper = true;
+
+            assertEquals(ladder.size(), heap.size());
+        }
+
+        assertTrue(deeper);
+
+        while (!heap.isEmpty())
+            assertSame(twins.get(ladder.remove()), heap.remove());
+    }
+}
@@ -0,0 +1,56 @@
+/*
+ * Copyright 1990-2008, Mark Little, University of Newcastle upon Tyne
+ * and others contributors as indicated 
+ * by the @authors tag. All rights reserved. 
+ * See the copyright.txt in the distribution for a
+ * full listing of individual contributors. 
+ * This copyrighted material is made available to anyone wishing to use,
+ * modify, copy, or redistribute it subject to the terms and conditions
+ * of the GNU Lesser General Public License, v. 2.1.
+ * This program is distributed in the hope that it will be useful, but WITHOUT A 
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR A 
+ * PARTICULAR PURPOSE.  See the GNU Lesser General Public License for more details.
+ * You should have received a copy of the GNU Lesser General Public License,
+ * v.2.1 along with this distribution; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, 
+ * MA  02110-1301, USA.
+ * 
+ * (C) 1990-2008,
+ */
+
+package org.javasim.tests.internal;
+
+import org.javasim.internal.EventNotice;
+import org.javasim.internal.OrderedListQueue;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class OrderedListQueueUnitTest
+{
+    @Test
+    public void test () throws Exception
+    {
+        OrderedListQueue queue = new OrderedListQueue();
+        EventNotice a = new EventNotice(null);
+        EventNotice b = new EventNotice(null);
+        EventNotice c = new EventNotice(null);
+        EventNotice d = new EventNotice(null);
+
+        queue.insert(a, 5.0);
+        queue.insert(b, 1.0);
+        queue.insert(c, 5.0, true);
+
+        assertTrue(queue.insertAfter(d, c));
+        assertEquals(queue.size(), 4);
+        assertEquals(queue.getNext(b), c);
+
+        queue.remove(c);
+
+        assertFalse(c.isScheduled());
+        assertEquals(queue.remove(), b);
+        assertEquals(queue.remove(), d);
+        assertEquals(queue.remove(), a);
+        assertEquals(queue.first(), null);
+    }
+}
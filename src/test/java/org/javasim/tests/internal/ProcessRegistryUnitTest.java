@@ -0,0 +1,91 @@
+/*
+ * Copyright 1990-2008, Mark Little, University of Newcastle upon Tyne
+ * and others contributors as indicated 
+ * by the @authors tag. All rights reserved. 
+ * See the copyright.txt in the distribution for a
+ * full listing of individual contributors. 
+ * This copyrighted material is made available to anyone wishing to use,
+ * modify, copy, or redistribute it subject to the terms and conditions
+ * of the GNU Lesser General Public License, v. 2.1.
+ * This program is distributed in the hope that it will be useful, but WITHOUT A 
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR A 
+ * PARTICULAR PURPOSE.  See the GNU Lesser General Public License for more details.
+ * You should have received a copy of the GNU Lesser General Public License,
+ * v.2.1 along with this distribution; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, 
+ * MA  02110-1301, USA.
+ * 
+ * (C) 1990-2008,
+ */
+
+
+package org.javasim.tests.internal;
+
+import java.util.List;
+
+import org.javasim.SimulationProcess;
+import org.javasim.internal.ProcessRegistry;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class ProcessRegistryUnitTest
+{
+    static class Idle extends SimulationProcess
+    {
+        public void run ()
+        {
+        }
+    }
+
+    @Test
+    public void test () throws Exception
+    {
+        ProcessRegistry registry = new ProcessRegistry();
+        Idle p1 = new Idle();
+        Idle p2 = new Idle();
+        Idle p3 = new Idle();
+        ProcessRegistry.Entry e1 = registry.insert(p1);
+        ProcessRegistry.Entry e2 = registry.insert(p2);
+        ProcessRegistry.Entry e3 = registry.insert(p3);
+
+        assertEquals(3, registry.size());
+
+        registry.remove(e2);
+        registry.remove(e2);
+        new ProcessRegistry().remove(e1);
+
+        List<SimulationProcess> processes = registry.toList();
+
+        assertEquals(2, registry.size());
+        assertSame(p1, processes.get(0));
+        assertSame(p3, processes.get(1));
+
+        registry.remove(e1);
+        registry.remove(e3);
+
+        assertEquals(0, registry.size());
+        assertTrue(registry.toList().isEmpty());
+    }
+
+    @Test
+    public void testCollected () throws Exception
+    {
+        ProcessRegistry registry = new ProcessRegistry();
+        Idle kept = new Idle();
+
+        registry.insert(kept);
+
+        for (int i = 0; i < 100000; i++)
+            registry.insert(new Idle());
+
+        for (int i = 0; (i < 50) && (registry.size() > 1); i++)
+        {
+            System.gc();
+            Thread.sleep(10);
+        }
+
+        assertEquals(1, registry.size());
+        assertSame(kept, registry.toList().get(0));
+    }
+}
@@ -0,0 +1,131 @@
+/*
+ * Copyright 1990-2008, Mark Little, University of Newcastle upon Tyne
+ * and others contributors as indicated 
+ * by the @authors tag. All rights reserved. 
+ * See the copyright.txt in the distribution for a
+ * full listing of individual contributors. 
+ * This copyrighted material is made available to anyone wishing to use,
+ * modify, copy, or redistribute it subject to the terms and conditions
+ * of the GNU Lesser General Public License, v. 2.1.
+ * This program is distributed in the hope that it will be useful, but WITHOUT A 
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR A 
+ * PARTICULAR PURPOSE.  See the GNU Lesser General Public License for more details.
+ * You should have received a copy of the GNU Lesser General Public License,
+ * v.2.1 along with this distribution; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, 
+ * MA  02110-1301, USA.
+ * 
+ * (C) 1990-2008,
+ */
+
+
+package org.javasim.tests.internal;
+
+import java.util.ArrayList;
+import java.util.Random;
+
+import org.javasim.internal.EventNotice;
+import org.javasim.internal.EventQueue;
+
+import static org.junit.Assert.*;
+
+/**
+ * A simple sorted list which follows the same rules as
+ * SimulationProcessList, against which the other queues are checked by
+ * applying the same random inserts and removals to both.
+ */
+
+public final class QueueModel
+{
+    /**
+     * Chooses the time of each insert.
+     */
+
+    public interface Times
+    {
+        /**
+         * @param r the source of randomness.
+         * @param now the time of the last entry removed from the front.
+         * @return the time at which to insert the next entry.
+         */
+
+        double next (Random r, double now);
+    }
+
+    /**
+     * Run a random mix of inserts, with and without priority, removals of
+     * arbitrary entries and removals from the front, checking the queue
+     * against the list after each one and then draining both.
+     * 
+     * @param queue the queue to check, which must start empty.
+     * @param r the source of randomness.
+     * @param operations the number of operations.
+     * @param times chooses the time of each insert.
+     */
+
+    public static void check (EventQueue queue, Random r, int operations, Times times)
+    {
+        QueueModel model = new QueueModel();
+        double now = 0.0;
+
+        for (int i = 0; i < operations; i++)
+        {
+            int op = r.nextInt(5);
+
+            if ((op < 3) || model.entries.isEmpty())
+            {
+                EventNotice n = new EventNotice(null);
+                double time = times.next(r, now);
+                boolean prior = r.nextBoolean();
+
+                model.insert(n, time, prior);
+                queue.insert(n, time, prior);
+            }
+            else if (op == 3)
+            {
+                int pos = r.nextInt(model.entries.size());
+
+                assertEquals(queue.remove(model.entries.remove(pos)).evtime(), model.times.remove(pos), 0.0);
+            }
+            else
+            {
+                assertEquals(queue.first(), model.entries.get(0));
+                assertEquals(queue.remove(), model.entries.remove(0));
+
+                now = model.times.remove(0);
+            }
+
+            assertEquals(queue.size(), model.entries.size());
+        }
+
+        while (!model.entries.isEmpty())
+            assertEquals(queue.remove(), model.entries.remove(0));
+
+        assertTrue(queue.isEmpty());
+    }
+
+    private QueueModel ()
+    {
+    }
+
+    /*
+     * A prior entry goes before any others at the same time, and any
+     * other after them.
+     */
+
+    private void insert (EventNotice n, double time, boolean prior)
+    {
+        int pos = 0;
+
+        while ((pos < times.size())
+                && (prior ? (times.get(pos) < time) : (times.get(pos) <= time)))
+            pos++;
+
+        entries.add(pos, n);
+        times.add(pos, time);
+    }
+
+    private final ArrayList<EventNotice> entries = new ArrayList<EventNotice>();
+
+    private final ArrayList<Double> times = new ArrayList<Double>();
+}
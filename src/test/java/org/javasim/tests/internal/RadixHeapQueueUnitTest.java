@@ -0,0 +1,108 @@
+/*
+ * Copyright 1990-2008, Mark Little, University of Newcastle upon Tyne
+ * and others contributors as indicated 
+ * by the @authors tag. All rights reserved. 
+ * See the copyright.txt in the distribution for a
+ * full listing of individual contributors. 
+ * This copyrighted material is made available to anyone wishing to use,
+ * modify, copy, or redistribute it subject to the terms and conditions
+ * of the GNU Lesser General Public License, v. 2.1.
+ * This program is distributed in the hope that it will be useful, but WITHOUT A 
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR A 
+ * PARTICULAR PURPOSE.  See the GNU Lesser General Public License for more details.
+ * You should have received a copy of the GNU Lesser General Public License,
+ * v.2.1 along with this distribution; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, 
+ * MA  02110-1301, USA.
+ * 
+ * (C) 1990-2008,
+ */
+
+package org.javasim.tests.internal;
+
+import java.util.NoSuchElementException;
+import java.util.Random;
+
+import org.javasim.internal.EventNotice;
+import org.javasim.internal.RadixHeapQueue;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class RadixHeapQueueUnitTest
+{
+    @Test
+    public void testOrdering () throws Exception
+    {
+        RadixHeapQueue queue = new RadixHeapQueue(1.0);
+        EventNotice a = new EventNotice(null);
+        EventNotice b = new EventNotice(null);
+        EventNotice c = new EventNotice(null);
+        EventNotice d = new EventNotice(null);
+        EventNotice e = new EventNotice(null);
+
+        try
+        {
+            queue.remove();
+
+            fail();
+        }
+        catch (final NoSuchElementException ex)
+        {
+        }
+
+        queue.insert(a, 10.0);
+        queue.insert(b, 10.0);
+        queue.insert(c, 10.0, true);
+        queue.insert(d, 1000.0);
+
+        assertTrue(queue.insertBefore(e, b));
+        assertEquals(queue.first(), c);
+        assertEquals(queue.getNext(a), e);
+
+        assertEquals(queue.remove(), c);
+        assertEquals(queue.remove(), a);
+        assertEquals(queue.remove(), e);
+        assertEquals(queue.remove(), b);
+        assertEquals(queue.remove(), d);
+        assertTrue(queue.isEmpty());
+    }
+
+    /*
+     * After a reset the clock goes back to zero, so the queue has to start
+     * again from an earlier tick.
+     */
+
+    @Test
+    public void testRebuild () throws Exception
+    {
+        RadixHeapQueue queue = new RadixHeapQueue(0.5);
+        EventNotice a = new EventNotice(null);
+        EventNotice b = new EventNotice(null);
+        EventNotice c = new EventNotice(null);
+
+        queue.insert(a, 100.0);
+        queue.insert(b, 200.0);
+
+        assertEquals(queue.remove(), a);
+
+        queue.insert(c, 1.5);
+
+        assertEquals(queue.first(), c);
+        assertEquals(queue.remove(), c);
+        assertEquals(queue.remove(), b);
+    }
+
+    /*
+     * Compare against the sorted list of QueueModel, which follows the same
+     * rules as SimulationProcessList, with whole-tick times spread over
+     * several orders of magnitude.
+     */
+
+    @Test
+    public void testRandom () throws Exception
+    {
+        QueueModel.check(new RadixHeapQueue(1.0), new Random(2468), 50000,
+                (r, now) -> now + ((r.nextInt(3) == 0) ? 0.0 : Math.floor(Math.pow(10, r.nextInt(12)) * r.nextDouble())));
+    }
+}
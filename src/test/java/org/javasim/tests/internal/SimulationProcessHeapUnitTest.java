@@ -0,0 +1,108 @@
+/*
+ * Copyright 1990-2008, Mark Little, University of Newcastle upon Tyne
+ * and others contributors as indicated 
+ * by the @authors tag. All rights reserved. 
+ * See the copyright.txt in the distribution for a
+ * full listing of individual contributors. 
+ * This copyrighted material is made available to anyone wishing to use,
+ * modify, copy, or redistribute it subject to the terms and conditions
+ * of the GNU Lesser General Public License, v. 2.1.
+ * This program is distributed in the hope that it will be useful, but WITHOUT A 
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR A 
+ * PARTICULAR PURPOSE.  See the GNU Lesser General Public License for more details.
+ * You should have received a copy of the GNU Lesser General Public License,
+ * v.2.1 along with this distribution; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, 
+ * MA  02110-1301, USA.
+ * 
+ * (C) 1990-2008,
+ */
+
+package org.javasim.tests.internal;
+
+import java.util.NoSuchElementException;
+import java.util.Random;
+
+import org.javasim.internal.EventNotice;
+import org.javasim.internal.SimulationProcessHeap;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class SimulationProcessHeapUnitTest
+{
+    @Test
+    public void testOrdering () throws Exception
+    {
+        SimulationProcessHeap heap = new SimulationProcessHeap();
+        EventNotice a = new EventNotice(null);
+        EventNotice b = new EventNotice(null);
+        EventNotice c = new EventNotice(null);
+        EventNotice d = new EventNotice(null);
+        EventNotice e = new EventNotice(null);
+
+        try
+        {
+            heap.remove();
+
+            fail();
+        }
+        catch (final NoSuchElementException ex)
+        {
+        }
+
+        heap.insert(a, 1.0);
+        heap.insert(b, 1.0);
+        heap.insert(c, 1.0, true);
+        heap.insert(d, 0.5);
+
+        assertTrue(heap.insertAfter(e, c));
+        assertEquals(heap.size(), 5);
+        assertEquals(heap.getNext(c), e);
+        assertEquals(heap.getNext(b), null);
+
+        assertEquals(heap.remove(), d);
+        assertEquals(heap.remove(), c);
+        assertEquals(heap.remove(), e);
+        assertEquals(heap.remove(), a);
+        assertEquals(heap.remove(), b);
+        assertTrue(heap.isEmpty());
+        assertFalse(a.isScheduled());
+    }
+
+    @Test
+    public void testInsertBefore () throws Exception
+    {
+        SimulationProcessHeap heap = new SimulationProcessHeap(1);
+        EventNotice a = new EventNotice(null);
+        EventNotice b = new EventNotice(null);
+        EventNotice c = new EventNotice(null);
+        EventNotice d = new EventNotice(null);
+
+        assertFalse(heap.insertBefore(b, a));
+
+        heap.insert(a, 2.0);
+        heap.insert(b, 2.0);
+
+        assertTrue(heap.insertBefore(c, b));
+        assertEquals(c.evtime(), 2.0, 0.0);
+
+        heap.insert(d, 2.0);
+
+        assertEquals(heap.remove(), a);
+        assertEquals(heap.remove(), c);
+        assertEquals(heap.remove(), b);
+        assertEquals(heap.remove(), d);
+    }
+
+    /*
+     * Compare against the sorted list of QueueModel, which follows the same
+     * rules as SimulationProcessList.
+     */
+
+    @Test
+    public void testRandom () throws Exception
+    {
+        QueueModel.check(new SimulationProcessHeap(), new Random(1234), 20000, (r, now) -> r.nextInt(50));
+    }
+}
@@ -0,0 +1,122 @@
+/*
+ * Copyright 1990-2008, Mark Little, University of Newcastle upon Tyne
+ * and others contributors as indicated 
+ * by the @authors tag. All rights reserved. 
+ * See the copyright.txt in the distribution for a
+ * full listing of individual contributors. 
+ * This copyrighted material is made available to anyone wishing to use,
+ * modify, copy, or redistribute it subject to the terms and conditions
+ * of the GNU Lesser General Public License, v. 2.1.
+ * This program is distributed in the hope that it will be useful, but WITHOUT A 
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR A 
+ * PARTICULAR PURPOSE.  See the GNU Lesser General Public License for more details.
+ * You should have received a copy of the GNU Lesser General Public License,
+ * v.2.1 along with this distribution; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, 
+ * MA  02110-1301, USA.
+ * 
+ * (C) 1990-2008,
+ */
+
+package org.javasim.tests.internal;
+
+import java.util.NoSuchElementException;
+import java.util.Random;
+
+import org.javasim.internal.EventNotice;
+import org.javasim.internal.SimulationProcessHeap;
+import org.javasim.internal.TimerWheelQueue;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class TimerWheelQueueUnitTest
+{
+    @Test
+    public void testOrdering () throws Exception
+    {
+        TimerWheelQueue queue = new TimerWheelQueue(new SimulationProcessHeap(), 1.0);
+        EventNotice a = new EventNotice(null);
+        EventNotice b = new EventNotice(null);
+        EventNotice c = new EventNotice(null);
+        EventNotice d = new EventNotice(null);
+        EventNotice e = new EventNotice(null);
+
+        try
+        {
+            queue.remove();
+
+            fail();
+        }
+        catch (final NoSuchElementException ex)
+        {
+        }
+
+        queue.insert(a, 10.0);
+        queue.insert(b, 10.0);
+        queue.insert(c, 10.0, true);
+        queue.insert(d, 1000.5);
+
+        assertEquals(4, queue.wheeled());
+
+        assertTrue(queue.insertBefore(e, b));
+        assertEquals(queue.first(), c);
+        assertEquals(queue.getNext(a), e);
+
+        assertEquals(queue.remove(), c);
+        assertEquals(queue.remove(), a);
+        assertEquals(queue.remove(), e);
+        assertEquals(queue.remove(), b);
+        assertEquals(queue.remove(), d);
+        assertTrue(queue.isEmpty());
+    }
+
+    /*
+     * Timeouts which are cancelled never reach the queue behind.
+     */
+
+    @Test
+    public void testCancel () throws Exception
+    {
+        TimerWheelQueue queue = new TimerWheelQueue(new SimulationProcessHeap(), 0.5);
+        EventNotice[] timeouts = new EventNotice[1000];
+        EventNotice work = new EventNotice(null);
+
+        for (int i = 0; i < timeouts.length; i++)
+        {
+            timeouts[i] = new EventNotice(null);
+
+            queue.insert(timeouts[i], 1.0 + i * 10.0);
+        }
+
+        assertEquals(1000, queue.wheeled());
+
+        for (int i = 0; i < timeouts.length; i++)
+        {
+            if (i % 100 != 0)
+                queue.remove(timeouts[i]);
+        }
+
+        queue.insert(work, 500.0);
+
+        assertEquals(11, queue.size());
+        assertEquals(queue.remove(), timeouts[0]);
+        assertEquals(0, queue.queue().size());
+        assertEquals(queue.remove(), work);
+        assertEquals(queue.remove(), timeouts[100]);
+        assertEquals(8, queue.wheeled());
+    }
+
+    /*
+     * Compare against the sorted list of QueueModel, which follows the same
+     * rules as SimulationProcessList, with times spread from within a tick
+     * to beyond the end of the wheel.
+     */
+
+    @Test
+    public void testRandom () throws Exception
+    {
+        QueueModel.check(new TimerWheelQueue(new SimulationProcessHeap(), 0.25), new Random(4321), 50000,
+                (r, now) -> now + ((r.nextInt(3) == 0) ? 0.0 : Math.pow(10, r.nextInt(9) - 1) * r.nextDouble()));
+    }
+}
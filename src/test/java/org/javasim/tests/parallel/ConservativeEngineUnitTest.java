@@ -0,0 +1,160 @@
+/*
+ * Copyright 1990-2008, Mark Little, University of Newcastle upon Tyne
+ * and others contributors as indicated 
+ * by the @authors tag. All rights reserved. 
+ * See the copyright.txt in the distribution for a
+ * full listing of individual contributors. 
+ * This copyrighted material is made available to anyone wishing to use,
+ * modify, copy, or redistribute it subject to the terms and conditions
+ * of the GNU Lesser General Public License, v. 2.1.
+ * This program is distributed in the hope that it will be useful, but WITHOUT A 
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR A 
+ * PARTICULAR PURPOSE.  See the GNU Lesser General Public License for more details.
+ * You should have received a copy of the GNU Lesser General Public License,
+ * v.2.1 along with this distribution; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, 
+ * MA  02110-1301, USA.
+ * 
+ * (C) 1990-2008,
+ */
+
+
+package org.javasim.tests.parallel;
+
+import org.javasim.SimulationException;
+import org.javasim.parallel.ConservativeEngine;
+import org.javasim.parallel.Engine;
+import org.javasim.parallel.LogicalProcess;
+import org.javasim.parallel.Message;
+import org.javasim.parallel.SequentialEngine;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class ConservativeEngineUnitTest
+{
+    /*
+     * PHOLD with a minimum delay of LOOKAHEAD, or with every delay a fixed
+     * multiple of it, so that many messages arrive at the same time.
+     */
+
+    static class Phold extends LogicalProcess
+    {
+        public Phold (int size)
+        {
+            this(size, 0.0);
+        }
+
+        public Phold (int size, double fixed)
+        {
+            this.size = size;
+            this.fixed = fixed;
+        }
+
+        protected void startup () throws SimulationException
+        {
+            for (int i = 0; i < 4; i++)
+                send(identity(), (fixed > 0.0) ? fixed * (i + 1) : random(), null);
+        }
+
+        protected void handle (Message message) throws SimulationException
+        {
+            count++;
+            checksum = checksum * 31 + message.source();
+            checksum = checksum * 31 + Double.doubleToLongBits(message.time());
+
+            send((int) (random() * size), (fixed > 0.0) ? fixed : LOOKAHEAD - Math.log(1.0 - random()), null);
+        }
+
+        long count = 0;
+
+        long checksum = 0L;
+
+        private final int size;
+
+        private final double fixed;
+    }
+
+    static Engine run (Engine engine, double fixed) throws Exception
+    {
+        for (int i = 0; i < PROCESSES; i++)
+            engine.add(new Phold(PROCESSES, fixed));
+
+        engine.run(END);
+
+        return engine;
+    }
+
+    static void compare (double fixed) throws Exception
+    {
+        Engine sequential = run(new SequentialEngine(), fixed);
+
+        for (int partitions = 1; partitions <= 4; partitions++)
+        {
+            Engine conservative = run(new ConservativeEngine(partitions, LOOKAHEAD, 4), fixed);
+
+            assertEquals(sequential.committedEvents(), conservative.committedEvents());
+
+            for (int i = 0; i < PROCESSES; i++)
+            {
+                Phold expected = (Phold) sequential.getProcess(i);
+                Phold actual = (Phold) conservative.getProcess(i);
+
+                assertEquals(expected.count, actual.count);
+                assertEquals(expected.checksum, actual.checksum);
+            }
+        }
+
+        assertTrue(sequential.committedEvents() > 10000);
+    }
+
+    @Test
+    public void test () throws Exception
+    {
+        compare(0.0);
+    }
+
+    /*
+     * With a fixed delay messages tie in time all the time, and both engines
+     * must handle them in the order of Message.
+     */
+
+    @Test
+    public void testTies () throws Exception
+    {
+        compare(LOOKAHEAD);
+    }
+
+    @Test
+    public void testLookahead () throws Exception
+    {
+        Engine engine = new ConservativeEngine(2, LOOKAHEAD);
+
+        for (int i = 0; i < 2; i++)
+        {
+            engine.add(new Phold(2)
+            {
+                protected void handle (Message message) throws SimulationException
+                {
+                    send(1 - identity(), LOOKAHEAD / 2, null);
+                }
+            });
+        }
+
+        try
+        {
+            engine.run(END);
+
+            fail();
+        }
+        catch (final SimulationException ex)
+        {
+        }
+    }
+
+    private static final int PROCESSES = 16;
+
+    private static final double LOOKAHEAD = 0.5;
+
+    private static final double END = 400.0;
+}
@@ -0,0 +1,188 @@
+/*
+ * Copyright 1990-2008, Mark Little, University of Newcastle upon Tyne
+ * and others contributors as indicated 
+ * by the @authors tag. All rights reserved. 
+ * See the copyright.txt in the distribution for a
+ * full listing of individual contributors. 
+ * This copyrighted material is made available to anyone wishing to use,
+ * modify, copy, or redistribute it subject to the terms and conditions
+ * of the GNU Lesser General Public License, v. 2.1.
+ * This program is distributed in the hope that it will be useful, but WITHOUT A 
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR A 
+ * PARTICULAR PURPOSE.  See the GNU Lesser General Public License for more details.
+ * You should have received a copy of the GNU Lesser General Public License,
+ * v.2.1 along with this distribution; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, 
+ * MA  02110-1301, USA.
+ * 
+ * (C) 1990-2008,
+ */
+
+
+package org.javasim.tests.parallel;
+
+import org.javasim.SimulationException;
+import org.javasim.parallel.Engine;
+import org.javasim.parallel.LogicalProcess;
+import org.javasim.parallel.Message;
+import org.javasim.parallel.SequentialEngine;
+import org.javasim.parallel.TimeWarpEngine;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class TimeWarpEngineUnitTest
+{
+    /*
+     * PHOLD: each message is passed on to a random logical process after
+     * an exponential delay, or after a fixed one, so that many messages
+     * arrive at the same time.
+     */
+
+    static class Phold extends LogicalProcess
+    {
+        public Phold (int size)
+        {
+            this(size, 0.0);
+        }
+
+        public Phold (int size, double fixed)
+        {
+            this.size = size;
+            this.fixed = fixed;
+        }
+
+        protected void startup () throws SimulationException
+        {
+            for (int i = 0; i < 4; i++)
+                send(identity(), (fixed > 0.0) ? fixed * (i + 1) : 0.1 + random(), null);
+        }
+
+        protected void handle (Message message) throws SimulationException
+        {
+            count++;
+            checksum = checksum * 31 + message.source();
+            checksum = checksum * 31 + Double.doubleToLongBits(message.time());
+
+            send((int) (random() * size), (fixed > 0.0) ? fixed : 0.1 - Math.log(1.0 - random()), null);
+        }
+
+        protected Object saveState ()
+        {
+            return new long[] { count, checksum };
+        }
+
+        protected void restoreState (Object state)
+        {
+            count = ((long[]) state)[0];
+            checksum = ((long[]) state)[1];
+        }
+
+        long count = 0;
+
+        long checksum = 0L;
+
+        private final int size;
+
+        private final double fixed;
+    }
+
+    static Engine run (Engine engine, double fixed) throws Exception
+    {
+        for (int i = 0; i < PROCESSES; i++)
+            engine.add(new Phold(PROCESSES, fixed));
+
+        engine.run(END);
+
+        return engine;
+    }
+
+    static void compare (double fixed) throws Exception
+    {
+        Engine sequential = run(new SequentialEngine(), fixed);
+
+        for (int threads = 1; threads <= 4; threads++)
+        {
+            Engine optimistic = run(new TimeWarpEngine(threads, 16), fixed);
+
+            assertEquals(sequential.committedEvents(), optimistic.committedEvents());
+
+            for (int i = 0; i < PROCESSES; i++)
+            {
+                Phold expected = (Phold) sequential.getProcess(i);
+                Phold actual = (Phold) optimistic.getProcess(i);
+
+                assertEquals(expected.count, actual.count);
+                assertEquals(expected.checksum, actual.checksum);
+            }
+        }
+
+        assertTrue(sequential.committedEvents() > 10000);
+    }
+
+    @Test
+    public void test () throws Exception
+    {
+        compare(0.0);
+    }
+
+    /*
+     * With a fixed delay messages tie in time all the time, and the
+     * committed results must still match the sequential run.
+     */
+
+    @Test
+    public void testTies () throws Exception
+    {
+        compare(0.5);
+    }
+
+    @Test
+    public void testInvalid () throws Exception
+    {
+        final Engine engine = new TimeWarpEngine(2);
+        LogicalProcess process = new Phold(1)
+        {
+            protected void handle (Message message) throws SimulationException
+            {
+                send(identity(), 0.0, null);
+            }
+        };
+
+        engine.add(process);
+
+        try
+        {
+            engine.add(process);
+
+            fail();
+        }
+        catch (final SimulationException ex)
+        {
+        }
+
+        try
+        {
+            engine.run(END);
+
+            fail();
+        }
+        catch (final SimulationException ex)
+        {
+        }
+
+        try
+        {
+            engine.run(END);
+
+            fail();
+        }
+        catch (final SimulationException ex)
+        {
+        }
+    }
+
+    private static final int PROCESSES = 16;
+
+    private static final double END = 200.0;
+}
@@ -47,4 +47,21 @@ public class HistogramUnitTest
         
         assertEquals(hist.numberOfBuckets(), (long) 2);
     }
+    
+    @Test
+    public void testMerge () throws Exception
+    {
+        Histogram a = new Histogram(2);
+        Histogram b = new Histogram(2);
+        
+        a.setValue(10.0);
+        a.setValue(20.0);
+        b.setValue(30.0);
+        b.setValue(40.0);
+        
+        a.merge(b);
+        
+        assertEquals(a.numberOfSamples(), 4);
+        assertTrue(a.numberOfBuckets() <= 2);
+    }
 }
@@ -56,4 +56,24 @@ public class MeanUnitTest
         
         assertTrue(theMean.max() == MAX);
     }
+    
+    @Test
+    public void testMerge () throws Exception
+    {
+        Mean a = new Mean();
+        Mean b = new Mean();
+        
+        a.setValue(1.0);
+        a.setValue(2.0);
+        b.setValue(6.0);
+        
+        a.merge(b);
+        a.merge(new Mean());
+        
+        assertEquals(a.numberOfSamples(), 3);
+        assertTrue(a.sum() == 9.0);
+        assertTrue(a.mean() == 3.0);
+        assertTrue(a.min() == 1.0);
+        assertTrue(a.max() == 6.0);
+    }
 }
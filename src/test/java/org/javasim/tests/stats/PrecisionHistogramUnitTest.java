@@ -50,4 +50,24 @@ public class PrecisionHistogramUnitTest
         
         assertEquals(hist.numberOfBuckets(), (long) 2);
     }
+    
+    @Test
+    public void testMerge () throws Exception
+    {
+        PrecisionHistogram a = new PrecisionHistogram();
+        PrecisionHistogram b = new PrecisionHistogram();
+        
+        a.setValue(10.0);
+        a.setValue(100.0);
+        b.setValue(100.0);
+        b.setValue(50.0);
+        
+        a.merge(b);
+        
+        assertEquals(a.numberOfBuckets(), (long) 3);
+        assertEquals(a.numberOfSamples(), 4);
+        assertTrue(a.sizeByName(100.0) == 2.0);
+        assertTrue(a.sizeByName(50.0) == 1.0);
+        assertTrue(a.sizeByIndex(1) == 1.0);
+    }
 }
@@ -55,4 +55,31 @@ public class SimpleHistogramUnitTest
         
         assertTrue(hist.Width() == 4.0);
     }
+    
+    @Test
+    public void testMerge () throws Exception
+    {
+        SimpleHistogram a = new SimpleHistogram(1.0, 100.0, 20);
+        SimpleHistogram b = new SimpleHistogram(1.0, 100.0, 20);
+        
+        a.setValue(10.0);
+        b.setValue(10.0);
+        b.setValue(100.0);
+        
+        a.merge(b);
+        
+        assertEquals(a.numberOfBuckets(), (long) 20);
+        assertTrue(a.sizeByName(10.0) == 2.0);
+        assertEquals(a.numberOfSamples(), 3);
+        
+        try
+        {
+            a.merge(new SimpleHistogram(1.0, 100.0, 10));
+            
+            fail();
+        }
+        catch (final IllegalArgumentException ex)
+        {
+        }
+    }
 }
@@ -21,6 +21,7 @@
 package org.javasim.tests.stats;
 
 import org.javasim.stats.TimeVariance;
+import org.javasim.stats.Variance;
 import org.junit.Test;
 
 import static org.junit.Assert.*;
@@ -55,5 +56,25 @@ public class TimeVarianceUnitTest
         vn.restoreState("target/variance.temp");
         
         assertTrue(v == vn.variance());
+
+        // only the sample statistics can be pooled
+
+        Variance pooled = new Variance();
+
+        pooled.merge(vn);
+
+        assertEquals(vn.numberOfSamples(), pooled.numberOfSamples());
+
+        vn.merge(new TimeVariance());
+
+        try
+        {
+            new TimeVariance().merge(vn);
+
+            fail();
+        }
+        catch (final IllegalArgumentException ex)
+        {
+        }
     }
 }
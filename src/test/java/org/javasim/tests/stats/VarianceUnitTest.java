@@ -20,6 +20,7 @@
 
 package org.javasim.tests.stats;
 
+import org.javasim.stats.Mean;
 import org.javasim.stats.Variance;
 import org.junit.Test;
 
@@ -50,4 +51,41 @@ public class VarianceUnitTest
         
         assertTrue(v == vn.variance());
     }
+    
+    @Test
+    public void testMerge () throws Exception
+    {
+        Variance all = new Variance();
+        Variance a = new Variance();
+        Variance b = new Variance();
+        
+        for (int i = 0; i < 10; i++)
+        {
+            all.setValue(i);
+            
+            if (i < 4)
+                a.setValue(i);
+            else
+                b.setValue(i);
+        }
+        
+        a.merge(b);
+        
+        assertEquals(a.numberOfSamples(), all.numberOfSamples());
+        assertEquals(a.variance(), all.variance(), 1e-12);
+        
+        Mean m = new Mean();
+        
+        m.setValue(1.0);
+        
+        try
+        {
+            a.merge(m);
+            
+            fail();
+        }
+        catch (final IllegalArgumentException ex)
+        {
+        }
+    }
 }
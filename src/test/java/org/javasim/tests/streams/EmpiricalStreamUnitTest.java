@@ -0,0 +1,181 @@
+/*
+ * Copyright 1990-2008, Mark Little, University of Newcastle upon Tyne
+ * and others contributors as indicated 
+ * by the @authors tag. All rights reserved. 
+ * See the copyright.txt in the distribution for a
+ * full listing of individual contributors. 
+ * This copyrighted material is made available to anyone wishing to use,
+ * modify, copy, or redistribute it subject to the terms and conditions
+ * of the GNU Lesser General Public License, v. 2.1.
+ * This program is distributed in the hope that it will be useful, but WITHOUT A 
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR A 
+ * PARTICULAR PURPOSE.  See the GNU Lesser General Public License for more details.
+ * You should have received a copy of the GNU Lesser General Public License,
+ * v.2.1 along with this distribution; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, 
+ * MA  02110-1301, USA.
+ * 
+ * (C) 1990-2008,
+ */
+
+package org.javasim.tests.streams;
+
+import java.util.Arrays;
+
+import org.javasim.SimulationContext;
+import org.javasim.streams.EmpiricalStream;
+import org.javasim.streams.XoshiroGenerator;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class EmpiricalStreamUnitTest
+{
+    @Test
+    public void test () throws Exception
+    {
+        EmpiricalStream str = new EmpiricalStream(new double[] { 1.0, 2.0, 3.0 }, new double[] { 0.2, 0.0, 0.8 }, 1000, 772532, 1878892441);
+
+        assertEquals(3, str.size());
+        assertEquals(0.2, str.probability(0), 1e-12);
+
+        for (int i = 0; i < 1000; i++)
+        {
+            double v = str.getNumber();
+
+            assertTrue((v == 1.0) || (v == 3.0));
+        }
+
+        double[][] invalid = { {}, { 0.0, 0.0 }, { 1.0, -1.0 }, { 1.0, Double.NaN }, { Double.POSITIVE_INFINITY } };
+
+        for (double[] weights : invalid)
+        {
+            try
+            {
+                new EmpiricalStream(weights);
+
+                fail();
+            }
+            catch (final IllegalArgumentException ex)
+            {
+            }
+        }
+
+        // weights whose sum overflows still give the right probabilities
+
+        EmpiricalStream large = new EmpiricalStream(new double[] { Double.MAX_VALUE, Double.MAX_VALUE, 0.0, Double.MAX_VALUE / 2.0 });
+
+        assertEquals(0.4, large.probability(0), 1e-12);
+        assertEquals(0.0, large.probability(2), 0.0);
+        assertEquals(0.2, large.probability(3), 1e-12);
+
+        for (int i = 0; i < 1000; i++)
+            assertTrue(large.getNumber() != 2.0);
+
+        try
+        {
+            new EmpiricalStream(new double[] { 1.0 }, new double[] { 1.0, 2.0 });
+
+            fail();
+        }
+        catch (final IllegalArgumentException ex)
+        {
+        }
+    }
+
+    /*
+     * With 256 columns an 8-bit generator has no bits left over to decide
+     * between a column and its alias, so outcome 0, which fills a quarter
+     * of its column, would never come up were they not drawn separately.
+     */
+
+    @Test
+    public void testResolution () throws Exception
+    {
+        double[] weights = new double[256];
+
+        Arrays.fill(weights, 1.0);
+        weights[0] = 0.25;
+
+        EmpiricalStream s = new EmpiricalStream(weights);
+        int[] block = new int[256000];
+        int zeros = 0;
+
+        s.setGenerator(new ZigguratUnitTest.Coarse());
+        s.fillIndices(block, 0, block.length);
+
+        for (int i : block)
+        {
+            if (i == 0)
+                zeros++;
+        }
+
+        double expected = s.probability(0) * block.length;
+
+        assertEquals(expected, zeros, 5.0 * Math.sqrt(expected));
+    }
+
+    @Test
+    public void testFrequencies () throws Exception
+    {
+        XoshiroGenerator weighting = new XoshiroGenerator(3);
+        double[] weights = new double[300];
+
+        for (int i = 0; i < weights.length; i++)
+            weights[i] = (i % 7 == 0) ? 0.0 : weighting.uniform() * (i % 5 + 1);
+
+        EmpiricalStream s = create(weights);
+        int[] counts = new int[weights.length];
+        int[] block = new int[1000];
+
+        for (int n = 0; n < EmpiricalStreamUnitTest.SAMPLES / block.length; n++)
+        {
+            s.fillIndices(block, 0, block.length);
+
+            for (int i : block)
+                counts[i]++;
+        }
+
+        // compare each count with its expectation, within five sd
+
+        for (int i = 0; i < weights.length; i++)
+        {
+            double p = s.probability(i);
+            double expected = p * EmpiricalStreamUnitTest.SAMPLES;
+
+            if (p == 0.0)
+                assertEquals(0, counts[i]);
+            else
+                assertEquals(expected, counts[i], 5.0 * Math.sqrt(expected * (1.0 - p)));
+        }
+
+        // and the same numbers from each of the ways of drawing them
+
+        EmpiricalStream first = create(weights);
+        EmpiricalStream second = create(weights);
+        double[] numbers = new double[100];
+
+        second.fill(numbers, 0, numbers.length);
+
+        for (int i = 0; i < numbers.length; i++)
+            assertEquals((double) first.nextIndex(), numbers[i], 0.0);
+    }
+
+    private EmpiricalStream create (double[] weights)
+    {
+        SimulationContext previous = SimulationContext.bind(new SimulationContext());
+
+        try
+        {
+            SimulationContext.current().setGenerator(new XoshiroGenerator(41));
+
+            return new EmpiricalStream(weights);
+        }
+        finally
+        {
+            SimulationContext.bind(previous);
+        }
+    }
+
+    private static final int SAMPLES = 3000000;
+}
@@ -0,0 +1,146 @@
+/*
+ * Copyright 1990-2008, Mark Little, University of Newcastle upon Tyne
+ * and others contributors as indicated 
+ * by the @authors tag. All rights reserved. 
+ * See the copyright.txt in the distribution for a
+ * full listing of individual contributors. 
+ * This copyrighted material is made available to anyone wishing to use,
+ * modify, copy, or redistribute it subject to the terms and conditions
+ * of the GNU Lesser General Public License, v. 2.1.
+ * This program is distributed in the hope that it will be useful, but WITHOUT A 
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR A 
+ * PARTICULAR PURPOSE.  See the GNU Lesser General Public License for more details.
+ * You should have received a copy of the GNU Lesser General Public License,
+ * v.2.1 along with this distribution; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, 
+ * MA  02110-1301, USA.
+ * 
+ * (C) 1990-2008,
+ */
+
+package org.javasim.tests.streams;
+
+import java.util.Spliterator;
+
+import org.javasim.SimulationContext;
+import org.javasim.streams.ErlangStream;
+import org.javasim.streams.ExponentialStream;
+import org.javasim.streams.GammaStream;
+import org.javasim.streams.HyperExponentialStream;
+import org.javasim.streams.NormalStream;
+import org.javasim.streams.RandomStream;
+import org.javasim.streams.TriangularStream;
+import org.javasim.streams.UniformGenerator;
+import org.javasim.streams.UniformStream;
+import org.javasim.streams.XoshiroGenerator;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class FillUnitTest
+{
+    @Test
+    public void test () throws Exception
+    {
+        for (int kind = 0; kind < 8; kind++)
+        {
+            check(kind, new UniformGenerator(), new UniformGenerator());
+            check(kind, new XoshiroGenerator(11), new XoshiroGenerator(11));
+        }
+    }
+
+    @Test
+    public void testStreams () throws Exception
+    {
+        RandomStream s = create(1, new XoshiroGenerator(3));
+        RandomStream t = create(1, new XoshiroGenerator(3));
+        double[] all = s.doubles(5000).toArray();
+        Spliterator.OfDouble it = t.spliterator(5000);
+        final double[] one = new double[1];
+
+        assertEquals(5000, all.length);
+        assertEquals(5000L, it.estimateSize());
+        assertTrue(it.hasCharacteristics(Spliterator.SIZED));
+        assertNull(it.trySplit());
+
+        for (int i = 0; i < 5000; i++)
+        {
+            assertTrue(it.tryAdvance((double v) -> one[0] = v));
+            assertTrue(all[i] == one[0]);
+        }
+
+        assertFalse(it.tryAdvance((double v) -> fail()));
+
+        assertEquals(10.0, s.doubles().limit(100000).average().getAsDouble(), 0.2);
+
+        try
+        {
+            s.fill(new double[10], 5, 6);
+
+            fail();
+        }
+        catch (final IndexOutOfBoundsException ex)
+        {
+        }
+    }
+
+    /*
+     * The same numbers should come from getNumber and from fill, however
+     * the calls are split up.
+     */
+
+    private void check (int kind, UniformGenerator first, UniformGenerator second) throws Exception
+    {
+        RandomStream s = create(kind, first);
+        RandomStream t = create(kind, second);
+        double[] expected = new double[3001];
+        double[] actual = new double[3003];
+
+        for (int i = 0; i < expected.length; i++)
+            expected[i] = s.getNumber();
+
+        t.fill(actual, 1, 7);
+        t.fill(actual, 8, 1);
+        t.fill(actual, 9, 0);
+        t.fill(actual, 9, 2990);
+        actual[2999] = t.getNumber();
+        t.fill(actual, 3000, 2);
+
+        for (int i = 0; i < expected.length; i++)
+            assertTrue("stream " + kind + " at " + i, expected[i] == actual[i + 1]);
+    }
+
+    private RandomStream create (int kind, UniformGenerator generator) throws Exception
+    {
+        SimulationContext previous = SimulationContext.bind(new SimulationContext());
+
+        try
+        {
+            SimulationContext.current().setGenerator(generator);
+
+            switch (kind)
+            {
+            case 0:
+                return new UniformStream(2.0, 5.0);
+            case 1:
+                return new ExponentialStream(10.0);
+            case 2:
+                return new ErlangStream(10.0, 4.0);
+            case 3:
+                return new HyperExponentialStream(10.0, 15.0);
+            case 4:
+                return new NormalStream(10.0, 2.0);
+            case 5:
+                return new TriangularStream(1.0, 4.0, 2.0);
+            case 6:
+                return new ErlangStream(10.0, 0.5);
+            default:
+                return new GammaStream(2.5, 4.0);
+            }
+        }
+        finally
+        {
+            SimulationContext.bind(previous);
+        }
+    }
+}
@@ -0,0 +1,135 @@
+/*
+ * Copyright 1990-2008, Mark Little, University of Newcastle upon Tyne
+ * and others contributors as indicated 
+ * by the @authors tag. All rights reserved. 
+ * See the copyright.txt in the distribution for a
+ * full listing of individual contributors. 
+ * This copyrighted material is made available to anyone wishing to use,
+ * modify, copy, or redistribute it subject to the terms and conditions
+ * of the GNU Lesser General Public License, v. 2.1.
+ * This program is distributed in the hope that it will be useful, but WITHOUT A 
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR A 
+ * PARTICULAR PURPOSE.  See the GNU Lesser General Public License for more details.
+ * You should have received a copy of the GNU Lesser General Public License,
+ * v.2.1 along with this distribution; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, 
+ * MA  02110-1301, USA.
+ * 
+ * (C) 1990-2008,
+ */
+
+package org.javasim.tests.streams;
+
+import org.javasim.SimulationContext;
+import org.javasim.streams.ErlangStream;
+import org.javasim.streams.GammaStream;
+import org.javasim.streams.RandomStream;
+import org.javasim.streams.XoshiroGenerator;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class GammaStreamUnitTest
+{
+    @Test
+    public void test () throws Exception
+    {
+        GammaStream str = new GammaStream(2.5, 4.0, 1000, 772532, 1878892441);
+
+        assertEquals(2.5, str.shape(), 0.0);
+        assertEquals(4.0, str.scale(), 0.0);
+        assertTrue(str.getNumber() > 0.0);
+
+        double[] shapes = { 0.3, 1.0, 2.5, 400.0 };
+
+        for (double shape : shapes)
+        {
+            // mean shape * scale and variance shape * scale^2
+
+            GammaStream s = (GammaStream) bind(new XoshiroGenerator(17), shape);
+
+            check(s, shape * 2.0, Math.sqrt(shape) * 2.0);
+        }
+
+        try
+        {
+            new GammaStream(0.0, 1.0);
+
+            fail();
+        }
+        catch (final IllegalArgumentException ex)
+        {
+        }
+    }
+
+    @Test
+    public void testErlang () throws Exception
+    {
+        ErlangStream product = (ErlangStream) bind(new XoshiroGenerator(23), -1.0);
+        ErlangStream gamma = (ErlangStream) bind(new XoshiroGenerator(23), -1.0);
+
+        assertEquals(ErlangStream.DEFAULT_THRESHOLD, gamma.getThreshold());
+
+        product.setThreshold(Long.MAX_VALUE);
+
+        // k = 400, with and without the gamma method
+
+        check(product, 10.0, 0.5);
+        check(gamma, 10.0, 0.5);
+
+        // a shape so large that the product would underflow to zero
+
+        ErlangStream large = new ErlangStream(10.0, 0.1);
+
+        check(large, 10.0, 0.1);
+    }
+
+    private void check (RandomStream s, double mean, double sd) throws Exception
+    {
+        double[] x = new double[GammaStreamUnitTest.SAMPLES];
+        double sum = 0.0, squares = 0.0;
+
+        s.fill(x, 0, x.length);
+
+        for (double v : x)
+        {
+            assertTrue(v > 0.0);
+
+            sum += v;
+        }
+
+        double m = sum / x.length;
+
+        for (double v : x)
+            squares += (v - m) * (v - m);
+
+        assertEquals(mean, m, mean * 0.01);
+        assertEquals(sd, Math.sqrt(squares / (x.length - 1)), sd * 0.02);
+    }
+
+    /*
+     * A GammaStream with the given shape and scale 2, or an ErlangStream
+     * with k = 400 if the shape is negative.
+     */
+
+    private RandomStream bind (XoshiroGenerator generator, double shape)
+    {
+        SimulationContext previous = SimulationContext.bind(new SimulationContext());
+
+        try
+        {
+            SimulationContext.current().setGenerator(generator);
+
+            if (shape < 0.0)
+                return new ErlangStream(10.0, 0.5);
+
+            return new GammaStream(shape, 2.0);
+        }
+        finally
+        {
+            SimulationContext.bind(previous);
+        }
+    }
+
+    private static final int SAMPLES = 200000;
+}
@@ -0,0 +1,79 @@
+/*
+ * Copyright 1990-2008, Mark Little, University of Newcastle upon Tyne
+ * and others contributors as indicated 
+ * by the @authors tag. All rights reserved. 
+ * See the copyright.txt in the distribution for a
+ * full listing of individual contributors. 
+ * This copyrighted material is made available to anyone wishing to use,
+ * modify, copy, or redistribute it subject to the terms and conditions
+ * of the GNU Lesser General Public License, v. 2.1.
+ * This program is distributed in the hope that it will be useful, but WITHOUT A 
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR A 
+ * PARTICULAR PURPOSE.  See the GNU Lesser General Public License for more details.
+ * You should have received a copy of the GNU Lesser General Public License,
+ * v.2.1 along with this distribution; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, 
+ * MA  02110-1301, USA.
+ * 
+ * (C) 1990-2008,
+ */
+
+
+package org.javasim.tests.streams;
+
+import org.javasim.streams.UniformGenerator;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class UniformGeneratorUnitTest
+{
+    @Test
+    public void test () throws Exception
+    {
+        UniformGenerator a = new UniformGenerator(772531, 1878892440);
+        UniformGenerator b = new UniformGenerator();
+        UniformGenerator first = a.substream(1, 4);
+        UniformGenerator second = b.substream(1, 4);
+        UniformGenerator third = a.substream(2, 4);
+        boolean differ = false;
+
+        for (int i = 0; i < 1000; i++)
+        {
+            double v = a.uniform();
+
+            assertTrue((v >= 0.0) && (v < 1.0));
+            assertTrue(v == b.uniform());
+            assertTrue(first.uniform() == second.uniform());
+
+            if (v != third.uniform())
+                differ = true;
+        }
+
+        assertTrue(differ);
+
+        try
+        {
+            a.substream(4, 4);
+
+            fail();
+        }
+        catch (final IllegalArgumentException ex)
+        {
+        }
+    }
+
+    @Test
+    public void testCopy () throws Exception
+    {
+        UniformGenerator a = new UniformGenerator();
+
+        for (int i = 0; i < 100; i++)
+            a.uniform();
+
+        UniformGenerator b = new UniformGenerator(a);
+
+        for (int i = 0; i < 1000; i++)
+            assertTrue(a.uniform() == b.uniform());
+    }
+}
@@ -0,0 +1,171 @@
+/*
+ * Copyright 1990-2008, Mark Little, University of Newcastle upon Tyne
+ * and others contributors as indicated 
+ * by the @authors tag. All rights reserved. 
+ * See the copyright.txt in the distribution for a
+ * full listing of individual contributors. 
+ * This copyrighted material is made available to anyone wishing to use,
+ * modify, copy, or redistribute it subject to the terms and conditions
+ * of the GNU Lesser General Public License, v. 2.1.
+ * This program is distributed in the hope that it will be useful, but WITHOUT A 
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR A 
+ * PARTICULAR PURPOSE.  See the GNU Lesser General Public License for more details.
+ * You should have received a copy of the GNU Lesser General Public License,
+ * v.2.1 along with this distribution; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, 
+ * MA  02110-1301, USA.
+ * 
+ * (C) 1990-2008,
+ */
+
+package org.javasim.tests.streams;
+
+import java.util.HashSet;
+import java.util.Set;
+
+import org.javasim.SimulationContext;
+import org.javasim.streams.ExponentialStream;
+import org.javasim.streams.UniformGenerator;
+import org.javasim.streams.XoshiroGenerator;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class XoshiroGeneratorUnitTest
+{
+    @Test
+    public void test () throws Exception
+    {
+        XoshiroGenerator a = new XoshiroGenerator(1, 2, 3, 4);
+
+        // the reference output of xoshiro256**
+
+        assertEquals(11520L, a.nextLong());
+        assertEquals(0L, a.nextLong());
+        assertEquals(1509978240L, a.nextLong());
+        assertEquals(1215971899390074240L, a.nextLong());
+
+        XoshiroGenerator b = new XoshiroGenerator(42);
+
+        assertEquals(1546998764402558742L, b.nextLong());
+        assertEquals(6990951692964543102L, b.nextLong());
+        assertEquals(-5902157311460992607L, b.nextLong());
+
+        XoshiroGenerator c = new XoshiroGenerator(1, 2, 3, 4);
+
+        c.jump();
+
+        assertEquals(-4912596984176294952L, c.nextLong());
+
+        for (int i = 0; i < 10000; i++)
+        {
+            double v = b.uniform();
+
+            assertTrue((v > 0.0) && (v < 1.0));
+        }
+
+        try
+        {
+            new XoshiroGenerator(0, 0, 0, 0);
+
+            fail();
+        }
+        catch (final IllegalArgumentException ex)
+        {
+        }
+    }
+
+    @Test
+    public void testSplit () throws Exception
+    {
+        XoshiroGenerator a = new XoshiroGenerator();
+        UniformGenerator first = a.substream(1, 4);
+        UniformGenerator second = new XoshiroGenerator().substream(1, 4);
+        UniformGenerator third = a.substream(2, 4);
+        boolean differ = false;
+
+        for (int i = 0; i < 1000; i++)
+        {
+            double v = first.uniform();
+
+            assertTrue(v == second.uniform());
+
+            if (v != third.uniform())
+                differ = true;
+        }
+
+        assertTrue(differ);
+
+        // no two substreams, or streams selected in turn, share any word of
+        // their state, shifted or not
+
+        Set<Long> words = new HashSet<Long>();
+
+        for (int i = 0; i < 64; i++)
+        {
+            for (long w : ((XoshiroGenerator) a.substream(i, 64)).state())
+                assertTrue(words.add(w));
+
+            for (long w : ((XoshiroGenerator) a.copy().select(i + 1)).state())
+                assertTrue(words.add(w));
+        }
+
+        UniformGenerator copy = a.copy();
+
+        assertTrue(a.select(0) == a);
+        assertTrue(a.select(1) != a);
+
+        // splitting draws one number from the generator
+
+        copy.uniform();
+
+        for (int i = 0; i < 1000; i++)
+            assertTrue(a.uniform() == copy.uniform());
+    }
+
+    @Test
+    public void testStreams () throws Exception
+    {
+        SimulationContext previous = SimulationContext.bind(new SimulationContext());
+
+        try
+        {
+            SimulationContext.current().setGenerator(new XoshiroGenerator(7));
+
+            // selection does not depend on the index, so this is immediate
+
+            ExponentialStream s = new ExponentialStream(10.0, Integer.MAX_VALUE / 1000);
+            ExponentialStream t = new ExponentialStream(10.0, Integer.MAX_VALUE / 1000);
+            ExponentialStream u = new ExponentialStream(10.0);
+            double sum = 0.0;
+
+            assertTrue(s.getGenerator() != t.getGenerator());
+            assertTrue(u.getGenerator() == SimulationContext.current().getGenerator());
+
+            for (int i = 0; i < 100000; i++)
+            {
+                double v = s.getNumber();
+
+                assertTrue(v != t.getNumber());
+
+                sum += v;
+            }
+
+            assertEquals(10.0, sum / 100000, 0.2);
+
+            SimulationContext.current().setGenerator(new XoshiroGenerator(7));
+
+            ExponentialStream again = new ExponentialStream(10.0, Integer.MAX_VALUE / 1000);
+
+            again.getNumber();
+
+            s.setGenerator(again.getGenerator().copy());
+
+            assertTrue(s.getNumber() == again.getNumber());
+        }
+        finally
+        {
+            SimulationContext.bind(previous);
+        }
+    }
+}
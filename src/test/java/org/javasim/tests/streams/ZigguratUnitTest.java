@@ -0,0 +1,245 @@
+/*
+ * Copyright 1990-2008, Mark Little, University of Newcastle upon Tyne
+ * and others contributors as indicated 
+ * by the @authors tag. All rights reserved. 
+ * See the copyright.txt in the distribution for a
+ * full listing of individual contributors. 
+ * This copyrighted material is made available to anyone wishing to use,
+ * modify, copy, or redistribute it subject to the terms and conditions
+ * of the GNU Lesser General Public License, v. 2.1.
+ * This program is distributed in the hope that it will be useful, but WITHOUT A 
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR A 
+ * PARTICULAR PURPOSE.  See the GNU Lesser General Public License for more details.
+ * You should have received a copy of the GNU Lesser General Public License,
+ * v.2.1 along with this distribution; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, 
+ * MA  02110-1301, USA.
+ * 
+ * (C) 1990-2008,
+ */
+
+package org.javasim.tests.streams;
+
+import java.util.Arrays;
+
+import org.javasim.SimulationContext;
+import org.javasim.streams.ExponentialStream;
+import org.javasim.streams.NormalStream;
+import org.javasim.streams.UniformGenerator;
+import org.javasim.streams.XoshiroGenerator;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class ZigguratUnitTest
+{
+    @Test
+    public void testNormal () throws Exception
+    {
+        for (UniformGenerator generator : new UniformGenerator[] { new UniformGenerator(), new XoshiroGenerator(5) })
+        {
+            NormalStream s = normal(generator);
+            double[] x = new double[ZigguratUnitTest.SAMPLES];
+
+            s.fill(x, 0, x.length);
+
+            // the standard normal distribution function at 0, 1, 2 and 3
+
+            double[] points = { 0.0, 1.0, 2.0, 3.0 };
+            double[] expected = { 0.5, 0.8413447, 0.9772499, 0.9986501 };
+
+            for (int p = 0; p < points.length; p++)
+            {
+                int below = 0;
+
+                for (double v : x)
+                {
+                    if ((v - 10.0) / 2.0 < points[p])
+                        below++;
+                }
+
+                assertEquals(expected[p], (double) below / x.length, 0.002);
+            }
+
+            // and beyond the base of the ziggurat, at 3.44
+
+            int tail = 0;
+
+            for (double v : x)
+            {
+                if (Math.abs((v - 10.0) / 2.0) > 3.5)
+                    tail++;
+            }
+
+            assertEquals(4.65e-4, (double) tail / x.length, 1.5e-4);
+        }
+    }
+
+    @Test
+    public void testExponential () throws Exception
+    {
+        for (UniformGenerator generator : new UniformGenerator[] { new UniformGenerator(), new XoshiroGenerator(5) })
+        {
+            ExponentialStream s = exponential(generator);
+            double sum = 0.0;
+            int[] below = new int[4];
+            double[] points = { 0.5, 1.0, 3.0, 8.0 };
+
+            for (int i = 0; i < ZigguratUnitTest.SAMPLES; i++)
+            {
+                double v = s.getNumber() / 10.0;
+
+                assertTrue(v >= 0.0);
+
+                sum += v;
+
+                for (int p = 0; p < points.length; p++)
+                {
+                    if (v < points[p])
+                        below[p]++;
+                }
+            }
+
+            assertEquals(1.0, sum / ZigguratUnitTest.SAMPLES, 0.01);
+
+            for (int p = 0; p < points.length; p++)
+                assertEquals(1.0 - Math.exp(-points[p]), (double) below[p] / ZigguratUnitTest.SAMPLES, 0.002);
+        }
+    }
+
+    /*
+     * A generator with only 8 bits, which cannot give both the layer and
+     * the position across it from one number: were it asked to, every
+     * position would be in the middle of its layer.
+     */
+
+    static class Coarse extends UniformGenerator
+    {
+        public double uniform ()
+        {
+            return (Math.floor(super.uniform() * 256.0) + 0.5) / 256.0;
+        }
+
+        public int bits ()
+        {
+            return 8;
+        }
+    }
+
+    @Test
+    public void testResolution () throws Exception
+    {
+        NormalStream normal = normal(new Coarse());
+        ExponentialStream exponential = exponential(new Coarse());
+        double[] x = new double[ZigguratUnitTest.SAMPLES / 10];
+        double[] y = new double[ZigguratUnitTest.SAMPLES / 10];
+
+        normal.fill(x, 0, x.length);
+        exponential.fill(y, 0, y.length);
+
+        assertTrue(distinct(x) > 10000);
+        assertTrue(distinct(y) > 10000);
+        assertEquals(10.0, mean(x), 0.05);
+        assertEquals(10.0, mean(y), 0.1);
+    }
+
+    @Test
+    public void testMethod () throws Exception
+    {
+        assertEquals(NormalStream.Method.POLAR, new NormalStream(10.0, 2.0).getMethod());
+        assertEquals(ExponentialStream.Method.LOGARITHM, new ExponentialStream(10.0).getMethod());
+
+        NormalStream polar = normal(new XoshiroGenerator(9));
+        NormalStream ziggurat = normal(new XoshiroGenerator(9));
+        double[] x = new double[1001];
+
+        polar.setMethod(NormalStream.Method.POLAR);
+
+        // the ziggurat results are the same from getNumber and from fill
+
+        x[0] = ziggurat.getNumber();
+        ziggurat.fill(x, 1, 1000);
+
+        ziggurat = normal(new XoshiroGenerator(9));
+
+        for (int i = 0; i < x.length; i++)
+            assertTrue(x[i] == ziggurat.getNumber());
+
+        assertTrue(polar.getNumber() != x[0]);
+
+        ExponentialStream exponential = exponential(new XoshiroGenerator(9));
+
+        exponential.fill(x, 0, x.length);
+        exponential = exponential(new XoshiroGenerator(9));
+
+        for (int i = 0; i < x.length; i++)
+            assertTrue(x[i] == exponential.getNumber());
+    }
+
+    private NormalStream normal (UniformGenerator generator)
+    {
+        SimulationContext previous = SimulationContext.bind(new SimulationContext());
+
+        try
+        {
+            SimulationContext.current().setGenerator(generator);
+
+            NormalStream s = new NormalStream(10.0, 2.0);
+
+            s.setMethod(NormalStream.Method.ZIGGURAT);
+
+            return s;
+        }
+        finally
+        {
+            SimulationContext.bind(previous);
+        }
+    }
+
+    private ExponentialStream exponential (UniformGenerator generator)
+    {
+        SimulationContext previous = SimulationContext.bind(new SimulationContext());
+
+        try
+        {
+            SimulationContext.current().setGenerator(generator);
+
+            ExponentialStream s = new ExponentialStream(10.0);
+
+            s.setMethod(ExponentialStream.Method.ZIGGURAT);
+
+            return s;
+        }
+        finally
+        {
+            SimulationContext.bind(previous);
+        }
+    }
+
+    private static int distinct (double[] x)
+    {
+        int n = 1;
+
+        Arrays.sort(x);
+
+        for (int i = 1; i < x.length; i++)
+        {
+            if (x[i] != x[i - 1])
+                n++;
+        }
+
+        return n;
+    }
+
+    private static double mean (double[] x)
+    {
+        double sum = 0.0;
+
+        for (double v : x)
+            sum += v;
+
+        return sum / x.length;
+    }
+
+    private static final int SAMPLES = 1000000;
+}
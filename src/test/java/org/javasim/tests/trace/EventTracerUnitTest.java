@@ -0,0 +1,189 @@
+/*
+ * Copyright 1990-2008, Mark Little, University of Newcastle upon Tyne
+ * and others contributors as indicated 
+ * by the @authors tag. All rights reserved. 
+ * See the copyright.txt in the distribution for a
+ * full listing of individual contributors. 
+ * This copyrighted material is made available to anyone wishing to use,
+ * modify, copy, or redistribute it subject to the terms and conditions
+ * of the GNU Lesser General Public License, v. 2.1.
+ * This program is distributed in the hope that it will be useful, but WITHOUT A 
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR A 
+ * PARTICULAR PURPOSE.  See the GNU Lesser General Public License for more details.
+ * You should have received a copy of the GNU Lesser General Public License,
+ * v.2.1 along with this distribution; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, 
+ * MA  02110-1301, USA.
+ * 
+ * (C) 1990-2008,
+ */
+
+package org.javasim.tests.trace;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.stream.Stream;
+
+import org.javasim.Simulation;
+import org.javasim.SimulationContext;
+import org.javasim.SimulationEvent;
+import org.javasim.SimulationProcess;
+import org.javasim.trace.EventTracer;
+import org.javasim.trace.TraceReader;
+import org.javasim.trace.TraceRecord;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class EventTracerUnitTest
+{
+    static class Ticker extends SimulationProcess
+    {
+        public Ticker (double period)
+        {
+            this.period = period;
+        }
+
+        public void run ()
+        {
+            for (;;)
+            {
+                try
+                {
+                    hold(period);
+                }
+                catch (final Exception ex)
+                {
+                }
+            }
+        }
+
+        private final double period;
+    }
+
+    @Before
+    public void setUp () throws Exception
+    {
+        previous = SimulationContext.bind(new SimulationContext());
+        directory = Files.createTempDirectory("javasim-trace");
+    }
+
+    @After
+    public void tearDown () throws Exception
+    {
+        Simulation.setTracer(null);
+        Simulation.teardown();
+
+        SimulationContext.bind(previous);
+
+        try (Stream<Path> files = Files.list(directory))
+        {
+            for (Path p : (Iterable<Path>) files::iterator)
+                Files.delete(p);
+        }
+
+        Files.delete(directory);
+    }
+
+    @Test
+    public void testTrace () throws Exception
+    {
+        EventTracer tracer = new EventTracer(directory.resolve("run"));
+        Ticker fast = new Ticker(1);
+        Ticker slow = new Ticker(2);
+
+        Simulation.setTracer(tracer);
+
+        fast.activate();
+        slow.activateAt(0.5);
+        SimulationEvent early = Simulation.scheduleAt(3.25, () -> {});
+        SimulationEvent late = Simulation.scheduleAt(4.5, () -> {});
+
+        Simulation.runUntil(10.5);
+
+        tracer.close();
+
+        TraceReader reader = new TraceReader(directory.resolve("run"));
+        List<TraceRecord> records = reader.read(null);
+
+        assertEquals(tracer.count(), (long) records.size());
+
+        TraceRecord first = records.get(0);
+
+        assertEquals(EventTracer.Kind.ACTIVATE, first.kind());
+        assertEquals(fast.getId(), first.process());
+        assertEquals(0.5, records.get(1).at(), 0.0);
+
+        for (int i = 0; i < records.size(); i++)
+            assertEquals(i, records.get(i).sequence());
+
+        List<TraceRecord> resumes = reader.read(r -> (r.process() == fast.getId())
+                && (r.kind() == EventTracer.Kind.RESUME));
+
+        assertEquals(11, resumes.size());
+
+        for (int i = 0; i < resumes.size(); i++)
+            assertEquals((double) i, resumes.get(i).now(), 0.0);
+
+        assertEquals(5, reader.read(r -> (r.process() == slow.getId())
+                && (r.kind() == EventTracer.Kind.RESUME)).size());
+
+        List<TraceRecord> fired = reader.read(r -> r.kind() == EventTracer.Kind.FIRE);
+
+        assertEquals(2, fired.size());
+        assertEquals(3.25, fired.get(0).now(), 0.0);
+        assertEquals(early.getId(), fired.get(0).process());
+        assertEquals(late.getId(), fired.get(1).process());
+        assertTrue(early.getId() != late.getId());
+
+        List<TraceRecord> scheduled = reader.read(r -> r.kind() == EventTracer.Kind.SCHEDULE);
+
+        assertEquals(2, scheduled.size());
+        assertEquals(early.getId(), scheduled.get(0).process());
+        assertEquals(4.5, scheduled.get(1).at(), 0.0);
+    }
+
+    @Test
+    public void testRolling () throws Exception
+    {
+        EventTracer tracer = new EventTracer(directory.resolve("roll"), 100, 3);
+        Ticker ticker = new Ticker(1);
+
+        Simulation.setTracer(tracer);
+
+        ticker.activate();
+
+        Simulation.runUntil(1000);
+
+        tracer.close();
+
+        TraceReader reader = new TraceReader(directory.resolve("roll"));
+        List<Path> segments = reader.segments();
+
+        assertEquals(3, segments.size());
+        assertEquals(EventTracer.segment(directory.resolve("roll").toAbsolutePath(), 10), segments.get(2));
+
+        List<TraceRecord> records = reader.read(null);
+        TraceRecord last = records.get(records.size() - 1);
+
+        assertEquals((int) (tracer.count() - 1), last.sequence());
+        assertEquals(999.0, last.now(), 0.0);
+
+        for (int i = 1; i < records.size(); i++)
+            assertEquals(records.get(i - 1).sequence() + 1, records.get(i).sequence());
+
+        // a new trace with the same name starts afresh
+
+        new EventTracer(directory.resolve("roll"), 100, 3).close();
+
+        assertEquals(1, reader.segments().size());
+        assertEquals(0, reader.read(null).size());
+    }
+
+    private SimulationContext previous;
+
+    private Path directory;
+}